@@ -0,0 +1,232 @@
+package com.jvn.core.assets;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least-recently-used cache for decoded assets, bounded by an estimate of their size in bytes
+ * rather than by count. Pinned entries are never evicted, so assets on screen stay resident even
+ * when the budget is exceeded; they become evictable again once unpinned. Safe to share between
+ * threads, loaders run outside the lock. {@link #prefetch} loads on an executor ahead of use; a
+ * {@link #get} for a key whose prefetch is already running waits for it, and one whose prefetch is
+ * still queued takes the load over and runs it on the calling thread.
+ */
+public class AssetCache<V> {
+  private final ToLongFunction<V> sizer;
+  private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+  private final Map<String, Integer> pins = new HashMap<>();
+  private final Map<String, Pending<V>> loading = new HashMap<>();
+  private long maxBytes;
+  private long bytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long prefetches;
+
+  private static final class Entry<V> {
+    final V value;
+    final long bytes;
+    Entry(V value, long bytes) { this.value = value; this.bytes = bytes; }
+  }
+
+  private static final class Pending<V> {
+    final CompletableFuture<V> future = new CompletableFuture<>();
+    // set under the cache lock by whichever of the prefetch task or a get runs the loader
+    boolean started;
+  }
+
+  public AssetCache(long maxBytes, ToLongFunction<V> sizer) {
+    if (sizer == null) throw new IllegalArgumentException("sizer");
+    this.maxBytes = Math.max(0, maxBytes);
+    this.sizer = sizer;
+  }
+
+  /** Returns the cached value, or loads, caches and returns it. Null results are not cached. */
+  public V get(String key, Function<String, ? extends V> loader) {
+    Pending<V> running = null;
+    Pending<V> claimed = null;
+    synchronized (this) {
+      Entry<V> e = entries.get(key);
+      if (e != null) {
+        hits++;
+        return e.value;
+      }
+      misses++;
+      Pending<V> p = loading.get(key);
+      if (p != null && p.started) {
+        running = p;
+      } else if (p != null) {
+        // the executor has not got to it yet; waiting would only add its queue to our latency
+        p.started = true;
+        claimed = p;
+      }
+    }
+    if (running != null) {
+      V loaded = running.future.join();
+      if (loaded != null) return loaded;
+    }
+    V value = null;
+    try {
+      value = loader.apply(key);
+    } finally {
+      if (claimed != null) finishLoad(key, value, claimed);
+    }
+    if (value == null || claimed != null) return value;
+    synchronized (this) {
+      Entry<V> raced = entries.get(key);
+      if (raced != null) return raced.value;
+      insert(key, value);
+    }
+    return value;
+  }
+
+  /**
+   * Starts loading the key on the executor unless it is cached or already loading. The future
+   * completes with the value, or null if it could not be loaded or the executor refused the task.
+   */
+  public CompletableFuture<V> prefetch(String key, Function<String, ? extends V> loader, Executor executor) {
+    Pending<V> pending;
+    synchronized (this) {
+      Entry<V> e = entries.get(key);
+      if (e != null) return CompletableFuture.completedFuture(e.value);
+      pending = loading.get(key);
+      if (pending != null) return pending.future;
+      pending = new Pending<>();
+      loading.put(key, pending);
+      prefetches++;
+    }
+    Pending<V> p = pending;
+    try {
+      executor.execute(() -> runPrefetch(key, loader, p));
+    } catch (RejectedExecutionException ex) {
+      synchronized (this) { loading.remove(key, p); }
+      p.future.complete(null);
+    }
+    return p.future;
+  }
+
+  private void runPrefetch(String key, Function<String, ? extends V> loader, Pending<V> pending) {
+    synchronized (this) {
+      if (pending.started) return;
+      pending.started = true;
+    }
+    V value = null;
+    try {
+      value = loader.apply(key);
+    } catch (RuntimeException ex) {
+      System.err.println("Prefetch failed for " + key + ": " + ex);
+    }
+    finishLoad(key, value, pending);
+  }
+
+  private void finishLoad(String key, V value, Pending<V> pending) {
+    synchronized (this) {
+      loading.remove(key, pending);
+      if (value != null && !entries.containsKey(key)) insert(key, value);
+    }
+    pending.future.complete(value);
+  }
+
+  public synchronized boolean isLoading(String key) { return loading.containsKey(key); }
+
+  /** Cached value without loading and without counting a hit or miss. */
+  public synchronized V peek(String key) {
+    Entry<V> e = entries.get(key);
+    return e != null ? e.value : null;
+  }
+
+  public synchronized boolean contains(String key) { return entries.containsKey(key); }
+
+  public synchronized void put(String key, V value) {
+    if (key == null || value == null) return;
+    Entry<V> old = entries.remove(key);
+    if (old != null) bytes -= old.bytes;
+    insert(key, value);
+  }
+
+  public synchronized void remove(String key) {
+    Entry<V> old = entries.remove(key);
+    if (old != null) bytes -= old.bytes;
+  }
+
+  /** Drops every unpinned entry. */
+  public synchronized void clear() {
+    Iterator<Map.Entry<String, Entry<V>>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, Entry<V>> e = it.next();
+      if (pins.containsKey(e.getKey())) continue;
+      bytes -= e.getValue().bytes;
+      it.remove();
+    }
+  }
+
+  /** Keeps the key resident until a matching {@link #unpin}. Pins nest and may precede loading. */
+  public synchronized void pin(String key) {
+    if (key != null) pins.merge(key, 1, Integer::sum);
+  }
+
+  public synchronized void unpin(String key) {
+    if (key == null) return;
+    Integer n = pins.get(key);
+    if (n == null) return;
+    if (n <= 1) pins.remove(key);
+    else pins.put(key, n - 1);
+    trim();
+  }
+
+  public synchronized boolean isPinned(String key) { return pins.containsKey(key); }
+
+  public synchronized void setMaxBytes(long maxBytes) {
+    this.maxBytes = Math.max(0, maxBytes);
+    trim();
+  }
+
+  public synchronized long getMaxBytes() { return maxBytes; }
+  public synchronized long getBytes() { return bytes; }
+  public synchronized int size() { return entries.size(); }
+  public synchronized long getHits() { return hits; }
+  public synchronized long getMisses() { return misses; }
+  public synchronized long getEvictions() { return evictions; }
+  /** Loads started by {@link #prefetch}. */
+  public synchronized long getPrefetches() { return prefetches; }
+
+  public synchronized void resetStats() {
+    hits = 0;
+    misses = 0;
+    evictions = 0;
+    prefetches = 0;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "AssetCache[" + entries.size() + " entries, " + bytes + "/" + maxBytes + " bytes, hits=" + hits
+        + ", misses=" + misses + ", evictions=" + evictions + "]";
+  }
+
+  private void insert(String key, V value) {
+    long size = Math.max(0, sizer.applyAsLong(value));
+    entries.put(key, new Entry<>(value, size));
+    bytes += size;
+    trim();
+  }
+
+  /** Evicts least recently used, unpinned entries until the cache fits its budget. */
+  private void trim() {
+    if (bytes <= maxBytes) return;
+    Iterator<Map.Entry<String, Entry<V>>> it = entries.entrySet().iterator();
+    while (bytes > maxBytes && it.hasNext()) {
+      Map.Entry<String, Entry<V>> e = it.next();
+      if (pins.containsKey(e.getKey())) continue;
+      bytes -= e.getValue().bytes;
+      it.remove();
+      evictions++;
+    }
+  }
+}
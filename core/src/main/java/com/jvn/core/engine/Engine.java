@@ -12,6 +12,10 @@ public class Engine {
   private final SceneManager sceneManager = new SceneManager();
   private final Input input = new Input();
   private final TweenRunner tweens = new TweenRunner();
+  private long fixedStepMs = 0; // 0 = pass the frame delta straight through
+  private int maxStepsPerFrame = 5;
+  private long accumulatorMs;
+  private double interpolationAlpha = 1.0;
 
   public Engine(ApplicationConfig config) {
     this.config = config;
@@ -33,16 +37,53 @@ public class Engine {
     return config;
   }
 
+   /**
+    * Switch to fixed-step simulation: frame time is accumulated and scenes are updated in
+    * {@code stepMs} increments, at most {@code maxStepsPerFrame} times per frame. Time beyond that
+    * cap is dropped so a long hitch cannot snowball. Pass 0 to go back to variable steps.
+    */
+   public void setFixedStep(long stepMs, int maxStepsPerFrame) {
+     this.fixedStepMs = Math.max(0, stepMs);
+     this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+     this.accumulatorMs = 0;
+     this.interpolationAlpha = 1.0;
+   }
+
+   public boolean isFixedStep() { return fixedStepMs > 0; }
+   public long getFixedStepMs() { return fixedStepMs; }
+   public int getMaxStepsPerFrame() { return maxStepsPerFrame; }
+
+   /** Fraction of a fixed step left in the accumulator, for blending the last two states when rendering. */
+   public double getInterpolationAlpha() { return interpolationAlpha; }
+
    public void update(long deltaMs) {
      if (!started) return;
+     if (fixedStepMs <= 0) {
+       simulate(deltaMs);
+       // Clear per-frame input edges
+       input.endFrame();
+       return;
+     }
+     accumulatorMs += Math.max(0, deltaMs);
+     int steps = 0;
+     while (accumulatorMs >= fixedStepMs && steps < maxStepsPerFrame) {
+       simulate(fixedStepMs);
+       accumulatorMs -= fixedStepMs;
+       // Input edges are seen by exactly one step; frames without a step keep them for the next one
+       if (steps == 0) input.endFrame();
+       steps++;
+     }
+     if (accumulatorMs >= fixedStepMs) accumulatorMs %= fixedStepMs;
+     interpolationAlpha = (double) accumulatorMs / fixedStepMs;
+   }
+
+   private void simulate(long deltaMs) {
      // Update global tween runner
      tweens.update(deltaMs);
      Scene current = sceneManager.peek();
      if (current != null) {
        current.update(deltaMs);
      }
-     // Clear per-frame input edges
-     input.endFrame();
    }
 
    public SceneManager scenes() {
@@ -8,6 +8,7 @@ import com.jvn.core.vn.VnScene;
 import com.jvn.core.vn.VnScenario;
 import com.jvn.core.vn.save.VnSaveData;
 import com.jvn.core.vn.save.VnSaveManager;
+import com.jvn.core.vn.save.VnSaveMetadata;
 import com.jvn.core.vn.script.VnScriptParser;
 import com.jvn.core.engine.Engine;
 import com.jvn.core.audio.AudioFacade;
@@ -15,12 +16,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
-import java.util.Comparator;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,6 +33,10 @@ public class LoadMenuScene implements Scene {
   private final String defaultScriptName;
   private final AudioFacade audio;
   private final List<String> saves = new ArrayList<>();
+  private final Map<String, VnSaveMetadata> metadata = new HashMap<>();
+  // preview lookups parse scripts, so both are done once per menu
+  private final Map<String, VnScenario> scenarios = new HashMap<>();
+  private final Map<String, String> previewPaths = new HashMap<>();
   private int selected = 0;
 
   public LoadMenuScene(Engine engine, VnSaveManager saveManager, String defaultScriptName, com.jvn.core.vn.VnSettings settingsModel, AudioFacade audio) {
@@ -42,56 +48,39 @@ public class LoadMenuScene implements Scene {
   }
 
   public Long getSelectedTimestamp() {
-    String name = getSelectedName();
-    if (name == null) return null;
-    try {
-      VnSaveData data = saveManager.load(name);
-      return data.getSaveTimestamp();
-    } catch (Exception ignored) {
-      return null;
-    }
+    VnSaveMetadata m = getSelectedMetadata();
+    return m != null ? m.getSaveTimestamp() : null;
   }
 
   public String getSelectedScenarioId() {
-    String name = getSelectedName();
-    if (name == null) return null;
-    try {
-      VnSaveData data = saveManager.load(name);
-      return data.getScenarioId();
-    } catch (Exception ignored) {
-      return null;
-    }
+    VnSaveMetadata m = getSelectedMetadata();
+    return m != null ? m.getScenarioId() : null;
   }
 
   public Integer getSelectedNodeIndex() {
+    VnSaveMetadata m = getSelectedMetadata();
+    return m != null ? m.getNodeIndex() : null;
+  }
+
+  /** Metadata of the selected save from the index; reading it does no disk I/O. */
+  public VnSaveMetadata getSelectedMetadata() {
     String name = getSelectedName();
-    if (name == null) return null;
-    try {
-      VnSaveData data = saveManager.load(name);
-      return data.getCurrentNodeIndex();
-    } catch (Exception ignored) {
-      return null;
-    }
+    return name != null ? metadata.get(name) : null;
+  }
+
+  /** Thumbnail written next to the selected save, or null if it has none. */
+  public File getSelectedThumbnail() {
+    VnSaveMetadata m = getSelectedMetadata();
+    return m != null && m.hasThumbnail() ? new File(saveManager.getSaveDirectory(), m.getName() + ".png") : null;
   }
 
   public void refresh() {
     saves.clear();
-    List<String> names = new ArrayList<>(saveManager.listSaves());
-    try {
-      var times = new HashMap<String, Long>();
-      for (String n : names) {
-        try {
-          VnSaveData d = saveManager.load(n);
-          times.put(n, d.getSaveTimestamp());
-        } catch (Exception e) {
-          times.put(n, 0L);
-        }
-      }
-      names.sort(Comparator.comparing((String n) -> times.getOrDefault(n, 0L)).reversed());
-    } catch (Exception e) {
-      // ignore sort issues, fall back to unsorted
+    metadata.clear();
+    for (VnSaveMetadata m : saveManager.listSaveMetadata()) {
+      saves.add(m.getName());
+      metadata.put(m.getName(), m);
     }
-    saves.addAll(names);
     if (selected >= saves.size()) selected = Math.max(0, saves.size() - 1);
   }
 
@@ -124,25 +113,32 @@ public class LoadMenuScene implements Scene {
 
   /**
    * Try to provide a preview image path for the selected save.
-   * Uses the currentBackgroundId from the saved data and maps it via the scenario's backgrounds.
+   * Uses the background id from the save metadata and maps it via the scenario's backgrounds.
    * Returns a classpath resource path (e.g., game/images/bg_room.png) or null on failure.
+   * Results are cached, so this is cheap to call every frame.
    */
   public String getSelectedPreviewImagePath() {
-    String name = getSelectedName();
-    if (name == null) return null;
+    VnSaveMetadata m = getSelectedMetadata();
+    if (m == null || m.getBackgroundId() == null) return null;
+    String key = m.getScenarioId() + "|" + m.getBackgroundId();
+    if (previewPaths.containsKey(key)) return previewPaths.get(key);
+    String path = null;
     try {
-      VnSaveData data = saveManager.load(name);
-      String bgId = data.getCurrentBackgroundId();
-      if (bgId == null) return null;
-      String scenId = data.getScenarioId();
-      String script = scenId != null ? resolveScriptForScenarioId(scenId) : null;
-      VnScenario scen = loadScenario(script != null ? script : defaultScriptName);
-      if (scen == null) return null;
-      com.jvn.core.vn.VnBackground bg = scen.getBackground(bgId);
-      return bg != null ? bg.getImagePath() : null;
+      VnScenario scen = scenarioFor(m.getScenarioId());
+      com.jvn.core.vn.VnBackground bg = scen != null ? scen.getBackground(m.getBackgroundId()) : null;
+      path = bg != null ? bg.getImagePath() : null;
     } catch (Exception ignored) {
-      return null;
     }
+    previewPaths.put(key, path);
+    return path;
+  }
+
+  private VnScenario scenarioFor(String scenarioId) {
+    if (scenarios.containsKey(scenarioId)) return scenarios.get(scenarioId);
+    String script = scenarioId != null ? resolveScriptForScenarioId(scenarioId) : null;
+    VnScenario scen = loadScenario(script != null ? script : defaultScriptName);
+    scenarios.put(scenarioId, scen);
+    return scen;
   }
 
   public void loadSelected() {
@@ -157,6 +153,7 @@ public class LoadMenuScene implements Scene {
       }
       VnScenario scenario = loadScenario(script != null ? script : defaultScriptName);
       VnScene scene = new VnScene(scenario);
+      scene.getState().setReadTracker(saveManager.getReadTracker());
       if (audio != null) scene.setAudioFacade(audio);
       saveManager.applyToState(data, scene.getState());
       if (audio != null) {
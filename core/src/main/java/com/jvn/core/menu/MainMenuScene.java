@@ -57,6 +57,7 @@ public class MainMenuScene implements Scene {
   private void startNewGame() {
     VnScenario scenario = loadScenario(defaultScriptName);
     VnScene vnScene = new VnScene(scenario);
+    vnScene.getState().setReadTracker(saveManager.getReadTracker());
     if (audio != null) vnScene.setAudioFacade(audio);
     // Apply settings model to scene settings
     VnSettings s = vnScene.getState().getSettings();
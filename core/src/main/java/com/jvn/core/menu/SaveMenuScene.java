@@ -8,18 +8,17 @@ import com.jvn.core.vn.VnBackground;
 import com.jvn.core.vn.VnScene;
 import com.jvn.core.vn.VnScenario;
 import com.jvn.core.vn.save.VnSaveManager;
+import com.jvn.core.vn.save.VnSaveMetadata;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Save menu for creating/overwriting/deleting/renaming save slots.
@@ -31,6 +30,7 @@ public class SaveMenuScene implements Scene {
   private final VnScene currentVnScene;
   private int selected = 0;
   private List<String> saves = new ArrayList<>();
+  private final Map<String, VnSaveMetadata> metadata = new HashMap<>();
 
   public SaveMenuScene(Engine engine, VnSaveManager saveManager, VnScene vnScene) {
     this.engine = engine;
@@ -40,18 +40,11 @@ public class SaveMenuScene implements Scene {
   }
 
   public void refresh() {
-    List<String> list = new ArrayList<>(saveManager.listSaves());
-    try {
-      var times = new HashMap<String, Long>();
-      for (String n : list) {
-        try {
-          times.put(n, saveManager.load(n).getSaveTimestamp());
-        } catch (Exception e) {
-          times.put(n, 0L);
-        }
-      }
-      list.sort(Comparator.comparing((String n) -> times.getOrDefault(n, 0L)).reversed());
-    } catch (Exception e) {
+    List<String> list = new ArrayList<>();
+    metadata.clear();
+    for (VnSaveMetadata m : saveManager.listSaveMetadata()) {
+      list.add(m.getName());
+      metadata.put(m.getName(), m);
     }
     this.saves = list;
     if (selected >= getEntriesCount()) selected = getEntriesCount() - 1;
@@ -83,21 +76,22 @@ public class SaveMenuScene implements Scene {
 
   public void saveNew(String name) {
     if (name == null || name.isBlank()) return;
-    try {
-      saveManager.save(currentVnScene.getState(), name);
-      writeThumbnailFor(name);
-      refresh();
-      engine.scenes().pop();
-    } catch (Exception ignored) { }
+    saveInBackground(name);
   }
 
   public void saveOverwriteSelected() {
     String name = getSelectedName();
     if (name == null) return;
+    saveInBackground(name);
+  }
+
+  /** Captures the state now and leaves the menu; the save and its thumbnail are written in the background. */
+  private void saveInBackground(String name) {
     try {
-      saveManager.save(currentVnScene.getState(), name);
-      writeThumbnailFor(name);
-      refresh();
+      saveManager.saveAsync(currentVnScene.getState(), name, thumbnailFor(getCurrentBackgroundPreviewPath()))
+          .whenComplete((v, e) -> {
+            if (e != null) System.err.println("Save '" + name + "' failed: " + (e.getCause() != null ? e.getCause() : e));
+          });
       engine.scenes().pop();
     } catch (Exception ignored) { }
   }
@@ -129,35 +123,32 @@ public class SaveMenuScene implements Scene {
   }
 
   public Long getSelectedTimestamp() {
+    VnSaveMetadata m = getSelectedMetadata();
+    return m != null ? m.getSaveTimestamp() : null;
+  }
+
+  /** Metadata of the selected save from the index; reading it does no disk I/O. */
+  public VnSaveMetadata getSelectedMetadata() {
     String name = getSelectedName();
-    if (name == null) return null;
-    try {
-      return saveManager.load(name).getSaveTimestamp();
-    } catch (Exception ignored) { return null; }
+    return name != null ? metadata.get(name) : null;
   }
 
-  private void writeThumbnailFor(String name) {
-    try {
-      var state = currentVnScene.getState();
-      String bgId = state.getCurrentBackgroundId();
-      if (bgId == null) return;
-      VnScenario scen = state.getScenario();
-      if (scen == null) return;
-      VnBackground bg = scen.getBackground(bgId);
-      if (bg == null) return;
-      String path = bg.getImagePath();
-      if (path == null) return;
-      AssetCatalog assets = new AssetCatalog();
-      try (InputStream in = assets.open(AssetType.IMAGE, path)) {
-        if (in == null) return;
-        BufferedImage bi = ImageIO.read(in);
-        if (bi == null) return;
-        Path dir = Paths.get(saveManager.getSaveDirectory());
-        Files.createDirectories(dir);
-        File out = dir.resolve(name + ".png").toFile();
-        ImageIO.write(bi, "png", out);
+  /** Thumbnail written next to the selected save, or null if it has none. */
+  public File getSelectedThumbnail() {
+    VnSaveMetadata m = getSelectedMetadata();
+    return m != null && m.hasThumbnail() ? new File(saveManager.getSaveDirectory(), m.getName() + ".png") : null;
+  }
+
+  /** Reads the background image as the thumbnail; runs on the save writer thread. */
+  private static Supplier<BufferedImage> thumbnailFor(String path) {
+    if (path == null) return null;
+    return () -> {
+      try (InputStream in = new AssetCatalog().open(AssetType.IMAGE, path)) {
+        return in != null ? ImageIO.read(in) : null;
+      } catch (Exception e) {
+        return null;
       }
-    } catch (Exception ignored) { }
+    };
   }
 
   @Override public void onEnter() { }
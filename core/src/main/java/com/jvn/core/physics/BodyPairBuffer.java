@@ -0,0 +1,37 @@
+package com.jvn.core.physics;
+
+import java.util.Arrays;
+
+/**
+ * Reusable list of body index pairs, packed as {@code (i << 32) | j} with {@code i < j}.
+ * After {@link #sortUnique()} the pairs are in the same order the naive i/j loop visits them,
+ * which keeps collision resolution deterministic regardless of the broad-phase used.
+ */
+public final class BodyPairBuffer {
+  private long[] keys = new long[256];
+  private int size;
+  private final LongSorter sorter = new LongSorter();
+
+  public void clear() { size = 0; }
+  public int size() { return size; }
+
+  public void add(int i, int j) {
+    if (i == j) return;
+    if (i > j) { int t = i; i = j; j = t; }
+    if (size == keys.length) keys = Arrays.copyOf(keys, size * 2);
+    keys[size++] = ((long) i << 32) | (j & 0xffffffffL);
+  }
+
+  public int first(int k) { return (int) (keys[k] >>> 32); }
+  public int second(int k) { return (int) keys[k]; }
+
+  public void sortUnique() {
+    if (size < 2) return;
+    sorter.sort(keys, size);
+    int w = 1;
+    for (int r = 1; r < size; r++) {
+      if (keys[r] != keys[w - 1]) keys[w++] = keys[r];
+    }
+    size = w;
+  }
+}
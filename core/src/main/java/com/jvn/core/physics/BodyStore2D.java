@@ -0,0 +1,162 @@
+package com.jvn.core.physics;
+
+import com.jvn.core.math.Rect;
+
+import java.util.Arrays;
+
+/**
+ * Packed structure-of-arrays storage for rigid bodies. Bound {@link RigidBody2D} instances become
+ * thin handles that read and write these arrays through their slot. Slots are partitioned into awake
+ * dynamic bodies {@code [0, activeCount)}, sleeping ones {@code [activeCount, dynamicCount)} and
+ * static ones after that, so the integrator runs over contiguous primitive arrays without per-body
+ * branches.
+ */
+public final class BodyStore2D {
+  static final int FLAG_STATIC = 1;
+  static final int FLAG_SENSOR = 2;
+  static final int FLAG_CIRCLE = 4;
+  static final int FLAG_SLEEPING = 8;
+
+  double[] x = new double[64];   // AABB top-left or circle centre, matching RigidBody2D.getX()
+  double[] y = new double[64];
+  double[] w = new double[64];   // AABB width, or circle radius
+  double[] h = new double[64];   // AABB height, or circle radius
+  double[] vx = new double[64];
+  double[] vy = new double[64];
+  double[] mass = new double[64];
+  double[] restitution = new double[64];
+  int[] flags = new int[64];
+  RigidBody2D[] owners = new RigidBody2D[64];
+  int size;
+  int activeCount;
+  int dynamicCount;
+
+  public int size() { return size; }
+  public int activeCount() { return activeCount; }
+  public int dynamicCount() { return dynamicCount; }
+
+  void add(RigidBody2D b) {
+    ensureCapacity(size + 1);
+    int s = size++;
+    owners[s] = b;
+    b.copyInto(this, s);
+    b.bind(this, s);
+    if ((flags[s] & FLAG_STATIC) != 0) return;
+    swap(s, dynamicCount);
+    s = dynamicCount++;
+    if ((flags[s] & FLAG_SLEEPING) == 0) swap(s, activeCount++);
+  }
+
+  void remove(RigidBody2D b) {
+    int s = b.slot();
+    if (s < 0 || owners[s] != b) return;
+    b.unbind();
+    // Walk the slot out through each partition boundary, then drop it off the end
+    if (s < activeCount) {
+      swap(s, activeCount - 1);
+      s = --activeCount;
+    }
+    if (s < dynamicCount) {
+      swap(s, dynamicCount - 1);
+      s = --dynamicCount;
+    }
+    swap(s, size - 1);
+    owners[--size] = null;
+  }
+
+  void setStatic(int s, boolean isStatic) {
+    boolean was = (flags[s] & FLAG_STATIC) != 0;
+    if (was == isStatic) return;
+    if (isStatic) {
+      if (s < activeCount) {
+        swap(s, activeCount - 1);
+        s = --activeCount;
+      }
+      flags[s] = (flags[s] | FLAG_STATIC) & ~FLAG_SLEEPING;
+      swap(s, --dynamicCount);
+    } else {
+      flags[s] &= ~FLAG_STATIC;
+      swap(s, dynamicCount);
+      swap(dynamicCount++, activeCount++);
+    }
+  }
+
+  void setSleeping(int s, boolean sleeping) {
+    if ((flags[s] & FLAG_STATIC) != 0) return;
+    boolean was = (flags[s] & FLAG_SLEEPING) != 0;
+    if (was == sleeping) return;
+    if (sleeping) {
+      flags[s] |= FLAG_SLEEPING;
+      swap(s, --activeCount);
+    } else {
+      flags[s] &= ~FLAG_SLEEPING;
+      swap(s, activeCount++);
+    }
+  }
+
+  /** Semi-implicit Euler over the awake dynamic slots. */
+  void integrate(double dt, double gx, double gy) {
+    int n = activeCount;
+    double[] x = this.x, y = this.y, vx = this.vx, vy = this.vy;
+    for (int i = 0; i < n; i++) {
+      vx[i] = vx[i] + gx * dt;
+      vy[i] = vy[i] + gy * dt;
+      x[i] = x[i] + vx[i] * dt;
+      y[i] = y[i] + vy[i] * dt;
+    }
+  }
+
+  /** Clamps awake dynamic slots into {@code bounds}, reflecting velocity with restitution. */
+  void resolveBounds(Rect bounds) {
+    double left = bounds.left(), right = bounds.right(), top = bounds.top(), bottom = bounds.bottom();
+    for (int i = 0; i < activeCount; i++) {
+      double e = restitution[i];
+      if ((flags[i] & FLAG_CIRCLE) != 0) {
+        double r = w[i];
+        if (x[i] - r < left) { x[i] = left + r; vx[i] = Math.abs(vx[i]) * e; }
+        if (x[i] + r > right) { x[i] = right - r; vx[i] = -Math.abs(vx[i]) * e; }
+        if (y[i] - r < top) { y[i] = top + r; vy[i] = Math.abs(vy[i]) * e; }
+        if (y[i] + r > bottom) { y[i] = bottom - r; vy[i] = -Math.abs(vy[i]) * e; }
+      } else {
+        if (x[i] < left) { x[i] = left; vx[i] = Math.abs(vx[i]) * e; }
+        if (x[i] + w[i] > right) { x[i] = right - w[i]; vx[i] = -Math.abs(vx[i]) * e; }
+        if (y[i] < top) { y[i] = top; vy[i] = Math.abs(vy[i]) * e; }
+        if (y[i] + h[i] > bottom) { y[i] = bottom - h[i]; vy[i] = -Math.abs(vy[i]) * e; }
+      }
+    }
+  }
+
+  RigidBody2D owner(int s) { return owners[s]; }
+
+  private void swap(int a, int b) {
+    if (a == b) return;
+    double t;
+    t = x[a]; x[a] = x[b]; x[b] = t;
+    t = y[a]; y[a] = y[b]; y[b] = t;
+    t = w[a]; w[a] = w[b]; w[b] = t;
+    t = h[a]; h[a] = h[b]; h[b] = t;
+    t = vx[a]; vx[a] = vx[b]; vx[b] = t;
+    t = vy[a]; vy[a] = vy[b]; vy[b] = t;
+    t = mass[a]; mass[a] = mass[b]; mass[b] = t;
+    t = restitution[a]; restitution[a] = restitution[b]; restitution[b] = t;
+    int f = flags[a]; flags[a] = flags[b]; flags[b] = f;
+    RigidBody2D o = owners[a]; owners[a] = owners[b]; owners[b] = o;
+    if (owners[a] != null) owners[a].bind(this, a);
+    if (owners[b] != null) owners[b].bind(this, b);
+  }
+
+  private void ensureCapacity(int n) {
+    if (x.length >= n) return;
+    int cap = Math.max(n, x.length * 2);
+    x = Arrays.copyOf(x, cap);
+    y = Arrays.copyOf(y, cap);
+    w = Arrays.copyOf(w, cap);
+    h = Arrays.copyOf(h, cap);
+    vx = Arrays.copyOf(vx, cap);
+    vy = Arrays.copyOf(vy, cap);
+    mass = Arrays.copyOf(mass, cap);
+    restitution = Arrays.copyOf(restitution, cap);
+    flags = Arrays.copyOf(flags, cap);
+    owners = Arrays.copyOf(owners, cap);
+  }
+}
@@ -0,0 +1,93 @@
+package com.jvn.core.physics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-step copy of body AABBs in flat arrays, shared by the broad-phase implementations. Bodies
+ * being swept this step get the box covering their start and end positions.
+ *
+ * <p>Sleeping bodies cannot move without waking, so they are split off as the resting set: their
+ * bounds are only rewritten when that set changes, which {@link #restingChanged} reports so the
+ * broad-phase can rebuild its resting structure then and only bin or sort the active bodies each step.
+ */
+final class BoundsCache {
+  double[] minX = new double[64];
+  double[] minY = new double[64];
+  double[] maxX = new double[64];
+  double[] maxY = new double[64];
+  int size;
+
+  int[] active = new int[64];
+  int activeCount;
+  int[] resting = new int[64];
+  int restingCount;
+  boolean restingChanged;
+
+  private RigidBody2D[] owners = new RigidBody2D[64];
+  private boolean[] rest = new boolean[64];
+  private double lastMargin = Double.NaN;
+
+  void fill(List<RigidBody2D> bodies, double margin) {
+    int n = bodies.size();
+    if (minX.length < n) {
+      int cap = Math.max(n, minX.length * 2);
+      minX = Arrays.copyOf(minX, cap);
+      minY = Arrays.copyOf(minY, cap);
+      maxX = Arrays.copyOf(maxX, cap);
+      maxY = Arrays.copyOf(maxY, cap);
+      active = Arrays.copyOf(active, cap);
+      resting = Arrays.copyOf(resting, cap);
+      owners = Arrays.copyOf(owners, cap);
+      rest = Arrays.copyOf(rest, cap);
+    }
+    // A different body at an index, e.g. after a removal, invalidates the resting set like a wake does
+    boolean changed = n != size || margin != lastMargin;
+    if (n < size) Arrays.fill(owners, n, size, null);
+    activeCount = 0;
+    for (int i = 0; i < n; i++) {
+      RigidBody2D b = bodies.get(i);
+      boolean r = b.isSleeping() && !b.isSensor();
+      if (owners[i] != b || rest[i] != r) {
+        owners[i] = b;
+        rest[i] = r;
+        changed = true;
+      }
+      if (r) {
+        // Cheap guard against a body moved and put back to sleep between two fills
+        if (!changed && (b.getMinX() - margin != minX[i] || b.getMinY() - margin != minY[i])) changed = true;
+        continue;
+      }
+      active[activeCount++] = i;
+      write(i, b, margin);
+    }
+    if (changed) {
+      restingCount = 0;
+      for (int i = 0; i < n; i++) {
+        if (!rest[i]) continue;
+        resting[restingCount++] = i;
+        write(i, owners[i], margin);
+      }
+    }
+    restingChanged = changed;
+    size = n;
+    lastMargin = margin;
+  }
+
+  private void write(int i, RigidBody2D b, double margin) {
+    double sx = b.sweepDx;
+    double sy = b.sweepDy;
+    minX[i] = b.getMinX() - margin - Math.max(0, sx);
+    minY[i] = b.getMinY() - margin - Math.max(0, sy);
+    maxX[i] = b.getMaxX() + margin - Math.min(0, sx);
+    maxY[i] = b.getMaxY() + margin - Math.min(0, sy);
+  }
+
+  boolean overlaps(int i, double x0, double y0, double x1, double y1) {
+    return maxX[i] >= x0 && minX[i] <= x1 && maxY[i] >= y0 && minY[i] <= y1;
+  }
+
+  boolean overlaps(int i, int j) {
+    return maxX[i] >= minX[j] && minX[i] <= maxX[j] && maxY[i] >= minY[j] && minY[i] <= maxY[j];
+  }
+}
@@ -0,0 +1,38 @@
+package com.jvn.core.physics;
+
+import java.util.Arrays;
+
+/** Reusable list of world-space boxes packed as {@code minX, minY, maxX, maxY}. */
+final class BoxBuffer {
+  private double[] data = new double[32];
+  private int size;
+
+  void clear() { size = 0; }
+  int size() { return size; }
+
+  void add(double minX, double minY, double maxX, double maxY) {
+    if (size * 4 == data.length) data = Arrays.copyOf(data, data.length * 2);
+    int o = size++ * 4;
+    data[o] = minX;
+    data[o + 1] = minY;
+    data[o + 2] = maxX;
+    data[o + 3] = maxY;
+  }
+
+  double minX(int k) { return data[k * 4]; }
+  double minY(int k) { return data[k * 4 + 1]; }
+  double maxX(int k) { return data[k * 4 + 2]; }
+  double maxY(int k) { return data[k * 4 + 3]; }
+
+  /** Replaces the boxes with the single box enclosing them all. */
+  void collapse() {
+    if (size < 2) return;
+    for (int k = 1; k < size; k++) {
+      data[0] = Math.min(data[0], minX(k));
+      data[1] = Math.min(data[1], minY(k));
+      data[2] = Math.max(data[2], maxX(k));
+      data[3] = Math.max(data[3], maxY(k));
+    }
+    size = 1;
+  }
+}
@@ -0,0 +1,33 @@
+package com.jvn.core.physics;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Produces candidate body pairs for the narrow phase of {@link PhysicsWorld2D#step(double)}.
+ * Pairs are written as indices into {@code bodies}; implementations only need to be conservative
+ * (every touching pair must be reported), the narrow phase rejects the rest.
+ */
+public interface BroadPhase2D {
+  void collectPairs(List<RigidBody2D> bodies, BodyPairBuffer out);
+
+  /**
+   * Rebuilds the structure from the bodies' current bounds so it can answer queries; collectPairs
+   * leaves it in the same state. Returns false when the implementation does not support queries.
+   */
+  default boolean refit(List<RigidBody2D> bodies) { return false; }
+
+  /** Reports the index of every body whose bounds may overlap the box. Indices may repeat. */
+  default void queryAabb(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {}
+
+  /** Reports the index of every body the segment may cross. Defaults to the segment's bounding box. */
+  default void querySegment(double x1, double y1, double x2, double y2, IntConsumer visitor) {
+    queryAabb(Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2), visitor);
+  }
+
+  /** Pairs the narrow phase would ignore anyway: two non-sensor bodies that are each static or sleeping. */
+  static boolean canInteract(RigidBody2D a, RigidBody2D b) {
+    if (a.isSensor() || b.isSensor()) return true;
+    return !(a.isInactive() && b.isInactive());
+  }
+}
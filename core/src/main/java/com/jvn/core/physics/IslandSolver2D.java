@@ -0,0 +1,144 @@
+package com.jvn.core.physics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Groups broad-phase pairs into contact islands and solves the islands on a ForkJoinPool.
+ * Static and sleeping bodies never join islands (the solver only reads them), so two islands never
+ * write the same body. Within an island pairs keep their global order, which makes the result identical to
+ * solving every pair serially in broad-phase order.
+ */
+final class IslandSolver2D {
+  private static final int PAIRS_PER_TASK = 256;
+
+  private final ForkJoinPool pool;
+  private int[] parent = new int[64];
+  private int[] islandOfBody = new int[64];
+  private int[] pairIsland = new int[256];
+  private int[] islandStart = new int[64];
+  private int[] orderedPairs = new int[256];
+  private boolean[] pairResult = new boolean[256];
+  private int islandCount;
+
+  IslandSolver2D(ForkJoinPool pool) { this.pool = pool; }
+
+  int islandCount() { return islandCount; }
+
+  /** Solves all pairs and returns the number that were in contact. */
+  int solve(PhysicsWorld2D world, List<RigidBody2D> bodies, BodyPairBuffer pairs) {
+    int n = bodies.size();
+    int m = pairs.size();
+    ensureCapacity(n, m);
+
+    for (int i = 0; i < n; i++) parent[i] = i;
+    for (int k = 0; k < m; k++) {
+      int i = pairs.first(k);
+      int j = pairs.second(k);
+      if (!bodies.get(i).isInactive() && !bodies.get(j).isInactive()) union(i, j);
+    }
+
+    // Number islands by the lowest body index they contain so the layout is deterministic
+    Arrays.fill(islandOfBody, 0, n, -1);
+    islandCount = 0;
+    for (int i = 0; i < n; i++) {
+      if (bodies.get(i).isInactive()) continue;
+      int r = find(i);
+      if (islandOfBody[r] < 0) islandOfBody[r] = islandCount++;
+      islandOfBody[i] = islandOfBody[r];
+    }
+    // Pairs between two inactive bodies only matter for sensors; they get a trailing island of their own
+    int staticIsland = islandCount;
+    if (islandStart.length < islandCount + 2) islandStart = new int[(islandCount + 2) * 2];
+    Arrays.fill(islandStart, 0, islandCount + 2, 0);
+    for (int k = 0; k < m; k++) {
+      int i = pairs.first(k);
+      int j = pairs.second(k);
+      int island = !bodies.get(i).isInactive() ? islandOfBody[i] : (!bodies.get(j).isInactive() ? islandOfBody[j] : staticIsland);
+      pairIsland[k] = island;
+      islandStart[island + 1]++;
+    }
+    for (int c = 0; c <= staticIsland; c++) islandStart[c + 1] += islandStart[c];
+    // Stable counting sort keeps the global pair order inside each island
+    for (int k = 0; k < m; k++) orderedPairs[islandStart[pairIsland[k]]++] = k;
+    for (int c = staticIsland; c > 0; c--) islandStart[c] = islandStart[c - 1];
+    islandStart[0] = 0;
+
+    pool.invoke(new SolveTask(world, bodies, pairs, 0, staticIsland + 1));
+
+    int contacts = 0;
+    for (int k = 0; k < m; k++) {
+      if (!pairResult[k]) continue;
+      contacts++;
+      world.dispatchDeferredSensor(bodies.get(pairs.first(k)), bodies.get(pairs.second(k)));
+    }
+    return contacts;
+  }
+
+  private void solveIslands(PhysicsWorld2D world, List<RigidBody2D> bodies, BodyPairBuffer pairs, int from, int to) {
+    for (int p = islandStart[from]; p < islandStart[to]; p++) {
+      int k = orderedPairs[p];
+      pairResult[k] = world.solvePairDeferred(bodies.get(pairs.first(k)), bodies.get(pairs.second(k)));
+    }
+  }
+
+  private final class SolveTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    // a fork/join task is never serialized; transient keeps the lint quiet about the solver state
+    private final transient PhysicsWorld2D world;
+    private final transient List<RigidBody2D> bodies;
+    private final transient BodyPairBuffer pairs;
+    private final int from;
+    private final int to;
+
+    SolveTask(PhysicsWorld2D world, List<RigidBody2D> bodies, BodyPairBuffer pairs, int from, int to) {
+      this.world = world;
+      this.bodies = bodies;
+      this.pairs = pairs;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= 1 || islandStart[to] - islandStart[from] <= PAIRS_PER_TASK) {
+        solveIslands(world, bodies, pairs, from, to);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(new SolveTask(world, bodies, pairs, from, mid), new SolveTask(world, bodies, pairs, mid, to));
+    }
+  }
+
+  private int find(int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  private void union(int a, int b) {
+    int ra = find(a);
+    int rb = find(b);
+    if (ra == rb) return;
+    if (ra < rb) parent[rb] = ra; else parent[ra] = rb;
+  }
+
+  private void ensureCapacity(int bodiesCount, int pairCount) {
+    if (parent.length < bodiesCount) {
+      int cap = Math.max(bodiesCount, parent.length * 2);
+      parent = new int[cap];
+      islandOfBody = new int[cap];
+    }
+    if (pairIsland.length < pairCount) {
+      int cap = Math.max(pairCount, pairIsland.length * 2);
+      pairIsland = new int[cap];
+      orderedPairs = new int[cap];
+      pairResult = new boolean[cap];
+    }
+  }
+}
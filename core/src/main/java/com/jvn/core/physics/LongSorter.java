@@ -0,0 +1,59 @@
+package com.jvn.core.physics;
+
+import java.util.Arrays;
+
+/**
+ * LSD radix sort for long keys with reusable buffers. {@link Arrays#sort(long[], int, int)} allocates
+ * a run table whenever the input is partly ordered, which frame-coherent broad-phase data always is;
+ * this keeps the step free of garbage and skips digits every key shares.
+ */
+final class LongSorter {
+  private static final int INSERTION_THRESHOLD = 64;
+
+  private long[] scratch = new long[256];
+  private final int[] counts = new int[8 * 256];
+
+  /** Sorts {@code a[0..n)} ascending as signed values. */
+  void sort(long[] a, int n) {
+    if (n < INSERTION_THRESHOLD) {
+      for (int i = 1; i < n; i++) {
+        long key = a[i];
+        int j = i - 1;
+        while (j >= 0 && a[j] > key) {
+          a[j + 1] = a[j];
+          j--;
+        }
+        a[j + 1] = key;
+      }
+      return;
+    }
+    if (scratch.length < n) scratch = new long[Math.max(n, scratch.length * 2)];
+    Arrays.fill(counts, 0);
+    for (int i = 0; i < n; i++) {
+      // Flipping the sign bit turns signed order into unsigned digit order
+      long k = a[i] ^ Long.MIN_VALUE;
+      for (int d = 0; d < 8; d++) counts[(d << 8) | (int) ((k >>> (d << 3)) & 0xFF)]++;
+    }
+    long[] src = a;
+    long[] dst = scratch;
+    for (int d = 0; d < 8; d++) {
+      int base = d << 8;
+      int shift = d << 3;
+      if (counts[base | (int) (((src[0] ^ Long.MIN_VALUE) >>> shift) & 0xFF)] == n) continue;
+      int sum = 0;
+      for (int b = 0; b < 256; b++) {
+        int c = counts[base + b];
+        counts[base + b] = sum;
+        sum += c;
+      }
+      for (int i = 0; i < n; i++) {
+        long v = src[i];
+        dst[counts[base | (int) (((v ^ Long.MIN_VALUE) >>> shift) & 0xFF)]++] = v;
+      }
+      long[] t = src;
+      src = dst;
+      dst = t;
+    }
+    if (src != a) System.arraycopy(src, 0, a, 0, n);
+  }
+}
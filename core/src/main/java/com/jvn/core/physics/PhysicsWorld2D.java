@@ -2,7 +2,10 @@ package com.jvn.core.physics;
 
 import com.jvn.core.math.Rect;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
 
 public class PhysicsWorld2D {
   private final List<RigidBody2D> bodies = new ArrayList<>();
@@ -10,10 +13,55 @@ public class PhysicsWorld2D {
   private double gravityY = 0;
   private Rect bounds; // optional world bounds, null = unbounded
   private final List<Rect> staticRects = new ArrayList<>();
+  private TileCollider2D tileCollider;
+  private BodyStore2D store; // non-null while packed storage is enabled
   private PhysicsSensorListener sensorListener;
+  private SensorContactListener contactListener;
+  private boolean sensorStayEvents;
+  private final SensorContactCache sensorContacts = new SensorContactCache();
+  private int frame;
+  private BroadPhase2D broadPhase; // null = test every pair
+  private final BodyPairBuffer pairs = new BodyPairBuffer();
+  private final StepStats stats = new StepStats();
+  private IslandSolver2D islandSolver; // non-null while parallel solving is enabled
+  private boolean sleepingEnabled;
+  private double sleepDrift = 0.5;
+  private double timeToSleep = 0.5;
+  private double restingSpeed2; // squared speed gravity gives a resting body in one step, with headroom
+  private final BoxBuffer wakeRegions = new BoxBuffer(); // removed or changed geometry, see wakeChangedRegions
+
+  // Continuous collision: flagged bodies, where they started the step, and their candidate
+  // partners from the pair pass grouped per body (partners of body k are ccdPartners[ccdStart[k]..ccdStart[k + 1]])
+  private static final double CCD_SKIN = 1e-4;
+  private static final int CCD_MAX_SWEEPS = 3;
+  private RigidBody2D[] ccdBodies = new RigidBody2D[8];
+  private double[] ccdStartX = new double[8];
+  private double[] ccdStartY = new double[8];
+  private int ccdCount;
+  private int[] ccdStart = new int[9];
+  private int[] ccdCursor = new int[8];
+  private int[] ccdPartners = new int[16];
+  private final RaycastHit ccdHit = new RaycastHit();
+
+  // Query state; the visitors are created once so queries do not allocate
+  private boolean queriesDirty = true;
+  private boolean queriesIndexed;
+  private int[] queryMark = new int[64];
+  private int queryStamp;
+  private final RaycastHit rayScratch = new RaycastHit();
+  private double rayX, rayY, rayDx, rayDy, rayLen;
+  private RaycastHit rayOut;
+  private double queryMinX, queryMinY, queryMaxX, queryMaxY;
+  private double queryCx, queryCy, queryR;
+  private boolean queryIsCircle;
+  private List<RigidBody2D> queryOut;
+  private final IntConsumer rayVisitor = this::castBody;
+  private final IntConsumer overlapVisitor = this::overlapBody;
 
   public static class RaycastHit {
-    public RigidBody2D body;
+    public boolean hit;
+    public RigidBody2D body; // null when static geometry was hit
+    public Rect rect; // static rect or merged tile rect that was hit, null for bodies
     public double x;
     public double y;
     public double nx;
@@ -21,188 +69,764 @@ public class PhysicsWorld2D {
     public double distance;
   }
 
+  /** Called on every step a sensor overlaps a body. */
   public interface PhysicsSensorListener {
     void onTrigger(RigidBody2D sensor, RigidBody2D other);
   }
 
+  /** Sensor overlap state changes, tracked per sensor/body pair across steps. */
+  public interface SensorContactListener {
+    void onSensorBegin(RigidBody2D sensor, RigidBody2D other);
+    /** Every further step the pair keeps overlapping; only called when stay events are enabled. */
+    default void onSensorStay(RigidBody2D sensor, RigidBody2D other) {}
+    void onSensorEnd(RigidBody2D sensor, RigidBody2D other);
+  }
+
+  /** Counters for the most recent {@link #step(double)}, overwritten every step. */
+  public static class StepStats {
+    public int bodies;
+    public int candidatePairs;
+    public int contacts;
+    public int islands;
+    public int sleeping;
+    public long integrateNanos;
+    public long broadPhaseNanos;
+    public long narrowPhaseNanos;
+  }
+
   public void setGravity(double gx, double gy) { this.gravityX = gx; this.gravityY = gy; }
   public void setBounds(Rect bounds) { this.bounds = bounds; }
-  public void addStaticRect(Rect r) { if (r != null) staticRects.add(r); }
-  public void clearStaticRects() { staticRects.clear(); }
+  public void addStaticRect(Rect r) {
+    if (r == null) return;
+    staticRects.add(r);
+    wakeRegions.add(r.left(), r.top(), r.right(), r.bottom());
+  }
+
+  public void clearStaticRects() {
+    for (int i = 0; i < staticRects.size(); i++) {
+      Rect r = staticRects.get(i);
+      wakeRegions.add(r.left(), r.top(), r.right(), r.bottom());
+    }
+    staticRects.clear();
+  }
+
+  public void setTileCollider(TileCollider2D collider) {
+    if (collider == tileCollider) return;
+    noteGrid(tileCollider);
+    noteGrid(collider);
+    this.tileCollider = collider;
+  }
+
+  private void noteGrid(TileCollider2D c) {
+    if (c == null) return;
+    c.changes().clear();
+    wakeRegions.add(c.getOriginX(), c.getOriginY(), c.getOriginX() + c.getCols() * c.getTileW(), c.getOriginY() + c.getRows() * c.getTileH());
+  }
+  public TileCollider2D getTileCollider() { return tileCollider; }
   public void setSensorListener(PhysicsSensorListener l) { this.sensorListener = l; }
 
-  public void addBody(RigidBody2D b) { if (b != null) bodies.add(b); }
-  public void removeBody(RigidBody2D b) { bodies.remove(b); }
+  public void setSensorContactListener(SensorContactListener l) {
+    this.contactListener = l;
+    if (l == null) sensorContacts.clear();
+  }
+
+  public SensorContactListener getSensorContactListener() { return contactListener; }
+  public void setSensorStayEvents(boolean enabled) { this.sensorStayEvents = enabled; }
+  public boolean isSensorStayEvents() { return sensorStayEvents; }
+  /** Number of sensor/body pairs currently overlapping, as of the last step. */
+  public int getSensorContactCount() { return sensorContacts.size(); }
+  public void setBroadPhase(BroadPhase2D broadPhase) { this.broadPhase = broadPhase; this.queriesDirty = true; }
+  public BroadPhase2D getBroadPhase() { return broadPhase; }
+  public StepStats getStepStats() { return stats; }
+
+  /**
+   * Splits candidate pairs into contact islands and solves independent islands on the common
+   * ForkJoinPool. Requires a broad-phase; without one the step stays serial. Body state matches the
+   * serial path bit-for-bit; sensor callbacks are delivered after solving, in the serial order.
+   */
+  public void setParallelSolving(boolean enabled) { setParallelSolving(enabled ? ForkJoinPool.commonPool() : null); }
+
+  public void setParallelSolving(ForkJoinPool pool) { this.islandSolver = pool != null ? new IslandSolver2D(pool) : null; }
+
+  public boolean isParallelSolving() { return islandSolver != null; }
+
+  /**
+   * Lets bodies that stay within the sleep drift of one spot for the sleep time drop out of
+   * integration and contact solving. Drift is measured on positions rather than velocities because
+   * resting bodies keep a gravity-sized velocity that contacts cancel every step. A sleeping body
+   * wakes when an awake body pushes into it faster than gravity alone would, on an impulse, when
+   * its position or velocity is set, or on the next step after a body, static rect or tile near it
+   * is removed or changed. Disabling wakes every body.
+   */
+  public void setSleepingEnabled(boolean enabled) {
+    this.sleepingEnabled = enabled;
+    if (enabled) return;
+    for (int i = 0; i < bodies.size(); i++) {
+      if (bodies.get(i).isSleeping()) bodies.get(i).wake();
+    }
+  }
+
+  public boolean isSleepingEnabled() { return sleepingEnabled; }
+
+  public void setSleepThresholds(double drift, double seconds) {
+    this.sleepDrift = Math.max(0, drift);
+    this.timeToSleep = Math.max(0, seconds);
+  }
+
+  public double getSleepDrift() { return sleepDrift; }
+  public double getTimeToSleep() { return timeToSleep; }
+
+  public void addBody(RigidBody2D b) {
+    if (b == null) return;
+    bodies.add(b);
+    if (store != null) store.add(b);
+    queriesDirty = true;
+  }
+
+  public void removeBody(RigidBody2D b) {
+    if (!bodies.remove(b)) return;
+    // Anything sleeping on the body has lost its support
+    if (!b.isSensor()) wakeRegions.add(b.getMinX(), b.getMinY(), b.getMaxX(), b.getMaxY());
+    if (store != null) store.remove(b);
+    queriesDirty = true;
+  }
+
+  /**
+   * Queries see body positions as of the last step, add or remove. Call this after moving bodies
+   * by hand between steps.
+   */
+  public void invalidateQueries() { queriesDirty = true; }
+
+  /**
+   * Moves body state into a packed {@link BodyStore2D} so integration and bounds resolution run
+   * over primitive arrays. Bodies stay usable as handles; disabling copies the state back.
+   */
+  public void setPackedStorage(boolean enabled) {
+    if (enabled == (store != null)) return;
+    if (enabled) {
+      store = new BodyStore2D();
+      for (int i = 0; i < bodies.size(); i++) store.add(bodies.get(i));
+    } else {
+      for (int i = 0; i < bodies.size(); i++) store.remove(bodies.get(i));
+      store = null;
+    }
+  }
+
+  public boolean isPackedStorage() { return store != null; }
   public List<RigidBody2D> getBodies() { return bodies; }
 
+  /** Closest body hit along the segment, ignoring static geometry; null when nothing is hit. */
   public RaycastHit raycast(double x1, double y1, double x2, double y2) {
-    double dx = x2 - x1;
-    double dy = y2 - y1;
-    double segLen = Math.sqrt(dx * dx + dy * dy);
-    if (segLen == 0) return null;
-    RaycastHit best = null;
-    double bestDist = Double.POSITIVE_INFINITY;
-    for (RigidBody2D b : bodies) {
-      RaycastHit hit = (b.getShapeType() == RigidBody2D.ShapeType.CIRCLE)
-          ? raycastCircle(b, x1, y1, dx, dy, segLen)
-          : raycastAabb(b, x1, y1, dx, dy);
-      if (hit != null && hit.distance < bestDist) {
-        bestDist = hit.distance;
-        best = hit;
+    RaycastHit hit = new RaycastHit();
+    return castBodies(x1, y1, x2, y2, hit) ? hit : null;
+  }
+
+  /**
+   * Closest hit along the segment against bodies, static rects and the tile collider, written into
+   * {@code out}. Returns {@code out.hit}. Bodies are found through the broad-phase when it supports
+   * queries. Queries are not thread-safe.
+   */
+  public boolean raycast(double x1, double y1, double x2, double y2, RaycastHit out) {
+    castBodies(x1, y1, x2, y2, out);
+    if (rayLen == 0) return false;
+    for (int i = 0; i < staticRects.size(); i++) castStatic(staticRects.get(i), out);
+    if (tileCollider != null) {
+      Rect tile = tileCollider.raycastRect(x1, y1, x2, y2);
+      if (tile != null) castStatic(tile, out);
+    }
+    return out.hit;
+  }
+
+  /**
+   * Casts {@code count} segments packed as {@code x1, y1, x2, y2} in {@code segments}, writing each
+   * result into {@code out[k]} (allocated on first use when null). Returns the number of hits.
+   */
+  public int raycastBatch(double[] segments, int count, RaycastHit[] out) {
+    int hits = 0;
+    for (int k = 0; k < count; k++) {
+      if (out[k] == null) out[k] = new RaycastHit();
+      int o = k * 4;
+      if (raycast(segments[o], segments[o + 1], segments[o + 2], segments[o + 3], out[k])) hits++;
+    }
+    return hits;
+  }
+
+  /** Appends bodies overlapping the box to {@code out}; returns how many were added. */
+  public int queryAabb(double minX, double minY, double maxX, double maxY, List<RigidBody2D> out) {
+    queryIsCircle = false;
+    return queryBodies(minX, minY, maxX, maxY, out);
+  }
+
+  /** Appends bodies overlapping the circle to {@code out}; returns how many were added. */
+  public int queryCircle(double cx, double cy, double r, List<RigidBody2D> out) {
+    queryIsCircle = true;
+    queryCx = cx;
+    queryCy = cy;
+    queryR = r;
+    return queryBodies(cx - r, cy - r, cx + r, cy + r, out);
+  }
+
+  /** Appends static rects and merged tile rects overlapping the box to {@code out}; returns how many were added. */
+  public int queryStatic(double minX, double minY, double maxX, double maxY, List<Rect> out) {
+    int before = out.size();
+    for (int i = 0; i < staticRects.size(); i++) {
+      Rect r = staticRects.get(i);
+      if (r.right() >= minX && r.left() <= maxX && r.bottom() >= minY && r.top() <= maxY) out.add(r);
+    }
+    if (tileCollider != null) {
+      int count = tileCollider.query(minX, minY, maxX, maxY);
+      for (int k = 0; k < count; k++) out.add(tileCollider.queryResult(k));
+    }
+    return out.size() - before;
+  }
+
+  private boolean castBodies(double x1, double y1, double x2, double y2, RaycastHit out) {
+    out.hit = false;
+    out.body = null;
+    out.rect = null;
+    out.distance = Double.POSITIVE_INFINITY;
+    rayX = x1;
+    rayY = y1;
+    rayDx = x2 - x1;
+    rayDy = y2 - y1;
+    rayLen = Math.sqrt(rayDx * rayDx + rayDy * rayDy);
+    if (rayLen == 0) return false;
+    rayOut = out;
+    if (beginQuery()) {
+      broadPhase.querySegment(x1, y1, x2, y2, rayVisitor);
+    } else {
+      for (int i = 0; i < bodies.size(); i++) castBody(i);
+    }
+    rayOut = null;
+    return out.hit;
+  }
+
+  private void castBody(int i) {
+    if (queryMark[i] == queryStamp) return;
+    queryMark[i] = queryStamp;
+    RigidBody2D b = bodies.get(i);
+    boolean hit = (b.getShapeType() == RigidBody2D.ShapeType.CIRCLE)
+        ? raycastCircle(b.getX(), b.getY(), b.getRadius(), rayX, rayY, rayDx, rayDy, rayLen, rayScratch)
+        : raycastBox(b.getMinX(), b.getMinY(), b.getMaxX(), b.getMaxY(), rayX, rayY, rayDx, rayDy, rayLen, rayScratch);
+    if (hit && rayScratch.distance < rayOut.distance) copyHit(rayScratch, b, null, rayOut);
+  }
+
+  private void castStatic(Rect r, RaycastHit out) {
+    if (raycastBox(r.left(), r.top(), r.right(), r.bottom(), rayX, rayY, rayDx, rayDy, rayLen, rayScratch)
+        && rayScratch.distance < out.distance) {
+      copyHit(rayScratch, null, r, out);
+    }
+  }
+
+  private static void copyHit(RaycastHit from, RigidBody2D body, Rect rect, RaycastHit to) {
+    to.hit = true;
+    to.body = body;
+    to.rect = rect;
+    to.x = from.x;
+    to.y = from.y;
+    to.nx = from.nx;
+    to.ny = from.ny;
+    to.distance = from.distance;
+  }
+
+  private int queryBodies(double minX, double minY, double maxX, double maxY, List<RigidBody2D> out) {
+    queryMinX = minX;
+    queryMinY = minY;
+    queryMaxX = maxX;
+    queryMaxY = maxY;
+    queryOut = out;
+    int before = out.size();
+    if (beginQuery()) {
+      broadPhase.queryAabb(minX, minY, maxX, maxY, overlapVisitor);
+    } else {
+      for (int i = 0; i < bodies.size(); i++) overlapBody(i);
+    }
+    queryOut = null;
+    return out.size() - before;
+  }
+
+  private void overlapBody(int i) {
+    if (queryMark[i] == queryStamp) return;
+    queryMark[i] = queryStamp;
+    RigidBody2D b = bodies.get(i);
+    boolean hit;
+    if (queryIsCircle) {
+      if (b.getShapeType() == RigidBody2D.ShapeType.CIRCLE) {
+        double dx = b.getX() - queryCx;
+        double dy = b.getY() - queryCy;
+        double rsum = queryR + b.getRadius();
+        hit = dx * dx + dy * dy <= rsum * rsum;
+      } else {
+        double dx = queryCx - Math.max(b.getMinX(), Math.min(queryCx, b.getMaxX()));
+        double dy = queryCy - Math.max(b.getMinY(), Math.min(queryCy, b.getMaxY()));
+        hit = dx * dx + dy * dy <= queryR * queryR;
       }
+    } else if (b.getShapeType() == RigidBody2D.ShapeType.CIRCLE) {
+      double r = b.getRadius();
+      double dx = b.getX() - Math.max(queryMinX, Math.min(b.getX(), queryMaxX));
+      double dy = b.getY() - Math.max(queryMinY, Math.min(b.getY(), queryMaxY));
+      hit = dx * dx + dy * dy <= r * r;
+    } else {
+      hit = b.getMaxX() >= queryMinX && b.getMinX() <= queryMaxX && b.getMaxY() >= queryMinY && b.getMinY() <= queryMaxY;
     }
-    return best;
+    if (hit) queryOut.add(b);
+  }
+
+  /** Starts a new dedupe stamp and refits the broad-phase if needed; false means scan every body. */
+  private boolean beginQuery() {
+    int n = bodies.size();
+    if (queryMark.length < n) queryMark = new int[Math.max(n, queryMark.length * 2)];
+    if (++queryStamp == Integer.MAX_VALUE) { Arrays.fill(queryMark, 0); queryStamp = 1; }
+    if (broadPhase == null) return false;
+    if (queriesDirty) {
+      queriesIndexed = broadPhase.refit(bodies);
+      queriesDirty = false;
+    }
+    return queriesIndexed;
   }
 
   public void step(double deltaMs) {
     double dt = deltaMs / 1000.0;
-    // Integrate velocities and apply gravity
-    for (RigidBody2D b : bodies) {
-      if (b.isStatic()) continue;
-      b.setVelocity(b.getVx() + gravityX * dt, b.getVy() + gravityY * dt);
-      double nx = b.getX() + b.getVx() * dt;
-      double ny = b.getY() + b.getVy() * dt;
-      b.setPosition(nx, ny);
-      resolveWorldBounds(b);
-      resolveStaticColliders(b);
+    frame++;
+    long t0 = System.nanoTime();
+    double restingSpeed = 2 * Math.hypot(gravityX, gravityY) * dt;
+    restingSpeed2 = restingSpeed * restingSpeed;
+    wakeChangedRegions();
+    collectContinuousBodies();
+    if (store != null) {
+      store.integrate(dt, gravityX, gravityY);
+      for (int k = 0; k < ccdCount; k++) sweepStatic(ccdBodies[k], ccdStartX[k], ccdStartY[k]);
+      if (bounds != null) store.resolveBounds(bounds);
+      if (!staticRects.isEmpty() || tileCollider != null) {
+        for (int i = 0; i < store.activeCount(); i++) resolveStaticColliders(store.owner(i));
+      }
+    } else {
+      // Integrate velocities and apply gravity
+      for (int i = 0; i < bodies.size(); i++) {
+        RigidBody2D b = bodies.get(i);
+        if (b.isInactive()) continue;
+        double sx = b.getX();
+        double sy = b.getY();
+        b.setVelocity(b.getVx() + gravityX * dt, b.getVy() + gravityY * dt);
+        double nx = b.getX() + b.getVx() * dt;
+        double ny = b.getY() + b.getVy() * dt;
+        b.setPosition(nx, ny);
+        if (b.isContinuousCollision() && !b.isSensor()) sweepStatic(b, sx, sy);
+        resolveWorldBounds(b);
+        resolveStaticColliders(b);
+      }
+    }
+    for (int k = 0; k < ccdCount; k++) {
+      RigidBody2D b = ccdBodies[k];
+      b.sweepDx = b.getX() - ccdStartX[k];
+      b.sweepDy = b.getY() - ccdStartY[k];
+      b.sweepSlot = k;
     }
+    long t1 = System.nanoTime();
 
-    // Naive pairwise collision resolution
     int n = bodies.size();
-    for (int i = 0; i < n; i++) {
-      for (int j = i + 1; j < n; j++) {
-        RigidBody2D a = bodies.get(i);
-        RigidBody2D c = bodies.get(j);
-        if (a.isSensor() || c.isSensor()) { handleSensor(a, c); }
-        else { resolveCollision(a, c); }
+    int candidates = 0;
+    int contacts = 0;
+    int islands = 0;
+    long t2;
+    if (broadPhase != null) {
+      pairs.clear();
+      broadPhase.collectPairs(bodies, pairs);
+      t2 = System.nanoTime();
+      candidates = pairs.size();
+      // Swept bodies had their swept box in the pair pass, so their partners are all they can hit
+      if (ccdCount > 0) sweepPairedBodies();
+      // Wake sleepers before solving so every solve path sees the same set of movable bodies
+      for (int k = 0; k < candidates; k++) wakeOnContact(bodies.get(pairs.first(k)), bodies.get(pairs.second(k)));
+      if (islandSolver != null) {
+        contacts = islandSolver.solve(this, bodies, pairs);
+        islands = islandSolver.islandCount();
+      } else {
+        for (int k = 0; k < candidates; k++) {
+          if (resolvePair(bodies.get(pairs.first(k)), bodies.get(pairs.second(k)))) contacts++;
+        }
       }
+    } else {
+      // Naive pairwise collision resolution
+      t2 = t1;
+      for (int k = 0; k < ccdCount; k++) sweepBodies(ccdBodies[k], ccdStartX[k], ccdStartY[k], -1, -1);
+      endSweeps();
+      for (int i = 0; i < n; i++) {
+        for (int j = i + 1; j < n; j++) {
+          candidates++;
+          wakeOnContact(bodies.get(i), bodies.get(j));
+          if (resolvePair(bodies.get(i), bodies.get(j))) contacts++;
+        }
+      }
+    }
+    if (contactListener != null) sensorContacts.sweep(frame, contactListener);
+    int sleeping = updateSleep(dt);
+    long t3 = System.nanoTime();
+
+    stats.bodies = n;
+    stats.candidatePairs = candidates;
+    stats.contacts = contacts;
+    stats.islands = islands;
+    stats.sleeping = sleeping;
+    stats.integrateNanos = t1 - t0;
+    stats.broadPhaseNanos = t2 - t1;
+    stats.narrowPhaseNanos = t3 - t2;
+    queriesDirty = true;
+  }
+
+  private void collectContinuousBodies() {
+    ccdCount = 0;
+    for (int i = 0; i < bodies.size(); i++) {
+      RigidBody2D b = bodies.get(i);
+      if (!b.isContinuousCollision() || b.isInactive() || b.isSensor()) continue;
+      if (ccdCount == ccdBodies.length) {
+        ccdBodies = Arrays.copyOf(ccdBodies, ccdCount * 2);
+        ccdStartX = Arrays.copyOf(ccdStartX, ccdCount * 2);
+        ccdStartY = Arrays.copyOf(ccdStartY, ccdCount * 2);
+      }
+      ccdBodies[ccdCount] = b;
+      ccdStartX[ccdCount] = b.getX();
+      ccdStartY[ccdCount] = b.getY();
+      ccdCount++;
     }
   }
 
+  /**
+   * Sweeps a flagged body from its start to its integrated position against static rects and tile
+   * rects, see {@link #sweep}.
+   */
+  private void sweepStatic(RigidBody2D b, double sx, double sy) {
+    sweep(b, sx, sy, false, -1, -1);
+  }
+
+  /** Groups the candidate pairs by swept body, sweeps each body against its partners and ends the sweeps. */
+  private void sweepPairedBodies() {
+    if (ccdStart.length < ccdCount + 1) {
+      ccdStart = new int[ccdCount * 2 + 1];
+      ccdCursor = new int[ccdCount * 2];
+    }
+    Arrays.fill(ccdStart, 0, ccdCount + 1, 0);
+    int candidates = pairs.size();
+    for (int p = 0; p < candidates; p++) {
+      int a = bodies.get(pairs.first(p)).sweepSlot;
+      int b = bodies.get(pairs.second(p)).sweepSlot;
+      if (a >= 0) ccdStart[a + 1]++;
+      if (b >= 0) ccdStart[b + 1]++;
+    }
+    for (int k = 0; k < ccdCount; k++) {
+      ccdStart[k + 1] += ccdStart[k];
+      ccdCursor[k] = ccdStart[k];
+    }
+    if (ccdPartners.length < ccdStart[ccdCount]) ccdPartners = new int[Math.max(ccdStart[ccdCount], ccdPartners.length * 2)];
+    for (int p = 0; p < candidates; p++) {
+      int i = pairs.first(p);
+      int j = pairs.second(p);
+      int a = bodies.get(i).sweepSlot;
+      int b = bodies.get(j).sweepSlot;
+      if (a >= 0) ccdPartners[ccdCursor[a]++] = j;
+      if (b >= 0) ccdPartners[ccdCursor[b]++] = i;
+    }
+    for (int k = 0; k < ccdCount; k++) sweepBodies(ccdBodies[k], ccdStartX[k], ccdStartY[k], ccdStart[k], ccdStart[k + 1]);
+    endSweeps();
+  }
+
+  /**
+   * Same sweep against other bodies at their end-of-integration positions, either the partners in
+   * {@code ccdPartners[from..to)} or every body when {@code from < 0}.
+   */
+  private void sweepBodies(RigidBody2D b, double sx, double sy, int from, int to) {
+    // A slide after hitting a body may reach static geometry, which is pushed out of here as usual
+    if (sweep(b, sx, sy, true, from, to)) resolveStaticColliders(b);
+  }
+
+  private void endSweeps() {
+    for (int k = 0; k < ccdCount; k++) {
+      ccdBodies[k].sweepDx = 0;
+      ccdBodies[k].sweepDy = 0;
+      ccdBodies[k].sweepSlot = -1;
+    }
+  }
+
+  /**
+   * Casts the centre of a flagged body from (sx, sy) to its current position against obstacles
+   * grown by the body's half extents (circles are swept as their box): other bodies when
+   * {@code againstBodies}, static geometry otherwise. On the earliest entry the body is parked just
+   * inside the obstacle so the discrete pass that follows resolves the contact and reflects the
+   * velocity as usual. The motion left along the surface is swept again, now also against static
+   * geometry, and dropped after {@link #CCD_MAX_SWEEPS} sweeps so it never moves unchecked.
+   * Returns true when static geometry was hit.
+   */
+  private boolean sweep(RigidBody2D b, double sx, double sy, boolean againstBodies, int from, int to) {
+    double ex = b.getX();
+    double ey = b.getY();
+    if (ex == sx && ey == sy) return false;
+    double hw = (b.getMaxX() - b.getMinX()) * 0.5;
+    double hh = (b.getMaxY() - b.getMinY()) * 0.5;
+    double ox = b.getMinX() + hw - ex;
+    double oy = b.getMinY() + hh - ey;
+    double cx = sx + ox;
+    double cy = sy + oy;
+    double dx = ex - sx;
+    double dy = ey - sy;
+    boolean parked = false;
+    boolean hitStatic = false;
+    for (int pass = 0; pass < CCD_MAX_SWEEPS; pass++) {
+      ccdHit.hit = false;
+      ccdHit.distance = 1;
+      if (againstBodies) sweepOthers(b, hw, hh, cx, cy, dx, dy, from, to);
+      // The first leg against bodies was already swept against static geometry while integrating
+      if (!againstBodies || pass > 0) sweepStatics(hw, hh, cx, cy, dx, dy);
+      if (!ccdHit.hit) break;
+      parked = true;
+      if (ccdHit.body == null) hitStatic = true;
+      double t = ccdHit.distance;
+      double nx = ccdHit.nx;
+      double ny = ccdHit.ny;
+      double dn = dx * nx + dy * ny;
+      double rest = pass + 1 < CCD_MAX_SWEEPS ? 1 - t : 0;
+      cx += dx * t - nx * CCD_SKIN;
+      cy += dy * t - ny * CCD_SKIN;
+      dx = (dx - dn * nx) * rest;
+      dy = (dy - dn * ny) * rest;
+      if (dx == 0 && dy == 0) break;
+    }
+    if (parked) b.setPosition(cx + dx - ox, cy + dy - oy);
+    return hitStatic;
+  }
+
+  private void sweepStatics(double hw, double hh, double cx, double cy, double dx, double dy) {
+    for (int i = 0; i < staticRects.size(); i++) sweepAgainst(staticRects.get(i), hw, hh, cx, cy, dx, dy);
+    if (tileCollider != null) {
+      int count = tileCollider.query(Math.min(cx, cx + dx) - hw, Math.min(cy, cy + dy) - hh, Math.max(cx, cx + dx) + hw, Math.max(cy, cy + dy) + hh);
+      for (int k = 0; k < count; k++) sweepAgainst(tileCollider.queryResult(k), hw, hh, cx, cy, dx, dy);
+    }
+  }
+
+  private void sweepOthers(RigidBody2D b, double hw, double hh, double cx, double cy, double dx, double dy, int from, int to) {
+    int end = from < 0 ? bodies.size() : to;
+    for (int k = from < 0 ? 0 : from; k < end; k++) {
+      RigidBody2D o = bodies.get(from < 0 ? k : ccdPartners[k]);
+      if (o == b || o.isSensor()) continue;
+      if (sweepBox(o.getMinX() - hw, o.getMinY() - hh, o.getMaxX() + hw, o.getMaxY() + hh, cx, cy, dx, dy) >= 0) {
+        ccdHit.hit = true;
+        ccdHit.body = o;
+      }
+    }
+  }
+
+  private void sweepAgainst(Rect r, double hw, double hh, double cx, double cy, double dx, double dy) {
+    if (sweepBox(r.left() - hw, r.top() - hh, r.right() + hw, r.bottom() + hh, cx, cy, dx, dy) >= 0) {
+      ccdHit.hit = true;
+      ccdHit.body = null;
+    }
+  }
+
+  /** Records the earliest entry into the grown box in {@code ccdHit}; returns -1 when it is not a new earliest hit. */
+  private double sweepBox(double minX, double minY, double maxX, double maxY, double cx, double cy, double dx, double dy) {
+    // Starting inside means the bodies already overlap; the discrete pass handles that
+    if (cx > minX && cx < maxX && cy > minY && cy < maxY) return -1;
+    double bestT = ccdHit.distance;
+    double bestNx = ccdHit.nx;
+    double bestNy = ccdHit.ny;
+    boolean hit = raycastBox(minX, minY, maxX, maxY, cx, cy, dx, dy, 1, ccdHit);
+    // Grazing a face or leaving one the body already touches is not an entry
+    if (!hit || ccdHit.distance >= bestT || ccdHit.nx * dx + ccdHit.ny * dy >= 0) {
+      ccdHit.distance = bestT;
+      ccdHit.nx = bestNx;
+      ccdHit.ny = bestNy;
+      return -1;
+    }
+    return ccdHit.distance;
+  }
+
+  private void wakeOnContact(RigidBody2D a, RigidBody2D b) {
+    boolean sa = a.isSleeping();
+    boolean sb = b.isSleeping();
+    if (sa == sb) return;
+    RigidBody2D sleeper = sa ? a : b;
+    RigidBody2D other = sa ? b : a;
+    if (other.isInactive() || other.isSensor()) return;
+    // A body resting on a sleeper sinks into it by one step of gravity every step; that is support, not a push
+    double v2 = other.getVx() * other.getVx() + other.getVy() * other.getVy();
+    if (v2 > restingSpeed2 && penetrates(sleeper, other)) sleeper.wake();
+  }
+
+  /** True when resolving the pair would move a body: the same overlap tests as the narrow phase, minus touching. */
+  private static boolean penetrates(RigidBody2D a, RigidBody2D b) {
+    if (a.getShapeType() == RigidBody2D.ShapeType.CIRCLE && b.getShapeType() == RigidBody2D.ShapeType.CIRCLE) {
+      double dx = b.getX() - a.getX();
+      double dy = b.getY() - a.getY();
+      double dist2 = dx * dx + dy * dy;
+      double rsum = a.getRadius() + b.getRadius();
+      return dist2 < rsum * rsum && dist2 != 0;
+    }
+    return a.getMaxX() > b.getMinX() && a.getMinX() < b.getMaxX() && a.getMaxY() > b.getMinY() && a.getMinY() < b.getMaxY();
+  }
+
+  /**
+   * Wakes sleepers touching geometry that was removed, added or changed since the last step, then
+   * whatever sleeps on the bodies woken that way, so a stack falls when its bottom is taken away.
+   */
+  private void wakeChangedRegions() {
+    if (tileCollider != null && tileCollider.changes().size() > 0) {
+      BoxBuffer changed = tileCollider.changes();
+      for (int k = 0; k < changed.size(); k++) wakeRegions.add(changed.minX(k), changed.minY(k), changed.maxX(k), changed.maxY(k));
+      changed.clear();
+    }
+    if (wakeRegions.size() == 0) return;
+    if (sleepingEnabled) {
+      double m = sleepDrift;
+      // Woken bodies are appended as new regions, so the loop runs until nothing else wakes
+      for (int r = 0; r < wakeRegions.size(); r++) {
+        double minX = wakeRegions.minX(r) - m;
+        double minY = wakeRegions.minY(r) - m;
+        double maxX = wakeRegions.maxX(r) + m;
+        double maxY = wakeRegions.maxY(r) + m;
+        for (int i = 0; i < bodies.size(); i++) {
+          RigidBody2D b = bodies.get(i);
+          if (!b.isSleeping()) continue;
+          if (b.getMaxX() < minX || b.getMinX() > maxX || b.getMaxY() < minY || b.getMinY() > maxY) continue;
+          b.wake();
+          wakeRegions.add(b.getMinX(), b.getMinY(), b.getMaxX(), b.getMaxY());
+        }
+      }
+    }
+    wakeRegions.clear();
+  }
+
+  /** Advances sleep timers of awake bodies and returns how many bodies are asleep. */
+  private int updateSleep(double dt) {
+    if (!sleepingEnabled) return 0;
+    int sleeping = 0;
+    for (int i = 0; i < bodies.size(); i++) {
+      RigidBody2D b = bodies.get(i);
+      if (b.isStatic()) continue;
+      if (b.isSleeping()) {
+        sleeping++;
+      } else if (!b.isSleepingAllowed()) {
+        b.resetSleepTimer();
+      } else if (b.advanceSleepTimer(dt, sleepDrift) >= timeToSleep) {
+        b.sleep();
+        sleeping++;
+      }
+    }
+    return sleeping;
+  }
+
+  private boolean resolvePair(RigidBody2D a, RigidBody2D c) {
+    if (a.isSensor() || c.isSensor()) return handleSensor(a, c);
+    return resolveCollision(a, c);
+  }
+
+  /** Narrow phase for one pair without listener callbacks; safe to run on a worker thread. */
+  boolean solvePairDeferred(RigidBody2D a, RigidBody2D c) {
+    if (a.isSensor() || c.isSensor()) return hasSensorListeners() && sensorsOverlap(a, c);
+    return resolveCollision(a, c);
+  }
+
+  void dispatchDeferredSensor(RigidBody2D a, RigidBody2D c) {
+    if (a.isSensor() || c.isSensor()) dispatchSensor(a, c);
+  }
+
   private void resolveWorldBounds(RigidBody2D b) {
     if (bounds == null) return;
     if (b.getShapeType() == RigidBody2D.ShapeType.CIRCLE) {
-      var cir = b.getCircle();
-      if (cir.x - cir.r < bounds.left()) { cir.x = bounds.left() + cir.r; b.setVelocity(Math.abs(b.getVx()) * b.getRestitution(), b.getVy()); }
-      if (cir.x + cir.r > bounds.right()) { cir.x = bounds.right() - cir.r; b.setVelocity(-Math.abs(b.getVx()) * b.getRestitution(), b.getVy()); }
-      if (cir.y - cir.r < bounds.top()) { cir.y = bounds.top() + cir.r; b.setVelocity(b.getVx(), Math.abs(b.getVy()) * b.getRestitution()); }
-      if (cir.y + cir.r > bounds.bottom()) { cir.y = bounds.bottom() - cir.r; b.setVelocity(b.getVx(), -Math.abs(b.getVy()) * b.getRestitution()); }
+      double r = b.getCircle().r;
+      if (b.getX() - r < bounds.left()) { b.setPosition(bounds.left() + r, b.getY()); b.setVelocity(Math.abs(b.getVx()) * b.getRestitution(), b.getVy()); }
+      if (b.getX() + r > bounds.right()) { b.setPosition(bounds.right() - r, b.getY()); b.setVelocity(-Math.abs(b.getVx()) * b.getRestitution(), b.getVy()); }
+      if (b.getY() - r < bounds.top()) { b.setPosition(b.getX(), bounds.top() + r); b.setVelocity(b.getVx(), Math.abs(b.getVy()) * b.getRestitution()); }
+      if (b.getY() + r > bounds.bottom()) { b.setPosition(b.getX(), bounds.bottom() - r); b.setVelocity(b.getVx(), -Math.abs(b.getVy()) * b.getRestitution()); }
     } else {
       var r = b.getAabb();
-      if (r.left() < bounds.left()) { r.x = bounds.left(); b.setVelocity(Math.abs(b.getVx()) * b.getRestitution(), b.getVy()); }
-      if (r.right() > bounds.right()) { r.x = bounds.right() - r.w; b.setVelocity(-Math.abs(b.getVx()) * b.getRestitution(), b.getVy()); }
-      if (r.top() < bounds.top()) { r.y = bounds.top(); b.setVelocity(b.getVx(), Math.abs(b.getVy()) * b.getRestitution()); }
-      if (r.bottom() > bounds.bottom()) { r.y = bounds.bottom() - r.h; b.setVelocity(b.getVx(), -Math.abs(b.getVy()) * b.getRestitution()); }
+      if (b.getX() < bounds.left()) { b.setPosition(bounds.left(), b.getY()); b.setVelocity(Math.abs(b.getVx()) * b.getRestitution(), b.getVy()); }
+      if (b.getX() + r.w > bounds.right()) { b.setPosition(bounds.right() - r.w, b.getY()); b.setVelocity(-Math.abs(b.getVx()) * b.getRestitution(), b.getVy()); }
+      if (b.getY() < bounds.top()) { b.setPosition(b.getX(), bounds.top()); b.setVelocity(b.getVx(), Math.abs(b.getVy()) * b.getRestitution()); }
+      if (b.getY() + r.h > bounds.bottom()) { b.setPosition(b.getX(), bounds.bottom() - r.h); b.setVelocity(b.getVx(), -Math.abs(b.getVy()) * b.getRestitution()); }
     }
   }
 
   private void resolveStaticColliders(RigidBody2D b) {
-    if (b.isStatic() || b.isSensor()) return;
-    for (Rect tile : staticRects) {
-      if (b.getShapeType() == RigidBody2D.ShapeType.CIRCLE) {
-        // Approximate circle as AABB for simple resolution
-        Rect r = new Rect(b.getCircle().x - b.getCircle().r, b.getCircle().y - b.getCircle().r, b.getCircle().r * 2, b.getCircle().r * 2);
-        if (!r.intersects(tile)) continue;
-        // Push out like AABB
-        double overlapX1 = r.right() - tile.left();
-        double overlapX2 = tile.right() - r.left();
-        double overlapY1 = r.bottom() - tile.top();
-        double overlapY2 = tile.bottom() - r.top();
-        double minOverlapX = Math.min(overlapX1, overlapX2);
-        double minOverlapY = Math.min(overlapY1, overlapY2);
-        if (minOverlapX < minOverlapY) {
-          double dir = (overlapX1 < overlapX2) ? 1 : -1;
-          b.setPosition(b.getX() - dir * minOverlapX, b.getY());
-          b.setVelocity(-dir * Math.abs(b.getVx()) * b.getRestitution(), b.getVy());
-        } else {
-          double dir = (overlapY1 < overlapY2) ? 1 : -1;
-          b.setPosition(b.getX(), b.getY() - dir * minOverlapY);
-          b.setVelocity(b.getVx(), -dir * Math.abs(b.getVy()) * b.getRestitution());
-        }
-      } else {
-        Rect r = b.getAabb();
-        if (!r.intersects(tile)) continue;
-        double overlapX1 = r.right() - tile.left();
-        double overlapX2 = tile.right() - r.left();
-        double overlapY1 = r.bottom() - tile.top();
-        double overlapY2 = tile.bottom() - r.top();
-        double minOverlapX = Math.min(overlapX1, overlapX2);
-        double minOverlapY = Math.min(overlapY1, overlapY2);
-        if (minOverlapX < minOverlapY) {
-          double dir = (overlapX1 < overlapX2) ? 1 : -1;
-          r.x -= dir * minOverlapX;
-          b.setVelocity(-dir * Math.abs(b.getVx()) * b.getRestitution(), b.getVy());
-        } else {
-          double dir = (overlapY1 < overlapY2) ? 1 : -1;
-          r.y -= dir * minOverlapY;
-          b.setVelocity(b.getVx(), -dir * Math.abs(b.getVy()) * b.getRestitution());
-        }
-      }
+    if (b.isInactive() || b.isSensor()) return;
+    for (int i = 0; i < staticRects.size(); i++) resolveStaticRect(b, staticRects.get(i));
+    if (tileCollider != null) {
+      int count = tileCollider.query(b.getMinX(), b.getMinY(), b.getMaxX(), b.getMaxY());
+      for (int k = 0; k < count; k++) resolveStaticRect(b, tileCollider.queryResult(k));
     }
   }
 
-  private void resolveCollision(RigidBody2D a, RigidBody2D b) {
-    if (a.isStatic() && b.isStatic()) return;
+  private void resolveStaticRect(RigidBody2D b, Rect tile) {
+    // Circles are approximated by their AABB for simple resolution
+    double left = b.getMinX();
+    double top = b.getMinY();
+    double right = b.getMaxX();
+    double bottom = b.getMaxY();
+    if (right < tile.left() || left > tile.right() || bottom < tile.top() || top > tile.bottom()) return;
+    double overlapX1 = right - tile.left();
+    double overlapX2 = tile.right() - left;
+    double overlapY1 = bottom - tile.top();
+    double overlapY2 = tile.bottom() - top;
+    double minOverlapX = Math.min(overlapX1, overlapX2);
+    double minOverlapY = Math.min(overlapY1, overlapY2);
+    if (minOverlapX < minOverlapY) {
+      double dir = (overlapX1 < overlapX2) ? 1 : -1;
+      b.setPosition(b.getX() - dir * minOverlapX, b.getY());
+      b.setVelocity(-dir * Math.abs(b.getVx()) * b.getRestitution(), b.getVy());
+    } else {
+      double dir = (overlapY1 < overlapY2) ? 1 : -1;
+      b.setPosition(b.getX(), b.getY() - dir * minOverlapY);
+      b.setVelocity(b.getVx(), -dir * Math.abs(b.getVy()) * b.getRestitution());
+    }
+  }
+
+  private boolean resolveCollision(RigidBody2D a, RigidBody2D b) {
+    if (a.isInactive() && b.isInactive()) return false;
     if (a.getShapeType() == RigidBody2D.ShapeType.CIRCLE && b.getShapeType() == RigidBody2D.ShapeType.CIRCLE) {
-      resolveCircleCircle(a, b);
+      return resolveCircleCircle(a, b);
     } else if (a.getShapeType() == RigidBody2D.ShapeType.AABB && b.getShapeType() == RigidBody2D.ShapeType.AABB) {
-      resolveAabbAabb(a, b);
+      return resolveAabbAabb(a, b);
     } else {
       // Simplified circle/AABB: treat circle as AABB
-      resolveAabbAabb(a, b);
+      return resolveAabbAabb(a, b);
     }
   }
 
-  private void resolveCircleCircle(RigidBody2D ra, RigidBody2D rb) {
-    var a = ra.getCircle();
-    var b = rb.getCircle();
-    double dx = b.x - a.x;
-    double dy = b.y - a.y;
+  private boolean resolveCircleCircle(RigidBody2D ra, RigidBody2D rb) {
+    double ax = ra.getX(), ay = ra.getY();
+    double bx = rb.getX(), by = rb.getY();
+    double dx = bx - ax;
+    double dy = by - ay;
     double dist2 = dx * dx + dy * dy;
-    double rsum = a.r + b.r;
-    if (dist2 >= rsum * rsum || dist2 == 0) return;
+    double rsum = ra.getRadius() + rb.getRadius();
+    if (dist2 >= rsum * rsum || dist2 == 0) return false;
     double dist = Math.sqrt(dist2);
     double nx = dx / dist;
     double ny = dy / dist;
     double penetration = rsum - dist;
 
-    double totalMass = (ra.isStatic() ? 0 : ra.getMass()) + (rb.isStatic() ? 0 : rb.getMass());
+    double totalMass = (ra.isInactive() ? 0 : ra.getMass()) + (rb.isInactive() ? 0 : rb.getMass());
     if (totalMass == 0) totalMass = 1;
-    double moveA = rb.isStatic() ? 0 : (penetration * (rb.getMass() / totalMass));
-    double moveB = ra.isStatic() ? 0 : (penetration * (ra.getMass() / totalMass));
+    double moveA = ra.isInactive() ? 0 : (rb.isInactive() ? penetration : penetration * (rb.getMass() / totalMass));
+    double moveB = rb.isInactive() ? 0 : (ra.isInactive() ? penetration : penetration * (ra.getMass() / totalMass));
 
     // Separate
-    if (!ra.isStatic()) ra.setPosition(a.x - nx * moveA, a.y - ny * moveA);
-    if (!rb.isStatic()) rb.setPosition(b.x + nx * moveB, b.y + ny * moveB);
+    if (!ra.isInactive()) ra.setPosition(ax - nx * moveA, ay - ny * moveA);
+    if (!rb.isInactive()) rb.setPosition(bx + nx * moveB, by + ny * moveB);
 
     // Reflect velocities along normal
-    double vaN = ra.getVx() * nx + ra.getVy() * ny;
-    double vbN = rb.getVx() * nx + rb.getVy() * ny;
-    double restitution = Math.min(ra.getRestitution(), rb.getRestitution());
-
-    double m1 = ra.isStatic() ? Double.POSITIVE_INFINITY : ra.getMass();
-    double m2 = rb.isStatic() ? Double.POSITIVE_INFINITY : rb.getMass();
-
-    // 1D elastic collision along normal with restitution
-    double newVaN = (vaN * (m1 - restitution * m2) + (1 + restitution) * m2 * vbN) / (m1 + m2);
-    double newVbN = (vbN * (m2 - restitution * m1) + (1 + restitution) * m1 * vaN) / (m1 + m2);
-
-    double dvA = newVaN - vaN;
-    double dvB = newVbN - vbN;
-
-    ra.setVelocity(ra.getVx() + dvA * nx, ra.getVy() + dvA * ny);
-    rb.setVelocity(rb.getVx() + dvB * nx, rb.getVy() + dvB * ny);
+    applyNormalResponse(ra, rb, nx, ny);
+    return true;
   }
 
-  private void resolveAabbAabb(RigidBody2D a, RigidBody2D b) {
-    var ra = a.getAabb();
-    var rb = b.getAabb();
-    if (!ra.intersects(rb)) return;
+  private boolean resolveAabbAabb(RigidBody2D a, RigidBody2D b) {
+    // Bounds come from the scalar accessors so a circle in a mixed pair uses its own box
+    double aMinX = a.getMinX(), aMinY = a.getMinY(), aMaxX = a.getMaxX(), aMaxY = a.getMaxY();
+    double bMinX = b.getMinX(), bMinY = b.getMinY(), bMaxX = b.getMaxX(), bMaxY = b.getMaxY();
+    if (aMaxX < bMinX || aMinX > bMaxX || aMaxY < bMinY || aMinY > bMaxY) return false;
 
-    double overlapX1 = ra.right() - rb.left();
-    double overlapX2 = rb.right() - ra.left();
-    double overlapY1 = ra.bottom() - rb.top();
-    double overlapY2 = rb.bottom() - ra.top();
+    double overlapX1 = aMaxX - bMinX;
+    double overlapX2 = bMaxX - aMinX;
+    double overlapY1 = aMaxY - bMinY;
+    double overlapY2 = bMaxY - aMinY;
 
     double minOverlapX = Math.min(overlapX1, overlapX2);
     double minOverlapY = Math.min(overlapY1, overlapY2);
@@ -216,77 +840,83 @@ public class PhysicsWorld2D {
       ny = (overlapY1 < overlapY2) ? 1 : -1;
     }
 
-    double totalMass = (a.isStatic() ? 0 : a.getMass()) + (b.isStatic() ? 0 : b.getMass());
+    double totalMass = (a.isInactive() ? 0 : a.getMass()) + (b.isInactive() ? 0 : b.getMass());
     if (totalMass == 0) totalMass = 1;
-    double moveA = b.isStatic() ? 0 : (penetration * (b.getMass() / totalMass));
-    double moveB = a.isStatic() ? 0 : (penetration * (a.getMass() / totalMass));
+    double moveA = a.isInactive() ? 0 : (b.isInactive() ? penetration : penetration * (b.getMass() / totalMass));
+    double moveB = b.isInactive() ? 0 : (a.isInactive() ? penetration : penetration * (a.getMass() / totalMass));
+
+    if (!a.isInactive()) a.setPosition(a.getX() - nx * moveA, a.getY() - ny * moveA);
+    if (!b.isInactive()) b.setPosition(b.getX() + nx * moveB, b.getY() + ny * moveB);
 
-    if (!a.isStatic()) a.setPosition(a.getX() - nx * moveA, a.getY() - ny * moveA);
-    if (!b.isStatic()) b.setPosition(b.getX() + nx * moveB, b.getY() + ny * moveB);
+    applyNormalResponse(a, b, nx, ny);
+    return true;
+  }
 
+  private void applyNormalResponse(RigidBody2D a, RigidBody2D b, double nx, double ny) {
     double vaN = a.getVx() * nx + a.getVy() * ny;
     double vbN = b.getVx() * nx + b.getVy() * ny;
     double restitution = Math.min(a.getRestitution(), b.getRestitution());
 
-    double m1 = a.isStatic() ? Double.POSITIVE_INFINITY : a.getMass();
-    double m2 = b.isStatic() ? Double.POSITIVE_INFINITY : b.getMass();
-
-    double newVaN = (vaN * (m1 - restitution * m2) + (1 + restitution) * m2 * vbN) / (m1 + m2);
-    double newVbN = (vbN * (m2 - restitution * m1) + (1 + restitution) * m1 * vaN) / (m1 + m2);
-
-    double dvA = newVaN - vaN;
-    double dvB = newVbN - vbN;
+    double dvA;
+    double dvB;
+    if (a.isInactive()) {
+      // Infinite mass on one side: the other body reflects off it
+      dvA = 0;
+      dvB = (1 + restitution) * (vaN - vbN);
+    } else if (b.isInactive()) {
+      dvA = (1 + restitution) * (vbN - vaN);
+      dvB = 0;
+    } else {
+      double m1 = a.getMass();
+      double m2 = b.getMass();
+      // 1D elastic collision along normal with restitution
+      double newVaN = (vaN * (m1 - restitution * m2) + (1 + restitution) * m2 * vbN) / (m1 + m2);
+      double newVbN = (vbN * (m2 - restitution * m1) + (1 + restitution) * m1 * vaN) / (m1 + m2);
+      dvA = newVaN - vaN;
+      dvB = newVbN - vbN;
+    }
 
-    a.setVelocity(a.getVx() + dvA * nx, a.getVy() + dvA * ny);
-    b.setVelocity(b.getVx() + dvB * nx, b.getVy() + dvB * ny);
+    // Static and sleeping bodies are never written, which keeps islands independent for the parallel solver
+    if (!a.isInactive()) a.setVelocity(a.getVx() + dvA * nx, a.getVy() + dvA * ny);
+    if (!b.isInactive()) b.setVelocity(b.getVx() + dvB * nx, b.getVy() + dvB * ny);
   }
 
-  private RaycastHit raycastCircle(RigidBody2D body, double sx, double sy, double dx, double dy, double segLen) {
-    double cx = body.getCircle().x;
-    double cy = body.getCircle().y;
-    double r = body.getCircle().r;
+  private static boolean raycastCircle(double cx, double cy, double r, double sx, double sy, double dx, double dy, double segLen, RaycastHit out) {
     double fx = sx - cx;
     double fy = sy - cy;
     double a = dx * dx + dy * dy;
     double bb = 2 * (fx * dx + fy * dy);
     double c = fx * fx + fy * fy - r * r;
     double disc = bb * bb - 4 * a * c;
-    if (disc < 0) return null;
+    if (disc < 0) return false;
     double sqrt = Math.sqrt(disc);
     double t1 = (-bb - sqrt) / (2 * a);
     double t2 = (-bb + sqrt) / (2 * a);
     double t = Double.POSITIVE_INFINITY;
     if (t1 >= 0 && t1 <= 1) t = Math.min(t, t1);
     if (t2 >= 0 && t2 <= 1) t = Math.min(t, t2);
-    if (!Double.isFinite(t)) return null;
+    if (!Double.isFinite(t)) return false;
     double hx = sx + dx * t;
     double hy = sy + dy * t;
     double nx = hx - cx;
     double ny = hy - cy;
     double nlen = Math.sqrt(nx * nx + ny * ny);
     if (nlen != 0) { nx /= nlen; ny /= nlen; }
-    RaycastHit hit = new RaycastHit();
-    hit.body = body;
-    hit.x = hx;
-    hit.y = hy;
-    hit.nx = nx;
-    hit.ny = ny;
-    hit.distance = t * segLen;
-    return hit;
+    out.x = hx;
+    out.y = hy;
+    out.nx = nx;
+    out.ny = ny;
+    out.distance = t * segLen;
+    return true;
   }
 
-  private RaycastHit raycastAabb(RigidBody2D body, double sx, double sy, double dx, double dy) {
-    double minX = body.getAabb().left();
-    double minY = body.getAabb().top();
-    double maxX = body.getAabb().right();
-    double maxY = body.getAabb().bottom();
-
+  private static boolean raycastBox(double minX, double minY, double maxX, double maxY, double sx, double sy, double dx, double dy, double segLen, RaycastHit out) {
     double tmin = 0.0;
     double tmax = 1.0;
     double nx = 0, ny = 0;
 
     if (dx == 0) {
-      if (sx < minX || sx > maxX) return null;
+      if (sx < minX || sx > maxX) return false;
     } else {
       double inv = 1.0 / dx;
       double t1 = (minX - sx) * inv;
@@ -296,11 +926,11 @@ public class PhysicsWorld2D {
       double nxCand = (t1 < t2) ? -1 : 1;
       if (txmin > tmin) { tmin = txmin; nx = nxCand; ny = 0; }
       if (txmax < tmax) { tmax = txmax; }
-      if (tmin > tmax) return null;
+      if (tmin > tmax) return false;
     }
 
     if (dy == 0) {
-      if (sy < minY || sy > maxY) return null;
+      if (sy < minY || sy > maxY) return false;
     } else {
       double inv = 1.0 / dy;
       double t1 = (minY - sy) * inv;
@@ -310,36 +940,46 @@ public class PhysicsWorld2D {
       double nyCand = (t1 < t2) ? -1 : 1;
       if (tymin > tmin) { tmin = tymin; nx = 0; ny = nyCand; }
       if (tymax < tmax) { tmax = tymax; }
-      if (tmin > tmax) return null;
+      if (tmin > tmax) return false;
     }
 
-    if (tmin < 0 || tmin > 1) return null;
-    RaycastHit hit = new RaycastHit();
-    hit.body = body;
-    hit.x = sx + dx * tmin;
-    hit.y = sy + dy * tmin;
-    hit.nx = nx;
-    hit.ny = ny;
-    hit.distance = Math.sqrt((hit.x - sx) * (hit.x - sx) + (hit.y - sy) * (hit.y - sy));
+    if (tmin < 0 || tmin > 1) return false;
+    out.x = sx + dx * tmin;
+    out.y = sy + dy * tmin;
+    out.nx = nx;
+    out.ny = ny;
+    out.distance = tmin * segLen;
+    return true;
+  }
+
+  private boolean hasSensorListeners() { return sensorListener != null || contactListener != null; }
+
+  private boolean handleSensor(RigidBody2D a, RigidBody2D b) {
+    if (!hasSensorListeners()) return false;
+    boolean hit = sensorsOverlap(a, b);
+    if (hit) dispatchSensor(a, b);
     return hit;
   }
 
-  private void handleSensor(RigidBody2D a, RigidBody2D b) {
-    if (sensorListener == null) return;
-    boolean hit;
+  private boolean sensorsOverlap(RigidBody2D a, RigidBody2D b) {
     if (a.getShapeType() == RigidBody2D.ShapeType.CIRCLE && b.getShapeType() == RigidBody2D.ShapeType.CIRCLE) {
-      double dx = b.getCircle().x - a.getCircle().x;
-      double dy = b.getCircle().y - a.getCircle().y;
-      double rsum = a.getCircle().r + b.getCircle().r;
-      hit = (dx * dx + dy * dy) <= rsum * rsum;
-    } else {
-      Rect ra = (a.getShapeType() == RigidBody2D.ShapeType.AABB) ? a.getAabb() : new Rect(a.getCircle().x - a.getCircle().r, a.getCircle().y - a.getCircle().r, a.getCircle().r * 2, a.getCircle().r * 2);
-      Rect rb = (b.getShapeType() == RigidBody2D.ShapeType.AABB) ? b.getAabb() : new Rect(b.getCircle().x - b.getCircle().r, b.getCircle().y - b.getCircle().r, b.getCircle().r * 2, b.getCircle().r * 2);
-      hit = ra.intersects(rb);
-    }
-    if (hit) {
-      if (a.isSensor() && !b.isSensor()) sensorListener.onTrigger(a, b);
-      if (b.isSensor() && !a.isSensor()) sensorListener.onTrigger(b, a);
+      double dx = b.getX() - a.getX();
+      double dy = b.getY() - a.getY();
+      double rsum = a.getRadius() + b.getRadius();
+      return (dx * dx + dy * dy) <= rsum * rsum;
     }
+    return a.getMaxX() >= b.getMinX() && a.getMinX() <= b.getMaxX() && a.getMaxY() >= b.getMinY() && a.getMinY() <= b.getMaxY();
+  }
+
+  private void dispatchSensor(RigidBody2D a, RigidBody2D b) {
+    if (a.isSensor() && !b.isSensor()) dispatchSensorPair(a, b);
+    if (b.isSensor() && !a.isSensor()) dispatchSensorPair(b, a);
+  }
+
+  private void dispatchSensorPair(RigidBody2D sensor, RigidBody2D other) {
+    if (sensorListener != null) sensorListener.onTrigger(sensor, other);
+    if (contactListener == null) return;
+    if (sensorContacts.touch(sensor, other, frame)) contactListener.onSensorBegin(sensor, other);
+    else if (sensorStayEvents) contactListener.onSensorStay(sensor, other);
   }
 }
@@ -3,9 +3,18 @@ package com.jvn.core.physics;
 import com.jvn.core.math.Circle;
 import com.jvn.core.math.Rect;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A simple 2D body. While its world uses packed storage the body is a handle into a
+ * {@link BodyStore2D} slot: accessors read and write the store, and {@link #getAabb()} /
+ * {@link #getCircle()} return snapshots that are refreshed on every call.
+ */
 public class RigidBody2D {
   public enum ShapeType { CIRCLE, AABB }
 
+  private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
   private ShapeType shapeType = ShapeType.AABB;
   private final Rect aabb = new Rect();
   private final Circle circle = new Circle();
@@ -16,6 +25,22 @@ public class RigidBody2D {
   private boolean isStatic = false;
   private double restitution = 0.2; // bounciness
   private boolean sensor = false;
+  private boolean sleeping = false;
+  private boolean sleepingAllowed = true;
+  private boolean continuous = false;
+  private double sleepTimer = -1; // seconds spent near the anchor, -1 = no anchor yet
+  private double sleepAnchorX;
+  private double sleepAnchorY;
+
+  // Set by the world for continuous bodies during a step: the motion being swept, which widens the
+  // broad-phase bounds to the swept box, and the body's index among the swept bodies
+  double sweepDx;
+  double sweepDy;
+  int sweepSlot = -1;
+
+  private BodyStore2D store;
+  private int slot = -1;
+  private final int id = NEXT_ID.incrementAndGet(); // stable key for contact caches
 
   public static RigidBody2D box(double x, double y, double w, double h) {
     RigidBody2D b = new RigidBody2D();
@@ -32,27 +57,174 @@ public class RigidBody2D {
   }
 
   public ShapeType getShapeType() { return shapeType; }
-  public Rect getAabb() { return aabb; }
-  public Circle getCircle() { return circle; }
 
-  public double getX() { return shapeType == ShapeType.AABB ? aabb.x : circle.x; }
-  public double getY() { return shapeType == ShapeType.AABB ? aabb.y : circle.y; }
-  public void setPosition(double x, double y) { if (shapeType == ShapeType.AABB) { aabb.x = x; aabb.y = y; } else { circle.x = x; circle.y = y; } }
+  public Rect getAabb() {
+    if (store != null && shapeType == ShapeType.AABB) {
+      aabb.x = store.x[slot]; aabb.y = store.y[slot]; aabb.w = store.w[slot]; aabb.h = store.h[slot];
+    }
+    return aabb;
+  }
+
+  public Circle getCircle() {
+    if (store != null && shapeType == ShapeType.CIRCLE) {
+      circle.x = store.x[slot]; circle.y = store.y[slot]; circle.r = store.w[slot];
+    }
+    return circle;
+  }
 
-  public double getVx() { return vx; }
-  public double getVy() { return vy; }
-  public void setVelocity(double vx, double vy) { this.vx = vx; this.vy = vy; }
+  public double getX() { if (store != null) return store.x[slot]; return shapeType == ShapeType.AABB ? aabb.x : circle.x; }
+  public double getY() { if (store != null) return store.y[slot]; return shapeType == ShapeType.AABB ? aabb.y : circle.y; }
+  public void setPosition(double x, double y) {
+    if (isSleeping()) wake();
+    if (store != null) { store.x[slot] = x; store.y[slot] = y; return; }
+    if (shapeType == ShapeType.AABB) { aabb.x = x; aabb.y = y; } else { circle.x = x; circle.y = y; }
+  }
 
-  public double getMass() { return mass; }
-  public void setMass(double mass) { this.mass = mass <= 0 ? 1.0 : mass; }
+  public double getMinX() { return shapeType == ShapeType.AABB ? getX() : getX() - getRadius(); }
+  public double getMinY() { return shapeType == ShapeType.AABB ? getY() : getY() - getRadius(); }
+  public double getMaxX() { return shapeType == ShapeType.AABB ? getX() + getWidth() : getX() + getRadius(); }
+  public double getMaxY() { return shapeType == ShapeType.AABB ? getY() + getHeight() : getY() + getRadius(); }
 
-  public boolean isStatic() { return isStatic; }
-  public void setStatic(boolean aStatic) { isStatic = aStatic; }
+  private double getWidth() { return store != null ? store.w[slot] : aabb.w; }
+  private double getHeight() { return store != null ? store.h[slot] : aabb.h; }
+  double getRadius() { return store != null ? store.w[slot] : circle.r; }
 
-  public double getRestitution() { return restitution; }
-  public void setRestitution(double restitution) { this.restitution = Math.max(0, Math.min(1, restitution)); }
+  public double getVx() { return store != null ? store.vx[slot] : vx; }
+  public double getVy() { return store != null ? store.vy[slot] : vy; }
+  public void setVelocity(double vx, double vy) {
+    if (isSleeping()) wake();
+    if (store != null) { store.vx[slot] = vx; store.vy[slot] = vy; return; }
+    this.vx = vx; this.vy = vy;
+  }
 
-  public boolean isSensor() { return sensor; }
-  public void setSensor(boolean sensor) { this.sensor = sensor; }
-}
+  public double getMass() { return store != null ? store.mass[slot] : mass; }
+  public void setMass(double mass) {
+    double m = mass <= 0 ? 1.0 : mass;
+    if (store != null) store.mass[slot] = m; else this.mass = m;
+  }
+
+  public boolean isStatic() { return store != null ? (store.flags[slot] & BodyStore2D.FLAG_STATIC) != 0 : isStatic; }
+  public void setStatic(boolean aStatic) {
+    if (store != null) { store.setStatic(slot, aStatic); return; }
+    isStatic = aStatic;
+    if (aStatic) sleeping = false;
+  }
+
+  public double getRestitution() { return store != null ? store.restitution[slot] : restitution; }
+  public void setRestitution(double restitution) {
+    double r = Math.max(0, Math.min(1, restitution));
+    if (store != null) store.restitution[slot] = r; else this.restitution = r;
+  }
+
+  public boolean isSensor() { return store != null ? (store.flags[slot] & BodyStore2D.FLAG_SENSOR) != 0 : sensor; }
+  public void setSensor(boolean sensor) {
+    if (store == null) { this.sensor = sensor; return; }
+    if (sensor) store.flags[slot] |= BodyStore2D.FLAG_SENSOR; else store.flags[slot] &= ~BodyStore2D.FLAG_SENSOR;
+  }
+
+  /**
+   * Sweeps the body from its previous to its new position every step so fast bodies cannot pass
+   * through thin tiles, static rects or other bodies. Only flagged bodies pay for the sweep.
+   */
+  public boolean isContinuousCollision() { return continuous; }
+  public void setContinuousCollision(boolean continuous) { this.continuous = continuous; }
+
+  /** Adds {@code impulse / mass} to the velocity and wakes the body. */
+  public void applyImpulse(double ix, double iy) {
+    if (isStatic()) return;
+    double m = getMass();
+    setVelocity(getVx() + ix / m, getVy() + iy / m);
+  }
+
+  /**
+   * Sleeping bodies are skipped by the integrator and act as immovable in contacts until something
+   * wakes them: an awake body pushing into them harder than resting on them would, an impulse, or
+   * any position or velocity change.
+   */
+  public boolean isSleeping() { return store != null ? (store.flags[slot] & BodyStore2D.FLAG_SLEEPING) != 0 : sleeping; }
+
+  public void wake() {
+    sleepTimer = -1;
+    if (store != null) store.setSleeping(slot, false); else sleeping = false;
+  }
+
+  /** Puts the body to rest immediately, e.g. for crates placed when a level loads. */
+  public void sleep() {
+    if (isStatic()) return;
+    sleepTimer = -1;
+    if (store != null) {
+      store.vx[slot] = 0;
+      store.vy[slot] = 0;
+      store.setSleeping(slot, true);
+    } else {
+      vx = 0;
+      vy = 0;
+      sleeping = true;
+    }
+  }
+
+  public boolean isSleepingAllowed() { return sleepingAllowed; }
+  public void setSleepingAllowed(boolean allowed) {
+    this.sleepingAllowed = allowed;
+    if (!allowed && isSleeping()) wake();
+  }
+
+  /** Advances the sleep timer while the body stays within {@code drift} of where the timer started. */
+  double advanceSleepTimer(double dt, double drift) {
+    double x = getX();
+    double y = getY();
+    double dx = x - sleepAnchorX;
+    double dy = y - sleepAnchorY;
+    if (sleepTimer < 0 || dx * dx + dy * dy > drift * drift) {
+      sleepAnchorX = x;
+      sleepAnchorY = y;
+      sleepTimer = 0;
+    } else {
+      sleepTimer += dt;
+    }
+    return sleepTimer;
+  }
 
+  void resetSleepTimer() { sleepTimer = -1; }
+
+  /** Static or sleeping: never moved by the solver. */
+  boolean isInactive() {
+    if (store != null) return (store.flags[slot] & (BodyStore2D.FLAG_STATIC | BodyStore2D.FLAG_SLEEPING)) != 0;
+    return isStatic || sleeping;
+  }
+
+  int id() { return id; }
+  int slot() { return slot; }
+
+  void bind(BodyStore2D store, int slot) { this.store = store; this.slot = slot; }
+
+  void copyInto(BodyStore2D s, int i) {
+    boolean circ = shapeType == ShapeType.CIRCLE;
+    s.x[i] = circ ? circle.x : aabb.x;
+    s.y[i] = circ ? circle.y : aabb.y;
+    s.w[i] = circ ? circle.r : aabb.w;
+    s.h[i] = circ ? circle.r : aabb.h;
+    s.vx[i] = vx;
+    s.vy[i] = vy;
+    s.mass[i] = mass;
+    s.restitution[i] = restitution;
+    s.flags[i] = (isStatic ? BodyStore2D.FLAG_STATIC : 0) | (sensor ? BodyStore2D.FLAG_SENSOR : 0) | (circ ? BodyStore2D.FLAG_CIRCLE : 0)
+        | (sleeping ? BodyStore2D.FLAG_SLEEPING : 0);
+  }
+
+  /** Copies the packed state back into this object and detaches it from the store. */
+  void unbind() {
+    if (store == null) return;
+    getAabb();
+    getCircle();
+    vx = store.vx[slot];
+    vy = store.vy[slot];
+    mass = store.mass[slot];
+    restitution = store.restitution[slot];
+    isStatic = (store.flags[slot] & BodyStore2D.FLAG_STATIC) != 0;
+    sensor = (store.flags[slot] & BodyStore2D.FLAG_SENSOR) != 0;
+    sleeping = (store.flags[slot] & BodyStore2D.FLAG_SLEEPING) != 0;
+    store = null;
+    slot = -1;
+  }
+}
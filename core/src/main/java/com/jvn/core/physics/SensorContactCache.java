@@ -0,0 +1,100 @@
+package com.jvn.core.physics;
+
+import java.util.Arrays;
+
+/**
+ * Sensor/body pairs that overlapped in a previous step. Contacts live in dense arrays in the order
+ * they began, with an open-addressing table from pair key to dense index, so re-touching a known
+ * pair is a single probe and only pairs that stopped overlapping cost anything in {@link #sweep}.
+ */
+final class SensorContactCache {
+  private long[] keys = new long[16];
+  private RigidBody2D[] sensors = new RigidBody2D[16];
+  private RigidBody2D[] others = new RigidBody2D[16];
+  private int[] seen = new int[16];
+  private int size;
+  private int[] table = new int[64]; // dense index + 1, 0 = empty
+  private int mask = 63;
+
+  int size() { return size; }
+
+  /** Marks the pair as overlapping in {@code frame}; returns true when it was not overlapping before. */
+  boolean touch(RigidBody2D sensor, RigidBody2D other, int frame) {
+    long key = key(sensor.id(), other.id());
+    int h = hash(key);
+    while (table[h] != 0) {
+      int i = table[h] - 1;
+      if (keys[i] == key) {
+        seen[i] = frame;
+        return false;
+      }
+      h = (h + 1) & mask;
+    }
+    if (size == keys.length) {
+      int cap = size * 2;
+      keys = Arrays.copyOf(keys, cap);
+      sensors = Arrays.copyOf(sensors, cap);
+      others = Arrays.copyOf(others, cap);
+      seen = Arrays.copyOf(seen, cap);
+    }
+    keys[size] = key;
+    sensors[size] = sensor;
+    others[size] = other;
+    seen[size] = frame;
+    size++;
+    table[h] = size;
+    if (size * 2 > table.length) rehash();
+    return true;
+  }
+
+  /** Drops every contact not touched in {@code frame}, reporting each to the listener in begin order. */
+  void sweep(int frame, PhysicsWorld2D.SensorContactListener listener) {
+    int w = 0;
+    for (int r = 0; r < size; r++) {
+      if (seen[r] == frame) {
+        if (w != r) {
+          keys[w] = keys[r];
+          sensors[w] = sensors[r];
+          others[w] = others[r];
+          seen[w] = seen[r];
+        }
+        w++;
+      } else if (listener != null) {
+        listener.onSensorEnd(sensors[r], others[r]);
+      }
+    }
+    if (w == size) return;
+    Arrays.fill(sensors, w, size, null);
+    Arrays.fill(others, w, size, null);
+    size = w;
+    rehash();
+  }
+
+  void clear() {
+    Arrays.fill(sensors, 0, size, null);
+    Arrays.fill(others, 0, size, null);
+    size = 0;
+    Arrays.fill(table, 0);
+  }
+
+  private void rehash() {
+    int cap = table.length;
+    while (size * 2 > cap) cap *= 2;
+    if (cap != table.length) table = new int[cap];
+    else Arrays.fill(table, 0);
+    mask = cap - 1;
+    for (int i = 0; i < size; i++) {
+      int h = hash(keys[i]);
+      while (table[h] != 0) h = (h + 1) & mask;
+      table[h] = i + 1;
+    }
+  }
+
+  private int hash(long key) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+  }
+
+  private static long key(int a, int b) {
+    return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+  }
+}
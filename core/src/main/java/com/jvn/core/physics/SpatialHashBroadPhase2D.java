@@ -0,0 +1,174 @@
+package com.jvn.core.physics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid broad-phase. Each body is binned into every cell its AABB touches; bodies sharing
+ * a cell become candidates. Cells are hashed into a flat sorted array so no per-step allocation
+ * happens once the buffers have grown to the scene size. Pick a cell size around the typical
+ * body diameter. Sleeping bodies are binned into a separate array that is only rebuilt when one
+ * falls asleep or wakes, so a mostly resting scene bins and sorts just its moving bodies.
+ */
+public class SpatialHashBroadPhase2D implements BroadPhase2D {
+  private double cellSize;
+  private double margin;
+  private final BoundsCache bounds = new BoundsCache();
+  private long[] entries = new long[256]; // (cellHash << 32) | bodyIndex
+  private int entryCount;
+  private long[] restEntries = new long[256]; // same layout, sleeping bodies only
+  private int restCount;
+  private double restCellSize;
+  private final LongSorter sorter = new LongSorter();
+
+  public SpatialHashBroadPhase2D(double cellSize) { setCellSize(cellSize); }
+
+  public double getCellSize() { return cellSize; }
+  public void setCellSize(double cellSize) { this.cellSize = cellSize > 0 ? cellSize : 64; }
+
+  public double getMargin() { return margin; }
+  public void setMargin(double margin) { this.margin = Math.max(0, margin); }
+
+  @Override
+  public void collectPairs(List<RigidBody2D> bodies, BodyPairBuffer out) {
+    refit(bodies);
+    int start = 0;
+    while (start < entryCount) {
+      int cell = (int) (entries[start] >>> 32);
+      int end = start + 1;
+      while (end < entryCount && (int) (entries[end] >>> 32) == cell) end++;
+      int rest = restCount > 0 ? lowerBound(restEntries, restCount, (long) cell << 32) : restCount;
+      for (int a = start; a < end; a++) {
+        int i = (int) entries[a];
+        RigidBody2D bi = bodies.get(i);
+        for (int c = a + 1; c < end; c++) {
+          int j = (int) entries[c];
+          if (!bounds.overlaps(i, j)) continue;
+          if (!BroadPhase2D.canInteract(bi, bodies.get(j))) continue;
+          out.add(i, j);
+        }
+        // Sleepers in the same cell; two sleepers never interact
+        for (int c = rest; c < restCount && (int) (restEntries[c] >>> 32) == cell; c++) {
+          int j = (int) restEntries[c];
+          if (!bounds.overlaps(i, j)) continue;
+          if (!BroadPhase2D.canInteract(bi, bodies.get(j))) continue;
+          out.add(i, j);
+        }
+      }
+      start = end;
+    }
+    out.sortUnique();
+  }
+
+  @Override
+  public boolean refit(List<RigidBody2D> bodies) {
+    bounds.fill(bodies, margin);
+    double inv = 1.0 / cellSize;
+    if (bounds.restingChanged || restCellSize != cellSize) {
+      restCount = 0;
+      for (int k = 0; k < bounds.restingCount; k++) bin(bounds.resting[k], inv, true);
+      sorter.sort(restEntries, restCount);
+      restCellSize = cellSize;
+    }
+    entryCount = 0;
+    for (int k = 0; k < bounds.activeCount; k++) bin(bounds.active[k], inv, false);
+    sorter.sort(entries, entryCount);
+    return true;
+  }
+
+  private void bin(int i, double inv, boolean resting) {
+    int x0 = (int) Math.floor(bounds.minX[i] * inv);
+    int y0 = (int) Math.floor(bounds.minY[i] * inv);
+    int x1 = (int) Math.floor(bounds.maxX[i] * inv);
+    int y1 = (int) Math.floor(bounds.maxY[i] * inv);
+    for (int cy = y0; cy <= y1; cy++) {
+      for (int cx = x0; cx <= x1; cx++) {
+        long e = ((long) hash(cx, cy) << 32) | i;
+        if (resting) {
+          if (restCount == restEntries.length) restEntries = Arrays.copyOf(restEntries, restCount * 2);
+          restEntries[restCount++] = e;
+        } else {
+          if (entryCount == entries.length) entries = Arrays.copyOf(entries, entryCount * 2);
+          entries[entryCount++] = e;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void queryAabb(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+    double inv = 1.0 / cellSize;
+    int x0 = (int) Math.floor(minX * inv);
+    int y0 = (int) Math.floor(minY * inv);
+    int x1 = (int) Math.floor(maxX * inv);
+    int y1 = (int) Math.floor(maxY * inv);
+    if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) > entryCount + restCount) {
+      // Box covers more cells than there are entries, a flat scan is cheaper
+      for (int i = 0; i < bounds.size; i++) {
+        if (bounds.overlaps(i, minX, minY, maxX, maxY)) visitor.accept(i);
+      }
+      return;
+    }
+    for (int cy = y0; cy <= y1; cy++) {
+      for (int cx = x0; cx <= x1; cx++) visitCell(cx, cy, visitor);
+    }
+  }
+
+  @Override
+  public void querySegment(double x1, double y1, double x2, double y2, IntConsumer visitor) {
+    double inv = 1.0 / cellSize;
+    int cx = (int) Math.floor(x1 * inv);
+    int cy = (int) Math.floor(y1 * inv);
+    int ex = (int) Math.floor(x2 * inv);
+    int ey = (int) Math.floor(y2 * inv);
+    if ((long) Math.abs(ex - cx) + Math.abs(ey - cy) + 1 > entryCount + restCount) {
+      BroadPhase2D.super.querySegment(x1, y1, x2, y2, visitor);
+      return;
+    }
+    // Grid walk (Amanatides & Woo): step into whichever neighbouring cell the segment reaches first
+    double dx = x2 - x1;
+    double dy = y2 - y1;
+    double tMaxX = dx > 0 ? ((cx + 1) * cellSize - x1) / dx : dx < 0 ? (cx * cellSize - x1) / dx : Double.POSITIVE_INFINITY;
+    double tMaxY = dy > 0 ? ((cy + 1) * cellSize - y1) / dy : dy < 0 ? (cy * cellSize - y1) / dy : Double.POSITIVE_INFINITY;
+    double tDeltaX = dx != 0 ? cellSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+    double tDeltaY = dy != 0 ? cellSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+    while (true) {
+      visitCell(cx, cy, visitor);
+      if (cx == ex && cy == ey) return;
+      if (cy == ey || (cx != ex && tMaxX < tMaxY)) {
+        cx += ex > cx ? 1 : -1;
+        tMaxX += tDeltaX;
+      } else {
+        cy += ey > cy ? 1 : -1;
+        tMaxY += tDeltaY;
+      }
+    }
+  }
+
+  private void visitCell(int cx, int cy, IntConsumer visitor) {
+    long key = (long) hash(cx, cy) << 32;
+    for (int k = lowerBound(entries, entryCount, key); k < entryCount && (entries[k] & 0xFFFFFFFF00000000L) == key; k++) {
+      visitor.accept((int) entries[k]);
+    }
+    for (int k = lowerBound(restEntries, restCount, key); k < restCount && (restEntries[k] & 0xFFFFFFFF00000000L) == key; k++) {
+      visitor.accept((int) restEntries[k]);
+    }
+  }
+
+  private static int lowerBound(long[] a, int n, long key) {
+    int lo = 0;
+    int hi = n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (a[mid] < key) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  private static int hash(int cx, int cy) {
+    // Collisions only merge cells, which yields extra candidates but never misses a pair
+    return cx * 73856093 ^ cy * 19349663;
+  }
+}
@@ -0,0 +1,148 @@
+package com.jvn.core.physics;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Sort-and-sweep broad-phase along the x axis. The sorted order is kept between steps and repaired
+ * with an insertion sort, which is close to linear while bodies move coherently from frame to frame.
+ * Works well for scenes spread out along one axis, e.g. side scrollers. Sleeping bodies live in a
+ * second order that is only rebuilt when one falls asleep or wakes; moving bodies find them with a
+ * binary search, so a mostly resting scene repairs just its moving bodies each step.
+ */
+public class SweepAndPruneBroadPhase2D implements BroadPhase2D {
+  private double margin;
+  private final BoundsCache bounds = new BoundsCache();
+  private int[] order = new int[0]; // active bodies by minX
+  private int orderCount;
+  private int[] restOrder = new int[0]; // sleeping bodies by minX
+  private int restCount;
+  private double restMaxWidth; // widest sleeper, bounds how far left of a box a sleeper can start
+  private int[] scratch = new int[0];
+
+  public double getMargin() { return margin; }
+  public void setMargin(double margin) { this.margin = Math.max(0, margin); }
+
+  @Override
+  public void collectPairs(List<RigidBody2D> bodies, BodyPairBuffer out) {
+    refit(bodies);
+    int n = orderCount;
+    double[] minX = bounds.minX;
+    double[] maxX = bounds.maxX;
+    for (int a = 0; a < n; a++) {
+      int i = order[a];
+      double right = maxX[i];
+      RigidBody2D bi = bodies.get(i);
+      for (int c = a + 1; c < n; c++) {
+        int j = order[c];
+        if (minX[j] > right) break;
+        if (!bounds.overlaps(i, j)) continue;
+        if (!BroadPhase2D.canInteract(bi, bodies.get(j))) continue;
+        out.add(i, j);
+      }
+      // Sleepers overlapping on x; two sleepers never interact
+      for (int c = firstResting(minX[i]); c < restCount; c++) {
+        int j = restOrder[c];
+        if (minX[j] > right) break;
+        if (!bounds.overlaps(i, j)) continue;
+        if (!BroadPhase2D.canInteract(bi, bodies.get(j))) continue;
+        out.add(i, j);
+      }
+    }
+    out.sortUnique();
+  }
+
+  @Override
+  public boolean refit(List<RigidBody2D> bodies) {
+    bounds.fill(bodies, margin);
+    double[] minX = bounds.minX;
+    if (bounds.restingChanged) {
+      // The active set changed too, so its previous order no longer applies
+      orderCount = bounds.activeCount;
+      order = copy(bounds.active, orderCount, order);
+      sortByMinX(order, orderCount);
+      restCount = bounds.restingCount;
+      restOrder = copy(bounds.resting, restCount, restOrder);
+      sortByMinX(restOrder, restCount);
+      restMaxWidth = 0;
+      for (int k = 0; k < restCount; k++) restMaxWidth = Math.max(restMaxWidth, bounds.maxX[restOrder[k]] - minX[restOrder[k]]);
+      return true;
+    }
+    int n = orderCount;
+    for (int k = 1; k < n; k++) {
+      int idx = order[k];
+      double key = minX[idx];
+      int m = k - 1;
+      while (m >= 0 && minX[order[m]] > key) {
+        order[m + 1] = order[m];
+        m--;
+      }
+      order[m + 1] = idx;
+    }
+    return true;
+  }
+
+  @Override
+  public void queryAabb(double x0, double y0, double x1, double y1, IntConsumer visitor) {
+    // Everything past the first minX beyond the box is out of range
+    int lo = 0;
+    int hi = orderCount;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (bounds.minX[order[mid]] <= x1) lo = mid + 1;
+      else hi = mid;
+    }
+    for (int a = 0; a < lo; a++) {
+      int i = order[a];
+      if (bounds.overlaps(i, x0, y0, x1, y1)) visitor.accept(i);
+    }
+    for (int c = firstResting(x0); c < restCount; c++) {
+      int j = restOrder[c];
+      if (bounds.minX[j] > x1) break;
+      if (bounds.overlaps(j, x0, y0, x1, y1)) visitor.accept(j);
+    }
+  }
+
+  /** Position of the first sleeper that can reach {@code x}: none starting left of it is wider than restMaxWidth. */
+  private int firstResting(double x) {
+    double from = x - restMaxWidth;
+    int lo = 0;
+    int hi = restCount;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (bounds.minX[restOrder[mid]] < from) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  private static int[] copy(int[] src, int n, int[] dst) {
+    if (dst.length < n) dst = new int[Math.max(n, dst.length * 2)];
+    System.arraycopy(src, 0, dst, 0, n);
+    return dst;
+  }
+
+  /** Bottom-up merge sort by minX; rebuilds start from arbitrary order where insertion sort would be quadratic. */
+  private void sortByMinX(int[] a, int n) {
+    if (scratch.length < n) scratch = new int[Math.max(n, scratch.length * 2)];
+    double[] key = bounds.minX;
+    int[] src = a;
+    int[] dst = scratch;
+    for (int width = 1; width < n; width *= 2) {
+      for (int lo = 0; lo < n; lo += 2 * width) {
+        int mid = Math.min(lo + width, n);
+        int hi = Math.min(lo + 2 * width, n);
+        int i = lo;
+        int j = mid;
+        int k = lo;
+        while (i < mid && j < hi) dst[k++] = key[src[j]] < key[src[i]] ? src[j++] : src[i++];
+        while (i < mid) dst[k++] = src[i++];
+        while (j < hi) dst[k++] = src[j++];
+      }
+      int[] t = src;
+      src = dst;
+      dst = t;
+    }
+    if (src != a) System.arraycopy(src, 0, a, 0, n);
+  }
+}
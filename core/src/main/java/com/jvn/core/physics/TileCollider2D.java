@@ -0,0 +1,197 @@
+package com.jvn.core.physics;
+
+import com.jvn.core.math.Rect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Static collision geometry backed by a tile grid. Solid tiles are merged into greedy rectangles
+ * (widest run first, then grown downwards) and every cell remembers which rectangle covers it, so a
+ * lookup only touches the cells under the query AABB. Cost per body depends on its size, not the map size.
+ */
+public class TileCollider2D {
+  private final int cols;
+  private final int rows;
+  private final double tileW;
+  private final double tileH;
+  private double originX;
+  private double originY;
+  private final boolean[] solid;
+  private final int[] cellRect; // merged rect index per cell, -1 when empty
+  private final List<Rect> rects = new ArrayList<>();
+  private boolean dirty = true;
+
+  private int[] rectStamp = new int[16];
+  private int stamp;
+  private int[] hits = new int[16];
+
+  // World-space boxes changed since the world last looked, so bodies sleeping on them can wake;
+  // merged into one box past MAX_CHANGES when nothing consumes them
+  private static final int MAX_CHANGES = 64;
+  private final BoxBuffer changes = new BoxBuffer();
+
+  public TileCollider2D(int cols, int rows, double tileW, double tileH) {
+    this.cols = Math.max(1, cols);
+    this.rows = Math.max(1, rows);
+    this.tileW = tileW;
+    this.tileH = tileH;
+    this.solid = new boolean[this.cols * this.rows];
+    this.cellRect = new int[this.cols * this.rows];
+  }
+
+  public int getCols() { return cols; }
+  public int getRows() { return rows; }
+  public double getTileW() { return tileW; }
+  public double getTileH() { return tileH; }
+  public double getOriginX() { return originX; }
+  public double getOriginY() { return originY; }
+
+  public void setOrigin(double x, double y) {
+    if (x == originX && y == originY) return;
+    noteChanged(originX, originY, originX + cols * tileW, originY + rows * tileH);
+    this.originX = x;
+    this.originY = y;
+    noteChanged(originX, originY, originX + cols * tileW, originY + rows * tileH);
+    dirty = true;
+  }
+
+  public boolean isSolid(int x, int y) {
+    if (x < 0 || y < 0 || x >= cols || y >= rows) return false;
+    return solid[y * cols + x];
+  }
+
+  public void setSolid(int x, int y, boolean s) {
+    if (x < 0 || y < 0 || x >= cols || y >= rows) return;
+    int i = y * cols + x;
+    if (solid[i] == s) return;
+    solid[i] = s;
+    noteChanged(originX + x * tileW, originY + y * tileH, originX + (x + 1) * tileW, originY + (y + 1) * tileH);
+    dirty = true;
+  }
+
+  /** Boxes changed by {@link #setSolid} and {@link #setOrigin} since the last {@code changes().clear()}. */
+  BoxBuffer changes() { return changes; }
+
+  private void noteChanged(double minX, double minY, double maxX, double maxY) {
+    if (changes.size() == MAX_CHANGES) changes.collapse();
+    changes.add(minX, minY, maxX, maxY);
+  }
+
+  /** Merged rectangles covering every solid tile, in row-major order of their top-left tile. */
+  public List<Rect> getRects() {
+    if (dirty) rebuild();
+    return rects;
+  }
+
+  public void rebuild() {
+    rects.clear();
+    Arrays.fill(cellRect, -1);
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < cols; x++) {
+        if (!solid[y * cols + x] || cellRect[y * cols + x] >= 0) continue;
+        int w = 1;
+        while (x + w < cols && solid[y * cols + x + w] && cellRect[y * cols + x + w] < 0) w++;
+        int h = 1;
+        grow:
+        while (y + h < rows) {
+          int row = (y + h) * cols;
+          for (int k = 0; k < w; k++) {
+            if (!solid[row + x + k] || cellRect[row + x + k] >= 0) break grow;
+          }
+          h++;
+        }
+        int id = rects.size();
+        for (int yy = y; yy < y + h; yy++) {
+          Arrays.fill(cellRect, yy * cols + x, yy * cols + x + w, id);
+        }
+        rects.add(new Rect(originX + x * tileW, originY + y * tileH, w * tileW, h * tileH));
+      }
+    }
+    if (rectStamp.length < rects.size()) rectStamp = new int[rects.size()];
+    else Arrays.fill(rectStamp, 0);
+    stamp = 0;
+    dirty = false;
+  }
+
+  /**
+   * Collects the merged rectangles overlapping the given AABB. Results are read back with
+   * {@link #queryResult(int)} and stay valid until the next query.
+   */
+  int query(double minX, double minY, double maxX, double maxY) {
+    if (dirty) rebuild();
+    int x0 = Math.max(0, (int) Math.floor((minX - originX) / tileW));
+    int y0 = Math.max(0, (int) Math.floor((minY - originY) / tileH));
+    int x1 = Math.min(cols - 1, (int) Math.floor((maxX - originX) / tileW));
+    int y1 = Math.min(rows - 1, (int) Math.floor((maxY - originY) / tileH));
+    if (x0 > x1 || y0 > y1) return 0;
+    if (++stamp == Integer.MAX_VALUE) { Arrays.fill(rectStamp, 0); stamp = 1; }
+    int count = 0;
+    for (int y = y0; y <= y1; y++) {
+      int row = y * cols;
+      for (int x = x0; x <= x1; x++) {
+        int id = cellRect[row + x];
+        if (id < 0 || rectStamp[id] == stamp) continue;
+        rectStamp[id] = stamp;
+        if (count == hits.length) hits = Arrays.copyOf(hits, count * 2);
+        hits[count++] = id;
+      }
+    }
+    return count;
+  }
+
+  Rect queryResult(int k) { return rects.get(hits[k]); }
+
+  /** First merged rectangle whose tiles the segment enters, walking from the start point; null when clear. */
+  Rect raycastRect(double sx, double sy, double ex, double ey) {
+    if (dirty) rebuild();
+    double dx = ex - sx;
+    double dy = ey - sy;
+    // Clip the segment to the grid so the walk only visits real cells
+    double t0 = 0;
+    double t1 = 1;
+    double gx1 = originX + cols * tileW;
+    double gy1 = originY + rows * tileH;
+    if (dx == 0) {
+      if (sx < originX || sx > gx1) return null;
+    } else {
+      double a = (originX - sx) / dx;
+      double b = (gx1 - sx) / dx;
+      t0 = Math.max(t0, Math.min(a, b));
+      t1 = Math.min(t1, Math.max(a, b));
+    }
+    if (dy == 0) {
+      if (sy < originY || sy > gy1) return null;
+    } else {
+      double a = (originY - sy) / dy;
+      double b = (gy1 - sy) / dy;
+      t0 = Math.max(t0, Math.min(a, b));
+      t1 = Math.min(t1, Math.max(a, b));
+    }
+    if (t0 > t1) return null;
+    int cx = clampCol((int) Math.floor((sx + dx * t0 - originX) / tileW));
+    int cy = clampRow((int) Math.floor((sy + dy * t0 - originY) / tileH));
+    int tx = clampCol((int) Math.floor((sx + dx * t1 - originX) / tileW));
+    int ty = clampRow((int) Math.floor((sy + dy * t1 - originY) / tileH));
+    double tMaxX = dx > 0 ? (originX + (cx + 1) * tileW - sx) / dx : dx < 0 ? (originX + cx * tileW - sx) / dx : Double.POSITIVE_INFINITY;
+    double tMaxY = dy > 0 ? (originY + (cy + 1) * tileH - sy) / dy : dy < 0 ? (originY + cy * tileH - sy) / dy : Double.POSITIVE_INFINITY;
+    double tDeltaX = dx != 0 ? tileW / Math.abs(dx) : Double.POSITIVE_INFINITY;
+    double tDeltaY = dy != 0 ? tileH / Math.abs(dy) : Double.POSITIVE_INFINITY;
+    while (true) {
+      int id = cellRect[cy * cols + cx];
+      if (id >= 0) return rects.get(id);
+      if (cx == tx && cy == ty) return null;
+      if (cy == ty || (cx != tx && tMaxX < tMaxY)) {
+        cx += tx > cx ? 1 : -1;
+        tMaxX += tDeltaX;
+      } else {
+        cy += ty > cy ? 1 : -1;
+        tMaxY += tDeltaY;
+      }
+    }
+  }
+
+  private int clampCol(int x) { return Math.max(0, Math.min(cols - 1, x)); }
+  private int clampRow(int y) { return Math.max(0, Math.min(rows - 1, y)); }
+}
@@ -0,0 +1,549 @@
+package com.jvn.core.scene2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Blitter2D decorator that records a frame's draw calls and replays them to the target in fewer,
+ * longer runs. Transforms are tracked here and folded into each command: axis-aligned ones are
+ * baked into the coordinates, so entities no longer cost a save/restore each, and only rotated or
+ * sheared commands are replayed under {@link Blitter2D#transform}. Commands are grouped by texture
+ * and state, but a command only moves ahead of earlier ones it does not overlap on screen, so the
+ * painted result is the same as drawing directly. State is sent to the target only when it
+ * actually changes.
+ *
+ * <p>Call {@link #endFrame} (or {@link #flush}) after rendering; nothing reaches the target before.
+ */
+public class BatchingBlitter2D implements Blitter2D {
+  /** How many runs back a command looks for one it can join. */
+  private static final int LOOKBACK = 32;
+
+  private static final int CLEAR = 0;
+  private static final int FILL_RECT = 1;
+  private static final int FILL_CIRCLE = 2;
+  private static final int STROKE_RECT = 3;
+  private static final int STROKE_CIRCLE = 4;
+  private static final int LINE = 5;
+  private static final int IMAGE = 6;
+  private static final int IMAGE_REGION = 7;
+  private static final int TEXT = 8;
+
+  private static final class Command {
+    int kind;
+    String image;
+    String text;
+    boolean bold;
+    final double[] args = new double[8];
+    double m00, m01, m02, m10, m11, m12;
+    double fr, fg, fb, fa;
+    double sr, sg, sb, sa;
+    double strokeWidth;
+    double alpha;
+    String fontFamily;
+    double fontSize;
+    boolean fontBold;
+    double minX, minY, maxX, maxY;
+    int next;
+  }
+
+  private final Blitter2D target;
+
+  // current state as seen by the caller
+  private double m00 = 1, m01, m02, m10, m11 = 1, m12;
+  private static final int FRAME = 17; // doubles saved per push: matrix, fill, stroke, width, alpha, font size
+  private double[] stack = new double[FRAME * 16];
+  private String[] familyStack = new String[16];
+  private boolean[] boldStack = new boolean[16];
+  private int depth;
+  private double fr, fg, fb, fa = 1;
+  private double sr, sg, sb, sa = 1;
+  private double strokeWidth = 1;
+  private double alpha = 1;
+  private String fontFamily = "Arial";
+  private double fontSize = 12;
+  private boolean fontBold;
+
+  // recorded frame
+  private final List<Command> commands = new ArrayList<>();
+  private int commandCount;
+  private int[] runHead = new int[64];
+  private int[] runTail = new int[64];
+  private double[] runBounds = new double[64 * 4];
+  private int runCount;
+
+  // state last sent to the target during a flush
+  private boolean fillKnown, strokeKnown, widthKnown, alphaKnown, fontKnown;
+  private double efr, efg, efb, efa, esr, esg, esb, esa, eWidth, eAlpha;
+  private String eFamily;
+  private boolean measureFontKnown; // the target may share its context with other renderers, so only trusted within a frame
+  private String measureFamily;
+  private double measureSize;
+  private boolean measureBold;
+
+  private int[] offscreenDepth = new int[4];
+  private int offscreenCount;
+
+  private int submittedDraws, submittedStateChanges, drawCalls, stateChanges, runs;
+  private int lastSubmittedDraws, lastSubmittedStateChanges, lastDrawCalls, lastStateChanges, lastRuns;
+
+  public BatchingBlitter2D(Blitter2D target) {
+    if (target == null) throw new IllegalArgumentException("target");
+    this.target = target;
+  }
+
+  public Blitter2D getTarget() { return target; }
+
+  /** Replays everything recorded so far and publishes this frame's counters. */
+  public void endFrame() {
+    flush();
+    lastSubmittedDraws = submittedDraws;
+    lastSubmittedStateChanges = submittedStateChanges;
+    lastDrawCalls = drawCalls;
+    lastStateChanges = stateChanges;
+    lastRuns = runs;
+    submittedDraws = submittedStateChanges = drawCalls = stateChanges = runs = 0;
+    measureFontKnown = false;
+    m00 = 1; m01 = 0; m02 = 0; m10 = 0; m11 = 1; m12 = 0;
+    depth = 0;
+  }
+
+  /** Draw calls the caller issued in the last frame. */
+  public int getSubmittedDraws() { return lastSubmittedDraws; }
+  /** State and transform calls (set*, push, pop, translate, ...) the caller issued in the last frame. */
+  public int getSubmittedStateChanges() { return lastSubmittedStateChanges; }
+  /** Draw calls sent to the target in the last frame. */
+  public int getDrawCalls() { return lastDrawCalls; }
+  /** State and transform calls sent to the target in the last frame. */
+  public int getStateChanges() { return lastStateChanges; }
+  /** Runs of same-state commands the last frame was replayed in. */
+  public int getRunCount() { return lastRuns; }
+
+  @Override
+  public void clear(double r, double g, double b, double a) {
+    Command c = record(CLEAR);
+    c.args[0] = r; c.args[1] = g; c.args[2] = b; c.args[3] = a;
+    c.minX = c.minY = Double.NEGATIVE_INFINITY;
+    c.maxX = c.maxY = Double.POSITIVE_INFINITY;
+    place(c);
+  }
+
+  @Override public void setFill(double r, double g, double b, double a) { fr = r; fg = g; fb = b; fa = a; submittedStateChanges++; }
+  @Override public void setStroke(double r, double g, double b, double a) { sr = r; sg = g; sb = b; sa = a; submittedStateChanges++; }
+  @Override public void setStrokeWidth(double w) { strokeWidth = w; submittedStateChanges++; }
+  @Override public void setGlobalAlpha(double a) { alpha = a; submittedStateChanges++; }
+
+  @Override
+  public void setFont(String family, double size, boolean bold) {
+    fontFamily = family; fontSize = size; fontBold = bold;
+    submittedStateChanges++;
+  }
+
+  @Override public String getFontFamily() { return fontFamily; }
+
+  /** Saves transform and drawing state, like a graphics context save. */
+  @Override
+  public void push() {
+    if (familyStack.length == depth) {
+      stack = Arrays.copyOf(stack, stack.length * 2);
+      familyStack = Arrays.copyOf(familyStack, depth * 2);
+      boldStack = Arrays.copyOf(boldStack, depth * 2);
+    }
+    int o = depth * FRAME;
+    double[] st = stack;
+    st[o] = m00; st[o + 1] = m01; st[o + 2] = m02;
+    st[o + 3] = m10; st[o + 4] = m11; st[o + 5] = m12;
+    st[o + 6] = fr; st[o + 7] = fg; st[o + 8] = fb; st[o + 9] = fa;
+    st[o + 10] = sr; st[o + 11] = sg; st[o + 12] = sb; st[o + 13] = sa;
+    st[o + 14] = strokeWidth; st[o + 15] = alpha; st[o + 16] = fontSize;
+    familyStack[depth] = fontFamily;
+    boldStack[depth] = fontBold;
+    depth++;
+    submittedStateChanges++;
+  }
+
+  @Override
+  public void pop() {
+    submittedStateChanges++;
+    if (depth == 0) return;
+    depth--;
+    int o = depth * FRAME;
+    double[] st = stack;
+    m00 = st[o]; m01 = st[o + 1]; m02 = st[o + 2];
+    m10 = st[o + 3]; m11 = st[o + 4]; m12 = st[o + 5];
+    fr = st[o + 6]; fg = st[o + 7]; fb = st[o + 8]; fa = st[o + 9];
+    sr = st[o + 10]; sg = st[o + 11]; sb = st[o + 12]; sa = st[o + 13];
+    strokeWidth = st[o + 14]; alpha = st[o + 15]; fontSize = st[o + 16];
+    fontFamily = familyStack[depth];
+    fontBold = boldStack[depth];
+    familyStack[depth] = null;
+  }
+
+  @Override
+  public void translate(double x, double y) {
+    m02 += m00 * x + m01 * y;
+    m12 += m10 * x + m11 * y;
+    submittedStateChanges++;
+  }
+
+  @Override
+  public void rotateDeg(double degrees) {
+    double rad = Math.toRadians(degrees);
+    double c = Math.cos(rad);
+    double s = Math.sin(rad);
+    double a = m00 * c + m01 * s;
+    double b = m10 * c + m11 * s;
+    m01 = m01 * c - m00 * s;
+    m11 = m11 * c - m10 * s;
+    m00 = a;
+    m10 = b;
+    submittedStateChanges++;
+  }
+
+  @Override
+  public void scale(double sx, double sy) {
+    m00 *= sx; m10 *= sx;
+    m01 *= sy; m11 *= sy;
+    submittedStateChanges++;
+  }
+
+  @Override
+  public void transform(double mxx, double myx, double mxy, double myy, double tx, double ty) {
+    double a = m00 * mxx + m01 * myx;
+    double b = m10 * mxx + m11 * myx;
+    double c = m00 * mxy + m01 * myy;
+    double d = m10 * mxy + m11 * myy;
+    m02 += m00 * tx + m01 * ty;
+    m12 += m10 * tx + m11 * ty;
+    m00 = a; m10 = b; m01 = c; m11 = d;
+    submittedStateChanges++;
+  }
+
+  @Override
+  public void fillRect(double x, double y, double w, double h) {
+    Command c = record(FILL_RECT);
+    c.args[0] = x; c.args[1] = y; c.args[2] = w; c.args[3] = h;
+    bound(c, x, y, x + w, y + h, 0);
+    place(c);
+  }
+
+  @Override
+  public void strokeRect(double x, double y, double w, double h) {
+    Command c = record(STROKE_RECT);
+    c.args[0] = x; c.args[1] = y; c.args[2] = w; c.args[3] = h;
+    double p = strokeWidth * 0.5;
+    bound(c, x - p, y - p, x + w + p, y + h + p, 1);
+    place(c);
+  }
+
+  @Override
+  public void fillCircle(double cx, double cy, double radius) {
+    Command c = record(FILL_CIRCLE);
+    c.args[0] = cx; c.args[1] = cy; c.args[2] = radius;
+    bound(c, cx - radius, cy - radius, cx + radius, cy + radius, 1);
+    place(c);
+  }
+
+  @Override
+  public void strokeCircle(double cx, double cy, double radius) {
+    Command c = record(STROKE_CIRCLE);
+    c.args[0] = cx; c.args[1] = cy; c.args[2] = radius;
+    double r = radius + strokeWidth * 0.5;
+    bound(c, cx - r, cy - r, cx + r, cy + r, 1);
+    place(c);
+  }
+
+  @Override
+  public void drawLine(double x1, double y1, double x2, double y2) {
+    Command c = record(LINE);
+    c.args[0] = x1; c.args[1] = y1; c.args[2] = x2; c.args[3] = y2;
+    double p = strokeWidth * 0.5;
+    bound(c, Math.min(x1, x2) - p, Math.min(y1, y2) - p, Math.max(x1, x2) + p, Math.max(y1, y2) + p, 1);
+    place(c);
+  }
+
+  @Override
+  public void drawImage(String classpath, double x, double y, double w, double h) {
+    if (classpath == null || classpath.isBlank()) return;
+    Command c = record(IMAGE);
+    c.image = classpath;
+    c.args[0] = x; c.args[1] = y; c.args[2] = w; c.args[3] = h;
+    bound(c, x, y, x + w, y + h, 0);
+    place(c);
+  }
+
+  @Override
+  public void drawImageRegion(String classpath, double sx, double sy, double sw, double sh,
+                              double dx, double dy, double dw, double dh) {
+    if (classpath == null || classpath.isBlank()) return;
+    Command c = record(IMAGE_REGION);
+    c.image = classpath;
+    c.args[0] = sx; c.args[1] = sy; c.args[2] = sw; c.args[3] = sh;
+    c.args[4] = dx; c.args[5] = dy; c.args[6] = dw; c.args[7] = dh;
+    bound(c, dx, dy, dx + dw, dy + dh, 0);
+    place(c);
+  }
+
+  @Override
+  public void drawText(String text, double x, double y, double size, boolean bold) {
+    if (text == null) return;
+    Command c = record(TEXT);
+    c.text = text;
+    c.bold = bold;
+    c.args[0] = x; c.args[1] = y; c.args[2] = size;
+    // generous box: no glyph is wider than 1.2em or reaches further than that above the baseline
+    bound(c, x, y - size * 1.2, x + text.length() * size * 1.2, y + size * 0.5, 1);
+    place(c);
+  }
+
+  @Override
+  public double measureTextWidth(String text, double size, boolean bold) {
+    if (!measureFontKnown || !Objects.equals(measureFamily, fontFamily) || measureSize != fontSize || measureBold != fontBold) {
+      target.setFont(fontFamily, fontSize, fontBold);
+      measureFamily = fontFamily; measureSize = fontSize; measureBold = fontBold;
+      measureFontKnown = true;
+    }
+    return target.measureTextWidth(text, size, bold);
+  }
+
+  @Override
+  public boolean beginOffscreen(String key, int width, int height) {
+    flush();
+    if (!target.beginOffscreen(key, width, height)) return false;
+    measureFontKnown = false;
+    if (offscreenCount == offscreenDepth.length) offscreenDepth = Arrays.copyOf(offscreenDepth, offscreenCount * 2);
+    // the offscreen image starts untransformed, whatever the caller's transform was
+    push();
+    offscreenDepth[offscreenCount++] = depth;
+    m00 = 1; m01 = 0; m02 = 0; m10 = 0; m11 = 1; m12 = 0;
+    return true;
+  }
+
+  @Override
+  public void endOffscreen() {
+    if (offscreenCount == 0) return;
+    flush();
+    target.endOffscreen();
+    measureFontKnown = false;
+    depth = offscreenDepth[--offscreenCount];
+    pop();
+  }
+
+  @Override
+  public void releaseOffscreen(String key) {
+    flush();
+    target.releaseOffscreen(key);
+  }
+
+  @Override
+  public boolean hasOffscreen(String key) { return target.hasOffscreen(key); }
+
+  /** Replays the recorded commands to the target. */
+  public void flush() {
+    if (commandCount == 0) return;
+    fillKnown = strokeKnown = widthKnown = alphaKnown = fontKnown = false;
+    target.push();
+    stateChanges++;
+    for (int r = 0; r < runCount; r++) {
+      for (int i = runHead[r]; i >= 0; i = commands.get(i).next) emit(commands.get(i));
+    }
+    target.pop();
+    stateChanges++;
+    runs += runCount;
+    for (int i = 0; i < commandCount; i++) {
+      Command c = commands.get(i);
+      c.image = null;
+      c.text = null;
+      c.fontFamily = null;
+    }
+    commandCount = 0;
+    runCount = 0;
+  }
+
+  private Command record(int kind) {
+    if (commandCount == commands.size()) commands.add(new Command());
+    Command c = commands.get(commandCount);
+    c.kind = kind;
+    c.m00 = m00; c.m01 = m01; c.m02 = m02;
+    c.m10 = m10; c.m11 = m11; c.m12 = m12;
+    c.fr = fr; c.fg = fg; c.fb = fb; c.fa = fa;
+    c.sr = sr; c.sg = sg; c.sb = sb; c.sa = sa;
+    c.strokeWidth = strokeWidth;
+    c.alpha = alpha;
+    c.fontFamily = fontFamily;
+    c.fontSize = fontSize;
+    c.fontBold = fontBold;
+    c.next = -1;
+    submittedDraws++;
+    return c;
+  }
+
+  /** Screen-space bounds of a local rectangle, padded for antialiasing where edges may not be pixel aligned. */
+  private static void bound(Command c, double x0, double y0, double x1, double y1, double pad) {
+    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    for (int k = 0; k < 4; k++) {
+      double px = (k & 1) == 0 ? x0 : x1;
+      double py = (k & 2) == 0 ? y0 : y1;
+      double sx = c.m00 * px + c.m01 * py + c.m02;
+      double sy = c.m10 * px + c.m11 * py + c.m12;
+      minX = Math.min(minX, sx); maxX = Math.max(maxX, sx);
+      minY = Math.min(minY, sy); maxY = Math.max(maxY, sy);
+    }
+    if (c.m01 != 0 || c.m10 != 0) pad = 1;
+    c.minX = minX - pad; c.minY = minY - pad;
+    c.maxX = maxX + pad; c.maxY = maxY + pad;
+  }
+
+  /**
+   * Appends the command to the newest run it can join: one with the same texture and state that
+   * nothing drawn since overlaps. Otherwise it starts a new run at the end.
+   */
+  private void place(Command c) {
+    int index = commandCount++;
+    int join = -1;
+    if (c.kind != CLEAR) {
+      int stop = Math.max(0, runCount - LOOKBACK);
+      for (int r = runCount - 1; r >= stop; r--) {
+        if (sameState(commands.get(runHead[r]), c)) { join = r; break; }
+        int o = r * 4;
+        if (c.minX < runBounds[o + 2] && c.maxX > runBounds[o] && c.minY < runBounds[o + 3] && c.maxY > runBounds[o + 1]) break;
+      }
+    }
+    if (join < 0) {
+      if (runCount == runHead.length) {
+        runHead = Arrays.copyOf(runHead, runCount * 2);
+        runTail = Arrays.copyOf(runTail, runCount * 2);
+        runBounds = Arrays.copyOf(runBounds, runCount * 8);
+      }
+      join = runCount++;
+      runHead[join] = index;
+      int o = join * 4;
+      runBounds[o] = c.minX; runBounds[o + 1] = c.minY;
+      runBounds[o + 2] = c.maxX; runBounds[o + 3] = c.maxY;
+    } else {
+      commands.get(runTail[join]).next = index;
+      int o = join * 4;
+      runBounds[o] = Math.min(runBounds[o], c.minX);
+      runBounds[o + 1] = Math.min(runBounds[o + 1], c.minY);
+      runBounds[o + 2] = Math.max(runBounds[o + 2], c.maxX);
+      runBounds[o + 3] = Math.max(runBounds[o + 3], c.maxY);
+    }
+    runTail[join] = index;
+  }
+
+  private static int group(int kind) {
+    switch (kind) {
+      case FILL_RECT: case FILL_CIRCLE: return 1;
+      case STROKE_RECT: case STROKE_CIRCLE: case LINE: return 2;
+      case IMAGE: case IMAGE_REGION: return 3;
+      case TEXT: return 4;
+      default: return 0;
+    }
+  }
+
+  private static boolean sameState(Command a, Command b) {
+    int g = group(a.kind);
+    if (g == 0 || g != group(b.kind) || a.alpha != b.alpha) return false;
+    switch (g) {
+      case 1: return sameFill(a, b);
+      case 2: return a.sr == b.sr && a.sg == b.sg && a.sb == b.sb && a.sa == b.sa && a.strokeWidth == b.strokeWidth;
+      case 3: return a.image.equals(b.image);
+      default: return sameFill(a, b) && Objects.equals(a.fontFamily, b.fontFamily);
+    }
+  }
+
+  private static boolean sameFill(Command a, Command b) {
+    return a.fr == b.fr && a.fg == b.fg && a.fb == b.fb && a.fa == b.fa;
+  }
+
+  private void emit(Command c) {
+    boolean axisAligned = c.m01 == 0 && c.m10 == 0 && c.m00 > 0 && c.m11 > 0;
+    boolean uniform = axisAligned && c.m00 == c.m11;
+    boolean baked;
+    switch (c.kind) {
+      case FILL_RECT: case IMAGE: case IMAGE_REGION: baked = axisAligned; break;
+      case CLEAR: baked = uniform && c.m00 == 1 && c.m02 == 0 && c.m12 == 0; break;
+      default: baked = uniform;
+    }
+    double s = baked ? c.m00 : 1;
+    ensureAlpha(c.alpha);
+    switch (c.kind) {
+      case FILL_RECT: case FILL_CIRCLE: ensureFill(c); break;
+      case STROKE_RECT: case STROKE_CIRCLE: case LINE: ensureStroke(c, c.strokeWidth * s); break;
+      case TEXT: ensureFill(c); ensureFont(c); break;
+      default: break;
+    }
+    if (!baked) {
+      target.push();
+      target.transform(c.m00, c.m10, c.m01, c.m11, c.m02, c.m12);
+      stateChanges += 2;
+    }
+    double[] a = c.args;
+    double sx = baked ? c.m00 : 1, tx = baked ? c.m02 : 0;
+    double sy = baked ? c.m11 : 1, ty = baked ? c.m12 : 0;
+    switch (c.kind) {
+      case CLEAR:
+        target.clear(a[0], a[1], a[2], a[3]);
+        fillKnown = false; // backends clear by filling
+        break;
+      case FILL_RECT: target.fillRect(a[0] * sx + tx, a[1] * sy + ty, a[2] * sx, a[3] * sy); break;
+      case STROKE_RECT: target.strokeRect(a[0] * sx + tx, a[1] * sy + ty, a[2] * sx, a[3] * sy); break;
+      case FILL_CIRCLE: target.fillCircle(a[0] * sx + tx, a[1] * sy + ty, a[2] * sx); break;
+      case STROKE_CIRCLE: target.strokeCircle(a[0] * sx + tx, a[1] * sy + ty, a[2] * sx); break;
+      case LINE: target.drawLine(a[0] * sx + tx, a[1] * sy + ty, a[2] * sx + tx, a[3] * sy + ty); break;
+      case IMAGE: target.drawImage(c.image, a[0] * sx + tx, a[1] * sy + ty, a[2] * sx, a[3] * sy); break;
+      case IMAGE_REGION:
+        target.drawImageRegion(c.image, a[0], a[1], a[2], a[3], a[4] * sx + tx, a[5] * sy + ty, a[6] * sx, a[7] * sy);
+        break;
+      case TEXT: target.drawText(c.text, a[0] * sx + tx, a[1] * sy + ty, a[2] * sx, c.bold); break;
+      default: break;
+    }
+    drawCalls++;
+    if (!baked) {
+      target.pop();
+      stateChanges++;
+    }
+  }
+
+  private void ensureAlpha(double a) {
+    if (alphaKnown && eAlpha == a) return;
+    target.setGlobalAlpha(a);
+    eAlpha = a;
+    alphaKnown = true;
+    stateChanges++;
+  }
+
+  private void ensureFill(Command c) {
+    if (fillKnown && efr == c.fr && efg == c.fg && efb == c.fb && efa == c.fa) return;
+    target.setFill(c.fr, c.fg, c.fb, c.fa);
+    efr = c.fr; efg = c.fg; efb = c.fb; efa = c.fa;
+    fillKnown = true;
+    stateChanges++;
+  }
+
+  private void ensureStroke(Command c, double width) {
+    if (!strokeKnown || esr != c.sr || esg != c.sg || esb != c.sb || esa != c.sa) {
+      target.setStroke(c.sr, c.sg, c.sb, c.sa);
+      esr = c.sr; esg = c.sg; esb = c.sb; esa = c.sa;
+      strokeKnown = true;
+      stateChanges++;
+    }
+    if (!widthKnown || eWidth != width) {
+      target.setStrokeWidth(width);
+      eWidth = width;
+      widthKnown = true;
+      stateChanges++;
+    }
+  }
+
+  private void ensureFont(Command c) {
+    // drawText passes size and weight itself, so only the family has to match
+    if (fontKnown && Objects.equals(eFamily, c.fontFamily)) return;
+    target.setFont(c.fontFamily, c.fontSize, c.fontBold);
+    eFamily = c.fontFamily;
+    fontKnown = true;
+    stateChanges++;
+  }
+}
@@ -8,6 +8,8 @@ public interface Blitter2D {
   void setStrokeWidth(double w);
   void setGlobalAlpha(double a);
   void setFont(String family, double size, boolean bold);
+  /** Family of the current font, or null if the blitter does not track it. */
+  default String getFontFamily() { return null; }
 
   void push();
   void pop();
@@ -15,6 +17,21 @@ public interface Blitter2D {
   void rotateDeg(double degrees);
   void scale(double sx, double sy);
 
+  /**
+   * Concatenates an affine transform (x' = mxx*x + mxy*y + tx, y' = myx*x + myy*y + ty). The default
+   * decomposes it into translate, rotate and scale, which is exact unless the matrix shears.
+   */
+  default void transform(double mxx, double myx, double mxy, double myy, double tx, double ty) {
+    translate(tx, ty);
+    double sx = Math.hypot(mxx, myx);
+    if (sx == 0) {
+      scale(0, 0);
+      return;
+    }
+    rotateDeg(Math.toDegrees(Math.atan2(myx, mxx)));
+    scale(sx, (mxx * myy - myx * mxy) / sx);
+  }
+
   void fillRect(double x, double y, double w, double h);
   void strokeRect(double x, double y, double w, double h);
 
@@ -29,5 +46,22 @@ public interface Blitter2D {
 
   void drawText(String text, double x, double y, double size, boolean bold);
   double measureTextWidth(String text, double size, boolean bold);
+
+  /**
+   * Redirects drawing into an offscreen image of the given pixel size until {@link #endOffscreen}.
+   * The finished image is drawn with {@link #drawImage} using the same key, and replaced when the
+   * key is rendered again. Returns false, without redirecting anything, if the backend has no
+   * offscreen support; callers then draw directly.
+   */
+  default boolean beginOffscreen(String key, int width, int height) { return false; }
+  default void endOffscreen() {}
+  default void releaseOffscreen(String key) {}
+
+  /**
+   * Whether the image last rendered under the key is still held. Backends may drop offscreen
+   * images to stay within a memory budget, callers then render them again. The default suits
+   * backends that keep them until released.
+   */
+  default boolean hasOffscreen(String key) { return true; }
 }
 
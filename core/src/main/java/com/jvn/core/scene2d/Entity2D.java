@@ -10,6 +10,12 @@ public class Entity2D {
   protected boolean visible = true;
   protected double parallaxX = 1.0;
   protected double parallaxY = 1.0;
+  protected boolean hasBounds;
+  protected double boundsX;
+  protected double boundsY;
+  protected double boundsW;
+  protected double boundsH;
+  private Scene2DBase owner; // told when z changes so it can repair its draw order
 
   public double getX() { return x; }
   public double getY() { return y; }
@@ -20,15 +26,45 @@ public class Entity2D {
   public boolean isVisible() { return visible; }
   public double getParallaxX() { return parallaxX; }
   public double getParallaxY() { return parallaxY; }
+  public boolean hasBounds() { return hasBounds; }
+  public double getBoundsX() { return boundsX; }
+  public double getBoundsY() { return boundsY; }
+  public double getBoundsW() { return boundsW; }
+  public double getBoundsH() { return boundsH; }
 
   public void setPosition(double x, double y) { this.x = x; this.y = y; }
   public void setRotationDeg(double deg) { this.rotationDeg = deg; }
   public void setScale(double sx, double sy) { this.scaleX = sx; this.scaleY = sy; }
-  public void setZ(double z) { this.z = z; }
+  public void setZ(double z) {
+    if (z == this.z) return;
+    this.z = z;
+    if (owner != null) owner.markOrderDirty();
+  }
   public void setVisible(boolean visible) { this.visible = visible; }
   public void setParallax(double px, double py) { this.parallaxX = px; this.parallaxY = py; }
 
+  /**
+   * Local area the entity draws into, relative to its position and before rotation and scale.
+   * Entities with bounds are skipped by {@link Scene2DBase} while off screen; without bounds they
+   * are always drawn.
+   */
+  public void setBounds(double x, double y, double w, double h) {
+    this.boundsX = x; this.boundsY = y; this.boundsW = w; this.boundsH = h;
+    this.hasBounds = true;
+  }
+  public void clearBounds() { this.hasBounds = false; }
+
+  Scene2DBase getOwner() { return owner; }
+  void setOwner(Scene2DBase owner) { this.owner = owner; }
+
   public void update(long deltaMs) {}
 
   public void render(Blitter2D b) {}
+
+  /**
+   * Renders with the viewport mapped into local space, before rotation and scale, and the number of
+   * screen pixels one local unit covers. Entities that are large relative to the screen can
+   * override this to draw only the part that is visible, at a matching resolution.
+   */
+  public void renderVisible(Blitter2D b, double minX, double minY, double maxX, double maxY, double pixelScale) { render(b); }
 }
@@ -0,0 +1,105 @@
+package com.jvn.core.scene2d;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Places the glyphs of one font, size and colour in rows of a single atlas image. Glyphs only
+ * ever get added, so the image has to be redrawn when {@link #isDirty()}; whitespace has an
+ * advance but no cell.
+ */
+public class GlyphAtlas {
+  /** Empty space around each cell so antialiased edges and small overhangs are not clipped. */
+  public static final int PAD = 2;
+
+  public static final class Glyph {
+    private final char ch;
+    private final int x, y, w, h;
+    private final double advance;
+
+    Glyph(char ch, int x, int y, int w, int h, double advance) {
+      this.ch = ch; this.x = x; this.y = y; this.w = w; this.h = h; this.advance = advance;
+    }
+
+    public char getChar() { return ch; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getWidth() { return w; }
+    public int getHeight() { return h; }
+    public double getAdvance() { return advance; }
+  }
+
+  private final String key;
+  private final double size;
+  private final int width;
+  private final int maxHeight;
+  private final int cellHeight;
+  private final int ascent;
+  private final Glyph[] latin = new Glyph[256];
+  private final Map<Character, Glyph> other = new HashMap<>();
+  private Glyph[] order = new Glyph[128];
+  private int count;
+  private int penX;
+  private int rowY;
+  private int height;
+  private boolean dirty;
+
+  public GlyphAtlas(String key, double size, int width, int maxHeight) {
+    this.key = key;
+    this.size = size;
+    this.width = width;
+    this.maxHeight = maxHeight;
+    this.ascent = (int) Math.ceil(size) + PAD;
+    this.cellHeight = (int) Math.ceil(size * 1.35) + PAD * 2;
+  }
+
+  /** Image key the atlas is drawn under. */
+  public String getKey() { return key; }
+  public double getSize() { return size; }
+  public int getWidth() { return width; }
+  /** Height actually used, the atlas image only has to be this tall. */
+  public int getHeight() { return height; }
+  /** Distance from the top of a cell to the baseline glyphs are drawn on. */
+  public int getAscent() { return ascent; }
+  public int getGlyphCount() { return count; }
+  public boolean isDirty() { return dirty; }
+  public void markClean() { dirty = false; }
+  /** Forces a redraw, e.g. after the backend dropped the atlas image. */
+  public void markDirty() { dirty = count > 0; }
+
+  public Glyph get(char c) {
+    return c < 256 ? latin[c] : other.get(c);
+  }
+
+  /** Glyphs with a cell, in the order they were added. */
+  public Glyph getGlyph(int index) { return order[index]; }
+
+  /** Reserves a cell for the glyph; false if the atlas is full or the glyph wider than a row. */
+  public boolean add(char c, double advance) {
+    if (get(c) != null) return true;
+    Glyph g;
+    if (Character.isWhitespace(c)) {
+      g = new Glyph(c, 0, 0, 0, 0, advance);
+    } else {
+      int w = (int) Math.ceil(Math.max(0, advance)) + PAD * 2;
+      if (w > width) return false;
+      if (penX + w > width) {
+        if (rowY + cellHeight * 2 > maxHeight) return false;
+        rowY += cellHeight;
+        penX = 0;
+      } else if (rowY + cellHeight > maxHeight) {
+        return false;
+      }
+      g = new Glyph(c, penX, rowY, w, cellHeight, advance);
+      penX += w;
+      height = rowY + cellHeight;
+      if (count == order.length) order = Arrays.copyOf(order, count * 2);
+      order[count++] = g;
+      dirty = true;
+    }
+    if (c < 256) latin[c] = g;
+    else other.put(c, g);
+    return true;
+  }
+}
@@ -0,0 +1,250 @@
+package com.jvn.core.scene2d;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Draws text from glyph atlases instead of asking the target to shape and rasterize every string
+ * each frame. Each font, size, fill colour and raster scale gets an atlas, rendered through the
+ * target's offscreen support whenever new glyphs were added, and strings become runs of
+ * {@link #drawImageRegion} calls on that one image. Everything else passes straight through.
+ * Falls back to the target's own text for very large sizes, full atlases, or targets without
+ * offscreen support. Glyphs are placed by their advances, so kerning is not applied. The raster
+ * scale is the device scale times the scale of the current transform rounded up to a power of two,
+ * so text under a camera zoom or a scaled entity stays sharp; past {@link #MAX_ATLAS_ZOOM} it is
+ * drawn directly.
+ *
+ * <p>Targets cannot tint an image, so the colour is baked into the atlas. A colour only gets atlases
+ * once text was drawn in it a few times, and translucent fills never do; animated or faded text is
+ * drawn directly instead of rasterizing an atlas per frame.
+ */
+public class GlyphAtlasBlitter2D implements Blitter2D {
+  private static final int ATLAS_WIDTH = 512;
+  private static final int ATLAS_MAX_HEIGHT = 2048;
+  private static final int MAX_ATLASES = 32;
+  private static final int MAX_TRACKED_KEYS = 64;
+  /** Draws in one font and colour before it gets an atlas. */
+  public static final int DEFAULT_USES_BEFORE_ATLAS = 8;
+  /** Above this size glyphs would need large cells for little gain, such text is drawn directly. */
+  public static final double MAX_ATLAS_FONT_SIZE = 72;
+  /** Largest transform scale atlases are rasterized for; text drawn larger than this goes direct. */
+  public static final double MAX_ATLAS_ZOOM = 4;
+
+  private final Blitter2D target;
+  private final LinkedHashMap<String, GlyphAtlas> atlases = new LinkedHashMap<>(16, 0.75f, true);
+  // draws per font and colour that have no atlas yet, oldest dropped first
+  private final LinkedHashMap<String, int[]> uses = new LinkedHashMap<>(16, 0.75f, true);
+  private int usesBeforeAtlas = DEFAULT_USES_BEFORE_ATLAS;
+  private double deviceScale = 1;
+  private boolean offscreenSupported = true;
+  private int atlasSerial;
+  private int rasterizations;
+
+  private String fontFamily = "Arial";
+  private int fill = 0xff000000;
+  // pop restores the fill and family, so they are tracked per level to pick the right atlas after it
+  private int[] fillStack = new int[16];
+  private String[] familyStack = new String[16];
+  // largest axis scale of the transforms applied so far, restored by pop like the fill
+  private double transformScale = 1;
+  private double[] scaleStack = new double[16];
+  private int depth;
+  private final StringBuilder keyBuilder = new StringBuilder();
+
+  public GlyphAtlasBlitter2D(Blitter2D target) {
+    if (target == null) throw new IllegalArgumentException("target");
+    this.target = target;
+  }
+
+  public Blitter2D getTarget() { return target; }
+  public int getAtlasCount() { return atlases.size(); }
+  /** Times an atlas image was (re)drawn since creation. */
+  public int getRasterizations() { return rasterizations; }
+
+  /** Draws in one font and colour before that combination gets an atlas; 1 builds it on first use. */
+  public void setUsesBeforeAtlas(int count) { this.usesBeforeAtlas = Math.max(1, count); }
+  public int getUsesBeforeAtlas() { return usesBeforeAtlas; }
+
+  /**
+   * Device pixels per unit, e.g. the window's render scale on a HiDPI screen. Atlases are
+   * rasterized at this scale times the transform's so glyphs stay sharp, and kept apart per scale.
+   */
+  public void setDeviceScale(double scale) { this.deviceScale = scale > 0 ? scale : 1; }
+  public double getDeviceScale() { return deviceScale; }
+
+  /** Drops every atlas and its image, e.g. when fonts were reloaded. */
+  public void clearAtlases() {
+    for (GlyphAtlas a : atlases.values()) target.releaseOffscreen(a.getKey());
+    atlases.clear();
+    uses.clear();
+  }
+
+  @Override public void clear(double r, double g, double b, double a) { target.clear(r, g, b, a); }
+
+  @Override
+  public void setFill(double r, double g, double b, double a) {
+    fill = (channel(a) << 24) | (channel(r) << 16) | (channel(g) << 8) | channel(b);
+    target.setFill(r, g, b, a);
+  }
+
+  @Override public void setStroke(double r, double g, double b, double a) { target.setStroke(r, g, b, a); }
+  @Override public void setStrokeWidth(double w) { target.setStrokeWidth(w); }
+  @Override public void setGlobalAlpha(double a) { target.setGlobalAlpha(a); }
+
+  @Override
+  public void setFont(String family, double size, boolean bold) {
+    fontFamily = family == null || family.isBlank() ? "Arial" : family;
+    target.setFont(family, size, bold);
+  }
+
+  @Override public String getFontFamily() { return fontFamily; }
+
+  @Override
+  public void push() {
+    if (depth == fillStack.length) {
+      fillStack = Arrays.copyOf(fillStack, depth * 2);
+      familyStack = Arrays.copyOf(familyStack, depth * 2);
+      scaleStack = Arrays.copyOf(scaleStack, depth * 2);
+    }
+    scaleStack[depth] = transformScale;
+    fillStack[depth] = fill;
+    familyStack[depth++] = fontFamily;
+    target.push();
+  }
+
+  @Override
+  public void pop() {
+    if (depth > 0) {
+      fill = fillStack[--depth];
+      fontFamily = familyStack[depth];
+      transformScale = scaleStack[depth];
+    }
+    target.pop();
+  }
+
+  @Override public void translate(double x, double y) { target.translate(x, y); }
+  @Override public void rotateDeg(double degrees) { target.rotateDeg(degrees); }
+  @Override
+  public void scale(double sx, double sy) {
+    transformScale *= Math.max(Math.abs(sx), Math.abs(sy));
+    target.scale(sx, sy);
+  }
+
+  @Override
+  public void transform(double mxx, double myx, double mxy, double myy, double tx, double ty) {
+    transformScale *= Math.max(Math.hypot(mxx, myx), Math.hypot(mxy, myy));
+    target.transform(mxx, myx, mxy, myy, tx, ty);
+  }
+
+  @Override public void fillRect(double x, double y, double w, double h) { target.fillRect(x, y, w, h); }
+  @Override public void strokeRect(double x, double y, double w, double h) { target.strokeRect(x, y, w, h); }
+  @Override public void fillCircle(double cx, double cy, double radius) { target.fillCircle(cx, cy, radius); }
+  @Override public void strokeCircle(double cx, double cy, double radius) { target.strokeCircle(cx, cy, radius); }
+  @Override public void drawLine(double x1, double y1, double x2, double y2) { target.drawLine(x1, y1, x2, y2); }
+  @Override public void drawImage(String classpath, double x, double y, double w, double h) { target.drawImage(classpath, x, y, w, h); }
+
+  @Override
+  public void drawImageRegion(String classpath, double sx, double sy, double sw, double sh,
+                              double dx, double dy, double dw, double dh) {
+    target.drawImageRegion(classpath, sx, sy, sw, sh, dx, dy, dw, dh);
+  }
+
+  @Override
+  public void drawText(String text, double x, double y, double size, boolean bold) {
+    if (text == null || text.isEmpty()) return;
+    double zoom = 1;
+    while (zoom < transformScale && zoom <= MAX_ATLAS_ZOOM) zoom *= 2;
+    double s = deviceScale * zoom;
+    GlyphAtlas atlas = offscreenSupported && size > 0 && size <= MAX_ATLAS_FONT_SIZE && zoom <= MAX_ATLAS_ZOOM
+        ? atlasFor(size, bold, s) : null;
+    if (atlas == null || !ensureGlyphs(atlas, text, size, bold, s)) {
+      target.drawText(text, x, y, size, bold);
+      return;
+    }
+    String key = atlas.getKey();
+    double pen = x;
+    double top = y - atlas.getAscent();
+    for (int i = 0; i < text.length(); i++) {
+      GlyphAtlas.Glyph g = atlas.get(text.charAt(i));
+      if (g.getWidth() > 0) {
+        target.drawImageRegion(key, g.getX() * s, g.getY() * s, g.getWidth() * s, g.getHeight() * s,
+            pen - GlyphAtlas.PAD, top, g.getWidth(), g.getHeight());
+      }
+      pen += g.getAdvance();
+    }
+  }
+
+  @Override
+  public double measureTextWidth(String text, double size, boolean bold) { return target.measureTextWidth(text, size, bold); }
+
+  @Override public boolean beginOffscreen(String key, int width, int height) { return target.beginOffscreen(key, width, height); }
+  @Override public void endOffscreen() { target.endOffscreen(); }
+  @Override public void releaseOffscreen(String key) { target.releaseOffscreen(key); }
+  @Override public boolean hasOffscreen(String key) { return target.hasOffscreen(key); }
+
+  private GlyphAtlas atlasFor(double size, boolean bold, double rasterScale) {
+    if ((fill >>> 24) != 0xff) return null;
+    keyBuilder.setLength(0);
+    keyBuilder.append(fontFamily).append('|').append(size).append('|').append(bold).append('|').append(fill)
+        .append('|').append(rasterScale);
+    String fontKey = keyBuilder.toString();
+    GlyphAtlas atlas = atlases.get(fontKey);
+    if (atlas != null) return atlas;
+    if (usesBeforeAtlas > 1) {
+      int[] count = uses.get(fontKey);
+      if (count == null) {
+        uses.put(fontKey, new int[] { 1 });
+        if (uses.size() > MAX_TRACKED_KEYS) uses.remove(uses.keySet().iterator().next());
+        return null;
+      }
+      if (++count[0] < usesBeforeAtlas) return null;
+      uses.remove(fontKey);
+    }
+    atlas = new GlyphAtlas("offscreen:glyphs/" + (atlasSerial++), size, ATLAS_WIDTH, ATLAS_MAX_HEIGHT);
+    atlases.put(fontKey, atlas);
+    if (atlases.size() > MAX_ATLASES) {
+      Map.Entry<String, GlyphAtlas> eldest = atlases.entrySet().iterator().next();
+      target.releaseOffscreen(eldest.getValue().getKey());
+      atlases.remove(eldest.getKey());
+    }
+    // most text is ASCII, so one rasterization usually covers a font for good
+    for (char c = ' '; c < 127; c++) atlas.add(c, target.measureTextWidth(String.valueOf(c), size, bold));
+    return atlas;
+  }
+
+  /** Adds missing glyphs and redraws the atlas if needed; false if the text cannot come from it. */
+  private boolean ensureGlyphs(GlyphAtlas atlas, String text, double size, boolean bold, double s) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (atlas.get(c) == null && !atlas.add(c, target.measureTextWidth(String.valueOf(c), size, bold))) return false;
+    }
+    if (!atlas.isDirty()) {
+      if (target.hasOffscreen(atlas.getKey())) return true;
+      atlas.markDirty();
+    }
+    if (!target.beginOffscreen(atlas.getKey(), (int) Math.ceil(atlas.getWidth() * s), (int) Math.ceil(atlas.getHeight() * s))) {
+      offscreenSupported = false;
+      clearAtlases();
+      return false;
+    }
+    target.push();
+    if (s != 1) target.scale(s, s);
+    target.setGlobalAlpha(1);
+    target.setFill(((fill >> 16) & 0xff) / 255.0, ((fill >> 8) & 0xff) / 255.0, (fill & 0xff) / 255.0, (fill >>> 24) / 255.0);
+    target.setFont(fontFamily, size, bold);
+    for (int i = 0; i < atlas.getGlyphCount(); i++) {
+      GlyphAtlas.Glyph g = atlas.getGlyph(i);
+      target.drawText(String.valueOf(g.getChar()), g.getX() + GlyphAtlas.PAD, g.getY() + atlas.getAscent(), size, bold);
+    }
+    target.pop();
+    target.endOffscreen();
+    atlas.markClean();
+    rasterizations++;
+    return true;
+  }
+
+  private static int channel(double v) {
+    return (int) Math.round((v < 0 ? 0 : (v > 1 ? 1 : v)) * 255);
+  }
+}
@@ -11,9 +11,10 @@ public class Panel2D extends Entity2D {
   public Panel2D(double width, double height) {
     this.width = width;
     this.height = height;
+    setBounds(0, 0, width, height);
   }
 
-  public void setSize(double w, double h) { this.width = w; this.height = h; }
+  public void setSize(double w, double h) { this.width = w; this.height = h; setBounds(0, 0, w, h); }
   public void setFill(double r, double g, double b, double a) { this.r = r; this.g = g; this.blue = b; this.a = a; }
   public void setStroke(double r, double g, double b, double a, double width) {
     this.strokeR = r; this.strokeG = g; this.strokeB = b; this.strokeA = a; this.strokeWidth = Math.max(0, width);
@@ -4,4 +4,7 @@ import com.jvn.core.scene.Scene;
 
 public interface Scene2D extends Scene {
   void render(Blitter2D b, double width, double height);
+
+  /** Render with the engine's fixed-step interpolation alpha (0..1 between the last two updates). */
+  default void render(Blitter2D b, double width, double height, double alpha) { render(b, width, height); }
 }
@@ -8,18 +8,82 @@ import java.util.Comparator;
 import java.util.List;
 
 public class Scene2DBase implements Scene2D {
+  private static final Comparator<Entity2D> Z_ORDER = Comparator.comparingDouble(Entity2D::getZ);
+
   protected final List<Entity2D> children = new ArrayList<>();
   protected Camera2D camera;
   protected Input input;
+  protected double interpolationAlpha = 1.0;
+  protected boolean cullingEnabled = true;
+  private int drawnCount;
+  private int culledCount;
+  private boolean orderDirty;
+  private int orderedSize;
 
   public void setCamera(Camera2D camera) { this.camera = camera; }
   public Camera2D getCamera() { return camera; }
   public void setInput(Input input) { this.input = input; }
   public Input getInput() { return input; }
+  public double getInterpolationAlpha() { return interpolationAlpha; }
+  public void setCullingEnabled(boolean enabled) { this.cullingEnabled = enabled; }
+  public boolean isCullingEnabled() { return cullingEnabled; }
+  /** Entities drawn by the last render. */
+  public int getDrawnCount() { return drawnCount; }
+  /** Visible entities the last render skipped because their bounds were outside the viewport. */
+  public int getCulledCount() { return culledCount; }
+
+  public void add(Entity2D e) {
+    if (e == null) return;
+    children.add(e);
+    e.setOwner(this);
+    orderDirty = true;
+  }
+
+  public void remove(Entity2D e) {
+    if (children.remove(e) && e.getOwner() == this) e.setOwner(null);
+    orderedSize = children.size();
+  }
+
+  public void clear() {
+    for (int i = 0; i < children.size(); i++) {
+      if (children.get(i).getOwner() == this) children.get(i).setOwner(null);
+    }
+    children.clear();
+    orderedSize = 0;
+  }
+
+  void markOrderDirty() { orderDirty = true; }
 
-  public void add(Entity2D e) { if (e != null) children.add(e); }
-  public void remove(Entity2D e) { children.remove(e); }
-  public void clear() { children.clear(); }
+  /**
+   * Restores z order after entities were added or changed z. Insertion sort is stable like the full
+   * sort it replaces and costs next to nothing when only a few entities moved; once it has shifted
+   * about n log n entries, as when many moved, the rest is left to {@link List#sort}. A scene where
+   * nothing changed skips it entirely. Children added to the list directly are caught by the size check.
+   */
+  protected void sortChildren() {
+    int n = children.size();
+    if (!orderDirty && orderedSize == n) return;
+    orderDirty = false;
+    orderedSize = n;
+    long budget = (long) n * (32 - Integer.numberOfLeadingZeros(n));
+    for (int i = 1; i < n; i++) {
+      Entity2D e = children.get(i);
+      double z = e.getZ();
+      int j = i - 1;
+      if (children.get(j).getZ() <= z) continue;
+      while (j >= 0 && children.get(j).getZ() > z) {
+        children.set(j + 1, children.get(j));
+        j--;
+        budget--;
+      }
+      children.set(j + 1, e);
+      if (budget < 0) {
+        // the sorted prefix and the untouched rest keep their relative order, so this stays stable
+        children.sort(Z_ORDER);
+        return;
+      }
+    }
+  }
 
   @Override public void onEnter() {}
   @Override public void onExit() {}
@@ -32,30 +96,108 @@ public class Scene2DBase implements Scene2D {
     }
   }
 
+  @Override
+  public void render(Blitter2D b, double width, double height, double alpha) {
+    this.interpolationAlpha = alpha;
+    render(b, width, height);
+  }
+
   @Override
   public void render(Blitter2D b, double width, double height) {
-    children.sort(Comparator.comparingDouble(Entity2D::getZ));
+    sortChildren();
+    double camX = camera != null ? camera.getX() : 0;
+    double camY = camera != null ? camera.getY() : 0;
+    double zoom = camera != null ? camera.getZoom() : 1.0;
+    int drawn = 0;
+    int culled = 0;
     b.push();
     if (camera != null) {
-      b.translate(-camera.getX(), -camera.getY());
-      b.scale(camera.getZoom(), camera.getZoom());
+      b.translate(-camX, -camY);
+      b.scale(zoom, zoom);
     }
     for (int i = 0; i < children.size(); i++) {
       Entity2D e = children.get(i);
       if (!e.isVisible()) continue;
-      b.push();
+      double ox = 0;
+      double oy = 0;
       if (camera != null) {
-        double ox = camera.getX() * (1.0 - e.getParallaxX());
-        double oy = camera.getY() * (1.0 - e.getParallaxY());
-        if (ox != 0 || oy != 0) b.translate(ox, oy);
+        ox = camX * (1.0 - e.getParallaxX());
+        oy = camY * (1.0 - e.getParallaxY());
+      }
+      if (cullingEnabled && e.hasBounds() && !isOnScreen(e, ox, oy, camX, camY, zoom, width, height)) {
+        culled++;
+        continue;
       }
+      b.push();
+      if (ox != 0 || oy != 0) b.translate(ox, oy);
       b.translate(e.getX(), e.getY());
       if (e.getRotationDeg() != 0) b.rotateDeg(e.getRotationDeg());
       if (e.getScaleX() != 1.0 || e.getScaleY() != 1.0) b.scale(e.getScaleX(), e.getScaleY());
-      e.render(b);
+      renderEntity(b, e, ox, oy, camX, camY, zoom, width, height);
       b.pop();
+      drawn++;
     }
     b.pop();
+    drawnCount = drawn;
+    culledCount = culled;
+  }
+
+  /** Inverse of the transforms applied in render: maps the viewport into the entity's local space. */
+  private static void renderEntity(Blitter2D b, Entity2D e, double ox, double oy, double camX, double camY, double zoom, double width, double height) {
+    double sx = e.getScaleX();
+    double sy = e.getScaleY();
+    if (zoom == 0 || sx == 0 || sy == 0) {
+      e.render(b);
+      return;
+    }
+    double wx = ox + e.getX();
+    double wy = oy + e.getY();
+    double rad = Math.toRadians(e.getRotationDeg());
+    double c = Math.cos(rad);
+    double s = Math.sin(rad);
+    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    for (int k = 0; k < 4; k++) {
+      double px = ((k & 1) == 0 ? camX : width + camX) / zoom - wx;
+      double py = ((k & 2) == 0 ? camY : height + camY) / zoom - wy;
+      double lx = (px * c + py * s) / sx;
+      double ly = (-px * s + py * c) / sy;
+      minX = Math.min(minX, lx); maxX = Math.max(maxX, lx);
+      minY = Math.min(minY, ly); maxY = Math.max(maxY, ly);
+    }
+    e.renderVisible(b, minX, minY, maxX, maxY, Math.abs(zoom) * Math.max(Math.abs(sx), Math.abs(sy)));
   }
-}
 
+  /** Maps the entity bounds through the same transforms render applies and tests them against the viewport. */
+  private static boolean isOnScreen(Entity2D e, double ox, double oy, double camX, double camY, double zoom, double width, double height) {
+    double x0 = e.getBoundsX() * e.getScaleX();
+    double x1 = (e.getBoundsX() + e.getBoundsW()) * e.getScaleX();
+    double y0 = e.getBoundsY() * e.getScaleY();
+    double y1 = (e.getBoundsY() + e.getBoundsH()) * e.getScaleY();
+    double minX = Math.min(x0, x1), maxX = Math.max(x0, x1);
+    double minY = Math.min(y0, y1), maxY = Math.max(y0, y1);
+    if (e.getRotationDeg() != 0) {
+      double rad = Math.toRadians(e.getRotationDeg());
+      double c = Math.cos(rad);
+      double s = Math.sin(rad);
+      double ax = minX, ay = minY, bx = maxX, by = maxY;
+      minX = Double.POSITIVE_INFINITY; minY = Double.POSITIVE_INFINITY;
+      maxX = Double.NEGATIVE_INFINITY; maxY = Double.NEGATIVE_INFINITY;
+      for (int k = 0; k < 4; k++) {
+        double px = (k & 1) == 0 ? ax : bx;
+        double py = (k & 2) == 0 ? ay : by;
+        double rx = px * c - py * s;
+        double ry = px * s + py * c;
+        minX = Math.min(minX, rx); maxX = Math.max(maxX, rx);
+        minY = Math.min(minY, ry); maxY = Math.max(maxY, ry);
+      }
+    }
+    double wx = ox + e.getX();
+    double wy = oy + e.getY();
+    double left = (wx + minX) * zoom - camX;
+    double right = (wx + maxX) * zoom - camX;
+    double top = (wy + minY) * zoom - camY;
+    double bottom = (wy + maxY) * zoom - camY;
+    return right > 0 && left < width && bottom > 0 && top < height;
+  }
+}
@@ -14,6 +14,7 @@ public class Sprite2D extends Entity2D {
     this.imagePath = imagePath;
     this.width = width;
     this.height = height;
+    updateBounds();
   }
 
   public Sprite2D region(String imagePath, double sx, double sy, double sw, double sh, double dw, double dh) {
@@ -21,6 +22,7 @@ public class Sprite2D extends Entity2D {
     this.useRegion = true;
     this.sx = sx; this.sy = sy; this.sw = sw; this.sh = sh;
     this.width = dw; this.height = dh;
+    updateBounds();
     return this;
   }
 
@@ -30,11 +32,13 @@ public class Sprite2D extends Entity2D {
   public void setImagePath(String path) { this.imagePath = path; }
   public double getWidth() { return width; }
   public double getHeight() { return height; }
-  public void setSize(double w, double h) { this.width = w; this.height = h; }
-  public void setOrigin(double ox, double oy) { this.originX = ox; this.originY = oy; }
+  public void setSize(double w, double h) { this.width = w; this.height = h; updateBounds(); }
+  public void setOrigin(double ox, double oy) { this.originX = ox; this.originY = oy; updateBounds(); }
   public double getOriginX() { return originX; }
   public double getOriginY() { return originY; }
 
+  private void updateBounds() { setBounds(-originX * width, -originY * height, width, height); }
+
   @Override
   public void render(Blitter2D b) {
     if (imagePath == null) return;
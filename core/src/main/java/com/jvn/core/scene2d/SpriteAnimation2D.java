@@ -25,6 +25,7 @@ public class SpriteAnimation2D extends Entity2D {
     this.frameDurationMs = Math.max(1, frameDurationMs);
     this.width = drawWidth;
     this.height = drawHeight;
+    setBounds(0, 0, drawWidth, drawHeight);
   }
 
   public void setLoop(boolean loop) { this.loop = loop; }
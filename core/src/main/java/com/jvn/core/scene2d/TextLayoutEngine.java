@@ -0,0 +1,254 @@
+package com.jvn.core.scene2d;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Word-wraps text and measures it from cached per-glyph advance widths, so each glyph of a font
+ * is measured by the toolkit once. Layouts are cached per text, font and wrap width; a typewriter
+ * reveal only has to look up how much of each precomputed line is visible. Widths are the sum of
+ * advances and ignore kerning, which is well below a pixel for UI text.
+ */
+public class TextLayoutEngine {
+  /** Measures a string in the given font; only called for glyphs not seen before. */
+  public interface Measurer {
+    double measure(String text, String family, double size, boolean bold);
+  }
+
+  private static final int MAX_LAYOUTS = 256;
+
+  private final Measurer measurer;
+  private final Map<FontKey, Advances> advances = new HashMap<>();
+  private final LinkedHashMap<LayoutKey, Layout> layouts = new LinkedHashMap<>(64, 0.75f, true) {
+    @Override protected boolean removeEldestEntry(Map.Entry<LayoutKey, Layout> eldest) { return size() > MAX_LAYOUTS; }
+  };
+  private final FontKey probe = new FontKey(null, 0, false);
+  private long glyphsMeasured;
+
+  public TextLayoutEngine(Measurer measurer) {
+    if (measurer == null) throw new IllegalArgumentException("measurer");
+    this.measurer = measurer;
+  }
+
+  /** Lines of a wrapped text, as ranges into the original string. */
+  public static final class Layout {
+    private final String text;
+    private final int[] starts;
+    private final int[] ends;
+    private final double[] widths;
+    private final double width;
+
+    Layout(String text, int[] starts, int[] ends, double[] widths) {
+      this.text = text;
+      this.starts = starts;
+      this.ends = ends;
+      this.widths = widths;
+      double w = 0;
+      for (double lw : widths) w = Math.max(w, lw);
+      this.width = w;
+    }
+
+    public String getText() { return text; }
+    public int getLineCount() { return starts.length; }
+    public int getLineStart(int line) { return starts[line]; }
+    public int getLineEnd(int line) { return ends[line]; }
+    public double getLineWidth(int line) { return widths[line]; }
+    public String getLine(int line) { return text.substring(starts[line], ends[line]); }
+    /** Width of the widest line. */
+    public double getWidth() { return width; }
+
+    /** Lines with at least one character visible when the first {@code revealed} characters are shown. */
+    public int visibleLineCount(int revealed) {
+      int lo = 0, hi = starts.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (starts[mid] < revealed) lo = mid + 1;
+        else hi = mid;
+      }
+      return lo;
+    }
+
+    /** The part of a line shown when the first {@code revealed} characters are visible. */
+    public String visiblePart(int line, int revealed) {
+      int end = Math.min(ends[line], revealed);
+      return end <= starts[line] ? "" : text.substring(starts[line], end);
+    }
+  }
+
+  /**
+   * Greedy word wrap on spaces, the same rule the renderers used before: a line takes words
+   * while it fits in {@code maxWidth} (no limit if 0 or less), and a word wider than the limit gets
+   * a line of its own. The space a line breaks on, and any spaces starting a line, belong to
+   * no line.
+   */
+  public Layout layout(String text, String family, double size, boolean bold, double maxWidth) {
+    if (text == null) text = "";
+    LayoutKey key = new LayoutKey(text, family, size, bold, maxWidth);
+    Layout cached = layouts.get(key);
+    if (cached != null) return cached;
+    Layout layout = wrap(text, advancesFor(family, size, bold), maxWidth);
+    layouts.put(key, layout);
+    return layout;
+  }
+
+  public double width(CharSequence text, String family, double size, boolean bold) {
+    if (text == null) return 0;
+    Advances a = advancesFor(family, size, bold);
+    double w = 0;
+    for (int i = 0; i < text.length(); i++) w += a.get(text.charAt(i));
+    return w;
+  }
+
+  public double advance(char c, String family, double size, boolean bold) {
+    return advancesFor(family, size, bold).get(c);
+  }
+
+  /** Glyphs that had to be measured so far; a steady state stops growing. */
+  public long getGlyphsMeasured() { return glyphsMeasured; }
+
+  public void clear() {
+    advances.clear();
+    layouts.clear();
+  }
+
+  private Layout wrap(String text, Advances a, double maxWidth) {
+    int n = text.length();
+    // trailing spaces never start a line, as with String.split
+    int limit = n;
+    while (limit > 0 && text.charAt(limit - 1) == ' ') limit--;
+    int[] starts = new int[4];
+    int[] ends = new int[4];
+    double[] widths = new double[4];
+    int lines = 0;
+    int lineStart = 0;
+    double lineWidth = 0;
+    int i = 0;
+    double space = a.get(' ');
+    while (i < limit) {
+      int wordEnd = text.indexOf(' ', i);
+      if (wordEnd < 0 || wordEnd > limit) wordEnd = limit;
+      if (wordEnd == i && i == lineStart) {
+        // spaces at the start of a line are dropped
+        lineStart = ++i;
+        continue;
+      }
+      double wordWidth = 0;
+      for (int k = i; k < wordEnd; k++) wordWidth += a.get(text.charAt(k));
+      boolean empty = i == lineStart;
+      double candidate = empty ? wordWidth : lineWidth + space + wordWidth;
+      if (maxWidth > 0 && candidate > maxWidth && !empty) {
+        if (lines == starts.length) {
+          starts = Arrays.copyOf(starts, lines * 2);
+          ends = Arrays.copyOf(ends, lines * 2);
+          widths = Arrays.copyOf(widths, lines * 2);
+        }
+        starts[lines] = lineStart;
+        ends[lines] = i - 1;
+        widths[lines] = lineWidth;
+        lines++;
+        lineStart = wordEnd == i ? i + 1 : i;
+        lineWidth = wordWidth;
+      } else {
+        lineWidth = candidate;
+      }
+      i = wordEnd + 1;
+    }
+    if (lineStart < limit) {
+      if (lines == starts.length) {
+        starts = Arrays.copyOf(starts, lines + 1);
+        ends = Arrays.copyOf(ends, lines + 1);
+        widths = Arrays.copyOf(widths, lines + 1);
+      }
+      starts[lines] = lineStart;
+      ends[lines] = limit;
+      widths[lines] = lineWidth;
+      lines++;
+    }
+    return new Layout(text, Arrays.copyOf(starts, lines), Arrays.copyOf(ends, lines), Arrays.copyOf(widths, lines));
+  }
+
+  private Advances advancesFor(String family, double size, boolean bold) {
+    probe.family = family;
+    probe.size = size;
+    probe.bold = bold;
+    Advances a = advances.get(probe);
+    if (a == null) {
+      FontKey key = new FontKey(family, size, bold);
+      a = new Advances(key);
+      advances.put(key, a);
+    }
+    return a;
+  }
+
+  /** Advance widths of one font: Latin-1 in a flat array, everything else in a map. */
+  private final class Advances {
+    final FontKey font;
+    final double[] latin = new double[256];
+    final Map<Character, Double> other = new HashMap<>();
+
+    Advances(FontKey font) {
+      this.font = font;
+      Arrays.fill(latin, -1);
+    }
+
+    double get(char c) {
+      if (c < 256) {
+        double w = latin[c];
+        if (w < 0) latin[c] = w = measureGlyph(c);
+        return w;
+      }
+      Double w = other.get(c);
+      if (w == null) {
+        w = measureGlyph(c);
+        other.put(c, w);
+      }
+      return w;
+    }
+
+    private double measureGlyph(char c) {
+      glyphsMeasured++;
+      return measurer.measure(String.valueOf(c), font.family, font.size, font.bold);
+    }
+  }
+
+  private static final class FontKey {
+    String family;
+    double size;
+    boolean bold;
+
+    FontKey(String family, double size, boolean bold) { this.family = family; this.size = size; this.bold = bold; }
+
+    @Override public boolean equals(Object o) {
+      if (!(o instanceof FontKey)) return false;
+      FontKey k = (FontKey) o;
+      return size == k.size && bold == k.bold && Objects.equals(family, k.family);
+    }
+
+    @Override public int hashCode() { return (Objects.hashCode(family) * 31 + Double.hashCode(size)) * 2 + (bold ? 1 : 0); }
+  }
+
+  private static final class LayoutKey {
+    final String text;
+    final String family;
+    final double size;
+    final boolean bold;
+    final double maxWidth;
+
+    LayoutKey(String text, String family, double size, boolean bold, double maxWidth) {
+      this.text = text; this.family = family; this.size = size; this.bold = bold; this.maxWidth = maxWidth;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (!(o instanceof LayoutKey)) return false;
+      LayoutKey k = (LayoutKey) o;
+      return size == k.size && bold == k.bold && maxWidth == k.maxWidth && text.equals(k.text) && Objects.equals(family, k.family);
+    }
+
+    @Override public int hashCode() {
+      return Objects.hash(text, family, size, bold, maxWidth);
+    }
+  }
+}
@@ -1,9 +1,15 @@
 package com.jvn.core.scene2d;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class TextMetrics {
+  // one engine per blitter, so its glyph advances and layouts outlive a single call
+  private static final Map<Blitter2D, TextLayoutEngine> ENGINES = new WeakHashMap<>();
+
   public static class Layout {
     public final List<String> lines;
     public final double width;
@@ -15,28 +21,39 @@ public class TextMetrics {
     }
   }
 
+  /**
+   * Lays out in the blitter's current font through an engine kept for the blitter as long as the
+   * blitter itself is reachable. The current family is part of the engine's cache key; a blitter
+   * that does not report its family gets a fresh engine per call, since cached widths could be stale.
+   */
   public static Layout layout(Blitter2D b, String text, double size, boolean bold, double maxWidth, double lineHeight) {
-    if (text == null) text = "";
-    String[] words = text.split(" ");
-    List<String> lines = new ArrayList<>();
-    StringBuilder current = new StringBuilder();
-    double usedWidth = 0;
-    for (String w : words) {
-      String test = current.length() == 0 ? w : current + " " + w;
-      double tw = b.measureTextWidth(test, size, bold);
-      if (maxWidth > 0 && tw > maxWidth && current.length() > 0) {
-        lines.add(current.toString());
-        usedWidth = Math.max(usedWidth, b.measureTextWidth(current.toString(), size, bold));
-        current = new StringBuilder(w);
-      } else {
-        current = new StringBuilder(test);
+    String family = b.getFontFamily();
+    TextLayoutEngine engine;
+    if (family == null) {
+      engine = newEngine(b);
+    } else {
+      synchronized (ENGINES) {
+        engine = ENGINES.computeIfAbsent(b, TextMetrics::newEngine);
       }
     }
-    if (current.length() > 0) {
-      lines.add(current.toString());
-      usedWidth = Math.max(usedWidth, b.measureTextWidth(current.toString(), size, bold));
-    }
+    return layout(engine, text, family, size, bold, maxWidth, lineHeight);
+  }
+
+  private static TextLayoutEngine newEngine(Blitter2D b) {
+    // a strong reference from the engine would keep the blitter in the weak map forever
+    WeakReference<Blitter2D> ref = new WeakReference<>(b);
+    return new TextLayoutEngine((t, family, s, bd) -> {
+      Blitter2D target = ref.get();
+      return target != null ? target.measureTextWidth(t, s, bd) : 0;
+    });
+  }
+
+  /** Lays out through a long-lived engine, reusing its measured glyphs and cached layouts. */
+  public static Layout layout(TextLayoutEngine engine, String text, String family, double size, boolean bold, double maxWidth, double lineHeight) {
+    TextLayoutEngine.Layout l = engine.layout(text, family, size, bold, maxWidth);
+    List<String> lines = new ArrayList<>(l.getLineCount());
+    for (int i = 0; i < l.getLineCount(); i++) lines.add(l.getLine(i));
     double h = Math.max(lineHeight, lineHeight * Math.max(1, lines.size()));
-    return new Layout(lines, usedWidth, h);
+    return new Layout(lines, l.getWidth(), h);
   }
 }
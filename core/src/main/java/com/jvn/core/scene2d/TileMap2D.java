@@ -1,12 +1,31 @@
 package com.jvn.core.scene2d;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class TileMap2D extends Entity2D {
+  private static final AtomicInteger NEXT_ID = new AtomicInteger();
+  public static final int DEFAULT_CHUNK_SIZE = 16;
+  /** Chunks are cached at up to this many pixels per map unit; closer zooms draw their tiles directly. */
+  public static final double MAX_CHUNK_SCALE = 4;
+
   private final SpriteSheet sheet;
   private final int cols;
   private final int rows;
   private final int[][] tiles; // -1 for empty
   private final double tileW;
   private final double tileH;
+  private com.jvn.core.physics.TileCollider2D collider;
+  private final String cacheKey = "offscreen:tilemap/" + NEXT_ID.getAndIncrement() + "/";
+  private int chunkSize;
+  private int chunkCols;
+  private int chunkRows;
+  private int[] chunkTiles; // non-empty tiles per chunk; empty chunks are never drawn or cached
+  private boolean[] chunkValid; // offscreen image matches the tiles
+  private boolean chunkCaching = true;
+  private double chunkScale = 1; // pixels per map unit the cached chunks are rendered at
+  private Blitter2D cacheOwner;
+  private int chunksDrawn;
+  private int chunksRebuilt;
 
   public TileMap2D(SpriteSheet sheet, int cols, int rows, double drawTileW, double drawTileH) {
     this.sheet = sheet;
@@ -18,13 +37,79 @@ public class TileMap2D extends Entity2D {
     for (int y = 0; y < rows; y++) {
       for (int x = 0; x < cols; x++) tiles[y][x] = -1;
     }
+    setBounds(0, 0, this.cols * drawTileW, this.rows * drawTileH);
+    setChunkSize(DEFAULT_CHUNK_SIZE);
   }
 
   public void setTile(int x, int y, int index) {
     if (x < 0 || y < 0 || x >= cols || y >= rows) return;
+    int old = tiles[y][x];
+    if (old == index) return;
     tiles[y][x] = index;
+    int chunk = (y / chunkSize) * chunkCols + x / chunkSize;
+    if (old < 0) chunkTiles[chunk]++;
+    if (index < 0) chunkTiles[chunk]--;
+    chunkValid[chunk] = false;
+    if (collider != null) collider.setSolid(x, y, index >= 0);
+  }
+
+  @Override
+  public void setPosition(double x, double y) {
+    super.setPosition(x, y);
+    if (collider != null) collider.setOrigin(x, y);
   }
 
+  /** Tiles per chunk side. Changing it drops every cached chunk. */
+  public void setChunkSize(int tiles) {
+    int size = Math.max(1, tiles);
+    if (chunkTiles != null && size == chunkSize) return;
+    releaseChunks();
+    chunkSize = size;
+    chunkCols = (cols + size - 1) / size;
+    chunkRows = (rows + size - 1) / size;
+    chunkTiles = new int[chunkCols * chunkRows];
+    chunkValid = new boolean[chunkTiles.length];
+    for (int ty = 0; ty < rows; ty++) {
+      for (int tx = 0; tx < cols; tx++) {
+        if (this.tiles[ty][tx] >= 0) chunkTiles[(ty / size) * chunkCols + tx / size]++;
+      }
+    }
+  }
+
+  public int getChunkSize() { return chunkSize; }
+
+  /**
+   * When enabled (the default) chunks are pre-rendered into offscreen images on backends that
+   * support them, so a visible chunk costs one image draw instead of one per tile. Chunks are
+   * rendered at the zoom they are drawn at, rounded up to a power of two so a zoom animation only
+   * re-renders them when it crosses one.
+   */
+  public void setChunkCaching(boolean enabled) {
+    if (!enabled) releaseChunks();
+    this.chunkCaching = enabled;
+  }
+
+  public boolean isChunkCaching() { return chunkCaching; }
+
+  /** Forces every cached chunk to be rendered again, e.g. after the sprite sheet image changed. */
+  public void invalidateChunks() {
+    if (chunkValid != null) java.util.Arrays.fill(chunkValid, false);
+  }
+
+  /** Frees the offscreen images held by the last blitter that rendered this map. */
+  public void releaseChunks() {
+    if (cacheOwner != null) {
+      for (int i = 0; i < chunkTiles.length; i++) cacheOwner.releaseOffscreen(cacheKey + i);
+      cacheOwner = null;
+    }
+    invalidateChunks();
+  }
+
+  /** Chunks drawn by the last render. */
+  public int getChunksDrawn() { return chunksDrawn; }
+  /** Chunks whose offscreen image was rebuilt by the last render. */
+  public int getChunksRebuilt() { return chunksRebuilt; }
+
   public int getTile(int x, int y) {
     if (x < 0 || y < 0 || x >= cols || y >= rows) return -1;
     return tiles[y][x];
@@ -35,18 +120,88 @@ public class TileMap2D extends Entity2D {
   public double getTileW() { return tileW; }
   public double getTileH() { return tileH; }
 
+  /**
+   * Draws every tile directly. Without a viewport nothing tells which chunks are worth caching, so
+   * only {@link #renderVisible} uses the chunk cache.
+   */
   @Override
   public void render(Blitter2D b) {
-    for (int y = 0; y < rows; y++) {
-      for (int x = 0; x < cols; x++) {
-        int idx = tiles[y][x];
+    chunksDrawn = 0;
+    chunksRebuilt = 0;
+    drawTiles(b, 0, 0, cols - 1, rows - 1, 0, 0);
+  }
+
+  @Override
+  public void renderVisible(Blitter2D b, double minX, double minY, double maxX, double maxY, double pixelScale) {
+    chunksDrawn = 0;
+    chunksRebuilt = 0;
+    if (tileW <= 0 || tileH <= 0) return;
+    double scale = rasterScale(pixelScale);
+    boolean caching = chunkCaching && scale <= MAX_CHUNK_SCALE;
+    int tx0 = Math.max(0, (int) Math.floor(minX / tileW));
+    int ty0 = Math.max(0, (int) Math.floor(minY / tileH));
+    int tx1 = Math.min(cols - 1, (int) Math.ceil(maxX / tileW) - 1);
+    int ty1 = Math.min(rows - 1, (int) Math.ceil(maxY / tileH) - 1);
+    if (tx0 > tx1 || ty0 > ty1) return;
+    if (caching && cacheOwner != b) {
+      releaseChunks();
+      cacheOwner = b;
+    }
+    if (caching && scale != chunkScale) {
+      invalidateChunks();
+      chunkScale = scale;
+    }
+    double chunkW = chunkSize * tileW;
+    double chunkH = chunkSize * tileH;
+    for (int cy = ty0 / chunkSize; cy <= ty1 / chunkSize; cy++) {
+      for (int cx = tx0 / chunkSize; cx <= tx1 / chunkSize; cx++) {
+        int chunk = cy * chunkCols + cx;
+        if (chunkTiles[chunk] == 0) continue;
+        chunksDrawn++;
+        int x0 = cx * chunkSize;
+        int y0 = cy * chunkSize;
+        int x1 = Math.min(cols, x0 + chunkSize) - 1;
+        int y1 = Math.min(rows, y0 + chunkSize) - 1;
+        // the backend may have dropped the image to stay within its memory budget
+        if (caching && chunkValid[chunk] && !b.hasOffscreen(cacheKey + chunk)) chunkValid[chunk] = false;
+        if (caching && !chunkValid[chunk]) {
+          int pw = (int) Math.ceil((x1 - x0 + 1) * tileW * scale);
+          int ph = (int) Math.ceil((y1 - y0 + 1) * tileH * scale);
+          if (b.beginOffscreen(cacheKey + chunk, pw, ph)) {
+            if (scale != 1) {
+              b.push();
+              b.scale(scale, scale);
+            }
+            drawTiles(b, x0, y0, x1, y1, x0 * tileW, y0 * tileH);
+            if (scale != 1) b.pop();
+            b.endOffscreen();
+            chunkValid[chunk] = true;
+            chunksRebuilt++;
+          }
+        }
+        if (caching && chunkValid[chunk]) {
+          b.drawImage(cacheKey + chunk, cx * chunkW, cy * chunkH, (x1 - x0 + 1) * tileW, (y1 - y0 + 1) * tileH);
+        } else {
+          drawTiles(b, Math.max(x0, tx0), Math.max(y0, ty0), Math.min(x1, tx1), Math.min(y1, ty1), 0, 0);
+        }
+      }
+    }
+  }
+
+  /** Pixels per map unit to cache chunks at: the drawn scale rounded up to a power of two, at least 1. */
+  static double rasterScale(double pixelScale) {
+    double s = 1;
+    while (s < pixelScale && s <= MAX_CHUNK_SCALE) s *= 2;
+    return s;
+  }
+
+  private void drawTiles(Blitter2D b, int x0, int y0, int x1, int y1, double originX, double originY) {
+    for (int y = y0; y <= y1; y++) {
+      int[] row = tiles[y];
+      for (int x = x0; x <= x1; x++) {
+        int idx = row[x];
         if (idx < 0) continue;
-        double dx = x * tileW;
-        double dy = y * tileH;
-        b.push();
-        b.translate(dx, dy);
-        sheet.drawTile(b, idx, 0, 0, tileW, tileH);
-        b.pop();
+        sheet.drawTile(b, idx, x * tileW - originX, y * tileH - originY, tileW, tileH);
       }
     }
   }
@@ -61,4 +216,19 @@ public class TileMap2D extends Entity2D {
       }
     }
   }
+
+  /**
+   * Static-collision mode that merges solid tiles into greedy rectangles and resolves bodies only
+   * against the tiles under their AABB. The collider follows later {@link #setTile} and
+   * {@link #setPosition} calls.
+   */
+  public com.jvn.core.physics.TileCollider2D buildTileCollider(com.jvn.core.physics.PhysicsWorld2D world) {
+    collider = new com.jvn.core.physics.TileCollider2D(cols, rows, tileW, tileH);
+    collider.setOrigin(x, y);
+    for (int ty = 0; ty < rows; ty++) {
+      for (int tx = 0; tx < cols; tx++) collider.setSolid(tx, ty, tiles[ty][tx] >= 0);
+    }
+    if (world != null) world.setTileCollider(collider);
+    return collider;
+  }
 }
@@ -0,0 +1,119 @@
+package com.jvn.core.vn;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers what the last rendered VN frame showed and tells the renderer which layers changed
+ * since. Renderers keep the previous pixels everywhere else, so a screen waiting for input costs
+ * nothing to "render", and revealing text only touches the textbox.
+ */
+public class VnFrameTracker {
+  /** Background, transition, characters or anything else covering the whole screen. */
+  public static final int SCREEN = 1;
+  public static final int TEXTBOX = 2;
+  public static final int CHOICES = 4;
+  /** Skip/auto/UI-hidden indicators in the top right corner. */
+  public static final int INDICATORS = 8;
+  /** Toast message. */
+  public static final int HUD = 16;
+  public static final int ALL = SCREEN | TEXTBOX | CHOICES | INDICATORS | HUD;
+
+  private static final CharacterPosition[] POSITIONS = CharacterPosition.values();
+
+  private boolean valid;
+  private double width;
+  private double height;
+  private VnScenario scenario;
+  private VnNode node;
+  private String backgroundId;
+  private String previousBackgroundId;
+  private VnTransition transition;
+  private float transitionProgress;
+  private final String[] characterIds = new String[POSITIONS.length];
+  private final String[] expressions = new String[POSITIONS.length];
+  private boolean uiHidden;
+  private boolean historyShown;
+  private int historyScroll;
+  private int historySize;
+  private int revealed;
+  private boolean waiting;
+  private int hoverIndex;
+  private boolean skipMode;
+  private boolean autoMode;
+  private String hudMessage;
+
+  /** Forces the next frame to be drawn in full, e.g. after something else drew on the same surface. */
+  public void invalidate() { valid = false; }
+
+  /**
+   * Compares the state against the last frame, records it, and returns the layers to redraw as a
+   * mask of the constants above; 0 when the frame would look the same.
+   */
+  public int update(VnState state, double width, double height, int hoverIndex, long nowMs) {
+    int dirty = 0;
+    if (!valid || width != this.width || height != this.height) dirty = ALL;
+    this.width = width;
+    this.height = height;
+    valid = true;
+
+    VnNode node = state.getCurrentNode();
+    if (scenario != state.getScenario() || this.node != node || uiHidden != state.isUiHidden()) dirty = ALL;
+    scenario = state.getScenario();
+    this.node = node;
+    uiHidden = state.isUiHidden();
+
+    VnTransition transition = state.getActiveTransition();
+    float progress = state.getTransitionProgress();
+    if (!Objects.equals(backgroundId, state.getCurrentBackgroundId())
+        || !Objects.equals(previousBackgroundId, state.getPreviousBackgroundIdDuringTransition())
+        || this.transition != transition || (transition != null && transitionProgress != progress)) {
+      dirty = ALL;
+    }
+    backgroundId = state.getCurrentBackgroundId();
+    previousBackgroundId = state.getPreviousBackgroundIdDuringTransition();
+    this.transition = transition;
+    transitionProgress = progress;
+
+    Map<CharacterPosition, VnState.CharacterSlot> characters = state.getVisibleCharacters();
+    for (int i = 0; i < POSITIONS.length; i++) {
+      VnState.CharacterSlot slot = characters.get(POSITIONS[i]);
+      String id = slot != null ? slot.getCharacterId() : null;
+      String expression = slot != null ? slot.getExpression() : null;
+      if (!Objects.equals(characterIds[i], id) || !Objects.equals(expressions[i], expression)) dirty = ALL;
+      characterIds[i] = id;
+      expressions[i] = expression;
+    }
+
+    int historySize = state.getHistory().getEntries().size();
+    if (historyShown != state.isHistoryOverlayShown()
+        || (historyShown && (historyScroll != state.getHistoryScroll() || this.historySize != historySize))) {
+      dirty = ALL;
+    }
+    historyShown = state.isHistoryOverlayShown();
+    historyScroll = state.getHistoryScroll();
+    this.historySize = historySize;
+
+    // progress keeps counting in some paths once the line is complete, so compare what is visible
+    int revealed = state.getTextRevealProgress();
+    if (node != null && node.getDialogue() != null && node.getDialogue().getText() != null) {
+      revealed = Math.min(revealed, node.getDialogue().getText().length());
+    }
+    if (this.revealed != revealed || waiting != state.isWaitingForInput()) dirty |= TEXTBOX;
+    this.revealed = revealed;
+    waiting = state.isWaitingForInput();
+
+    if (this.hoverIndex != hoverIndex) dirty |= CHOICES;
+    this.hoverIndex = hoverIndex;
+
+    if (skipMode != state.isSkipMode() || autoMode != state.isAutoPlayMode()) dirty |= INDICATORS;
+    skipMode = state.isSkipMode();
+    autoMode = state.isAutoPlayMode();
+
+    String hud = state.getHudMessage() != null && nowMs < state.getHudMessageExpireAt() ? state.getHudMessage() : null;
+    if (!Objects.equals(hudMessage, hud)) dirty |= HUD;
+    hudMessage = hud;
+
+    return historyShown && dirty != 0 ? ALL : dirty;
+  }
+}
@@ -10,6 +10,7 @@ import java.util.List;
 public class VnHistory {
   private final List<HistoryEntry> entries = new ArrayList<>();
   private final int maxEntries;
+  private long addedCount;
 
   public VnHistory() {
     this(200); // Default to 200 entries
@@ -21,6 +22,7 @@ public class VnHistory {
 
   public void addEntry(String speaker, String text) {
     entries.add(new HistoryEntry(speaker, text, System.currentTimeMillis()));
+    addedCount++;
     
     // Trim old entries if we exceed max
     while (entries.size() > maxEntries) {
@@ -32,6 +34,18 @@ public class VnHistory {
     return Collections.unmodifiableList(entries);
   }
 
+  /** Entries added since creation, including ones trimmed or removed since. */
+  public long getAddedCount() {
+    return addedCount;
+  }
+
+  /** Removes up to {@code count} of the most recent entries, e.g. when rolling back. */
+  public void removeNewest(int count) {
+    int n = Math.min(Math.max(0, count), entries.size());
+    entries.subList(entries.size() - n, entries.size()).clear();
+    addedCount -= Math.max(0, count);
+  }
+
   public void clear() {
     entries.clear();
   }
@@ -0,0 +1,102 @@
+package com.jvn.core.vn;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the images a scenario is about to need, so they can be decoded before they are shown.
+ * Walks forward from a node the way {@link VnScene} would, following jumps and every enabled
+ * branch of upcoming choices, nearest nodes first.
+ */
+public final class VnLookahead {
+  private VnLookahead() {}
+
+  /** Receives image paths by how they are drawn, since renderers size backgrounds and sprites differently. */
+  public interface ImageVisitor {
+    void background(String path);
+    void sprite(String path);
+  }
+
+  /**
+   * Image paths referenced by up to {@code maxNodes} nodes reachable from {@code fromIndex}
+   * (inclusive), in the order they are likely to be needed, without duplicates.
+   */
+  public static List<String> upcomingImages(VnScenario scenario, int fromIndex, int maxNodes) {
+    Set<String> paths = new LinkedHashSet<>();
+    visitUpcoming(scenario, fromIndex, maxNodes, new ImageVisitor() {
+      @Override public void background(String path) { paths.add(path); }
+      @Override public void sprite(String path) { paths.add(path); }
+    });
+    return new ArrayList<>(paths);
+  }
+
+  /** Like {@link #upcomingImages}, but reports each reference, repeats included, as it is found. */
+  public static void visitUpcoming(VnScenario scenario, int fromIndex, int maxNodes, ImageVisitor visitor) {
+    if (scenario == null || maxNodes <= 0) return;
+    int count = scenario.getNodes().size();
+    BitSet seen = new BitSet(count);
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    enqueue(fromIndex, count, seen, queue);
+    int visited = 0;
+    while (!queue.isEmpty() && visited < maxNodes) {
+      int index = queue.poll();
+      VnNode node = scenario.getNode(index);
+      visited++;
+      collect(scenario, node, visitor);
+      switch (node.getType()) {
+        case END:
+          break;
+        case JUMP:
+          enqueue(node.getJumpLabel() != null ? labelIndex(scenario, node.getJumpLabel()) : index + 1, count, seen, queue);
+          break;
+        case CHOICE:
+          for (Choice c : node.getChoices()) {
+            if (!c.isEnabled()) continue;
+            enqueue(c.getTargetLabel() != null ? labelIndex(scenario, c.getTargetLabel()) : index + 1, count, seen, queue);
+          }
+          break;
+        default:
+          enqueue(index + 1, count, seen, queue);
+      }
+    }
+  }
+
+  private static int labelIndex(VnScenario scenario, String label) {
+    Integer i = scenario.getLabelIndex(label);
+    return i != null ? i : -1;
+  }
+
+  private static void enqueue(int index, int count, BitSet seen, ArrayDeque<Integer> queue) {
+    if (index < 0 || index >= count || seen.get(index)) return;
+    seen.set(index);
+    queue.add(index);
+  }
+
+  private static void collect(VnScenario scenario, VnNode node, ImageVisitor visitor) {
+    if (node.getBackgroundId() != null) addBackground(scenario, node.getBackgroundId(), visitor);
+    if (node.getTransition() != null && node.getTransition().getTargetBackgroundId() != null) {
+      addBackground(scenario, node.getTransition().getTargetBackgroundId(), visitor);
+    }
+    if (node.getCharacterToShow() != null) {
+      addCharacter(scenario, node.getCharacterToShow(), node.getShowExpression() != null ? node.getShowExpression() : "neutral", visitor);
+    }
+    DialogueLine d = node.getDialogue();
+    if (d != null && d.getCharacterId() != null) addCharacter(scenario, d.getCharacterId(), d.getExpression(), visitor);
+  }
+
+  private static void addBackground(VnScenario scenario, String id, ImageVisitor visitor) {
+    VnBackground bg = scenario.getBackground(id);
+    if (bg != null && bg.getImagePath() != null) visitor.background(bg.getImagePath());
+  }
+
+  private static void addCharacter(VnScenario scenario, String id, String expression, ImageVisitor visitor) {
+    VnCharacter c = scenario.getCharacter(id);
+    if (c == null) return;
+    String path = c.getExpressionPath(expression);
+    if (path != null) visitor.sprite(path);
+  }
+}
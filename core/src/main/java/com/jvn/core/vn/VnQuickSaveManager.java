@@ -3,7 +3,10 @@ package com.jvn.core.vn;
 import com.jvn.core.vn.save.VnSaveData;
 import com.jvn.core.vn.save.VnSaveManager;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Manages quick save/load functionality (F5/F9 keys)
@@ -33,6 +36,19 @@ public class VnQuickSaveManager {
     }
   }
   
+  /**
+   * Quick save without blocking the caller (F5). The state is copied immediately; writing the
+   * save and the optional thumbnail happens on the save writer thread. Completes with false,
+   * never exceptionally, if the save failed.
+   */
+  public CompletableFuture<Boolean> quickSaveAsync(VnState state, Supplier<BufferedImage> thumbnail) {
+    return saveManager.saveAsync(state, QUICK_SAVE_NAME, thumbnail).handle((v, e) -> {
+      if (e == null) return true;
+      System.err.println("Quick save failed: " + (e.getCause() != null ? e.getCause() : e));
+      return false;
+    });
+  }
+
   /**
    * Quick load saved state (F9)
    */
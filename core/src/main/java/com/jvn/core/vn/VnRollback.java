@@ -0,0 +1,243 @@
+package com.jvn.core.vn;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Rollback history for a {@link VnScene}: one snapshot per player step, restored without replaying
+ * the script. Snapshots share what did not change since the previous one (the character layout is
+ * reused by reference), variables are kept as the previous values of just the keys that changed,
+ * undone against one copy of the newest snapshot's variables, and nodes read for the first time are
+ * kept as a small delta on the step that read them, so a step that only moved to the next line or
+ * set a flag costs a few dozen bytes. The oldest steps are dropped past a depth or an estimated
+ * memory cap.
+ */
+public class VnRollback {
+  public static final int DEFAULT_MAX_DEPTH = 1000;
+  public static final long DEFAULT_MAX_BYTES = 256 * 1024;
+
+  private static final CharacterPosition[] POSITIONS = CharacterPosition.values();
+  // rough sizes of a snapshot and of what it may own, for the memory cap
+  private static final int SNAPSHOT_BYTES = 64;
+  private static final int CHARACTERS_BYTES = 16 + 8 * POSITIONS.length;
+  private static final int DELTA_BYTES = 32;
+  private static final int VARIABLE_BYTES = 16;
+  // previous value of a key that did not exist yet
+  private static final Object ABSENT = new Object();
+  private static final String[] NO_KEYS = new String[0];
+  private static final Object[] NO_VALUES = new Object[0];
+
+  private static final class Snapshot {
+    final int nodeIndex;
+    final String backgroundId;
+    final VnState.CharacterSlot[] characters;
+    final long historyAdded;
+    long bytes;
+    // values the changed variables had in the previous snapshot; null when nothing changed or for the oldest
+    String[] undoKeys;
+    Object[] undoValues;
+    // nodes first read after this snapshot was taken, unread again when rolling back to it
+    int[] reads = EMPTY;
+    int readCount;
+
+    Snapshot(int nodeIndex, String backgroundId, VnState.CharacterSlot[] characters, long historyAdded, long bytes) {
+      this.nodeIndex = nodeIndex;
+      this.backgroundId = backgroundId;
+      this.characters = characters;
+      this.historyAdded = historyAdded;
+      this.bytes = bytes;
+    }
+  }
+
+  private static final int[] EMPTY = new int[0];
+
+  private final ArrayDeque<Snapshot> steps = new ArrayDeque<>();
+  // variables of the newest snapshot
+  private final Map<String, Object> variables = new HashMap<>();
+  private int maxDepth;
+  private long maxBytes;
+  private long bytes;
+
+  public VnRollback() {
+    this(DEFAULT_MAX_DEPTH, DEFAULT_MAX_BYTES);
+  }
+
+  public VnRollback(int maxDepth, long maxBytes) {
+    setLimits(maxDepth, maxBytes);
+  }
+
+  /** Caps the number of steps kept and their estimated size; older steps are dropped first. */
+  public void setLimits(int maxDepth, long maxBytes) {
+    this.maxDepth = Math.max(0, maxDepth);
+    this.maxBytes = Math.max(0, maxBytes);
+    trim();
+  }
+
+  public int getMaxDepth() { return maxDepth; }
+  public long getMaxBytes() { return maxBytes; }
+  public int getDepth() { return steps.size(); }
+  /** Estimated memory held by the snapshots. */
+  public long getEstimatedBytes() { return bytes; }
+  public boolean canRollback() { return !steps.isEmpty(); }
+
+  public void clear() {
+    steps.clear();
+    variables.clear();
+    bytes = 0;
+  }
+
+  /** Records the state the player is about to leave. */
+  public void record(VnState state) {
+    if (maxDepth == 0) return;
+    Snapshot prev = steps.peekLast();
+    long size = SNAPSHOT_BYTES;
+
+    VnState.CharacterSlot[] characters = charactersOf(state);
+    if (prev != null && sameCharacters(prev.characters, characters)) {
+      characters = prev.characters;
+    } else {
+      size += CHARACTERS_BYTES;
+    }
+
+    Snapshot s = new Snapshot(state.getCurrentNodeIndex(), state.getCurrentBackgroundId(), characters,
+        state.getHistory().getAddedCount(), size);
+    recordVariables(s, state.getVariables());
+    // the oldest step is never undone past, so it needs no previous values
+    if (prev == null) {
+      s.undoKeys = null;
+      s.undoValues = null;
+    }
+    if (s.undoKeys != null) s.bytes += DELTA_BYTES + (long) VARIABLE_BYTES * s.undoKeys.length;
+    size = s.bytes;
+    steps.addLast(s);
+    bytes += size;
+    trim();
+  }
+
+  /** Notes a node read for the first time since the last {@link #record}. */
+  public void noteRead(int nodeIndex) {
+    Snapshot s = steps.peekLast();
+    if (s == null) return;
+    if (s.readCount == s.reads.length) s.reads = Arrays.copyOf(s.reads, Math.max(4, s.readCount * 2));
+    s.reads[s.readCount++] = nodeIndex;
+    bytes += 4;
+  }
+
+  /**
+   * Restores the state of {@code count} steps ago (or the oldest kept) and returns how many steps
+   * were actually rolled back. Nodes first read since then become unread again in this
+   * playthrough (not in the global read state) and dialogue history entries added since then
+   * are removed.
+   */
+  public int rollback(VnState state, int count) {
+    int done = 0;
+    Snapshot target = null;
+    while (done < count && !steps.isEmpty()) {
+      if (target != null) undoVariables(target);
+      target = steps.pollLast();
+      bytes -= target.bytes + 4L * target.readCount;
+      for (int i = 0; i < target.readCount; i++) state.unmarkNodeAsRead(target.reads[i]);
+      done++;
+    }
+    if (target == null) return 0;
+
+    state.setCurrentNodeIndex(target.nodeIndex);
+    state.setCurrentBackgroundId(target.backgroundId);
+    state.clearAllCharacters();
+    for (int i = 0; i < POSITIONS.length; i++) {
+      VnState.CharacterSlot slot = target.characters[i];
+      if (slot != null) state.showCharacter(POSITIONS[i], slot.getCharacterId(), slot.getExpression());
+    }
+    state.setVariables(variables);
+    undoVariables(target);
+    if (steps.isEmpty()) variables.clear();
+    VnHistory history = state.getHistory();
+    history.removeNewest((int) Math.min(Integer.MAX_VALUE, history.getAddedCount() - target.historyAdded));
+    return done;
+  }
+
+  private void trim() {
+    boolean dropped = false;
+    while (!steps.isEmpty() && (steps.size() > maxDepth || bytes > maxBytes)) {
+      Snapshot s = steps.pollFirst();
+      bytes -= s.bytes + 4L * s.readCount;
+      dropped = true;
+    }
+    if (!dropped) return;
+    Snapshot oldest = steps.peekFirst();
+    if (oldest == null) {
+      variables.clear();
+    } else if (oldest.undoKeys != null) {
+      long delta = DELTA_BYTES + (long) VARIABLE_BYTES * oldest.undoKeys.length;
+      oldest.undoKeys = null;
+      oldest.undoValues = null;
+      oldest.bytes -= delta;
+      bytes -= delta;
+    }
+  }
+
+  /** Stores on {@code s} the previous values of the variables that changed and brings the copy up to date. */
+  private void recordVariables(Snapshot s, Map<String, Object> current) {
+    String[] keys = NO_KEYS;
+    Object[] values = NO_VALUES;
+    int n = 0;
+    int kept = 0;
+    for (Map.Entry<String, Object> e : current.entrySet()) {
+      Object before = variables.getOrDefault(e.getKey(), ABSENT);
+      if (before != ABSENT) kept++;
+      if (before != ABSENT && Objects.equals(before, e.getValue())) continue;
+      if (n == keys.length) {
+        keys = Arrays.copyOf(keys, Math.max(4, n * 2));
+        values = Arrays.copyOf(values, keys.length);
+      }
+      keys[n] = e.getKey();
+      values[n++] = before;
+    }
+    if (kept < variables.size()) {
+      for (Map.Entry<String, Object> e : variables.entrySet()) {
+        if (current.containsKey(e.getKey())) continue;
+        if (n == keys.length) {
+          keys = Arrays.copyOf(keys, Math.max(4, n * 2));
+          values = Arrays.copyOf(values, keys.length);
+        }
+        keys[n] = e.getKey();
+        values[n++] = e.getValue();
+      }
+    }
+    if (n == 0) return;
+    for (int i = 0; i < n; i++) {
+      if (current.containsKey(keys[i])) variables.put(keys[i], current.get(keys[i]));
+      else variables.remove(keys[i]);
+    }
+    s.undoKeys = n == keys.length ? keys : Arrays.copyOf(keys, n);
+    s.undoValues = n == values.length ? values : Arrays.copyOf(values, n);
+  }
+
+  /** Turns the copy of {@code s}'s variables into those of the snapshot before it. */
+  private void undoVariables(Snapshot s) {
+    if (s.undoKeys == null) return;
+    for (int i = 0; i < s.undoKeys.length; i++) {
+      if (s.undoValues[i] == ABSENT) variables.remove(s.undoKeys[i]);
+      else variables.put(s.undoKeys[i], s.undoValues[i]);
+    }
+  }
+
+  private static VnState.CharacterSlot[] charactersOf(VnState state) {
+    VnState.CharacterSlot[] slots = new VnState.CharacterSlot[POSITIONS.length];
+    for (var e : state.getVisibleCharacters().entrySet()) slots[e.getKey().ordinal()] = e.getValue();
+    return slots;
+  }
+
+  private static boolean sameCharacters(VnState.CharacterSlot[] a, VnState.CharacterSlot[] b) {
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] == b[i]) continue;
+      if (a[i] == null || b[i] == null
+          || !a[i].getCharacterId().equals(b[i].getCharacterId())
+          || !Objects.equals(a[i].getExpression(), b[i].getExpression())) return false;
+    }
+    return true;
+  }
+}
@@ -3,6 +3,10 @@ package com.jvn.core.vn;
 import com.jvn.core.audio.AudioFacade;
 import com.jvn.core.scene.Scene;
 
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 /**
  * Scene implementation for visual novel gameplay
  */
@@ -12,6 +16,7 @@ public class VnScene implements Scene {
   private long textRevealTimer;
   private AudioFacade audioFacade; // Optional audio support
   private VnQuickSaveManager quickSaveManager;
+  private final VnRollback rollback = new VnRollback();
   private boolean waitingNode = false;
   private long waitRemainingMs = 0;
 
@@ -43,6 +48,10 @@ public class VnScene implements Scene {
     return quickSaveManager;
   }
 
+  public VnRollback getRollback() {
+    return rollback;
+  }
+
   @Override
   public void onEnter() {
     // Process initial node
@@ -85,6 +94,7 @@ public class VnScene implements Scene {
           state.setTextRevealProgress(textLength);
           state.setWaitingForInput(false);
           // Auto-advance in skip mode
+          rollback.record(state);
           state.advance();
           processCurrentNode();
           return;
@@ -137,6 +147,7 @@ public class VnScene implements Scene {
       }
     }
 
+    rollback.record(state);
     state.advance();
     processCurrentNode();
   }
@@ -151,6 +162,7 @@ public class VnScene implements Scene {
     if (choiceIndex >= 0 && choiceIndex < current.getChoices().size()) {
       Choice choice = current.getChoices().get(choiceIndex);
       if (!choice.isEnabled()) return;
+      rollback.record(state);
       if (choice.getTargetLabel() != null) {
         state.jumpToLabel(choice.getTargetLabel());
         processCurrentNode();
@@ -171,7 +183,7 @@ public class VnScene implements Scene {
     state.resetAutoPlayTimer();
 
     // Mark node as read
-    state.markNodeAsRead(state.getCurrentNodeIndex());
+    if (state.markNodeAsRead(state.getCurrentNodeIndex())) rollback.noteRead(state.getCurrentNodeIndex());
 
     // Process audio commands
     if (node.getAudioCommand() != null) {
@@ -238,6 +250,33 @@ public class VnScene implements Scene {
     }
   }
 
+  /**
+   * Steps back to the node shown before the last advance or choice, with its text fully revealed.
+   * Audio is left as it is. Returns false if there is nothing to roll back to.
+   */
+  public boolean rollback() {
+    return rollback(1) > 0;
+  }
+
+  /** Rolls back up to {@code steps} steps at once and returns how many were taken. */
+  public int rollback(int steps) {
+    int done = rollback.rollback(state, steps);
+    if (done == 0) return 0;
+    waitingNode = false;
+    textRevealTimer = 0;
+    state.clearActiveTransition();
+    state.clearPreviousBackgroundIdDuringTransition();
+    state.setSkipMode(false);
+    state.setAutoPlayMode(false);
+    state.resetAutoPlayTimer();
+    state.clearHistoryScroll();
+    VnNode node = state.getCurrentNode();
+    DialogueLine dialogue = node != null ? node.getDialogue() : null;
+    state.setTextRevealProgress(dialogue != null ? dialogue.getText().length() : 0);
+    state.setWaitingForInput(true);
+    return done;
+  }
+
   private void processDialogueNode(VnNode node) {
     DialogueLine dialogue = node.getDialogue();
     if (dialogue == null) return;
@@ -307,10 +346,20 @@ public class VnScene implements Scene {
     return quickSaveManager != null && quickSaveManager.quickSave(state);
   }
 
+  /**
+   * Quick save that writes in the background; see {@link VnQuickSaveManager#quickSaveAsync}.
+   * Completes with false if there is no quick save manager or the save failed.
+   */
+  public CompletableFuture<Boolean> quickSaveAsync(Supplier<BufferedImage> thumbnail) {
+    if (quickSaveManager == null) return CompletableFuture.completedFuture(false);
+    return quickSaveManager.quickSaveAsync(state, thumbnail);
+  }
+
   public boolean quickLoad() {
     if (quickSaveManager == null) return false;
     boolean ok = quickSaveManager.applyQuickLoad(state, scenario);
     if (ok) {
+      rollback.clear();
       if (audioFacade != null) {
         VnSettings s = state.getSettings();
         audioFacade.setBgmVolume(s.getBgmVolume());
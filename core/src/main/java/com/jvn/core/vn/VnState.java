@@ -1,5 +1,8 @@
 package com.jvn.core.vn;
 
+import com.jvn.core.vn.save.VnReadTracker;
+
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -21,7 +24,9 @@ public class VnState {
   private boolean skipMode = false;
   private boolean autoPlayMode = false;
   private long autoPlayTimer = 0;
-  private final Set<Integer> readNodes; // Track which nodes have been read
+  private final BitSet readNodes; // Nodes read in this playthrough
+  private VnReadTracker readTracker;
+  private BitSet globalReadNodes; // Nodes of this scenario read in any playthrough
   private VnTransition activeTransition;
   private long transitionStartTime;
   private String previousBackgroundIdDuringTransition;
@@ -39,13 +44,14 @@ public class VnState {
     this.textRevealProgress = 0;
     this.history = new VnHistory();
     this.settings = new VnSettings();
-    this.readNodes = new HashSet<>();
+    this.readNodes = new BitSet();
   }
 
   public VnScenario getScenario() { return scenario; }
   public void setScenario(VnScenario scenario) {
     this.scenario = scenario;
     this.currentNodeIndex = 0;
+    attachGlobalReadNodes();
   }
 
   public int getCurrentNodeIndex() { return currentNodeIndex; }
@@ -114,8 +120,38 @@ public class VnState {
   public void incrementAutoPlayTimer(long delta) { this.autoPlayTimer += delta; }
   public void resetAutoPlayTimer() { this.autoPlayTimer = 0; }
 
-  public boolean isNodeRead(int nodeIndex) { return readNodes.contains(nodeIndex); }
-  public void markNodeAsRead(int nodeIndex) { readNodes.add(nodeIndex); }
+  /** Whether the node was read in this playthrough or, with a read tracker, in any other. */
+  public boolean isNodeRead(int nodeIndex) {
+    if (nodeIndex < 0) return false;
+    return readNodes.get(nodeIndex) || (globalReadNodes != null && globalReadNodes.get(nodeIndex));
+  }
+
+  /** Marks the node read; true if it was not read before in this playthrough. */
+  public boolean markNodeAsRead(int nodeIndex) {
+    if (nodeIndex < 0 || readNodes.get(nodeIndex)) return false;
+    readNodes.set(nodeIndex);
+    if (globalReadNodes != null && !globalReadNodes.get(nodeIndex)) readTracker.mark(scenario.getId(), nodeIndex);
+    return true;
+  }
+
+  /** Unmarks the node for this playthrough only; global read state is never taken back. */
+  void unmarkNodeAsRead(int nodeIndex) {
+    if (nodeIndex >= 0) readNodes.clear(nodeIndex);
+  }
+
+  public VnReadTracker getReadTracker() { return readTracker; }
+
+  /** Shares read state with other playthroughs; nodes read so far are merged into the tracker. */
+  public void setReadTracker(VnReadTracker tracker) {
+    this.readTracker = tracker;
+    attachGlobalReadNodes();
+  }
+
+  private void attachGlobalReadNodes() {
+    String id = scenario != null ? scenario.getId() : null;
+    globalReadNodes = readTracker != null && id != null ? readTracker.nodes(id) : null;
+    if (globalReadNodes != null) readTracker.merge(id, readNodes);
+  }
 
   public VnTransition getActiveTransition() { return activeTransition; }
   public void setActiveTransition(VnTransition transition) { 
@@ -162,10 +198,27 @@ public class VnState {
     if (vars != null) this.variables.putAll(vars);
   }
 
-  public Set<Integer> getReadNodes() { return new HashSet<>(readNodes); }
+  /** Read nodes of this playthrough as a new set; prefer {@link #getReadNodeBits()}. */
+  public Set<Integer> getReadNodes() {
+    Set<Integer> set = new HashSet<>();
+    for (int i = readNodes.nextSetBit(0); i >= 0; i = readNodes.nextSetBit(i + 1)) set.add(i);
+    return set;
+  }
+
   public void setReadNodes(Set<Integer> read) {
+    BitSet bits = new BitSet();
+    if (read != null) for (Integer i : read) if (i != null && i >= 0) bits.set(i);
+    setReadNodeBits(bits);
+  }
+
+  /** Copy of the read nodes of this playthrough, one bit per node. */
+  public BitSet getReadNodeBits() { return (BitSet) readNodes.clone(); }
+
+  /** Replaces the read nodes of this playthrough, merging them into the read tracker if any. */
+  public void setReadNodeBits(BitSet read) {
     this.readNodes.clear();
-    if (read != null) this.readNodes.addAll(read);
+    if (read != null) this.readNodes.or(read);
+    if (globalReadNodes != null) readTracker.merge(scenario.getId(), readNodes);
   }
 
   public static class CharacterSlot {
@@ -0,0 +1,137 @@
+package com.jvn.core.vn.save;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Nodes read in any playthrough, one bitset per scenario, shared by every save in a directory and
+ * kept in a small file next to them. Marks only set bits in memory; the file is rewritten on the
+ * save writer thread, at most one write queued at a time, so skipping through hundreds of lines
+ * costs a handful of writes. Loading a save merges its read nodes in, so older saves contribute
+ * what they had read before global tracking existed.
+ */
+public final class VnReadTracker {
+  static final String FILE_NAME = "read.dat";
+  private static final int MAGIC = 0x4a564e52; // "JVNR"
+  private static final int VERSION = 1;
+  // the same bound saves put on read node indexes
+  private static final int MAX_WORDS = VnSaveCodec.MAX_READ_NODES / 64;
+
+  private static final Map<Path, VnReadTracker> SHARED = new HashMap<>();
+
+  private final Path file;
+  private final Map<String, BitSet> scenarios = new HashMap<>();
+  private boolean writePending;
+  private int writes;
+
+  VnReadTracker(Path file) {
+    this.file = file;
+    load();
+  }
+
+  /** The tracker for a save directory; managers on the same directory share it. */
+  public static VnReadTracker forDirectory(Path dir) {
+    Path key = dir.toAbsolutePath().normalize();
+    synchronized (SHARED) {
+      return SHARED.computeIfAbsent(key, k -> new VnReadTracker(k.resolve(FILE_NAME)));
+    }
+  }
+
+  /**
+   * The live read set of a scenario, created if needed. Callers may test bits on it directly but
+   * must change it only through {@link #mark} and {@link #merge}.
+   */
+  public synchronized BitSet nodes(String scenarioId) {
+    return scenarios.computeIfAbsent(scenarioId, k -> new BitSet());
+  }
+
+  public synchronized boolean isRead(String scenarioId, int node) {
+    BitSet bits = scenarios.get(scenarioId);
+    return bits != null && node >= 0 && bits.get(node);
+  }
+
+  public synchronized void mark(String scenarioId, int node) {
+    if (node < 0) return;
+    BitSet bits = nodes(scenarioId);
+    if (bits.get(node)) return;
+    bits.set(node);
+    scheduleWrite();
+  }
+
+  /** Adds every node in {@code read}, e.g. from a loaded save. */
+  public synchronized void merge(String scenarioId, BitSet read) {
+    if (read == null || read.isEmpty()) return;
+    BitSet bits = nodes(scenarioId);
+    int before = bits.cardinality();
+    bits.or(read);
+    if (bits.cardinality() != before) scheduleWrite();
+  }
+
+  /** Writes the file now, on the calling thread. */
+  public void flush() throws IOException {
+    byte[] data;
+    synchronized (this) {
+      writePending = false;
+      data = encode();
+      writes++;
+    }
+    VnSaveManager.writeAtomically(file, data);
+  }
+
+  /** Times the file was written, for tests and diagnostics. */
+  synchronized int getWrites() { return writes; }
+
+  private void scheduleWrite() {
+    if (writePending) return;
+    writePending = true;
+    VnSaveManager.WRITER.execute(() -> {
+      try {
+        flush();
+      } catch (IOException e) {
+        System.err.println("Failed to write read state: " + e.getMessage());
+      }
+    });
+  }
+
+  private byte[] encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(scenarios.size());
+      for (Map.Entry<String, BitSet> e : scenarios.entrySet()) {
+        out.writeUTF(e.getKey());
+        long[] words = e.getValue().toLongArray();
+        out.writeInt(words.length);
+        for (long w : words) out.writeLong(w);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private void load() {
+    if (!Files.isRegularFile(file)) return;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String id = in.readUTF();
+        int n = in.readInt();
+        if (n < 0 || n > MAX_WORDS) throw new IOException("Bad word count " + n);
+        long[] words = new long[n];
+        for (int w = 0; w < words.length; w++) words[w] = in.readLong();
+        scenarios.put(id, BitSet.valueOf(words));
+      }
+    } catch (IOException | RuntimeException e) {
+      // a damaged file only loses global read marks; saves keep their own
+      System.err.println("Failed to read read state: " + e);
+      scenarios.clear();
+    }
+  }
+}
@@ -0,0 +1,416 @@
+package com.jvn.core.vn.save;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary save format. A file is the magic {@code JVNS}, the format version as a varint, then
+ * fields of {@code tag, length, payload} ending with tag 0. Readers skip tags they do not know,
+ * so fields can be added without breaking older builds; a version bump is only needed when the
+ * meaning of an existing field changes. Integers are varints, read nodes are stored as sorted
+ * deltas and variables as a typed table. Files written with Java serialization by earlier
+ * versions are still read. Java serialization, for legacy files and for variables of other types,
+ * only accepts the save classes, JDK value types and collections, and types registered with
+ * {@link #allowVariableType}; a save file is not trusted to name arbitrary classes.
+ */
+public final class VnSaveCodec {
+  public static final int VERSION = 1;
+  private static final byte[] MAGIC = { 'J', 'V', 'N', 'S' };
+
+  private static final int F_END = 0;
+  private static final int F_SAVE_NAME = 1;
+  private static final int F_SCENARIO_ID = 2;
+  private static final int F_NODE_INDEX = 3;
+  private static final int F_BACKGROUND_ID = 4;
+  private static final int F_VARIABLES = 5;
+  private static final int F_READ_NODES = 6;
+  private static final int F_CHARACTERS = 7;
+  private static final int F_FLAGS = 8;
+  private static final int F_SETTINGS = 9;
+  private static final int F_TIMESTAMP = 10;
+
+  private static final int T_NULL = 0;
+  private static final int T_FALSE = 1;
+  private static final int T_TRUE = 2;
+  private static final int T_INT = 3;
+  private static final int T_LONG = 4;
+  private static final int T_FLOAT = 5;
+  private static final int T_DOUBLE = 6;
+  private static final int T_STRING = 7;
+  /** Any other Serializable value, stored with Java serialization as before. */
+  private static final int T_SERIALIZED = 8;
+
+  /**
+   * Read nodes at or past this index are dropped when decoding, before the scenario is known, so a
+   * damaged or crafted file cannot make the bitset allocate hundreds of megabytes.
+   */
+  public static final int MAX_READ_NODES = 1 << 20;
+
+  private static final Set<String> ALLOWED_CLASSES = ConcurrentHashMap.newKeySet();
+  static {
+    // Object and Map$Entry only appear as the array types collections read back internally
+    ALLOWED_CLASSES.addAll(List.of(
+        VnSaveData.class.getName(), VnSaveData.SettingsData.class.getName(),
+        "java.lang.Object", "java.lang.String", "java.lang.Boolean", "java.lang.Character", "java.lang.Number",
+        "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long",
+        "java.lang.Float", "java.lang.Double", "java.lang.Enum",
+        "java.util.ArrayList", "java.util.LinkedList", "java.util.HashMap", "java.util.LinkedHashMap",
+        "java.util.TreeMap", "java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet",
+        "java.util.Map$Entry", "java.util.BitSet"));
+  }
+
+  private static final ObjectInputFilter FILTER = info -> {
+    if (info.depth() > 32 || info.references() > 1_000_000 || info.arrayLength() > MAX_READ_NODES) {
+      return ObjectInputFilter.Status.REJECTED;
+    }
+    Class<?> c = info.serialClass();
+    if (c == null) return ObjectInputFilter.Status.UNDECIDED;
+    while (c.isArray()) c = c.getComponentType();
+    return c.isPrimitive() || ALLOWED_CLASSES.contains(c.getName())
+        ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
+  };
+
+  private VnSaveCodec() {}
+
+  /**
+   * Lets saves restore variables of a game's own {@link Serializable} type. Other than these,
+   * only JDK value types and collections are read back.
+   */
+  public static void allowVariableType(Class<? extends Serializable> type) {
+    if (type != null) ALLOWED_CLASSES.add(type.getName());
+  }
+
+  /** True if the bytes start like a file written by {@link #encode}. */
+  public static boolean isBinary(byte[] data) {
+    return data != null && data.length >= MAGIC.length && Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+  }
+
+  /** True if the bytes are a Java serialization stream, the format of saves before this codec. */
+  public static boolean isLegacy(byte[] data) {
+    return data != null && data.length >= 2 && (data[0] & 0xff) == 0xac && (data[1] & 0xff) == 0xed;
+  }
+
+  public static byte[] encode(VnSaveData d) throws IOException {
+    Out out = new Out(256);
+    out.raw(MAGIC);
+    out.varint(VERSION);
+    Out f = new Out(256);
+
+    field(out, F_SAVE_NAME, f.reset().nullableString(d.getSaveName()));
+    field(out, F_SCENARIO_ID, f.reset().nullableString(d.getScenarioId()));
+    field(out, F_NODE_INDEX, f.reset().zigzag(d.getCurrentNodeIndex()));
+    field(out, F_BACKGROUND_ID, f.reset().nullableString(d.getCurrentBackgroundId()));
+
+    f.reset().varint(d.getVariables().size());
+    for (Map.Entry<String, Object> e : d.getVariables().entrySet()) {
+      f.nullableString(e.getKey());
+      value(f, e.getKey(), e.getValue());
+    }
+    field(out, F_VARIABLES, f);
+
+    BitSet read = d.getReadNodeBits();
+    f.reset().varint(read.cardinality());
+    int prev = 0;
+    for (int i = read.nextSetBit(0); i >= 0; i = read.nextSetBit(i + 1)) {
+      // first entry relative to 0, later ones to their predecessor, so mostly one byte each
+      f.zigzag((long) i - prev);
+      prev = i;
+    }
+    field(out, F_READ_NODES, f);
+
+    f.reset().varint(d.getVisibleCharacters().size());
+    for (Map.Entry<String, String[]> e : d.getVisibleCharacters().entrySet()) {
+      f.nullableString(e.getKey());
+      String[] slot = e.getValue() != null ? e.getValue() : new String[0];
+      f.varint(slot.length);
+      for (String s : slot) f.nullableString(s);
+    }
+    field(out, F_CHARACTERS, f);
+
+    field(out, F_FLAGS, f.reset().varint((d.isSkipMode() ? 1 : 0) | (d.isAutoPlayMode() ? 2 : 0) | (d.isUiHidden() ? 4 : 0)));
+
+    VnSaveData.SettingsData s = d.getSettings();
+    f.reset().zigzag(s.getTextSpeed());
+    f.fixed32(Float.floatToIntBits(s.getBgmVolume()));
+    f.fixed32(Float.floatToIntBits(s.getSfxVolume()));
+    f.fixed32(Float.floatToIntBits(s.getVoiceVolume()));
+    f.zigzag(s.getAutoPlayDelay());
+    f.varint((s.isSkipUnreadText() ? 1 : 0) | (s.isSkipAfterChoices() ? 2 : 0));
+    field(out, F_SETTINGS, f);
+
+    field(out, F_TIMESTAMP, f.reset().fixed64(d.getSaveTimestamp()));
+    out.varint(F_END);
+    return out.toByteArray();
+  }
+
+  /** Decodes a save in either format. */
+  public static VnSaveData decode(byte[] data) throws IOException, ClassNotFoundException {
+    if (isLegacy(data)) return decodeLegacy(data);
+    if (!isBinary(data)) throw new IOException("Not a save file");
+    In in = new In(data, MAGIC.length, data.length);
+    long version = in.varint();
+    if (version > VERSION) throw new IOException("Save format version " + version + " is newer than supported (" + VERSION + ")");
+
+    VnSaveData d = new VnSaveData();
+    while (true) {
+      int tag = (int) in.varint();
+      if (tag == F_END) break;
+      int len = in.length();
+      In f = in.slice(len);
+      switch (tag) {
+        case F_SAVE_NAME: d.setSaveName(f.nullableString()); break;
+        case F_SCENARIO_ID: d.setScenarioId(f.nullableString()); break;
+        case F_NODE_INDEX: d.setCurrentNodeIndex((int) f.zigzag()); break;
+        case F_BACKGROUND_ID: d.setCurrentBackgroundId(f.nullableString()); break;
+        case F_VARIABLES: {
+          int count = f.length();
+          Map<String, Object> vars = new HashMap<>(Math.max(16, count * 2));
+          for (int i = 0; i < count; i++) {
+            String key = f.nullableString();
+            vars.put(key, value(f));
+          }
+          d.setVariables(vars);
+          break;
+        }
+        case F_READ_NODES: {
+          int count = f.length();
+          BitSet read = new BitSet();
+          long v = 0;
+          for (int i = 0; i < count; i++) {
+            v += f.zigzag();
+            if (v >= 0 && v < MAX_READ_NODES) read.set((int) v);
+          }
+          d.setReadNodeBits(read);
+          break;
+        }
+        case F_CHARACTERS: {
+          int count = f.length();
+          Map<String, String[]> chars = new HashMap<>();
+          for (int i = 0; i < count; i++) {
+            String pos = f.nullableString();
+            String[] slot = new String[f.length()];
+            for (int k = 0; k < slot.length; k++) slot[k] = f.nullableString();
+            chars.put(pos, slot);
+          }
+          d.setVisibleCharacters(chars);
+          break;
+        }
+        case F_FLAGS: {
+          long flags = f.varint();
+          d.setSkipMode((flags & 1) != 0);
+          d.setAutoPlayMode((flags & 2) != 0);
+          d.setUiHidden((flags & 4) != 0);
+          break;
+        }
+        case F_SETTINGS: {
+          VnSaveData.SettingsData s = new VnSaveData.SettingsData();
+          s.setTextSpeed((int) f.zigzag());
+          s.setBgmVolume(Float.intBitsToFloat(f.fixed32()));
+          s.setSfxVolume(Float.intBitsToFloat(f.fixed32()));
+          s.setVoiceVolume(Float.intBitsToFloat(f.fixed32()));
+          s.setAutoPlayDelay(f.zigzag());
+          long flags = f.varint();
+          s.setSkipUnreadText((flags & 1) != 0);
+          s.setSkipAfterChoices((flags & 2) != 0);
+          d.setSettings(s);
+          break;
+        }
+        case F_TIMESTAMP: d.setSaveTimestamp(f.fixed64()); break;
+        default: break; // written by a newer build, skipped
+      }
+    }
+    return d;
+  }
+
+  static VnSaveData decodeLegacy(byte[] data) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+      ois.setObjectInputFilter(FILTER);
+      Object o = ois.readObject();
+      if (!(o instanceof VnSaveData)) throw new IOException("Not a save file");
+      return (VnSaveData) o;
+    }
+  }
+
+  private static void field(Out out, int tag, Out payload) {
+    out.varint(tag);
+    out.varint(payload.size());
+    out.raw(payload.buf, payload.size());
+  }
+
+  private static void value(Out f, String key, Object v) throws IOException {
+    if (v == null) f.varint(T_NULL);
+    else if (v instanceof Boolean) f.varint((Boolean) v ? T_TRUE : T_FALSE);
+    else if (v instanceof Integer) f.varint(T_INT).zigzag((Integer) v);
+    else if (v instanceof Long) f.varint(T_LONG).zigzag((Long) v);
+    else if (v instanceof Float) f.varint(T_FLOAT).fixed32(Float.floatToIntBits((Float) v));
+    else if (v instanceof Double) f.varint(T_DOUBLE).fixed64(Double.doubleToLongBits((Double) v));
+    else if (v instanceof String) f.varint(T_STRING).nullableString((String) v);
+    else if (v instanceof Serializable) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+        oos.writeObject(v);
+      }
+      byte[] b = bytes.toByteArray();
+      f.varint(T_SERIALIZED).varint(b.length).raw(b);
+    } else {
+      throw new IOException("Variable '" + key + "' of type " + v.getClass().getName() + " cannot be saved");
+    }
+  }
+
+  private static Object value(In f) throws IOException, ClassNotFoundException {
+    int type = (int) f.varint();
+    switch (type) {
+      case T_NULL: return null;
+      case T_FALSE: return Boolean.FALSE;
+      case T_TRUE: return Boolean.TRUE;
+      case T_INT: return (int) f.zigzag();
+      case T_LONG: return f.zigzag();
+      case T_FLOAT: return Float.intBitsToFloat(f.fixed32());
+      case T_DOUBLE: return Double.longBitsToDouble(f.fixed64());
+      case T_STRING: return f.nullableString();
+      case T_SERIALIZED: {
+        In b = f.slice(f.length());
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(b.data, b.pos, b.end - b.pos))) {
+          ois.setObjectInputFilter(FILTER);
+          return ois.readObject();
+        }
+      }
+      default: throw new IOException("Unknown variable type " + type);
+    }
+  }
+
+  private static final class Out {
+    byte[] buf;
+    int pos;
+
+    Out(int capacity) { buf = new byte[capacity]; }
+
+    Out reset() { pos = 0; return this; }
+    int size() { return pos; }
+    byte[] toByteArray() { return Arrays.copyOf(buf, pos); }
+
+    private void ensure(int n) {
+      if (pos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+    }
+
+    Out raw(byte[] b) { return raw(b, b.length); }
+
+    Out raw(byte[] b, int len) {
+      ensure(len);
+      System.arraycopy(b, 0, buf, pos, len);
+      pos += len;
+      return this;
+    }
+
+    Out varint(long v) {
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      buf[pos++] = (byte) v;
+      return this;
+    }
+
+    Out zigzag(long v) { return varint((v << 1) ^ (v >> 63)); }
+
+    Out fixed32(int v) {
+      ensure(4);
+      for (int i = 0; i < 4; i++) buf[pos++] = (byte) (v >>> (i * 8));
+      return this;
+    }
+
+    Out fixed64(long v) {
+      ensure(8);
+      for (int i = 0; i < 8; i++) buf[pos++] = (byte) (v >>> (i * 8));
+      return this;
+    }
+
+    /** Length + 1 then UTF-8 bytes, 0 for null. */
+    Out nullableString(String s) {
+      if (s == null) return varint(0);
+      byte[] b = s.getBytes(StandardCharsets.UTF_8);
+      varint(b.length + 1L);
+      return raw(b);
+    }
+  }
+
+  private static final class In {
+    final byte[] data;
+    int pos;
+    final int end;
+
+    In(byte[] data, int pos, int end) { this.data = data; this.pos = pos; this.end = end; }
+
+    private void need(int n) throws IOException {
+      if (n < 0 || end - pos < n) throw new IOException("Truncated save data");
+    }
+
+    long varint() throws IOException {
+      long v = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        need(1);
+        byte b = data[pos++];
+        v |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) return v;
+      }
+      throw new IOException("Malformed varint");
+    }
+
+    long zigzag() throws IOException {
+      long v = varint();
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** A count or length; bounded by what is left so corrupt data cannot ask for huge arrays. */
+    int length() throws IOException {
+      long v = varint();
+      if (v > end - pos) throw new IOException("Truncated save data");
+      return (int) v;
+    }
+
+    int fixed32() throws IOException {
+      need(4);
+      int v = 0;
+      for (int i = 0; i < 4; i++) v |= (data[pos++] & 0xff) << (i * 8);
+      return v;
+    }
+
+    long fixed64() throws IOException {
+      need(8);
+      long v = 0;
+      for (int i = 0; i < 8; i++) v |= (long) (data[pos++] & 0xff) << (i * 8);
+      return v;
+    }
+
+    String nullableString() throws IOException {
+      long n = varint();
+      if (n == 0) return null;
+      int len = (int) Math.min(Integer.MAX_VALUE, n - 1);
+      need(len);
+      String s = new String(data, pos, len, StandardCharsets.UTF_8);
+      pos += len;
+      return s;
+    }
+
+    In slice(int len) throws IOException {
+      need(len);
+      In s = new In(data, pos, pos + len);
+      pos += len;
+      return s;
+    }
+  }
+}
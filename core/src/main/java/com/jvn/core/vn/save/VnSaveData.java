@@ -1,6 +1,9 @@
 package com.jvn.core.vn.save;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -16,7 +19,8 @@ public class VnSaveData implements Serializable {
   private int currentNodeIndex;
   private String currentBackgroundId;
   private Map<String, Object> variables;
-  private Set<Integer> readNodes;
+  private Set<Integer> readNodes; // serialized form of readNodeBits, kept for legacy saves
+  private transient BitSet readNodeBits;
   private Map<String, String[]> visibleCharacters; // position -> [characterId, expression]
   private boolean skipMode;
   private boolean autoPlayMode;
@@ -27,7 +31,7 @@ public class VnSaveData implements Serializable {
   
   public VnSaveData() {
     this.variables = new HashMap<>();
-    this.readNodes = new HashSet<>();
+    this.readNodeBits = new BitSet();
     this.visibleCharacters = new HashMap<>();
     this.settings = new SettingsData();
     this.saveTimestamp = System.currentTimeMillis();
@@ -45,8 +49,45 @@ public class VnSaveData implements Serializable {
   public Map<String, Object> getVariables() { return variables; }
   public void setVariables(Map<String, Object> variables) { this.variables = variables != null ? variables : new HashMap<>(); }
   
-  public Set<Integer> getReadNodes() { return readNodes; }
-  public void setReadNodes(Set<Integer> readNodes) { this.readNodes = readNodes != null ? readNodes : new HashSet<>(); }
+  /** Read nodes as a new set; prefer {@link #getReadNodeBits()}, which does not copy or box. */
+  public Set<Integer> getReadNodes() {
+    BitSet bits = getReadNodeBits();
+    Set<Integer> set = new HashSet<>(Math.max(16, bits.cardinality() * 2));
+    for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) set.add(i);
+    return set;
+  }
+
+  public void setReadNodes(Set<Integer> readNodes) {
+    BitSet bits = new BitSet();
+    if (readNodes != null) for (Integer i : readNodes) if (i != null && i >= 0) bits.set(i);
+    setReadNodeBits(bits);
+  }
+
+  public BitSet getReadNodeBits() {
+    if (readNodeBits == null) {
+      // deserialized from a legacy save; indexes are bounded like those of the binary format
+      BitSet bits = new BitSet();
+      if (readNodes != null) {
+        for (Integer i : readNodes) if (i != null && i >= 0 && i < VnSaveCodec.MAX_READ_NODES) bits.set(i);
+      }
+      setReadNodeBits(bits);
+    }
+    return readNodeBits;
+  }
+
+  public void setReadNodeBits(BitSet readNodeBits) {
+    this.readNodeBits = readNodeBits != null ? readNodeBits : new BitSet();
+    this.readNodes = null;
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    readNodes = getReadNodes();
+    try {
+      out.defaultWriteObject();
+    } finally {
+      readNodes = null;
+    }
+  }
 
   public Map<String, String[]> getVisibleCharacters() { return visibleCharacters; }
   public void setVisibleCharacters(Map<String, String[]> visibleCharacters) { this.visibleCharacters = visibleCharacters != null ? visibleCharacters : new HashMap<>(); }
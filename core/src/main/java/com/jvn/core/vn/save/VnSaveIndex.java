@@ -0,0 +1,183 @@
+package com.jvn.core.vn.save;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metadata of every save in a directory, kept in memory and in a small index file next to the
+ * saves. A {@link #scan} only lists the directory and compares file sizes and modification
+ * times; saves are read again only when they changed behind the index's back, e.g. when written
+ * by another manager on the same directory. Lookups between scans touch no files.
+ */
+final class VnSaveIndex {
+  static final String FILE_NAME = "saves.idx";
+  private static final int MAGIC = 0x4a564e49; // "JVNI"
+  private static final int VERSION = 1;
+
+  interface Reader {
+    VnSaveData read(String name) throws Exception;
+  }
+
+  private final Path dir;
+  private final Path file;
+  private final Reader reader;
+  private final Map<String, VnSaveMetadata> entries = new HashMap<>();
+  private boolean loaded;
+  private int reads;
+
+  VnSaveIndex(Path dir, Reader reader) {
+    this.dir = dir;
+    this.file = dir.resolve(FILE_NAME);
+    this.reader = reader;
+  }
+
+  /** Brings the index in line with the directory and returns all slots, newest first. */
+  synchronized List<VnSaveMetadata> scan() {
+    ensureLoaded();
+    boolean changed = false;
+    Map<String, VnSaveMetadata> seen = new HashMap<>();
+    File[] files = dir.toFile().listFiles((d, n) -> n.endsWith(".sav"));
+    if (files != null) {
+      for (File f : files) {
+        String name = f.getName().substring(0, f.getName().length() - 4);
+        long size = f.length();
+        long modified = f.lastModified();
+        long thumb = thumbnailModified(name);
+        VnSaveMetadata m = entries.get(name);
+        if (m == null || m.getFileSize() != size || m.getFileModified() != modified) {
+          m = readMetadata(name, size, modified, thumb);
+          changed = true;
+        } else if (m.getThumbnailModified() != thumb) {
+          m = m.withThumbnail(thumb);
+          changed = true;
+        }
+        seen.put(name, m);
+      }
+    }
+    if (seen.size() != entries.size()) changed = true;
+    entries.clear();
+    entries.putAll(seen);
+    if (changed) write();
+    return sorted();
+  }
+
+  /** Metadata for a slot as of the last scan or change through this index; null if unknown. */
+  synchronized VnSaveMetadata get(String name) {
+    ensureLoaded();
+    return entries.get(name);
+  }
+
+  /** Records a save just written by the owner, without reading it back. */
+  synchronized void saved(String name, VnSaveData data) {
+    ensureLoaded();
+    File f = dir.resolve(name + ".sav").toFile();
+    entries.put(name, new VnSaveMetadata(name, data.getSaveTimestamp(), data.getScenarioId(), data.getCurrentNodeIndex(),
+        data.getCurrentBackgroundId(), f.length(), f.lastModified(), thumbnailModified(name)));
+    write();
+  }
+
+  synchronized void removed(String name) {
+    ensureLoaded();
+    if (entries.remove(name) != null) write();
+  }
+
+  synchronized void renamed(String oldName, String newName) {
+    ensureLoaded();
+    VnSaveMetadata m = entries.remove(oldName);
+    if (m != null) {
+      File f = dir.resolve(newName + ".sav").toFile();
+      entries.put(newName, new VnSaveMetadata(newName, m.getSaveTimestamp(), m.getScenarioId(), m.getNodeIndex(),
+          m.getBackgroundId(), f.length(), f.lastModified(), thumbnailModified(newName)));
+    }
+    write();
+  }
+
+  /** Saves read to rebuild stale entries, for tests and diagnostics. */
+  synchronized int getReads() { return reads; }
+
+  private List<VnSaveMetadata> sorted() {
+    List<VnSaveMetadata> list = new ArrayList<>(entries.values());
+    list.sort(Comparator.comparingLong(VnSaveMetadata::getSaveTimestamp).reversed()
+        .thenComparing(VnSaveMetadata::getName));
+    return list;
+  }
+
+  private VnSaveMetadata readMetadata(String name, long size, long modified, long thumb) {
+    reads++;
+    try {
+      VnSaveData d = reader.read(name);
+      return new VnSaveMetadata(name, d.getSaveTimestamp(), d.getScenarioId(), d.getCurrentNodeIndex(),
+          d.getCurrentBackgroundId(), size, modified, thumb);
+    } catch (Exception e) {
+      // unreadable saves are still listed, at the end
+      return new VnSaveMetadata(name, 0L, null, 0, null, size, modified, thumb);
+    }
+  }
+
+  private long thumbnailModified(String name) {
+    return dir.resolve(name + ".png").toFile().lastModified();
+  }
+
+  private void ensureLoaded() {
+    if (loaded) return;
+    loaded = true;
+    if (!Files.isRegularFile(file)) return;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String name = in.readUTF();
+        long timestamp = in.readLong();
+        String scenarioId = readNullable(in);
+        int nodeIndex = in.readInt();
+        String backgroundId = readNullable(in);
+        long size = in.readLong();
+        long modified = in.readLong();
+        long thumb = in.readLong();
+        entries.put(name, new VnSaveMetadata(name, timestamp, scenarioId, nodeIndex, backgroundId, size, modified, thumb));
+      }
+    } catch (IOException e) {
+      // a damaged index is rebuilt by the next scan
+      entries.clear();
+    }
+  }
+
+  private void write() {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (VnSaveMetadata m : entries.values()) {
+          out.writeUTF(m.getName());
+          out.writeLong(m.getSaveTimestamp());
+          writeNullable(out, m.getScenarioId());
+          out.writeInt(m.getNodeIndex());
+          writeNullable(out, m.getBackgroundId());
+          out.writeLong(m.getFileSize());
+          out.writeLong(m.getFileModified());
+          out.writeLong(m.getThumbnailModified());
+        }
+      }
+      VnSaveManager.writeAtomically(file, bytes.toByteArray());
+    } catch (IOException e) {
+      System.err.println("Failed to write save index: " + e.getMessage());
+    }
+  }
+
+  private static String readNullable(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeNullable(DataOutputStream out, String s) throws IOException {
+    out.writeBoolean(s != null);
+    if (s != null) out.writeUTF(s);
+  }
+}
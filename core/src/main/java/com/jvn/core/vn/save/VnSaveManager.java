@@ -4,21 +4,52 @@ import com.jvn.core.vn.CharacterPosition;
 import com.jvn.core.vn.VnSettings;
 import com.jvn.core.vn.VnState;
 
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Manages saving and loading VN game state
  */
 public class VnSaveManager {
+  /** Width thumbnails are scaled down to before they are written. */
+  public static final int THUMBNAIL_WIDTH = 320;
+
+  /**
+   * One writer for every manager and the read tracker: saves to the same slot cannot overtake each other. Not a
+   * daemon, so pending saves finish before the JVM exits; the idle thread times out.
+   */
+  static final ThreadPoolExecutor WRITER = new ThreadPoolExecutor(0, 1, 2, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(), r -> {
+        Thread t = new Thread(r, "jvn-save-writer");
+        t.setDaemon(false);
+        return t;
+      });
+
   private final Path saveDirectory;
+  private final VnSaveIndex index;
   
   public VnSaveManager(String saveDir) {
     this.saveDirectory = Paths.get(saveDir);
+    this.index = new VnSaveIndex(saveDirectory, this::load);
     try {
       Files.createDirectories(saveDirectory);
     } catch (IOException e) {
@@ -33,18 +64,75 @@ public class VnSaveManager {
   public String getSaveDirectory() {
     return saveDirectory.toString();
   }
+
+  /** Read state across all playthroughs saved in this directory. */
+  public VnReadTracker getReadTracker() {
+    return VnReadTracker.forDirectory(saveDirectory);
+  }
   
   /**
    * Save the current VN state
    */
   public void save(VnState state, String saveName) throws IOException {
+    write(snapshot(state, saveName));
+  }
+
+  /**
+   * Saves without blocking the caller: the state is copied now, on the calling thread, and
+   * encoded and written on a background thread shared by all managers, so saves complete in the
+   * order they were requested. The future completes once the file is in place, or exceptionally
+   * if writing failed; the previous save, if any, is left intact in that case.
+   */
+  public CompletableFuture<Void> saveAsync(VnState state, String saveName) {
+    return saveAsync(state, saveName, null);
+  }
+
+  /**
+   * Like {@link #saveAsync(VnState, String)}, also writing a PNG thumbnail. The supplier runs on
+   * the background thread, so it should only convert pixels captured beforehand; the image is
+   * scaled down to {@link #THUMBNAIL_WIDTH} before encoding.
+   */
+  public CompletableFuture<Void> saveAsync(VnState state, String saveName, Supplier<BufferedImage> thumbnail) {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    VnSaveData data;
+    try {
+      data = snapshot(state, saveName);
+    } catch (RuntimeException e) {
+      done.completeExceptionally(e);
+      return done;
+    }
+    WRITER.execute(() -> {
+      try {
+        // thumbnail first, so the index entry written with the save already sees it; a save without
+        // its thumbnail is still worth keeping
+        if (thumbnail != null) {
+          try {
+            writeThumbnail(saveName, thumbnail.get());
+          } catch (Exception e) {
+            System.err.println("Failed to write thumbnail for " + saveName + ": " + e);
+          }
+        }
+        write(data);
+        done.complete(null);
+      } catch (Throwable t) {
+        done.completeExceptionally(t);
+      }
+    });
+    return done;
+  }
+
+  /**
+   * Copies everything a save needs out of the state. Variable values are copied by reference,
+   * which is enough for the immutable values scripts store.
+   */
+  public VnSaveData snapshot(VnState state, String saveName) {
     VnSaveData saveData = new VnSaveData();
     saveData.setSaveName(saveName);
     saveData.setScenarioId(state.getScenario().getId());
     saveData.setCurrentNodeIndex(state.getCurrentNodeIndex());
     saveData.setCurrentBackgroundId(state.getCurrentBackgroundId());
     saveData.setVariables(new java.util.HashMap<>(state.getVariables()));
-    saveData.setReadNodes(state.getReadNodes());
+    saveData.setReadNodeBits(state.getReadNodeBits());
 
     java.util.Map<String, String[]> vis = new java.util.HashMap<>();
     for (var entry : state.getVisibleCharacters().entrySet()) {
@@ -70,16 +158,65 @@ public class VnSaveManager {
     saveData.setSettings(sd);
 
     saveData.setSaveTimestamp(System.currentTimeMillis());
-    
-    Path saveFile = saveDirectory.resolve(sanitizeFileName(saveName) + ".sav");
-    try (ObjectOutputStream oos = new ObjectOutputStream(
-        new FileOutputStream(saveFile.toFile()))) {
-      oos.writeObject(saveData);
+    return saveData;
+  }
+
+  private void write(VnSaveData saveData) throws IOException {
+    String fileName = sanitizeFileName(saveData.getSaveName());
+    writeAtomically(saveDirectory.resolve(fileName + ".sav"), VnSaveCodec.encode(saveData));
+    index.saved(fileName, saveData);
+  }
+
+  private void writeThumbnail(String saveName, BufferedImage image) throws IOException {
+    if (image == null) return;
+    BufferedImage scaled = scaleToWidth(image, THUMBNAIL_WIDTH);
+    ByteArrayOutputStream png = new ByteArrayOutputStream();
+    ImageIO.write(scaled, "png", png);
+    writeAtomically(saveDirectory.resolve(sanitizeFileName(saveName) + ".png"), png.toByteArray());
+  }
+
+  static BufferedImage scaleToWidth(BufferedImage image, int width) {
+    if (image.getWidth() <= width) return image;
+    int height = Math.max(1, (int) Math.round(image.getHeight() * (double) width / image.getWidth()));
+    BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = scaled.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    g.drawImage(image, 0, 0, width, height, null);
+    g.dispose();
+    return scaled;
+  }
+
+  /**
+   * Writes to a temporary file next to the target, forces it to disk and renames it over the
+   * target, so a crash leaves either the old file or the new one, never a partial write. Every
+   * call gets its own temporary file, so writers on other threads or managers never share one.
+   */
+  static void writeAtomically(Path target, byte[] data) throws IOException {
+    Path dir = target.toAbsolutePath().getParent();
+    Path tmp = Files.createTempFile(dir, target.getFileName() + ".", ".tmp");
+    try {
+      try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        while (buf.hasRemaining()) ch.write(buf);
+        ch.force(true);
+      }
+      try {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException | RuntimeException e) {
+      try {
+        Files.deleteIfExists(tmp);
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
     }
   }
-  
+
   /**
-   * Load a saved game state
+   * Load a saved game state, in the current or the legacy format
    */
   public VnSaveData load(String saveName) throws IOException, ClassNotFoundException {
     Path saveFile = saveDirectory.resolve(sanitizeFileName(saveName) + ".sav");
@@ -87,10 +224,29 @@ public class VnSaveManager {
       throw new FileNotFoundException("Save file not found: " + saveName);
     }
     
-    try (ObjectInputStream ois = new ObjectInputStream(
-        new FileInputStream(saveFile.toFile()))) {
-      return (VnSaveData) ois.readObject();
+    return VnSaveCodec.decode(Files.readAllBytes(saveFile));
+  }
+
+  /**
+   * Rewrites saves still in the old Java serialization format with {@link VnSaveCodec}, keeping
+   * their contents and timestamps. Returns how many were converted; unreadable files are left alone.
+   */
+  public int migrateLegacySaves() {
+    int migrated = 0;
+    for (String name : listSaves()) {
+      Path file = saveDirectory.resolve(name + ".sav");
+      try {
+        byte[] data = Files.readAllBytes(file);
+        if (!VnSaveCodec.isLegacy(data)) continue;
+        VnSaveData saveData = VnSaveCodec.decodeLegacy(data);
+        writeAtomically(file, VnSaveCodec.encode(saveData));
+        index.saved(name, saveData);
+        migrated++;
+      } catch (Exception e) {
+        System.err.println("Failed to migrate save " + name + ": " + e.getMessage());
+      }
     }
+    return migrated;
   }
   
   /**
@@ -111,6 +267,23 @@ public class VnSaveManager {
     return saves;
   }
   
+  /**
+   * Metadata of all saves, newest first. Only saves changed outside this manager are read.
+   */
+  public List<VnSaveMetadata> listSaveMetadata() {
+    return index.scan();
+  }
+
+  /**
+   * Metadata of one save as of the last listing or change made through this manager, without
+   * touching the disk; null if unknown.
+   */
+  public VnSaveMetadata getSaveMetadata(String saveName) {
+    return saveName != null ? index.get(sanitizeFileName(saveName)) : null;
+  }
+
+  int getIndexReads() { return index.getReads(); }
+
   /**
    * Delete a save file
    */
@@ -122,6 +295,7 @@ public class VnSaveManager {
         Path thumb = saveDirectory.resolve(sanitizeFileName(saveName) + ".png");
         Files.deleteIfExists(thumb);
       } catch (Exception ignored) {}
+      index.removed(sanitizeFileName(saveName));
       return deleted;
     } catch (IOException e) {
       return false;
@@ -145,6 +319,7 @@ public class VnSaveManager {
           Files.move(oldPng, newPng, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
         }
       } catch (Exception ignored) {}
+      index.renamed(sanitizeFileName(oldName), sanitizeFileName(newName));
       return true;
     } catch (IOException e) {
       return false;
@@ -158,7 +333,16 @@ public class VnSaveManager {
     state.setCurrentNodeIndex(saveData.getCurrentNodeIndex());
     state.setCurrentBackgroundId(saveData.getCurrentBackgroundId());
     state.setVariables(saveData.getVariables());
-    state.setReadNodes(saveData.getReadNodes());
+    BitSet read = saveData.getReadNodeBits();
+    if (state.getScenario() != null) {
+      // nodes past the end of the scenario cannot be read; a stale or damaged save may still list them
+      int nodes = state.getScenario().getNodes().size();
+      if (read.length() > nodes) {
+        read = (BitSet) read.clone();
+        read.clear(nodes, read.length());
+      }
+    }
+    state.setReadNodeBits(read);
 
     state.clearAllCharacters();
     for (var entry : saveData.getVisibleCharacters().entrySet()) {
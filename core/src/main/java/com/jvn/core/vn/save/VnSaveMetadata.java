@@ -0,0 +1,45 @@
+package com.jvn.core.vn.save;
+
+/**
+ * What the save and load menus show about a slot, kept in the save index so listing slots does
+ * not read the saves themselves.
+ */
+public final class VnSaveMetadata {
+  private final String name;
+  private final long saveTimestamp;
+  private final String scenarioId;
+  private final int nodeIndex;
+  private final String backgroundId;
+  private final long fileSize;
+  private final long fileModified;
+  private final long thumbnailModified;
+
+  public VnSaveMetadata(String name, long saveTimestamp, String scenarioId, int nodeIndex, String backgroundId,
+                        long fileSize, long fileModified, long thumbnailModified) {
+    this.name = name;
+    this.saveTimestamp = saveTimestamp;
+    this.scenarioId = scenarioId;
+    this.nodeIndex = nodeIndex;
+    this.backgroundId = backgroundId;
+    this.fileSize = fileSize;
+    this.fileModified = fileModified;
+    this.thumbnailModified = thumbnailModified;
+  }
+
+  /** Slot name as listed, i.e. the save file name without extension. */
+  public String getName() { return name; }
+  public long getSaveTimestamp() { return saveTimestamp; }
+  public String getScenarioId() { return scenarioId; }
+  public int getNodeIndex() { return nodeIndex; }
+  public String getBackgroundId() { return backgroundId; }
+  /** Size and modification time of the save file when this was recorded; a mismatch means it is stale. */
+  public long getFileSize() { return fileSize; }
+  public long getFileModified() { return fileModified; }
+  /** Modification time of the slot's thumbnail, 0 if it has none. */
+  public long getThumbnailModified() { return thumbnailModified; }
+  public boolean hasThumbnail() { return thumbnailModified != 0; }
+
+  VnSaveMetadata withThumbnail(long thumbnailModified) {
+    return new VnSaveMetadata(name, saveTimestamp, scenarioId, nodeIndex, backgroundId, fileSize, fileModified, thumbnailModified);
+  }
+}
@@ -0,0 +1,136 @@
+package com.jvn.core.assets;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssetCacheTest {
+  @Test
+  public void evictsLeastRecentlyUsedWithinByteBudget() {
+    AssetCache<byte[]> cache = new AssetCache<>(300, b -> b.length);
+    AtomicInteger loads = new AtomicInteger();
+    java.util.function.Function<String, byte[]> loader = k -> { loads.incrementAndGet(); return new byte[100]; };
+
+    cache.get("a", loader);
+    cache.get("b", loader);
+    cache.get("c", loader);
+    assertEquals(300, cache.getBytes());
+    cache.get("a", loader); // a is now the most recent
+    cache.get("d", loader); // evicts b
+    assertTrue(cache.contains("a"));
+    assertFalse(cache.contains("b"));
+    assertTrue(cache.contains("c"));
+    assertEquals(300, cache.getBytes());
+    assertEquals(4, loads.get());
+    assertEquals(1, cache.getHits());
+    assertEquals(4, cache.getMisses());
+    assertEquals(1, cache.getEvictions());
+
+    assertNull(cache.get("missing", k -> null));
+    assertFalse(cache.contains("missing"));
+  }
+
+  @Test
+  public void pinnedEntriesSurviveUntilUnpinned() {
+    AssetCache<byte[]> cache = new AssetCache<>(250, b -> b.length);
+    cache.pin("bg");
+    cache.get("bg", k -> new byte[300]);
+    assertEquals(300, cache.getBytes(), "pinned bytes may exceed the budget");
+    assertNotNull(cache.get("x", k -> new byte[100]), "the loaded value is returned even if it cannot stay");
+    assertTrue(cache.contains("bg"));
+    assertFalse(cache.contains("x"));
+    assertEquals(300, cache.getBytes());
+
+    cache.pin("bg");
+    cache.unpin("bg");
+    assertTrue(cache.contains("bg"), "pins nest");
+    cache.unpin("bg");
+    assertFalse(cache.contains("bg"));
+    assertTrue(cache.getBytes() <= 250);
+
+    cache.setMaxBytes(0);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void prefetchedValuesAreLoadedOnceAndShared() throws Exception {
+    AssetCache<byte[]> cache = new AssetCache<>(1000, b -> b.length);
+    AtomicInteger loads = new AtomicInteger();
+    java.util.function.Function<String, byte[]> loader = k -> { loads.incrementAndGet(); return new byte[10]; };
+    ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+    CompletableFuture<byte[]> f = cache.prefetch("bg", loader, tasks::add);
+    assertSame(f, cache.prefetch("bg", loader, tasks::add), "one load per key");
+    assertTrue(cache.isLoading("bg"));
+    assertFalse(cache.contains("bg"));
+    tasks.poll().run();
+    assertTrue(tasks.isEmpty());
+    assertTrue(f.isDone());
+    assertSame(f.get(), cache.get("bg", loader));
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.getPrefetches());
+    assertTrue(cache.prefetch("bg", loader, tasks::add).isDone());
+
+    // a get while the prefetch is still running waits for it instead of loading again
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    java.util.function.Function<String, byte[]> slow = k -> {
+      started.countDown();
+      try { release.await(); } catch (InterruptedException ignored) {}
+      loads.incrementAndGet();
+      return new byte[10];
+    };
+    cache.prefetch("sprite", slow, tasks::add);
+    Thread worker = new Thread(tasks.poll());
+    worker.start();
+    started.await();
+    Thread waiter = new Thread(() -> cache.get("sprite", loader));
+    waiter.start();
+    Thread.sleep(50);
+    release.countDown();
+    worker.join();
+    waiter.join();
+    assertTrue(cache.contains("sprite"));
+    assertEquals(2, loads.get());
+
+    CompletableFuture<byte[]> refused = cache.prefetch("late", loader, r -> { throw new RejectedExecutionException(); });
+    assertNull(refused.get());
+    assertFalse(cache.isLoading("late"));
+  }
+
+  @Test
+  public void getTakesOverQueuedPrefetch() throws Exception {
+    AssetCache<byte[]> cache = new AssetCache<>(1000, b -> b.length);
+    AtomicInteger loads = new AtomicInteger();
+    java.util.function.Function<String, byte[]> loader = k -> { loads.incrementAndGet(); return new byte[10]; };
+    ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+    CompletableFuture<byte[]> f = cache.prefetch("bg", loader, tasks::add);
+    // the executor never ran the task, so get loads inline rather than blocking on it
+    byte[] value = cache.get("bg", loader);
+    assertNotNull(value);
+    assertTrue(f.isDone());
+    assertSame(value, f.get());
+    assertFalse(cache.isLoading("bg"));
+    tasks.poll().run();
+    assertEquals(1, loads.get(), "the queued task does not load again");
+    assertSame(value, cache.get("bg", loader));
+
+    // a failing inline load still settles the prefetch future
+    cache.prefetch("broken", k -> null, tasks::add);
+    CompletableFuture<byte[]> broken = cache.prefetch("broken", k -> null, tasks::add);
+    try {
+      cache.get("broken", k -> { throw new IllegalStateException("decode"); });
+    } catch (IllegalStateException expected) {
+    }
+    assertTrue(broken.isDone());
+    assertNull(broken.get());
+    assertFalse(cache.isLoading("broken"));
+  }
+}
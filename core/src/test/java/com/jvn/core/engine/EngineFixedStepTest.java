@@ -0,0 +1,50 @@
+package com.jvn.core.engine;
+
+import com.jvn.core.config.ApplicationConfig;
+import com.jvn.core.scene.Scene;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineFixedStepTest {
+  @Test
+  public void accumulatesFrameTimeIntoFixedSteps() {
+    Engine engine = new Engine(ApplicationConfig.builder().build());
+    List<Long> deltas = new ArrayList<>();
+    engine.scenes().push((Scene) deltas::add);
+    engine.setFixedStep(10, 4);
+    engine.start();
+
+    engine.update(25);
+    assertEquals(List.of(10L, 10L), deltas);
+    assertEquals(0.5, engine.getInterpolationAlpha(), 1e-9);
+
+    engine.update(4);
+    assertEquals(2, deltas.size());
+    assertEquals(0.9, engine.getInterpolationAlpha(), 1e-9);
+
+    // A long hitch is capped at maxStepsPerFrame and the backlog is dropped
+    deltas.clear();
+    engine.update(500);
+    assertEquals(4, deltas.size());
+    assertTrue(engine.getInterpolationAlpha() < 1.0);
+  }
+
+  @Test
+  public void inputEdgesSurviveFramesWithoutAStep() {
+    Engine engine = new Engine(ApplicationConfig.builder().build());
+    List<Boolean> seen = new ArrayList<>();
+    engine.scenes().push((Scene) d -> seen.add(engine.input().wasKeyPressed("SPACE")));
+    engine.setFixedStep(10, 5);
+    engine.start();
+
+    engine.input().keyDown("SPACE");
+    engine.update(5);
+    assertTrue(seen.isEmpty());
+    engine.update(25);
+    assertEquals(List.of(true, false, false), seen);
+  }
+}
@@ -0,0 +1,177 @@
+package com.jvn.core.physics;
+
+import com.jvn.core.math.Rect;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BroadPhase2DTest {
+  @Test
+  public void gridAndSweepReportEveryOverlappingPair() {
+    List<RigidBody2D> bodies = randomBodies(400, 7L);
+    Set<Long> expected = overlappingPairs(bodies);
+
+    assertEquals(expected, collect(new SpatialHashBroadPhase2D(32), bodies));
+    assertEquals(expected, collect(new SweepAndPruneBroadPhase2D(), bodies));
+  }
+
+  @Test
+  public void sleepingBodiesStayFoundAcrossSleepAndWake() {
+    List<RigidBody2D> bodies = randomBodies(400, 9L);
+    BroadPhase2D[] phases = { new SpatialHashBroadPhase2D(32), new SweepAndPruneBroadPhase2D() };
+    Random rnd = new Random(4L);
+    for (int round = 0; round < 4; round++) {
+      // Change who sleeps and move some of the awake bodies, as steps would between two pair passes
+      for (RigidBody2D b : bodies) {
+        if (rnd.nextInt(3) == 0) b.sleep();
+        else if (b.isSleeping() && rnd.nextInt(4) == 0) b.wake();
+        if (!b.isSleeping() && rnd.nextBoolean()) b.setPosition(b.getX() + rnd.nextDouble() * 20 - 10, b.getY());
+      }
+      Set<Long> expected = overlappingPairs(bodies);
+      expected.removeIf(k -> bodies.get((int) (k >>> 32)).isSleeping() && bodies.get((int) (long) k).isSleeping());
+      Set<Integer> inBox = new HashSet<>();
+      for (int i = 0; i < bodies.size(); i++) {
+        RigidBody2D b = bodies.get(i);
+        if (b.getMaxX() >= 100 && b.getMinX() <= 300 && b.getMaxY() >= 100 && b.getMinY() <= 250) inBox.add(i);
+      }
+      for (BroadPhase2D bp : phases) {
+        assertEquals(expected, collect(bp, bodies), "round " + round);
+        Set<Integer> found = new HashSet<>();
+        bp.queryAabb(100, 100, 300, 250, found::add);
+        assertTrue(found.containsAll(inBox), "round " + round);
+      }
+    }
+  }
+
+  @Test
+  public void worldReportsPairCounters() {
+    PhysicsWorld2D world = new PhysicsWorld2D();
+    for (RigidBody2D b : randomBodies(200, 3L)) world.addBody(b);
+    world.step(16);
+    int naivePairs = world.getStepStats().candidatePairs;
+    assertEquals(200 * 199 / 2, naivePairs);
+
+    world.setBroadPhase(new SpatialHashBroadPhase2D(32));
+    world.step(16);
+    assertTrue(world.getStepStats().candidatePairs < naivePairs);
+    assertTrue(world.getStepStats().contacts <= world.getStepStats().candidatePairs);
+  }
+
+  @Test
+  public void queriesAgreeWithAndWithoutBroadPhase() {
+    BroadPhase2D[] phases = { null, new SpatialHashBroadPhase2D(32), new SweepAndPruneBroadPhase2D() };
+    List<Set<Integer>> boxes = new ArrayList<>();
+    List<Set<Integer>> circles = new ArrayList<>();
+    List<double[]> rays = new ArrayList<>();
+    Random rnd = new Random(11L);
+    double[] segments = new double[50 * 4];
+    for (int k = 0; k < segments.length; k++) segments[k] = rnd.nextDouble() * 800;
+    for (BroadPhase2D bp : phases) {
+      PhysicsWorld2D world = new PhysicsWorld2D();
+      for (RigidBody2D b : randomBodies(300, 5L)) world.addBody(b);
+      world.setBroadPhase(bp);
+      world.step(16);
+
+      List<RigidBody2D> found = new ArrayList<>();
+      world.queryAabb(100, 100, 300, 250, found);
+      boxes.add(indices(world, found));
+      found.clear();
+      world.queryCircle(400, 300, 90, found);
+      circles.add(indices(world, found));
+
+      PhysicsWorld2D.RaycastHit[] hits = new PhysicsWorld2D.RaycastHit[50];
+      world.raycastBatch(segments, 50, hits);
+      double[] dist = new double[50];
+      for (int k = 0; k < 50; k++) dist[k] = hits[k].hit ? hits[k].distance : -1;
+      rays.add(dist);
+    }
+    for (int p = 1; p < phases.length; p++) {
+      assertEquals(boxes.get(0), boxes.get(p));
+      assertEquals(circles.get(0), circles.get(p));
+      assertArrayEquals(rays.get(0), rays.get(p), 1e-9);
+    }
+    assertFalse(boxes.get(0).isEmpty());
+    assertFalse(circles.get(0).isEmpty());
+  }
+
+  @Test
+  public void raycastCoversStaticGeometry() {
+    PhysicsWorld2D world = new PhysicsWorld2D();
+    world.setBroadPhase(new SpatialHashBroadPhase2D(32));
+    RigidBody2D target = RigidBody2D.box(200, 0, 20, 20);
+    world.addBody(target);
+    TileCollider2D tiles = new TileCollider2D(10, 10, 16, 16);
+    tiles.setSolid(5, 0, true);
+    world.setTileCollider(tiles);
+
+    PhysicsWorld2D.RaycastHit hit = new PhysicsWorld2D.RaycastHit();
+    assertTrue(world.raycast(0, 8, 300, 8, hit));
+    assertNull(hit.body);
+    assertNotNull(hit.rect);
+    assertEquals(80, hit.x, 1e-9);
+    assertEquals(-1, hit.nx, 1e-9);
+    // The body-only cast still sees straight through the tiles
+    assertSame(target, world.raycast(0, 8, 300, 8).body);
+
+    tiles.setSolid(5, 0, false);
+    assertTrue(world.raycast(0, 8, 300, 8, hit));
+    assertSame(target, hit.body);
+
+    List<Rect> rects = new ArrayList<>();
+    tiles.setSolid(1, 1, true);
+    assertEquals(1, world.queryStatic(0, 0, 40, 40, rects));
+  }
+
+  private static Set<Integer> indices(PhysicsWorld2D world, List<RigidBody2D> found) {
+    Set<Integer> out = new HashSet<>();
+    for (RigidBody2D b : found) assertTrue(out.add(world.getBodies().indexOf(b)), "bodies must not repeat");
+    return out;
+  }
+
+  private static Set<Long> collect(BroadPhase2D bp, List<RigidBody2D> bodies) {
+    BodyPairBuffer buf = new BodyPairBuffer();
+    bp.collectPairs(bodies, buf);
+    Set<Long> out = new HashSet<>();
+    long prev = -1;
+    for (int k = 0; k < buf.size(); k++) {
+      long key = ((long) buf.first(k) << 32) | buf.second(k);
+      assertTrue(key > prev, "pairs must be sorted and unique");
+      prev = key;
+      out.add(key);
+    }
+    return out;
+  }
+
+  private static Set<Long> overlappingPairs(List<RigidBody2D> bodies) {
+    Set<Long> out = new HashSet<>();
+    for (int i = 0; i < bodies.size(); i++) {
+      for (int j = i + 1; j < bodies.size(); j++) {
+        RigidBody2D a = bodies.get(i);
+        RigidBody2D b = bodies.get(j);
+        if (a.getMaxX() >= b.getMinX() && a.getMinX() <= b.getMaxX() && a.getMaxY() >= b.getMinY() && a.getMinY() <= b.getMaxY()) {
+          out.add(((long) i << 32) | j);
+        }
+      }
+    }
+    return out;
+  }
+
+  private static List<RigidBody2D> randomBodies(int count, long seed) {
+    Random rnd = new Random(seed);
+    List<RigidBody2D> list = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      double x = rnd.nextDouble() * 800;
+      double y = rnd.nextDouble() * 600;
+      RigidBody2D b = (i % 2 == 0) ? RigidBody2D.circle(x, y, 4 + rnd.nextDouble() * 12) : RigidBody2D.box(x, y, 8 + rnd.nextDouble() * 24, 8 + rnd.nextDouble() * 24);
+      b.setVelocity(rnd.nextDouble() * 100 - 50, rnd.nextDouble() * 100 - 50);
+      list.add(b);
+    }
+    return list;
+  }
+}
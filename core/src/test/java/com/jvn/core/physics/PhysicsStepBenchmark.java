@@ -0,0 +1,54 @@
+package com.jvn.core.physics;
+
+import com.jvn.core.math.Rect;
+
+import java.util.Random;
+
+/**
+ * Compares serial and parallel island solving. Not a unit test; run the main method with
+ * {@code java -cp <test classpath> com.jvn.core.physics.PhysicsStepBenchmark}.
+ */
+public class PhysicsStepBenchmark {
+  private static final int[] SIZES = { 1_000, 10_000, 50_000 };
+  private static final int WARMUP_STEPS = 60;
+  private static final int MEASURED_STEPS = 120;
+
+  public static void main(String[] args) {
+    System.out.printf("%8s %14s %14s %8s%n", "bodies", "serial ms", "parallel ms", "speedup");
+    for (int n : SIZES) {
+      double serial = run(n, false);
+      double parallel = run(n, true);
+      System.out.printf("%8d %14.3f %14.3f %7.2fx%n", n, serial, parallel, serial / parallel);
+    }
+  }
+
+  private static double run(int count, boolean parallel) {
+    PhysicsWorld2D world = build(count);
+    world.setParallelSolving(parallel);
+    for (int i = 0; i < WARMUP_STEPS; i++) world.step(16);
+    long solveNanos = 0;
+    for (int i = 0; i < MEASURED_STEPS; i++) {
+      world.step(16);
+      solveNanos += world.getStepStats().narrowPhaseNanos;
+    }
+    return solveNanos / 1e6 / MEASURED_STEPS;
+  }
+
+  private static PhysicsWorld2D build(int count) {
+    // Keep density constant so the pair count scales linearly with the body count
+    double side = Math.sqrt(count) * 24;
+    PhysicsWorld2D world = new PhysicsWorld2D();
+    world.setGravity(0, 300);
+    world.setBounds(new Rect(0, 0, side, side));
+    world.setBroadPhase(new SpatialHashBroadPhase2D(16));
+    Random rnd = new Random(42);
+    for (int i = 0; i < count; i++) {
+      double x = rnd.nextDouble() * side;
+      double y = rnd.nextDouble() * side;
+      RigidBody2D b = (i % 2 == 0) ? RigidBody2D.circle(x, y, 4) : RigidBody2D.box(x, y, 8, 8);
+      b.setVelocity(rnd.nextDouble() * 80 - 40, rnd.nextDouble() * 80 - 40);
+      world.addBody(b);
+    }
+    return world;
+  }
+}
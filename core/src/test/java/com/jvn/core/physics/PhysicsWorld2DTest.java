@@ -0,0 +1,299 @@
+package com.jvn.core.physics;
+
+import com.jvn.core.math.Rect;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhysicsWorld2DTest {
+  @Test
+  public void packedStorageMatchesObjectPathBitForBit() {
+    PhysicsWorld2D objects = scene(300, 11L);
+    PhysicsWorld2D packed = scene(300, 11L);
+    packed.setPackedStorage(true);
+    for (int s = 0; s < 200; s++) {
+      objects.step(16);
+      packed.step(16);
+    }
+    assertSameState(objects, packed);
+
+    packed.setPackedStorage(false);
+    objects.step(16);
+    packed.step(16);
+    assertSameState(objects, packed);
+  }
+
+  @Test
+  public void parallelIslandsMatchSerialSolveBitForBit() {
+    PhysicsWorld2D serial = scene(2000, 5L);
+    PhysicsWorld2D parallel = scene(2000, 5L);
+    parallel.setParallelSolving(true);
+    List<String> serialEvents = new ArrayList<>();
+    List<String> parallelEvents = new ArrayList<>();
+    addSensors(serial, serialEvents);
+    addSensors(parallel, parallelEvents);
+    for (int s = 0; s < 120; s++) {
+      serial.step(16);
+      parallel.step(16);
+    }
+    assertSameState(serial, parallel);
+    assertEquals(serialEvents, parallelEvents);
+    assertTrue(parallel.getStepStats().islands > 1);
+  }
+
+  @Test
+  public void steadyStateStepDoesNotAllocate() {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threads.isThreadAllocatedMemorySupported()) return;
+    threads.setThreadAllocatedMemoryEnabled(true);
+    long tid = Thread.currentThread().getId();
+
+    for (int mode = 0; mode < 3; mode++) {
+      PhysicsWorld2D world = scene(1000, 3L);
+      if (mode == 1) world.setPackedStorage(true);
+      if (mode == 2) world.setBroadPhase(new SweepAndPruneBroadPhase2D());
+      TileCollider2D tiles = new TileCollider2D(50, 4, 16, 16);
+      for (int x = 0; x < 50; x += 3) tiles.setSolid(x, 3, true);
+      tiles.setOrigin(0, 536);
+      world.setTileCollider(tiles);
+      RigidBody2D sensor = RigidBody2D.box(200, 200, 100, 100);
+      sensor.setSensor(true);
+      world.addBody(sensor);
+      int[] triggers = new int[1];
+      world.setSensorListener((s, o) -> triggers[0]++);
+
+      for (int s = 0; s < 300; s++) world.step(16);
+      long before = threads.getThreadAllocatedBytes(tid);
+      for (int s = 0; s < 100; s++) world.step(16);
+      long allocated = threads.getThreadAllocatedBytes(tid) - before;
+      assertEquals(0, allocated, "bytes allocated over 100 steps in mode " + mode);
+      assertTrue(triggers[0] > 0);
+    }
+  }
+
+  @Test
+  public void sensorContactsReportBeginAndEndOnce() {
+    PhysicsWorld2D world = new PhysicsWorld2D();
+    world.setBroadPhase(new SpatialHashBroadPhase2D(32));
+    RigidBody2D sensor = RigidBody2D.box(0, 100, 200, 50);
+    sensor.setSensor(true);
+    sensor.setStatic(true);
+    world.addBody(sensor);
+    RigidBody2D ball = RigidBody2D.circle(100, 0, 5);
+    ball.setVelocity(0, 1000);
+    world.addBody(ball);
+
+    List<String> events = new ArrayList<>();
+    world.setSensorContactListener(new PhysicsWorld2D.SensorContactListener() {
+      @Override public void onSensorBegin(RigidBody2D s, RigidBody2D o) { events.add("begin"); }
+      @Override public void onSensorStay(RigidBody2D s, RigidBody2D o) { events.add("stay"); }
+      @Override public void onSensorEnd(RigidBody2D s, RigidBody2D o) { events.add("end"); }
+    });
+    for (int s = 0; s < 20; s++) world.step(16);
+    assertEquals(List.of("begin", "end"), events);
+    assertEquals(0, world.getSensorContactCount());
+
+    events.clear();
+    world.setSensorStayEvents(true);
+    ball.setPosition(100, 0);
+    world.invalidateQueries();
+    for (int s = 0; s < 20; s++) world.step(16);
+    assertEquals("begin", events.get(0));
+    assertEquals("end", events.get(events.size() - 1));
+    assertTrue(events.size() > 2);
+    assertEquals(events.size() - 2, events.stream().filter("stay"::equals).count());
+  }
+
+  @Test
+  public void restingBodiesSleepAndWakeOnContact() {
+    PhysicsWorld2D objects = crates();
+    PhysicsWorld2D packed = crates();
+    packed.setPackedStorage(true);
+    for (int s = 0; s < 200; s++) {
+      objects.step(16);
+      packed.step(16);
+    }
+    assertSameState(objects, packed);
+    assertEquals(10, objects.getStepStats().sleeping);
+    assertEquals(10, packed.getStepStats().sleeping);
+
+    for (PhysicsWorld2D world : List.of(objects, packed)) {
+      RigidBody2D crate = world.getBodies().get(3);
+      double restY = crate.getY();
+      // dropped from just above, so it lands far slower than anything that counts as an impact
+      RigidBody2D ball = RigidBody2D.circle(crate.getX() + 6, restY - 5, 4);
+      world.addBody(ball);
+      boolean woke = false;
+      for (int s = 0; s < 10 && !woke; s++) {
+        world.step(16);
+        woke = !crate.isSleeping();
+      }
+      assertTrue(woke, "a slow body landing on a sleeper wakes it");
+      assertTrue(world.getBodies().get(2).isSleeping());
+
+      RigidBody2D other = world.getBodies().get(7);
+      assertTrue(other.isSleeping());
+      other.applyImpulse(0, -200);
+      assertFalse(other.isSleeping());
+      world.step(16);
+      assertTrue(other.getVy() < 0);
+    }
+  }
+
+  @Test
+  public void sleepersFallWhenTheirSupportIsRemoved() {
+    PhysicsWorld2D world = new PhysicsWorld2D();
+    world.setGravity(0, 500);
+    world.setBroadPhase(new SpatialHashBroadPhase2D(32));
+    world.setSleepingEnabled(true);
+    TileCollider2D tiles = new TileCollider2D(10, 10, 10, 10);
+    for (int x = 0; x < 10; x++) tiles.setSolid(x, 9, true);
+    world.setTileCollider(tiles);
+    RigidBody2D bottom = RigidBody2D.box(12, 70, 10, 10);
+    RigidBody2D top = RigidBody2D.box(14, 50, 6, 6);
+    RigidBody2D aside = RigidBody2D.box(62, 70, 6, 10);
+    world.addBody(bottom);
+    world.addBody(top);
+    world.addBody(aside);
+    for (int s = 0; s < 200; s++) world.step(16);
+    assertEquals(3, world.getStepStats().sleeping);
+
+    double topY = top.getY();
+    world.removeBody(bottom);
+    world.step(16);
+    assertFalse(top.isSleeping(), "removing the body underneath wakes the one on top");
+    assertTrue(aside.isSleeping());
+    for (int s = 0; s < 20; s++) world.step(16);
+    assertTrue(top.getY() > topY + 5);
+
+    double asideY = aside.getY();
+    tiles.setSolid(6, 9, false);
+    world.step(16);
+    assertFalse(aside.isSleeping(), "clearing the tile underneath wakes the body on it");
+    for (int s = 0; s < 20; s++) world.step(16);
+    assertTrue(aside.getY() > asideY + 5);
+  }
+
+  @Test
+  public void continuousBodiesDoNotTunnelThroughThinGeometry() {
+    for (int target = 0; target < 3; target++) {
+      for (boolean ccd : new boolean[] { false, true }) {
+        PhysicsWorld2D world = new PhysicsWorld2D();
+        world.setBroadPhase(new SpatialHashBroadPhase2D(32));
+        if (target == 0) world.addStaticRect(new Rect(200, 0, 4, 100));
+        if (target == 1) {
+          TileCollider2D tiles = new TileCollider2D(60, 10, 4, 10);
+          for (int y = 0; y < 10; y++) tiles.setSolid(50, y, true);
+          world.setTileCollider(tiles);
+        }
+        if (target == 2) {
+          RigidBody2D wall = RigidBody2D.box(200, 0, 4, 100);
+          wall.setStatic(true);
+          world.addBody(wall);
+        }
+        RigidBody2D bullet = RigidBody2D.circle(100, 50, 2);
+        bullet.setVelocity(3000, 0);
+        bullet.setRestitution(0);
+        bullet.setContinuousCollision(ccd);
+        world.addBody(bullet);
+        for (int s = 0; s < 10; s++) world.step(16);
+        if (ccd) assertTrue(bullet.getX() < 200, "target " + target + " stops a swept bullet");
+        else assertTrue(bullet.getX() > 204, "target " + target + " is tunnelled without the sweep");
+      }
+    }
+  }
+
+  @Test
+  public void continuousBodiesStillSlideAlongSurfaces() {
+    PhysicsWorld2D world = new PhysicsWorld2D();
+    world.setGravity(0, 500);
+    world.addStaticRect(new Rect(0, 100, 1000, 20));
+    RigidBody2D box = RigidBody2D.box(0, 88, 12, 12);
+    box.setRestitution(0);
+    box.setContinuousCollision(true);
+    box.setVelocity(300, 0);
+    world.addBody(box);
+    for (int s = 0; s < 30; s++) world.step(16);
+    assertEquals(300 * 30 * 0.016, box.getX(), 1e-6);
+    assertEquals(88, box.getY(), 1e-3);
+  }
+
+  @Test
+  public void continuousBodiesDoNotSlideThroughASecondObstacle() {
+    for (boolean wallBody : new boolean[] { false, true }) {
+      PhysicsWorld2D world = new PhysicsWorld2D();
+      world.setBroadPhase(new SpatialHashBroadPhase2D(32));
+      world.addStaticRect(new Rect(0, 100, 400, 20));
+      if (wallBody) {
+        RigidBody2D wall = RigidBody2D.box(125, 0, 2, 100);
+        wall.setStatic(true);
+        world.addBody(wall);
+      } else {
+        world.addStaticRect(new Rect(125, 0, 2, 100));
+      }
+      // hits the floor part way through the step, and what is left of the move slides into the wall
+      RigidBody2D bullet = RigidBody2D.circle(100, 80, 2);
+      bullet.setVelocity(2000, 2000);
+      bullet.setRestitution(0);
+      bullet.setContinuousCollision(true);
+      world.addBody(bullet);
+      for (int s = 0; s < 10; s++) world.step(16);
+      assertTrue(bullet.getX() < 125, (wallBody ? "wall body" : "wall rect") + " stops the slide at " + bullet.getX());
+    }
+  }
+
+  private static PhysicsWorld2D crates() {
+    PhysicsWorld2D world = new PhysicsWorld2D();
+    world.setGravity(0, 500);
+    world.addStaticRect(new Rect(0, 100, 400, 20));
+    world.setBroadPhase(new SpatialHashBroadPhase2D(32));
+    world.setSleepingEnabled(true);
+    for (int i = 0; i < 10; i++) world.addBody(RigidBody2D.box(i * 30, 60, 12, 12));
+    return world;
+  }
+
+  private static void addSensors(PhysicsWorld2D world, List<String> events) {
+    for (int i = 0; i < 4; i++) {
+      RigidBody2D sensor = RigidBody2D.box(100 + i * 150, 100, 80, 400);
+      sensor.setSensor(true);
+      sensor.setStatic(true);
+      world.addBody(sensor);
+    }
+    world.setSensorListener((sensor, other) -> events.add(world.getBodies().indexOf(sensor) + ">" + world.getBodies().indexOf(other)));
+  }
+
+  static PhysicsWorld2D scene(int count, long seed) {
+    PhysicsWorld2D world = new PhysicsWorld2D();
+    world.setGravity(0, 500);
+    world.setBounds(new Rect(0, 0, 800, 600));
+    world.addStaticRect(new Rect(300, 400, 200, 20));
+    world.setBroadPhase(new SpatialHashBroadPhase2D(32));
+    Random rnd = new Random(seed);
+    for (int i = 0; i < count; i++) {
+      double x = rnd.nextDouble() * 800;
+      double y = rnd.nextDouble() * 600;
+      RigidBody2D b = (i % 2 == 0) ? RigidBody2D.circle(x, y, 5) : RigidBody2D.box(x, y, 10, 10);
+      b.setVelocity(rnd.nextDouble() * 200 - 100, rnd.nextDouble() * 200 - 100);
+      if (i % 40 == 0) b.setStatic(true);
+      world.addBody(b);
+    }
+    return world;
+  }
+
+  static void assertSameState(PhysicsWorld2D expected, PhysicsWorld2D actual) {
+    assertEquals(expected.getBodies().size(), actual.getBodies().size());
+    for (int i = 0; i < expected.getBodies().size(); i++) {
+      RigidBody2D e = expected.getBodies().get(i);
+      RigidBody2D a = actual.getBodies().get(i);
+      assertEquals(Double.doubleToLongBits(e.getX()), Double.doubleToLongBits(a.getX()), "x of body " + i);
+      assertEquals(Double.doubleToLongBits(e.getY()), Double.doubleToLongBits(a.getY()), "y of body " + i);
+      assertEquals(Double.doubleToLongBits(e.getVx()), Double.doubleToLongBits(a.getVx()), "vx of body " + i);
+      assertEquals(Double.doubleToLongBits(e.getVy()), Double.doubleToLongBits(a.getVy()), "vy of body " + i);
+    }
+  }
+}
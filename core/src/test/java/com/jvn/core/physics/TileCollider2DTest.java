@@ -0,0 +1,68 @@
+package com.jvn.core.physics;
+
+import com.jvn.core.math.Rect;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileCollider2DTest {
+
+  private static TileCollider2D fromRows(String... rows) {
+    TileCollider2D tiles = new TileCollider2D(rows[0].length(), rows.length, 10, 10);
+    for (int y = 0; y < rows.length; y++) {
+      for (int x = 0; x < rows[y].length(); x++) tiles.setSolid(x, y, rows[y].charAt(x) == '#');
+    }
+    return tiles;
+  }
+
+  private static void assertRect(double x, double y, double w, double h, Rect r) {
+    assertEquals(x, r.x, 1e-9);
+    assertEquals(y, r.y, 1e-9);
+    assertEquals(w, r.w, 1e-9);
+    assertEquals(h, r.h, 1e-9);
+  }
+
+  @Test
+  public void solidTilesMergeIntoGreedyRectangles() {
+    TileCollider2D tiles = fromRows(
+        "##..",
+        "##..",
+        "####");
+    List<Rect> rects = tiles.getRects();
+    // the widest run of the first row grows down as far as it can, the rest of the bottom row is left
+    assertEquals(2, rects.size());
+    assertRect(0, 0, 20, 30, rects.get(0));
+    assertRect(20, 20, 20, 10, rects.get(1));
+
+    TileCollider2D full = fromRows("######", "######", "######", "######");
+    assertEquals(1, full.getRects().size());
+    assertRect(0, 0, 60, 40, full.getRects().get(0));
+    assertTrue(fromRows("....", "....").getRects().isEmpty());
+  }
+
+  @Test
+  public void setSolidRebuildsTheRectangles() {
+    TileCollider2D tiles = fromRows(
+        "##..",
+        "##..",
+        "####");
+    assertEquals(2, tiles.getRects().size());
+
+    tiles.setSolid(1, 1, false);
+    List<Rect> rects = tiles.getRects();
+    assertEquals(3, rects.size());
+    assertRect(0, 0, 20, 10, rects.get(0));
+    assertRect(0, 10, 10, 20, rects.get(1));
+    assertRect(10, 20, 30, 10, rects.get(2));
+    assertEquals(0, tiles.query(11, 11, 19, 19), "the cleared tile is no longer covered");
+    assertEquals(1, tiles.query(1, 11, 9, 19));
+    assertSame(rects.get(1), tiles.queryResult(0));
+
+    tiles.setSolid(1, 1, true);
+    assertEquals(2, tiles.getRects().size());
+    tiles.setOrigin(100, 50);
+    assertRect(100, 50, 20, 30, tiles.getRects().get(0));
+  }
+}
@@ -0,0 +1,149 @@
+package com.jvn.core.scene2d;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchingBlitter2DTest {
+
+  private static Scene2DBase scene() {
+    Scene2DBase scene = new Scene2DBase();
+    Random rnd = new Random(11);
+    String[] textures = { "a.png", "b.png", "c.png" };
+    for (int i = 0; i < 300; i++) {
+      Sprite2D s = new Sprite2D(textures[rnd.nextInt(3)], 4 + rnd.nextInt(20), 4 + rnd.nextInt(20));
+      s.setPosition(rnd.nextInt(190), rnd.nextInt(140));
+      s.setZ(rnd.nextInt(4));
+      if (i % 7 == 0) s.setAlpha(0.5);
+      if (i % 23 == 0) s.setRotationDeg(30);
+      if (i % 31 == 0) s.setScale(1.5, 0.5);
+      scene.add(s);
+    }
+    Panel2D panel = new Panel2D(40, 30);
+    panel.setPosition(80, 60);
+    panel.setZ(2);
+    scene.add(panel);
+    return scene;
+  }
+
+  @Test
+  public void batchedFramePaintsTheSameAsDirectRendering() {
+    RasterBlitter direct = new RasterBlitter();
+    scene().render(direct, 200, 150);
+
+    RasterBlitter raster = new RasterBlitter();
+    BatchingBlitter2D batch = new BatchingBlitter2D(raster);
+    Scene2DBase scene = scene();
+    scene.render(batch, 200, 150);
+    assertEquals(0, raster.draws, "nothing reaches the target before the frame ends");
+    batch.endFrame();
+
+    assertArrayEquals(direct.pixels, raster.pixels);
+    assertEquals(direct.draws, raster.draws);
+    assertEquals(batch.getSubmittedDraws(), batch.getDrawCalls());
+    assertTrue(batch.getRunCount() < batch.getDrawCalls() / 3, "runs " + batch.getRunCount());
+    assertTrue(batch.getStateChanges() < batch.getSubmittedStateChanges() / 4,
+        batch.getStateChanges() + " of " + batch.getSubmittedStateChanges());
+    assertEquals(batch.getStateChanges(), raster.stateCalls);
+
+    // a second frame reuses the recorded commands and reports its own counts
+    raster.reset();
+    scene.render(batch, 200, 150);
+    batch.endFrame();
+    assertArrayEquals(direct.pixels, raster.pixels);
+    assertEquals(direct.draws, batch.getDrawCalls());
+  }
+
+  @Test
+  public void overlappingDrawsKeepTheirOrder() {
+    RasterBlitter raster = new RasterBlitter();
+    BatchingBlitter2D batch = new BatchingBlitter2D(raster);
+    batch.drawImage("a.png", 0, 0, 10, 10);
+    batch.drawImage("b.png", 5, 5, 10, 10);
+    batch.drawImage("a.png", 8, 8, 10, 10); // overlaps b, so it must not join the first run
+    batch.drawImage("b.png", 50, 50, 10, 10); // free to join b
+    batch.endFrame();
+    assertEquals(3, batch.getRunCount());
+    assertEquals(RasterBlitter.value("a.png".hashCode(), 1), raster.pixels[9 * RasterBlitter.W + 9]);
+    assertEquals(RasterBlitter.value("b.png".hashCode(), 1), raster.pixels[6 * RasterBlitter.W + 6]);
+  }
+
+  /** Paints the screen-space bounding box of every draw with a value identifying texture or colour. */
+  static class RasterBlitter implements Blitter2D {
+    static final int W = 200;
+    static final int H = 150;
+    final int[] pixels = new int[W * H];
+    int draws;
+    int stateCalls;
+    private double[] m = { 1, 0, 0, 0, 1, 0 };
+    private final java.util.ArrayDeque<double[]> saved = new java.util.ArrayDeque<>();
+    private int fill;
+    private double alpha = 1;
+
+    void reset() { java.util.Arrays.fill(pixels, 0); draws = 0; stateCalls = 0; }
+
+    @Override public void clear(double r, double g, double b, double a) { java.util.Arrays.fill(pixels, -1); draws++; }
+    @Override public void setFill(double r, double g, double b, double a) { fill = java.util.Arrays.hashCode(new double[] { r, g, b, a }); stateCalls++; }
+    @Override public void setStroke(double r, double g, double b, double a) { stateCalls++; }
+    @Override public void setStrokeWidth(double w) { stateCalls++; }
+    @Override public void setGlobalAlpha(double a) { alpha = a; stateCalls++; }
+    @Override public void setFont(String family, double size, boolean bold) { stateCalls++; }
+    @Override public void push() {
+      saved.push(new double[] { m[0], m[1], m[2], m[3], m[4], m[5], fill, alpha });
+      stateCalls++;
+    }
+    @Override public void pop() {
+      double[] s = saved.pop();
+      m = java.util.Arrays.copyOf(s, 6);
+      fill = (int) s[6];
+      alpha = s[7];
+      stateCalls++;
+    }
+    @Override public void translate(double x, double y) { transform(1, 0, 0, 1, x, y); stateCalls--; }
+    @Override public void rotateDeg(double degrees) {
+      double r = Math.toRadians(degrees);
+      transform(Math.cos(r), Math.sin(r), -Math.sin(r), Math.cos(r), 0, 0);
+      stateCalls--;
+    }
+    @Override public void scale(double sx, double sy) { transform(sx, 0, 0, sy, 0, 0); stateCalls--; }
+    @Override public void transform(double mxx, double myx, double mxy, double myy, double tx, double ty) {
+      m = new double[] {
+          m[0] * mxx + m[1] * myx, m[0] * mxy + m[1] * myy, m[0] * tx + m[1] * ty + m[2],
+          m[3] * mxx + m[4] * myx, m[3] * mxy + m[4] * myy, m[3] * tx + m[4] * ty + m[5] };
+      stateCalls++;
+    }
+    @Override public void fillRect(double x, double y, double w, double h) { paint(x, y, w, h, fill); }
+    @Override public void strokeRect(double x, double y, double w, double h) { draws++; }
+    @Override public void fillCircle(double cx, double cy, double radius) { paint(cx - radius, cy - radius, 2 * radius, 2 * radius, fill); }
+    @Override public void strokeCircle(double cx, double cy, double radius) { draws++; }
+    @Override public void drawLine(double x1, double y1, double x2, double y2) { draws++; }
+    @Override public void drawImage(String classpath, double x, double y, double w, double h) { paint(x, y, w, h, classpath.hashCode()); }
+    @Override public void drawImageRegion(String classpath, double sx, double sy, double sw, double sh, double dx, double dy, double dw, double dh) { paint(dx, dy, dw, dh, classpath.hashCode()); }
+    @Override public void drawText(String text, double x, double y, double size, boolean bold) { draws++; }
+    @Override public double measureTextWidth(String text, double size, boolean bold) { return text.length() * size * 0.5; }
+
+    static int value(int id, double alpha) { return id * 31 + (int) Math.round(alpha * 100); }
+
+    private void paint(double x, double y, double w, double h, int value) {
+      draws++;
+      int v = value(value, alpha);
+      double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+      for (int k = 0; k < 4; k++) {
+        double px = (k & 1) == 0 ? x : x + w;
+        double py = (k & 2) == 0 ? y : y + h;
+        double sx = m[0] * px + m[1] * py + m[2];
+        double sy = m[3] * px + m[4] * py + m[5];
+        minX = Math.min(minX, sx); maxX = Math.max(maxX, sx);
+        minY = Math.min(minY, sy); maxY = Math.max(maxY, sy);
+      }
+      for (int py = Math.max(0, (int) Math.floor(minY)); py < Math.min(H, Math.ceil(maxY)); py++) {
+        for (int px = Math.max(0, (int) Math.floor(minX)); px < Math.min(W, Math.ceil(maxX)); px++) {
+          if (px + 0.5 > minX && px + 0.5 < maxX && py + 0.5 > minY && py + 0.5 < maxY) pixels[py * W + px] = v;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.jvn.core.scene2d;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlyphAtlasBlitter2DTest {
+
+  static class AtlasTarget extends Scene2DBaseTest.CountingBlitter {
+    String target;
+    int offscreenWidth, offscreenHeight;
+    int rasterizedGlyphs;
+    int directText;
+    final Set<String> atlasKeys = new HashSet<>();
+    final List<double[]> regions = new ArrayList<>();
+
+    @Override public boolean beginOffscreen(String key, int width, int height) {
+      target = key;
+      offscreenWidth = width;
+      offscreenHeight = height;
+      atlasKeys.add(key);
+      return true;
+    }
+    @Override public void endOffscreen() { target = null; }
+    @Override public void drawText(String text, double x, double y, double size, boolean bold) {
+      if (target != null) rasterizedGlyphs++;
+      else directText++;
+    }
+    @Override public void drawImageRegion(String classpath, double sx, double sy, double sw, double sh, double dx, double dy, double dw, double dh) {
+      assertNull(target);
+      assertTrue(atlasKeys.contains(classpath), classpath);
+      assertTrue(sx >= 0 && sy >= 0 && sx + sw <= offscreenWidth && sy + sh <= offscreenHeight);
+      regions.add(new double[]{sx, sy, dx, dy});
+    }
+  }
+
+  @Test
+  public void textIsDrawnFromAnAtlasRasterizedOnce() {
+    AtlasTarget t = new AtlasTarget();
+    GlyphAtlasBlitter2D b = new GlyphAtlasBlitter2D(t);
+    b.setUsesBeforeAtlas(1);
+    b.setFill(1, 1, 1, 1);
+    b.drawText("Hello world", 10, 50, 16, false);
+    assertEquals(1, b.getRasterizations());
+    assertEquals(94, t.rasterizedGlyphs, "printable ASCII but the space, up front");
+    assertEquals(10, t.regions.size(), "one region per visible glyph");
+    assertEquals(0, t.directText);
+    // advances come from the target: 8px per glyph at size 16
+    assertEquals(10 + 8 - GlyphAtlas.PAD, t.regions.get(1)[2], 1e-9);
+
+    for (int frame = 0; frame < 10; frame++) b.drawText("Score: " + frame, 0, 20, 16, false);
+    assertEquals(1, b.getRasterizations());
+    assertEquals(1, b.getAtlasCount());
+
+    b.drawText("Caf\u00e9 \u2606", 0, 20, 16, false);
+    assertEquals(2, b.getRasterizations(), "new glyphs redraw the atlas once");
+    b.drawText("\u2606\u2606\u2606", 0, 20, 16, false);
+    assertEquals(2, b.getRasterizations());
+  }
+
+  @Test
+  public void atlasesFollowFontAndColourIncludingPop() {
+    AtlasTarget t = new AtlasTarget();
+    GlyphAtlasBlitter2D b = new GlyphAtlasBlitter2D(t);
+    b.setUsesBeforeAtlas(1);
+    b.setFill(1, 1, 1, 1);
+    b.drawText("a", 0, 0, 16, false);
+    b.push();
+    b.setFill(1, 0, 0, 1);
+    b.drawText("a", 0, 0, 16, false);
+    b.setFont("Serif", 16, false);
+    b.drawText("a", 0, 0, 16, false);
+    b.drawText("a", 0, 0, 16, true);
+    assertEquals(4, b.getAtlasCount());
+    b.pop();
+    b.drawText("a", 0, 0, 16, false);
+    assertEquals(4, b.getAtlasCount(), "pop brings back the first atlas");
+    assertEquals(4, b.getRasterizations());
+  }
+
+  @Test
+  public void animatedAndTranslucentTextIsDrawnDirectly() {
+    AtlasTarget t = new AtlasTarget();
+    GlyphAtlasBlitter2D b = new GlyphAtlasBlitter2D(t);
+    for (int frame = 0; frame < 100; frame++) {
+      b.setFill(frame / 100.0, 0.5, 0.5, 1);
+      b.drawText("pulse", 0, 0, 16, false);
+      b.setFill(1, 1, 1, frame / 100.0);
+      b.drawText("fade", 0, 0, 16, false);
+    }
+    assertEquals(0, b.getRasterizations());
+    assertEquals(200, t.directText);
+
+    // a steady colour gets its atlas after a few draws
+    b.setFill(1, 1, 1, 1);
+    for (int frame = 0; frame < 20; frame++) b.drawText("steady", 0, 0, 16, false);
+    assertEquals(1, b.getRasterizations());
+    assertEquals(200 + GlyphAtlasBlitter2D.DEFAULT_USES_BEFORE_ATLAS - 1, t.directText);
+  }
+
+  @Test
+  public void atlasesAreRasterizedAtTheDeviceScale() {
+    AtlasTarget t = new AtlasTarget();
+    GlyphAtlasBlitter2D b = new GlyphAtlasBlitter2D(t);
+    b.setUsesBeforeAtlas(1);
+    b.drawText("ab", 10, 50, 16, false);
+    int width = t.offscreenWidth;
+    double[] first = t.regions.get(0);
+
+    b.setDeviceScale(2);
+    t.regions.clear();
+    b.drawText("ab", 10, 50, 16, false);
+    assertEquals(2, b.getAtlasCount());
+    assertEquals(width * 2, t.offscreenWidth);
+    double[] scaled = t.regions.get(0);
+    assertEquals(first[0] * 2, scaled[0], 1e-9);
+    assertEquals(first[2], scaled[2], 1e-9, "placed in the same units");
+  }
+
+  @Test
+  public void atlasesFollowTheTransformScale() {
+    AtlasTarget t = new AtlasTarget();
+    GlyphAtlasBlitter2D b = new GlyphAtlasBlitter2D(t);
+    b.setUsesBeforeAtlas(1);
+    b.drawText("ab", 10, 50, 16, false);
+    int width = t.offscreenWidth;
+
+    // a camera zoom of 1.5 gets an atlas at twice the resolution, placed in the same units
+    b.push();
+    b.scale(1.5, 1.5);
+    b.drawText("ab", 10, 50, 16, false);
+    assertEquals(2, b.getAtlasCount());
+    assertEquals(width * 2, t.offscreenWidth);
+    b.push();
+    b.transform(0, 2, -2, 0, 5, 5);
+    b.drawText("ab", 10, 50, 16, false);
+    assertEquals(3, b.getAtlasCount(), "rotated and scaled by 2 more, 3x rounds up to 4x");
+    assertEquals(width * 4, t.offscreenWidth);
+    b.pop();
+    int rasterized = b.getRasterizations();
+    b.drawText("ab", 10, 50, 16, false);
+    assertEquals(rasterized, b.getRasterizations(), "pop restores the scale, reusing the 2x atlas");
+    b.pop();
+
+    b.drawText("ab", 10, 50, 16, false);
+    assertEquals(rasterized, b.getRasterizations());
+    assertEquals(0, t.directText);
+
+    b.push();
+    b.scale(6, 6);
+    b.drawText("ab", 10, 50, 16, false);
+    assertEquals(1, t.directText, "past the largest atlas zoom text is drawn directly");
+    b.pop();
+  }
+
+  @Test
+  public void fallsBackToTargetTextWithoutOffscreenSupport() {
+    Scene2DBaseTest.CountingBlitter plain = new Scene2DBaseTest.CountingBlitter() {
+      int text;
+      @Override public void drawText(String s, double x, double y, double size, boolean bold) { text++; fills++; }
+    };
+    GlyphAtlasBlitter2D b = new GlyphAtlasBlitter2D(plain);
+    b.setUsesBeforeAtlas(1);
+    b.drawText("one", 0, 0, 16, false);
+    b.drawText("two", 0, 0, 16, false);
+    b.drawText("huge", 0, 0, 200, false);
+    assertEquals(3, plain.fills);
+    assertEquals(0, plain.images);
+    assertEquals(0, b.getAtlasCount());
+  }
+
+  @Test
+  public void cellsDoNotOverlapAndStayInsideTheAtlas() {
+    GlyphAtlas atlas = new GlyphAtlas("k", 24, 128, 256);
+    int added = 0;
+    for (char c = 'A'; c < 'A' + 200; c++) {
+      if (!atlas.add(c, 10 + c % 7)) break;
+      added++;
+    }
+    assertTrue(added > 10 && added < 200, "fills up: " + added);
+    assertTrue(atlas.getHeight() <= 256);
+    for (int i = 0; i < atlas.getGlyphCount(); i++) {
+      GlyphAtlas.Glyph a = atlas.getGlyph(i);
+      assertTrue(a.getX() + a.getWidth() <= 128 && a.getY() + a.getHeight() <= atlas.getHeight());
+      for (int j = i + 1; j < atlas.getGlyphCount(); j++) {
+        GlyphAtlas.Glyph o = atlas.getGlyph(j);
+        boolean overlap = a.getX() < o.getX() + o.getWidth() && o.getX() < a.getX() + a.getWidth()
+            && a.getY() < o.getY() + o.getHeight() && o.getY() < a.getY() + a.getHeight();
+        assertFalse(overlap, a.getChar() + " and " + o.getChar());
+      }
+    }
+    assertTrue(atlas.add(' ', 6), "whitespace needs no cell");
+  }
+}
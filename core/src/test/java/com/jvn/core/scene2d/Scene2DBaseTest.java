@@ -0,0 +1,156 @@
+package com.jvn.core.scene2d;
+
+import com.jvn.core.graphics.Camera2D;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Scene2DBaseTest {
+  @Test
+  public void offscreenEntitiesSkipAllBlitterCalls() {
+    Scene2DBase scene = new Scene2DBase();
+    Camera2D camera = new Camera2D();
+    scene.setCamera(camera);
+    for (int i = 0; i < 100; i++) {
+      Panel2D p = new Panel2D(50, 50);
+      p.setPosition(i * 100, 0);
+      scene.add(p);
+    }
+    Entity2D unbounded = new Entity2D();
+    unbounded.setPosition(-5000, 0);
+    scene.add(unbounded);
+
+    CountingBlitter b = new CountingBlitter();
+    scene.render(b, 800, 600);
+    // Panels at x = 0..700 plus the unbounded entity
+    assertEquals(9, scene.getDrawnCount());
+    assertEquals(92, scene.getCulledCount());
+    assertEquals(8, b.fills);
+
+    camera.setPosition(2000, 0);
+    b.fills = 0;
+    scene.render(b, 800, 600);
+    // The panel at x = 1950 ends exactly on the left edge
+    assertEquals(8, b.fills);
+
+    camera.setZoom(0.5);
+    camera.setPosition(0, 0);
+    b.fills = 0;
+    scene.render(b, 800, 600);
+    assertEquals(16, b.fills);
+  }
+
+  @Test
+  public void parallaxAndRotationAreTakenIntoAccount() {
+    Scene2DBase scene = new Scene2DBase();
+    Camera2D camera = new Camera2D();
+    camera.setPosition(1000, 0);
+    scene.setCamera(camera);
+    Panel2D background = new Panel2D(100, 100);
+    background.setParallax(0, 0);
+    background.setPosition(10, 10);
+    scene.add(background);
+    Panel2D rotated = new Panel2D(200, 10);
+    rotated.setPosition(1000 - 5, 300);
+    rotated.setRotationDeg(180);
+    scene.add(rotated);
+
+    CountingBlitter b = new CountingBlitter();
+    scene.render(b, 800, 600);
+    assertEquals(1, scene.getDrawnCount());
+    assertEquals(1, scene.getCulledCount());
+
+    rotated.setRotationDeg(0);
+    scene.render(b, 800, 600);
+    assertEquals(2, scene.getDrawnCount());
+  }
+
+  @Test
+  public void zOrderIsRepairedOnlyWhenSomethingChanged() {
+    Scene2DBase scene = new Scene2DBase();
+    Random rnd = new Random(4);
+    List<Entity2D> all = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      Entity2D e = new Entity2D();
+      e.setZ(rnd.nextInt(10));
+      scene.add(e);
+      all.add(e);
+    }
+    CountingBlitter b = new CountingBlitter();
+    scene.render(b, 800, 600);
+    assertEquals(stableSorted(all), scene.children);
+
+    List<Entity2D> before = new ArrayList<>(scene.children);
+    for (int frame = 0; frame < 10; frame++) scene.render(b, 800, 600);
+    assertEquals(before, scene.children);
+
+    for (int k = 0; k < 5; k++) all.get(rnd.nextInt(all.size())).setZ(rnd.nextInt(10) + 0.5);
+    List<Entity2D> expected = stableSorted(scene.children);
+    scene.render(b, 800, 600);
+    assertEquals(expected, scene.children);
+
+    Entity2D removed = all.get(0);
+    scene.remove(removed);
+    expected.remove(removed);
+    removed.setZ(-1);
+    scene.render(b, 800, 600);
+    assertEquals(expected, scene.children, "a removed entity no longer affects the order");
+  }
+
+  @Test
+  public void zOrderFallsBackToAFullSortWhenMostEntitiesMoved() {
+    Scene2DBase scene = new Scene2DBase();
+    Random rnd = new Random(9);
+    for (int i = 0; i < 2000; i++) {
+      Entity2D e = new Entity2D();
+      e.setZ(i % 20);
+      scene.add(e);
+    }
+    CountingBlitter b = new CountingBlitter();
+    scene.render(b, 800, 600);
+
+    // reverse the order and shuffle a fraction so most entries are far from their place
+    for (Entity2D e : scene.children) e.setZ(20 - e.getZ() + (rnd.nextInt(4) == 0 ? rnd.nextInt(3) : 0));
+    List<Entity2D> expected = stableSorted(scene.children);
+    scene.render(b, 800, 600);
+    assertEquals(expected, scene.children, "same result as a stable sort, equal z kept in insertion order");
+  }
+
+  private static List<Entity2D> stableSorted(List<Entity2D> list) {
+    List<Entity2D> copy = new ArrayList<>(list);
+    copy.sort(Comparator.comparingDouble(Entity2D::getZ));
+    return copy;
+  }
+
+  static class CountingBlitter implements Blitter2D {
+    int fills;
+    int images;
+    int pushes;
+
+    @Override public void clear(double r, double g, double b, double a) {}
+    @Override public void setFill(double r, double g, double b, double a) {}
+    @Override public void setStroke(double r, double g, double b, double a) {}
+    @Override public void setStrokeWidth(double w) {}
+    @Override public void setGlobalAlpha(double a) {}
+    @Override public void setFont(String family, double size, boolean bold) {}
+    @Override public void push() { pushes++; }
+    @Override public void pop() {}
+    @Override public void translate(double x, double y) {}
+    @Override public void rotateDeg(double degrees) {}
+    @Override public void scale(double sx, double sy) {}
+    @Override public void fillRect(double x, double y, double w, double h) { fills++; }
+    @Override public void strokeRect(double x, double y, double w, double h) {}
+    @Override public void fillCircle(double cx, double cy, double radius) {}
+    @Override public void strokeCircle(double cx, double cy, double radius) {}
+    @Override public void drawLine(double x1, double y1, double x2, double y2) {}
+    @Override public void drawImage(String classpath, double x, double y, double w, double h) { images++; }
+    @Override public void drawImageRegion(String classpath, double sx, double sy, double sw, double sh, double dx, double dy, double dw, double dh) { images++; }
+    @Override public void drawText(String text, double x, double y, double size, boolean bold) {}
+    @Override public double measureTextWidth(String text, double size, boolean bold) { return text.length() * size * 0.5; }
+  }
+}
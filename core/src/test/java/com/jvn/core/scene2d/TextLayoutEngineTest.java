@@ -0,0 +1,141 @@
+package com.jvn.core.scene2d;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextLayoutEngineTest {
+
+  /** Narrow 'i', wide 'W', everything else 10 per character; counts calls. */
+  private static final class FakeMeasurer implements TextLayoutEngine.Measurer {
+    int calls;
+    @Override public double measure(String text, String family, double size, boolean bold) {
+      calls++;
+      double w = 0;
+      for (char c : text.toCharArray()) w += c == 'i' ? 4 : c == 'W' ? 16 : 10;
+      return w * size / 10 * (bold ? 1.1 : 1);
+    }
+  }
+
+  /** The word wrap renderers used before the engine, measuring every candidate line. */
+  private static List<String> referenceWrap(TextLayoutEngine.Measurer m, String text, double maxWidth) {
+    List<String> lines = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    for (String w : text.split(" ")) {
+      String test = current.length() == 0 ? w : current + " " + w;
+      if (maxWidth > 0 && m.measure(test, "f", 10, false) > maxWidth && current.length() > 0) {
+        lines.add(current.toString());
+        current = new StringBuilder(w);
+      } else {
+        current = new StringBuilder(test);
+      }
+    }
+    if (current.length() > 0) lines.add(current.toString());
+    return lines;
+  }
+
+  @Test
+  public void wrapsLikeTheGreedyWordSplit() {
+    FakeMeasurer m = new FakeMeasurer();
+    TextLayoutEngine engine = new TextLayoutEngine(m);
+    Random rnd = new Random(7);
+    String alphabet = "aiW  ";
+    for (int n = 0; n < 500; n++) {
+      StringBuilder sb = new StringBuilder();
+      int len = rnd.nextInt(60);
+      for (int i = 0; i < len; i++) sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+      String text = sb.toString();
+      double maxWidth = 20 + rnd.nextInt(200);
+      TextLayoutEngine.Layout layout = engine.layout(text, "f", 10, false, maxWidth);
+      List<String> lines = new ArrayList<>();
+      for (int i = 0; i < layout.getLineCount(); i++) lines.add(layout.getLine(i));
+      assertEquals(referenceWrap(m, text, maxWidth), lines, "'" + text + "' at " + maxWidth);
+    }
+  }
+
+  @Test
+  public void measuresEachGlyphOnceAndCachesLayouts() {
+    FakeMeasurer m = new FakeMeasurer();
+    TextLayoutEngine engine = new TextLayoutEngine(m);
+    String text = "the quick brown fox jumps over the lazy dog";
+    TextLayoutEngine.Layout first = engine.layout(text, "f", 16, false, 120);
+    int calls = m.calls;
+    assertEquals(27, calls, "26 letters and a space");
+    assertSame(first, engine.layout(text, "f", 16, false, 120));
+    engine.layout(text, "f", 16, false, 200);
+    engine.width("dog fox", "f", 16, false);
+    assertEquals(calls, m.calls, "same font reuses its advances");
+    engine.layout(text, "f", 16, true, 120);
+    assertEquals(2 * calls, m.calls, "bold is a different font");
+    assertEquals(m.calls, engine.getGlyphsMeasured());
+    assertEquals(m.measure("jumps", "f", 16, false), engine.width("jumps", "f", 16, false), 1e-9);
+  }
+
+  /** Measures 5 per character in "narrow", 20 in any other family; counts calls. */
+  private static class FontBlitter extends Scene2DBaseTest.CountingBlitter {
+    String family;
+    int calls;
+    @Override public void setFont(String family, double size, boolean bold) { this.family = family; }
+    @Override public String getFontFamily() { return family; }
+    @Override public double measureTextWidth(String text, double size, boolean bold) {
+      calls++;
+      return text.length() * ("narrow".equals(family) ? 5 : 20);
+    }
+  }
+
+  @Test
+  public void textMetricsKeepsOneEnginePerBlitter() {
+    FontBlitter b = new FontBlitter();
+    b.setFont("narrow", 10, false);
+    TextMetrics.Layout first = TextMetrics.layout(b, "the quick brown fox", 10, false, 60, 12);
+    int measured = b.calls;
+    assertTrue(measured > 0);
+    TextMetrics.Layout again = TextMetrics.layout(b, "the quick brown fox", 10, false, 60, 12);
+    assertEquals(measured, b.calls, "the second call reuses the blitter's engine");
+    assertEquals(first.lines, again.lines);
+    TextMetrics.layout(b, "brown quick", 10, false, 60, 12);
+    assertEquals(measured, b.calls, "glyphs already measured are not measured again");
+  }
+
+  @Test
+  public void textMetricsLaysOutInTheCurrentFamily() {
+    FontBlitter b = new FontBlitter();
+    b.setFont("narrow", 10, false);
+    TextMetrics.Layout narrow = TextMetrics.layout(b, "aaaa bbbb cccc", 10, false, 100, 12);
+    assertEquals(1, narrow.lines.size());
+    assertEquals(70, narrow.width, 1e-9);
+
+    b.setFont("wide", 10, false);
+    TextMetrics.Layout wide = TextMetrics.layout(b, "aaaa bbbb cccc", 10, false, 100, 12);
+    assertEquals(3, wide.lines.size(), "wrapped with the wide family's widths");
+    assertEquals(80, wide.width, 1e-9);
+
+    b.setFont("narrow", 10, false);
+    assertEquals(70, TextMetrics.layout(b, "aaaa bbbb cccc", 10, false, 100, 12).width, 1e-9);
+
+    // a blitter that does not report its family is measured afresh every call
+    Scene2DBaseTest.CountingBlitter plain = new Scene2DBaseTest.CountingBlitter();
+    TextMetrics.Layout l = TextMetrics.layout(plain, "aaaa bbbb", 10, false, 1000, 12);
+    assertEquals(plain.measureTextWidth("aaaa bbbb", 10, false), l.width, 1e-9);
+  }
+
+  @Test
+  public void revealShowsPrefixesOfPrecomputedLines() {
+    TextLayoutEngine engine = new TextLayoutEngine(new FakeMeasurer());
+    TextLayoutEngine.Layout layout = engine.layout("aaa bbb ccc", "f", 10, false, 75);
+    assertEquals(2, layout.getLineCount());
+    assertEquals("aaa bbb", layout.getLine(0));
+    assertEquals(70, layout.getLineWidth(0), 1e-9);
+    assertEquals(0, layout.visibleLineCount(0));
+    assertEquals(1, layout.visibleLineCount(8));
+    assertEquals("aaa b", layout.visiblePart(0, 5));
+    // the word being revealed is already on its final line
+    assertEquals(2, layout.visibleLineCount(9));
+    assertEquals("c", layout.visiblePart(1, 9));
+    assertEquals("ccc", layout.visiblePart(1, 100));
+  }
+}
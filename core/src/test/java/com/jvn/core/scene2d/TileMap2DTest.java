@@ -0,0 +1,190 @@
+package com.jvn.core.scene2d;
+
+import com.jvn.core.graphics.Camera2D;
+import com.jvn.core.math.Rect;
+import com.jvn.core.physics.TileCollider2D;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileMap2DTest {
+
+  private static TileMap2D filledMap(int size) {
+    TileMap2D map = new TileMap2D(new SpriteSheet("tiles.png", 16, 16, 8), size, size, 16, 16);
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) map.setTile(x, y, (x + y) % 8);
+    }
+    return map;
+  }
+
+  @Test
+  public void tileColliderFollowsTilesAndMapPosition() {
+    TileMap2D map = new TileMap2D(new SpriteSheet("tiles.png", 16, 16, 8), 8, 4, 16, 16);
+    for (int x = 0; x < 8; x++) map.setTile(x, 3, 1);
+    map.setPosition(40, 20);
+    TileCollider2D collider = map.buildTileCollider(null);
+    assertEquals(40, collider.getOriginX(), 1e-9);
+    assertEquals(1, collider.getRects().size());
+    assertEquals(20 + 3 * 16, collider.getRects().get(0).y, 1e-9);
+
+    map.setTile(3, 3, -1);
+    assertFalse(collider.isSolid(3, 3));
+    assertEquals(2, collider.getRects().size());
+    map.setTile(3, 1, 2);
+    assertTrue(collider.isSolid(3, 1));
+    assertEquals(3, collider.getRects().size());
+
+    map.setPosition(-100, 200);
+    assertEquals(-100, collider.getOriginX(), 1e-9);
+    assertEquals(200, collider.getOriginY(), 1e-9);
+    Rect first = collider.getRects().get(0);
+    assertEquals(-100 + 3 * 16, first.x, 1e-9, "rectangles move with the map");
+    assertEquals(200 + 16, first.y, 1e-9);
+  }
+
+  @Test
+  public void largeMapDrawsOnlyVisibleTilesWithoutOffscreenSupport() {
+    Scene2DBase scene = new Scene2DBase();
+    TileMap2D map = filledMap(512);
+    scene.add(map);
+    Camera2D cam = new Camera2D();
+    cam.setPosition(4000, 3000);
+    scene.setCamera(cam);
+    Scene2DBaseTest.CountingBlitter b = new Scene2DBaseTest.CountingBlitter();
+    scene.render(b, 800, 600);
+    // 800x600 at 16px tiles is 50x38 tiles, give or take partial edges
+    assertTrue(b.images > 0 && b.images <= 51 * 39, "drew " + b.images);
+    assertTrue(map.getChunksDrawn() <= 5 * 4);
+  }
+
+  @Test
+  public void cachedChunksAreRebuiltOnlyWhenTheirTilesChange() {
+    Scene2DBase scene = new Scene2DBase();
+    TileMap2D map = filledMap(512);
+    map.setTile(40, 40, -1);
+    scene.add(map);
+    OffscreenBlitter b = new OffscreenBlitter();
+    scene.render(b, 800, 600);
+    int visible = map.getChunksDrawn();
+    assertTrue(visible > 0 && visible <= 4 * 3);
+    assertEquals(visible, map.getChunksRebuilt());
+    assertEquals(visible, b.chunkImages);
+    assertEquals(visible * 256 - 1, b.offscreenImages);
+
+    b.reset();
+    scene.render(b, 800, 600);
+    assertEquals(0, map.getChunksRebuilt());
+    assertEquals(0, b.offscreenImages);
+    assertEquals(visible, b.chunkImages);
+
+    b.reset();
+    map.setTile(40, 40, 3);
+    map.setTile(41, 40, 3); // same chunk, and an unchanged value elsewhere
+    map.setTile(0, 0, map.getTile(0, 0));
+    scene.render(b, 800, 600);
+    assertEquals(1, map.getChunksRebuilt());
+    assertEquals(256, b.offscreenImages);
+
+    map.setChunkSize(32);
+    assertTrue(b.released.size() >= visible);
+  }
+
+  @Test
+  public void chunksAreRenderedAtTheZoomTheyAreDrawnAt() {
+    Scene2DBase scene = new Scene2DBase();
+    TileMap2D map = filledMap(512);
+    scene.add(map);
+    Camera2D cam = new Camera2D();
+    scene.setCamera(cam);
+    OffscreenBlitter b = new OffscreenBlitter();
+
+    cam.setZoom(1.5);
+    b.chunkPixels = 512;
+    scene.render(b, 800, 600);
+    assertTrue(map.getChunksRebuilt() > 0);
+
+    // same power of two and a subset of the chunks, so nothing is rendered again
+    cam.setZoom(2);
+    scene.render(b, 800, 600);
+    assertEquals(0, map.getChunksRebuilt());
+
+    // close up the tiles are drawn directly instead of caching huge chunks
+    cam.setZoom(8);
+    b.reset();
+    b.direct = true;
+    scene.render(b, 800, 600);
+    assertEquals(0, map.getChunksRebuilt());
+    assertEquals(0, b.chunkImages);
+    assertTrue(b.offscreenImages > 0);
+
+    cam.setZoom(1);
+    b.direct = false;
+    b.chunkPixels = 256;
+    scene.render(b, 800, 600);
+    assertEquals(map.getChunksDrawn(), map.getChunksRebuilt());
+  }
+
+  @Test
+  public void chunksDroppedByTheBackendAreRenderedAgain() {
+    Scene2DBase scene = new Scene2DBase();
+    TileMap2D map = filledMap(64);
+    scene.add(map);
+    OffscreenBlitter b = new OffscreenBlitter();
+    scene.render(b, 800, 600);
+    assertTrue(map.getChunksRebuilt() > 1);
+
+    b.dropped.add(b.lastKey);
+    scene.render(b, 800, 600);
+    assertEquals(1, map.getChunksRebuilt());
+  }
+
+  @Test
+  public void renderWithoutAViewportDrawsTilesDirectly() {
+    TileMap2D map = filledMap(64);
+    OffscreenBlitter b = new OffscreenBlitter();
+    b.direct = true;
+    map.render(b);
+    assertEquals(64 * 64, b.offscreenImages);
+    assertEquals(0, b.chunkImages);
+    assertEquals(0, map.getChunksRebuilt());
+  }
+
+  static class OffscreenBlitter extends Scene2DBaseTest.CountingBlitter {
+    String target;
+    String lastKey;
+    int chunkPixels = 256;
+    boolean direct; // tiles are expected outside any offscreen image
+    int offscreenImages;
+    int chunkImages;
+    final Set<String> released = new HashSet<>();
+    final Set<String> dropped = new HashSet<>();
+
+    void reset() { offscreenImages = 0; chunkImages = 0; }
+
+    @Override public boolean beginOffscreen(String key, int width, int height) {
+      assertFalse(direct, "no chunk is cached");
+      assertNull(target, "offscreen targets are not nested here");
+      assertEquals(chunkPixels, width);
+      target = key;
+      lastKey = key;
+      dropped.remove(key);
+      return true;
+    }
+    @Override public void endOffscreen() { target = null; }
+    @Override public void releaseOffscreen(String key) { released.add(key); }
+    @Override public boolean hasOffscreen(String key) { return !dropped.contains(key); }
+    @Override public void drawImage(String classpath, double x, double y, double w, double h) {
+      if (classpath.startsWith("offscreen:")) chunkImages++;
+    }
+    @Override public void drawImageRegion(String classpath, double sx, double sy, double sw, double sh, double dx, double dy, double dw, double dh) {
+      if (!direct) {
+        assertNotNull(target, "tiles go through the chunk cache");
+        assertTrue(dx >= 0 && dy >= 0 && dx + dw <= 256 && dy + dh <= 256);
+      }
+      offscreenImages++;
+    }
+  }
+}
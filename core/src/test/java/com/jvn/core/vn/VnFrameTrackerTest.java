@@ -0,0 +1,61 @@
+package com.jvn.core.vn;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnFrameTrackerTest {
+  @Test
+  public void onlyChangedLayersAreReported() {
+    VnScenario scenario = new VnScenarioBuilder("frames")
+        .addBackground("room", "game/images/bg_room.png")
+        .dialogue("Amy", "Hello there")
+        .end()
+        .build();
+    VnScene scene = new VnScene(scenario);
+    VnState state = scene.getState();
+    VnFrameTracker frames = new VnFrameTracker();
+
+    assertEquals(VnFrameTracker.ALL, frames.update(state, 800, 600, -1, 0));
+    assertEquals(0, frames.update(state, 800, 600, -1, 0));
+
+    // revealing text touches the textbox and nothing else
+    int frameCount = 0;
+    int textboxFrames = 0;
+    while (!state.isWaitingForInput() && frameCount++ < 1000) {
+      scene.update(16);
+      int dirty = frames.update(state, 800, 600, -1, 0);
+      assertTrue(dirty == 0 || dirty == VnFrameTracker.TEXTBOX, "dirty " + dirty);
+      if (dirty != 0) textboxFrames++;
+    }
+    assertTrue(state.isWaitingForInput());
+    assertEquals("Hello there".length() + 1, textboxFrames);
+
+    // idle while waiting for input
+    for (int i = 0; i < 10; i++) {
+      scene.update(16);
+      assertEquals(0, frames.update(state, 800, 600, -1, 0));
+    }
+
+    state.setSkipMode(true);
+    state.setSkipMode(false);
+    assertEquals(0, frames.update(state, 800, 600, -1, 0));
+    state.setAutoPlayMode(true);
+    assertEquals(VnFrameTracker.INDICATORS, frames.update(state, 800, 600, -1, 0));
+    state.setAutoPlayMode(false);
+    frames.update(state, 800, 600, -1, 0);
+
+    state.showHudMessage("Saved", 1000);
+    long shown = state.getHudMessageExpireAt() - 1000;
+    assertEquals(VnFrameTracker.HUD, frames.update(state, 800, 600, -1, shown));
+    assertEquals(0, frames.update(state, 800, 600, -1, shown + 500));
+    assertEquals(VnFrameTracker.HUD, frames.update(state, 800, 600, -1, shown + 1000));
+
+    state.showCharacter(CharacterPosition.LEFT, "amy", "smile");
+    assertEquals(VnFrameTracker.ALL, frames.update(state, 800, 600, -1, 0));
+    assertEquals(VnFrameTracker.ALL, frames.update(state, 1024, 600, -1, 0));
+    frames.invalidate();
+    assertEquals(VnFrameTracker.ALL, frames.update(state, 1024, 600, -1, 0));
+    assertEquals(VnFrameTracker.CHOICES, frames.update(state, 1024, 600, 1, 0));
+  }
+}
@@ -0,0 +1,48 @@
+package com.jvn.core.vn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnLookaheadTest {
+  @Test
+  public void followsJumpsAndEveryChoiceBranch() {
+    VnScenario scenario = new VnScenarioBuilder("branches")
+        .addBackground("room", "bg/room.png")
+        .addBackground("park", "bg/park.png")
+        .addBackground("beach", "bg/beach.png")
+        .addBackground("unused", "bg/unused.png")
+        .addCharacterWithExpressions("amy", "Amy", "amy/neutral.png", "amy/happy.png")
+        .background("room")
+        .dialogue("Amy", "Where to?", "amy", "neutral", CharacterPosition.LEFT)
+        .choiceWithTargets(new String[][] { { "Park", "park" }, { "Beach", "beach" } })
+        .label("park")
+        .background("park")
+        .show("amy", "expression1", CharacterPosition.CENTER)
+        .jump("done")
+        .label("beach")
+        .background("beach")
+        .jump("done")
+        .background("unused")
+        .label("done")
+        .end()
+        .build();
+
+    List<String> all = VnLookahead.upcomingImages(scenario, 0, 100);
+    assertEquals(List.of("bg/room.png", "amy/neutral.png", "bg/park.png", "bg/beach.png", "amy/happy.png"), all);
+    assertFalse(all.contains("bg/unused.png"), "unreachable nodes are skipped");
+
+    // nearest first: two nodes ahead of the choice only reach the first node of each branch
+    assertEquals(List.of("bg/park.png", "bg/beach.png"), VnLookahead.upcomingImages(scenario, 2, 3));
+    assertTrue(VnLookahead.upcomingImages(scenario, 99, 10).isEmpty());
+
+    List<String> sprites = new java.util.ArrayList<>();
+    VnLookahead.visitUpcoming(scenario, 0, 100, new VnLookahead.ImageVisitor() {
+      @Override public void background(String path) { assertTrue(path.startsWith("bg/")); }
+      @Override public void sprite(String path) { sprites.add(path); }
+    });
+    assertEquals(List.of("amy/neutral.png", "amy/happy.png"), sprites);
+  }
+}
@@ -0,0 +1,137 @@
+package com.jvn.core.vn;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnRollbackTest {
+
+  private static VnScenario longStory(int lines) {
+    VnScenarioBuilder b = new VnScenarioBuilder("rollback_story")
+        .addCharacter("alice", "Alice")
+        .addCharacter("bob", "Bob")
+        .addBackground("room", "game/images/bg_room.png")
+        .addBackground("park", "game/images/bg_park.png")
+        .background("room");
+    for (int i = 0; i < lines; i++) {
+      if (i == lines / 2) b.background("park");
+      if (i % 2 == 0) b.dialogue("Alice", "line " + i, "alice", i % 4 == 0 ? "neutral" : "happy", CharacterPosition.LEFT);
+      else b.dialogue("Bob", "line " + i, "bob", "neutral", CharacterPosition.RIGHT);
+    }
+    return b.end().build();
+  }
+
+  @Test
+  public void rollsBackNodeCharactersVariablesReadsAndHistory() {
+    VnScene scene = new VnScene(longStory(10));
+    scene.onEnter();
+    VnState state = scene.getState();
+    scene.advance();
+    scene.advance();
+    state.setVariable("met_bob", true);
+    int node = state.getCurrentNodeIndex();
+    int historySize = state.getHistory().size();
+    var characters = new java.util.HashMap<>(state.getVisibleCharacters());
+
+    scene.advance();
+    state.setVariable("met_bob", false);
+    scene.advance();
+    assertTrue(state.isNodeRead(node + 2));
+
+    assertEquals(2, scene.rollback(2));
+    assertEquals(node, state.getCurrentNodeIndex());
+    assertEquals(true, state.getVariable("met_bob"));
+    assertEquals(historySize, state.getHistory().size());
+    assertEquals(characters.keySet(), state.getVisibleCharacters().keySet());
+    assertEquals("happy", state.getVisibleCharacters().get(CharacterPosition.LEFT).getExpression());
+    assertTrue(state.isNodeRead(node));
+    assertFalse(state.isNodeRead(node + 2), "nodes first read after the restored step are unread again");
+    assertTrue(state.isWaitingForInput());
+    assertEquals(state.getCurrentNode().getDialogue().getText().length(), state.getTextRevealProgress());
+
+    scene.advance();
+    assertEquals(node + 1, state.getCurrentNodeIndex());
+    assertEquals(historySize + 1, state.getHistory().size());
+  }
+
+  @Test
+  public void rollsBackAcrossBackgroundChanges() {
+    VnScene scene = new VnScene(longStory(6));
+    scene.onEnter();
+    VnState state = scene.getState();
+    while (!"park".equals(state.getCurrentBackgroundId())) scene.advance();
+    assertTrue(scene.rollback());
+    assertEquals("room", state.getCurrentBackgroundId());
+  }
+
+  @Test
+  public void fiveHundredStepsStayWithinKilobytes() {
+    VnScene scene = new VnScene(longStory(600));
+    scene.onEnter();
+    VnState state = scene.getState();
+    for (int i = 0; i < 50; i++) state.setVariable("v" + i, i);
+    for (int i = 0; i < 500; i++) scene.advance();
+    VnRollback rollback = scene.getRollback();
+    assertEquals(500, rollback.getDepth());
+    assertTrue(rollback.getEstimatedBytes() < 64 * 1024, "estimated " + rollback.getEstimatedBytes());
+
+    int node = state.getCurrentNodeIndex();
+    assertEquals(500, scene.rollback(500));
+    assertTrue(state.getCurrentNodeIndex() < node - 490);
+    assertEquals("room", state.getCurrentBackgroundId());
+    assertFalse(rollback.canRollback());
+    assertEquals(0, rollback.getEstimatedBytes());
+  }
+
+  @Test
+  public void variablesChangingEveryStepKeepOnlyTheChangedKeys() {
+    VnScene scene = new VnScene(longStory(400));
+    scene.onEnter();
+    VnState state = scene.getState();
+    for (int i = 0; i < 100; i++) state.setVariable("v" + i, i);
+    java.util.List<java.util.Map<String, Object>> seen = new java.util.ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      seen.add(new java.util.HashMap<>(state.getVariables()));
+      scene.advance();
+      state.setVariable("turn", i);
+      if (i % 7 == 0) state.setVariable("extra" + i, "x");
+      if (i % 11 == 0) state.getVariables().remove("v" + (i % 100));
+    }
+    VnRollback rollback = scene.getRollback();
+    assertEquals(300, rollback.getDepth());
+    // a copy of 100 variables per step would be far past this
+    assertTrue(rollback.getEstimatedBytes() < 64 * 1024, "estimated " + rollback.getEstimatedBytes());
+
+    assertEquals(1, scene.rollback(1));
+    assertEquals(seen.get(299), state.getVariables());
+    assertEquals(50, scene.rollback(50));
+    assertEquals(seen.get(249), state.getVariables());
+    state.setVariable("turn", -1);
+    java.util.Map<String, Object> changed = new java.util.HashMap<>(state.getVariables());
+    scene.advance();
+    scene.advance();
+    assertEquals(2, scene.rollback(2));
+    assertEquals(changed, state.getVariables(), "steps recorded after a rollback undo from the restored values");
+    assertEquals(1, scene.rollback(1));
+    assertEquals(seen.get(248), state.getVariables());
+    assertEquals(248, scene.rollback(1000));
+    assertEquals(seen.get(0), state.getVariables());
+    assertEquals(0, rollback.getEstimatedBytes());
+  }
+
+  @Test
+  public void dropsOldestStepsPastTheCaps() {
+    VnScene scene = new VnScene(longStory(100));
+    scene.onEnter();
+    VnRollback rollback = scene.getRollback();
+    rollback.setLimits(10, Long.MAX_VALUE);
+    for (int i = 0; i < 30; i++) scene.advance();
+    assertEquals(10, rollback.getDepth());
+
+    rollback.setLimits(1000, 1024);
+    for (int i = 0; i < 30; i++) scene.advance();
+    assertTrue(rollback.getEstimatedBytes() <= 1024);
+    assertTrue(rollback.getDepth() > 0 && rollback.getDepth() < 30);
+    assertEquals(rollback.getDepth(), scene.rollback(1000));
+  }
+}
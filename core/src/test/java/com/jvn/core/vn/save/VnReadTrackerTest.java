@@ -0,0 +1,97 @@
+package com.jvn.core.vn.save;
+
+import com.jvn.core.vn.VnScenario;
+import com.jvn.core.vn.VnScenarioBuilder;
+import com.jvn.core.vn.VnScene;
+import com.jvn.core.vn.VnState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnReadTrackerTest {
+
+  private static VnScenario story() {
+    VnScenarioBuilder b = new VnScenarioBuilder("read_story");
+    for (int i = 0; i < 200; i++) b.dialogue("A", "line " + i);
+    return b.end().build();
+  }
+
+  private static void awaitWrites(VnSaveManager mgr) throws Exception {
+    // the tracker writes on the save writer thread, so a save queued after it finishes later
+    mgr.saveAsync(new VnScene(story()).getState(), "barrier").get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void readStateIsSharedAcrossPlaythroughsAndPersisted() throws Exception {
+    Path dir = Files.createTempDirectory("vn_read_test");
+    VnSaveManager mgr = new VnSaveManager(dir.toString());
+    VnReadTracker tracker = mgr.getReadTracker();
+    assertSame(tracker, new VnSaveManager(dir.toString()).getReadTracker());
+
+    VnScene first = new VnScene(story());
+    first.getState().setReadTracker(tracker);
+    first.onEnter();
+    for (int i = 0; i < 150; i++) first.advance();
+    awaitWrites(mgr);
+    assertTrue(tracker.getWrites() >= 1);
+    assertTrue(tracker.getWrites() < 20, "marks are coalesced, wrote " + tracker.getWrites());
+
+    VnScene second = new VnScene(story());
+    second.getState().setReadTracker(tracker);
+    VnState state = second.getState();
+    assertTrue(state.isNodeRead(100), "read in the first playthrough");
+    assertFalse(state.isNodeRead(180));
+    assertTrue(state.getReadNodeBits().isEmpty(), "the save itself has read nothing yet");
+
+    VnReadTracker reloaded = new VnReadTracker(dir.resolve(VnReadTracker.FILE_NAME));
+    assertEquals(151, reloaded.nodes("read_story").cardinality());
+    assertTrue(reloaded.isRead("read_story", 150));
+    assertFalse(reloaded.isRead("other_story", 0));
+  }
+
+  @Test
+  public void damagedFilesStartWithEmptyReadState() throws Exception {
+    for (int count : new int[] { -5, Integer.MAX_VALUE, VnSaveCodec.MAX_READ_NODES / 64 + 1 }) {
+      Path dir = Files.createTempDirectory("vn_read_damaged");
+      Path file = dir.resolve(VnReadTracker.FILE_NAME);
+      try (java.io.DataOutputStream out = new java.io.DataOutputStream(Files.newOutputStream(file))) {
+        out.writeInt(0x4a564e52);
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeUTF("read_story");
+        out.writeInt(count);
+        out.writeLong(-1L);
+      }
+      VnReadTracker tracker = new VnReadTracker(file);
+      assertTrue(tracker.nodes("read_story").isEmpty(), "count " + count);
+      tracker.mark("read_story", 3);
+      assertTrue(tracker.isRead("read_story", 3));
+    }
+  }
+
+  @Test
+  public void loadingASaveMergesItsReadNodes() throws Exception {
+    Path dir = Files.createTempDirectory("vn_read_merge");
+    VnSaveManager mgr = new VnSaveManager(dir.toString());
+    VnState old = new VnState();
+    old.setScenario(story());
+    old.markNodeAsRead(190);
+    old.markNodeAsRead(191);
+    mgr.save(old, "old");
+    assertFalse(mgr.getReadTracker().isRead("read_story", 190), "untracked states do not mark");
+
+    VnScene scene = new VnScene(story());
+    scene.getState().setReadTracker(mgr.getReadTracker());
+    mgr.applyToState(mgr.load("old"), scene.getState());
+    assertTrue(mgr.getReadTracker().isRead("read_story", 191));
+
+    BitSet expected = new BitSet();
+    expected.set(190, 192);
+    assertEquals(expected, mgr.load("old").getReadNodeBits());
+  }
+}
@@ -0,0 +1,109 @@
+package com.jvn.core.vn.save;
+
+import com.jvn.core.vn.VnScenario;
+import com.jvn.core.vn.VnScenarioBuilder;
+import com.jvn.core.vn.VnState;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnSaveAsyncTest {
+
+  private static VnState stateAt(int node) {
+    VnScenario scenario = new VnScenarioBuilder("async_story")
+        .dialogue("A", "one")
+        .dialogue("A", "two")
+        .dialogue("A", "three")
+        .end()
+        .build();
+    VnState state = new VnState();
+    state.setScenario(scenario);
+    state.setCurrentNodeIndex(node);
+    return state;
+  }
+
+  @Test
+  public void asyncSavesKeepOrderAndLeaveNoTempFiles() throws Exception {
+    Path dir = Files.createTempDirectory("vn_async_test");
+    VnSaveManager mgr = new VnSaveManager(dir.toString());
+    VnState state = stateAt(0);
+    CompletableFuture<Void> first = mgr.saveAsync(state, "slot");
+    state.setCurrentNodeIndex(1);
+    state.setVariable("later", 1);
+    CompletableFuture<Void> last = mgr.saveAsync(state, "slot", () -> new BufferedImage(1280, 720, BufferedImage.TYPE_INT_RGB));
+    state.setCurrentNodeIndex(2);
+    last.get(5, TimeUnit.SECONDS);
+    assertTrue(first.isDone());
+
+    VnSaveData loaded = mgr.load("slot");
+    assertEquals(1, loaded.getCurrentNodeIndex(), "the state is captured when saveAsync is called");
+    assertEquals(Integer.valueOf(1), loaded.getVariables().get("later"));
+
+    BufferedImage thumb = ImageIO.read(dir.resolve("slot.png").toFile());
+    assertEquals(VnSaveManager.THUMBNAIL_WIDTH, thumb.getWidth());
+    assertEquals(180, thumb.getHeight());
+    assertTrue(mgr.getSaveMetadata("slot").hasThumbnail());
+
+    try (var files = Files.list(dir)) {
+      assertTrue(files.noneMatch(p -> p.getFileName().toString().endsWith(".tmp")));
+    }
+  }
+
+  @Test
+  public void failedThumbnailsDoNotBlockTheSave() throws Exception {
+    Path dir = Files.createTempDirectory("vn_async_thumb");
+    VnSaveManager mgr = new VnSaveManager(dir.toString());
+    CompletableFuture<Void> f = mgr.saveAsync(stateAt(1), "slot", () -> { throw new IllegalStateException("capture"); });
+    f.get(5, TimeUnit.SECONDS);
+    assertEquals(1, mgr.load("slot").getCurrentNodeIndex());
+    assertFalse(Files.exists(dir.resolve("slot.png")));
+    assertFalse(mgr.getSaveMetadata("slot").hasThumbnail());
+  }
+
+  @Test
+  public void concurrentWritersToOneFileDoNotCollide() throws Exception {
+    Path dir = Files.createTempDirectory("vn_async_race");
+    Path target = dir.resolve("read.dat");
+    java.util.List<Thread> threads = new java.util.ArrayList<>();
+    java.util.List<Throwable> errors = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+    for (int t = 0; t < 4; t++) {
+      byte[] data = new byte[4096];
+      java.util.Arrays.fill(data, (byte) t);
+      threads.add(new Thread(() -> {
+        try {
+          for (int i = 0; i < 50; i++) VnSaveManager.writeAtomically(target, data);
+        } catch (Throwable e) {
+          errors.add(e);
+        }
+      }));
+    }
+    for (Thread t : threads) t.start();
+    for (Thread t : threads) t.join();
+    assertTrue(errors.isEmpty(), "errors: " + errors);
+
+    byte[] written = Files.readAllBytes(target);
+    assertEquals(4096, written.length);
+    for (byte b : written) assertEquals(written[0], b, "one writer's data, not a mix");
+    try (var files = Files.list(dir)) {
+      assertTrue(files.noneMatch(p -> p.getFileName().toString().endsWith(".tmp")));
+    }
+  }
+
+  @Test
+  public void failedWritesCompleteExceptionally() throws Exception {
+    Path dir = Files.createTempDirectory("vn_async_fail");
+    VnSaveManager mgr = new VnSaveManager(dir.toString());
+    Files.delete(dir);
+    Files.writeString(dir, "not a directory");
+    CompletableFuture<Void> f = mgr.saveAsync(stateAt(0), "slot");
+    assertThrows(Exception.class, () -> f.get(5, TimeUnit.SECONDS));
+    assertTrue(f.isCompletedExceptionally());
+  }
+}
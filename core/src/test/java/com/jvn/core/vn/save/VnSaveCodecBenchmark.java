@@ -0,0 +1,61 @@
+package com.jvn.core.vn.save;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+
+/**
+ * Compares {@link VnSaveCodec} with the Java serialization saves used before, for encoded size
+ * and encode/decode time in memory. Not a unit test; run the main method with
+ * {@code java -cp <test classpath> com.jvn.core.vn.save.VnSaveCodecBenchmark}. The first
+ * column of each format is a cold call, the cost a player pays on the first save or load.
+ */
+public class VnSaveCodecBenchmark {
+  private static final int[][] SIZES = { { 10, 200 }, { 200, 5_000 }, { 1_000, 50_000 } };
+  private static final int WARMUP = 200;
+  private static final int MEASURED = 500;
+
+  public static void main(String[] args) throws Exception {
+    System.out.printf("%6s %7s %10s %10s %12s %12s %12s %12s%n", "vars", "read", "java B", "codec B",
+        "java enc us", "codec enc us", "java dec us", "codec dec us");
+    boolean cold = true;
+    for (int[] size : SIZES) {
+      VnSaveData d = VnSaveCodecTest.sample(size[0], size[1]);
+      if (cold) {
+        long t0 = System.nanoTime();
+        byte[] j = VnSaveCodecTest.legacyBytes(d);
+        readLegacy(j);
+        long t1 = System.nanoTime();
+        byte[] c = VnSaveCodec.encode(d);
+        VnSaveCodec.decode(c);
+        long t2 = System.nanoTime();
+        System.out.printf("cold save+load: java %.1f ms, codec %.1f ms%n", (t1 - t0) / 1e6, (t2 - t1) / 1e6);
+        cold = false;
+      }
+      byte[] javaBytes = VnSaveCodecTest.legacyBytes(d);
+      byte[] codecBytes = VnSaveCodec.encode(d);
+      for (int i = 0; i < WARMUP; i++) {
+        VnSaveCodecTest.legacyBytes(d);
+        VnSaveCodec.encode(d);
+        readLegacy(javaBytes);
+        VnSaveCodec.decode(codecBytes);
+      }
+      long t0 = System.nanoTime();
+      for (int i = 0; i < MEASURED; i++) VnSaveCodecTest.legacyBytes(d);
+      long t1 = System.nanoTime();
+      for (int i = 0; i < MEASURED; i++) VnSaveCodec.encode(d);
+      long t2 = System.nanoTime();
+      for (int i = 0; i < MEASURED; i++) readLegacy(javaBytes);
+      long t3 = System.nanoTime();
+      for (int i = 0; i < MEASURED; i++) VnSaveCodec.decode(codecBytes);
+      long t4 = System.nanoTime();
+      System.out.printf("%6d %7d %10d %10d %12.1f %12.1f %12.1f %12.1f%n", size[0], size[1], javaBytes.length, codecBytes.length,
+          (t1 - t0) / 1e3 / MEASURED, (t2 - t1) / 1e3 / MEASURED, (t3 - t2) / 1e3 / MEASURED, (t4 - t3) / 1e3 / MEASURED);
+    }
+  }
+
+  private static Object readLegacy(byte[] data) throws Exception {
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+      return ois.readObject();
+    }
+  }
+}
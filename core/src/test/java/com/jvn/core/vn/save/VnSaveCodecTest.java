@@ -0,0 +1,193 @@
+package com.jvn.core.vn.save;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnSaveCodecTest {
+
+  static VnSaveData sample(int variables, int readNodes) {
+    VnSaveData d = new VnSaveData();
+    d.setSaveName("slot \u00e9");
+    d.setScenarioId("story");
+    d.setCurrentNodeIndex(412);
+    d.setCurrentBackgroundId("room");
+    Map<String, Object> vars = new HashMap<>();
+    vars.put("flag", true);
+    vars.put("off", false);
+    vars.put("count", -7);
+    vars.put("big", 1L << 40);
+    vars.put("ratio", 0.25f);
+    vars.put("pi", Math.PI);
+    vars.put("name", "Alice");
+    vars.put("nothing", null);
+    vars.put("list", new ArrayList<>(List.of("a", "b")));
+    for (int i = 0; i < variables; i++) vars.put("v" + i, i % 3 == 0 ? (Object) ("s" + i) : (Object) i);
+    d.setVariables(vars);
+    Set<Integer> read = new HashSet<>();
+    for (int i = 0; i < readNodes; i++) read.add(i * 3 / 2);
+    d.setReadNodes(read);
+    Map<String, String[]> chars = new HashMap<>();
+    chars.put("LEFT", new String[]{"alice", "smile"});
+    chars.put("RIGHT", new String[]{"bob", null});
+    d.setVisibleCharacters(chars);
+    d.setSkipMode(true);
+    d.setUiHidden(true);
+    d.getSettings().setTextSpeed(45);
+    d.getSettings().setBgmVolume(0.3f);
+    d.getSettings().setAutoPlayDelay(3100);
+    d.getSettings().setSkipAfterChoices(true);
+    d.setSaveTimestamp(1_700_000_000_123L);
+    return d;
+  }
+
+  static byte[] legacyBytes(VnSaveData d) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+      oos.writeObject(d);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void assertSameSave(VnSaveData a, VnSaveData b) {
+    assertEquals(a.getSaveName(), b.getSaveName());
+    assertEquals(a.getScenarioId(), b.getScenarioId());
+    assertEquals(a.getCurrentNodeIndex(), b.getCurrentNodeIndex());
+    assertEquals(a.getCurrentBackgroundId(), b.getCurrentBackgroundId());
+    assertEquals(a.getVariables(), b.getVariables());
+    assertEquals(a.getReadNodes(), b.getReadNodes());
+    assertEquals(a.getVisibleCharacters().keySet(), b.getVisibleCharacters().keySet());
+    for (String k : a.getVisibleCharacters().keySet()) {
+      assertTrue(Arrays.equals(a.getVisibleCharacters().get(k), b.getVisibleCharacters().get(k)), k);
+    }
+    assertEquals(a.isSkipMode(), b.isSkipMode());
+    assertEquals(a.isAutoPlayMode(), b.isAutoPlayMode());
+    assertEquals(a.isUiHidden(), b.isUiHidden());
+    assertEquals(a.getSettings().getTextSpeed(), b.getSettings().getTextSpeed());
+    assertEquals(a.getSettings().getBgmVolume(), b.getSettings().getBgmVolume(), 0f);
+    assertEquals(a.getSettings().getAutoPlayDelay(), b.getSettings().getAutoPlayDelay());
+    assertEquals(a.getSettings().isSkipAfterChoices(), b.getSettings().isSkipAfterChoices());
+    assertEquals(a.getSaveTimestamp(), b.getSaveTimestamp());
+  }
+
+  @Test
+  public void roundTripsEveryFieldAndVariableType() throws Exception {
+    VnSaveData d = sample(50, 2000);
+    byte[] bytes = VnSaveCodec.encode(d);
+    assertTrue(VnSaveCodec.isBinary(bytes));
+    VnSaveData back = VnSaveCodec.decode(bytes);
+    assertSameSave(d, back);
+    assertEquals(Integer.class, back.getVariables().get("count").getClass());
+    assertEquals(Long.class, back.getVariables().get("big").getClass());
+    assertEquals(Float.class, back.getVariables().get("ratio").getClass());
+    assertTrue(bytes.length * 3 < legacyBytes(d).length, bytes.length + " vs " + legacyBytes(d).length);
+  }
+
+  @Test
+  public void rejectsNewerVersionsAndDamagedData() throws Exception {
+    byte[] bytes = VnSaveCodec.encode(sample(5, 10));
+    byte[] newer = bytes.clone();
+    newer[4] = (byte) (VnSaveCodec.VERSION + 1);
+    assertThrows(IOException.class, () -> VnSaveCodec.decode(newer));
+    for (int cut = 5; cut < bytes.length; cut += 7) {
+      byte[] truncated = Arrays.copyOf(bytes, cut);
+      assertThrows(IOException.class, () -> VnSaveCodec.decode(truncated), "cut at " + cut);
+    }
+    assertThrows(IOException.class, () -> VnSaveCodec.decode(new byte[]{1, 2, 3}));
+  }
+
+  static final class Custom implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+    final int value;
+    Custom(int value) { this.value = value; }
+  }
+
+  static final class Unregistered implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+  }
+
+  @Test
+  public void serializedValuesOnlyReadAllowedClasses() throws Exception {
+    VnSaveData d = sample(0, 0);
+    d.getVariables().put("custom", new Custom(7));
+    byte[] bytes = VnSaveCodec.encode(d);
+    assertThrows(java.io.InvalidClassException.class, () -> VnSaveCodec.decode(bytes), "not registered yet");
+    VnSaveCodec.allowVariableType(Custom.class);
+    assertEquals(7, ((Custom) VnSaveCodec.decode(bytes).getVariables().get("custom")).value);
+
+    d.getVariables().put("other", new Unregistered());
+    byte[] other = VnSaveCodec.encode(d);
+    assertThrows(java.io.InvalidClassException.class, () -> VnSaveCodec.decode(other));
+    d.getVariables().remove("other");
+    d.getVariables().put("file", new java.io.File("x"));
+    byte[] jdk = legacyBytes(d);
+    assertThrows(java.io.InvalidClassException.class, () -> VnSaveCodec.decode(jdk), "legacy saves are filtered too");
+
+    ByteArrayOutputStream notASave = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(notASave)) {
+      oos.writeObject(new HashMap<>(Map.of("a", 1)));
+    }
+    assertThrows(IOException.class, () -> VnSaveCodec.decode(notASave.toByteArray()));
+  }
+
+  @Test
+  public void readNodeIndexesAreBounded() throws Exception {
+    VnSaveData d = sample(0, 0);
+    java.util.BitSet read = new java.util.BitSet();
+    read.set(3);
+    read.set(VnSaveCodec.MAX_READ_NODES + 5);
+    read.set(Integer.MAX_VALUE - 1);
+    d.setReadNodeBits(read);
+    java.util.BitSet back = VnSaveCodec.decode(VnSaveCodec.encode(d)).getReadNodeBits();
+    assertEquals(1, back.cardinality());
+    assertTrue(back.get(3));
+
+    Set<Integer> legacy = new HashSet<>(Set.of(2, Integer.MAX_VALUE - 1));
+    d.setReadNodes(legacy);
+    assertEquals(java.util.BitSet.valueOf(new long[]{4}), VnSaveCodec.decode(legacyBytes(d)).getReadNodeBits());
+
+    // applying a save keeps only nodes that exist in the scenario
+    com.jvn.core.vn.VnScenario scenario = new com.jvn.core.vn.VnScenarioBuilder("bounded")
+        .dialogue("A", "one").dialogue("A", "two").end().build();
+    com.jvn.core.vn.VnState state = new com.jvn.core.vn.VnState();
+    state.setScenario(scenario);
+    java.util.BitSet many = new java.util.BitSet();
+    many.set(1);
+    many.set(scenario.getNodes().size());
+    many.set(1000);
+    d.setReadNodeBits(many);
+    d.setCurrentNodeIndex(0);
+    Path dir = Files.createTempDirectory("vn_codec_bounds");
+    new VnSaveManager(dir.toString()).applyToState(d, state);
+    assertEquals(java.util.BitSet.valueOf(new long[]{2}), state.getReadNodeBits());
+    assertEquals(3, many.cardinality(), "the save data itself is not changed");
+  }
+
+  @Test
+  public void legacySavesLoadAndMigrate() throws Exception {
+    Path dir = Files.createTempDirectory("vn_codec_legacy");
+    VnSaveData d = sample(5, 30);
+    Files.write(dir.resolve("old.sav"), legacyBytes(d));
+    VnSaveManager mgr = new VnSaveManager(dir.toString());
+    assertSameSave(d, mgr.load("old"));
+
+    assertEquals(1, mgr.migrateLegacySaves());
+    assertTrue(VnSaveCodec.isBinary(Files.readAllBytes(dir.resolve("old.sav"))));
+    assertSameSave(d, mgr.load("old"));
+    assertEquals(d.getSaveTimestamp(), mgr.getSaveMetadata("old").getSaveTimestamp());
+    assertEquals(0, mgr.migrateLegacySaves());
+  }
+}
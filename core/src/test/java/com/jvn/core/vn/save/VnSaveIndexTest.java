@@ -0,0 +1,95 @@
+package com.jvn.core.vn.save;
+
+import com.jvn.core.menu.LoadMenuScene;
+import com.jvn.core.vn.VnScenario;
+import com.jvn.core.vn.VnScenarioBuilder;
+import com.jvn.core.vn.VnState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VnSaveIndexTest {
+
+  private static VnState stateAt(int node) {
+    VnScenario scenario = new VnScenarioBuilder("index_story")
+        .addBackground("room", "game/images/bg_room.png")
+        .background("room")
+        .dialogue("A", "one")
+        .dialogue("A", "two")
+        .end()
+        .build();
+    VnState state = new VnState();
+    state.setScenario(scenario);
+    state.setCurrentBackgroundId("room");
+    state.setCurrentNodeIndex(node);
+    return state;
+  }
+
+  @Test
+  public void listingReadsOnlySavesChangedElsewhere() throws Exception {
+    Path dir = Files.createTempDirectory("vn_index_test");
+    VnSaveManager mgr = new VnSaveManager(dir.toString());
+    for (int i = 0; i < 3; i++) {
+      mgr.save(stateAt(i), "slot" + i);
+      Thread.sleep(5);
+    }
+    List<VnSaveMetadata> list = mgr.listSaveMetadata();
+    assertEquals(List.of("slot2", "slot1", "slot0"), list.stream().map(VnSaveMetadata::getName).toList());
+    assertEquals(1, list.get(1).getNodeIndex());
+    assertEquals("index_story", list.get(1).getScenarioId());
+    assertEquals("room", list.get(1).getBackgroundId());
+    assertEquals(0, mgr.getIndexReads(), "own saves are indexed when written");
+
+    VnSaveManager other = new VnSaveManager(dir.toString());
+    assertEquals(3, other.listSaveMetadata().size());
+    assertEquals(0, other.getIndexReads(), "the index file is trusted while files are unchanged");
+
+    Thread.sleep(20);
+    other.save(stateAt(2), "slot0");
+    other.deleteSave("slot1");
+    list = mgr.listSaveMetadata();
+    assertEquals(List.of("slot0", "slot2"), list.stream().map(VnSaveMetadata::getName).toList());
+    assertEquals(2, list.get(0).getNodeIndex());
+    assertEquals(1, mgr.getIndexReads(), "only the rewritten save is read");
+
+    assertTrue(mgr.renameSave("slot2", "renamed"));
+    assertNull(mgr.getSaveMetadata("slot2"));
+    assertEquals(2, mgr.getSaveMetadata("renamed").getNodeIndex());
+
+    Files.write(dir.resolve(VnSaveIndex.FILE_NAME), new byte[]{1, 2, 3});
+    VnSaveManager fresh = new VnSaveManager(dir.toString());
+    assertEquals(2, fresh.listSaveMetadata().size());
+    assertEquals(2, fresh.getIndexReads(), "a damaged index is rebuilt from the saves");
+  }
+
+  @Test
+  public void loadMenuAnswersFromTheIndex() throws Exception {
+    Path dir = Files.createTempDirectory("vn_index_menu");
+    VnSaveManager mgr = new VnSaveManager(dir.toString());
+    mgr.save(stateAt(1), "old");
+    Thread.sleep(5);
+    mgr.save(stateAt(2), "new");
+    Files.write(dir.resolve("new.png"), new byte[]{0});
+
+    LoadMenuScene menu = new LoadMenuScene(null, mgr, null, null, null);
+    assertEquals(List.of("new", "old"), menu.getSaves());
+    assertNotNull(menu.getSelectedThumbnail());
+
+    // the menu does not go back to the files while it is shown
+    Files.delete(dir.resolve("new.sav"));
+    Files.delete(dir.resolve("new.png"));
+    assertEquals(Integer.valueOf(2), menu.getSelectedNodeIndex());
+    assertEquals("index_story", menu.getSelectedScenarioId());
+    assertNotNull(menu.getSelectedTimestamp());
+    menu.moveSelection(1);
+    assertEquals(Integer.valueOf(1), menu.getSelectedNodeIndex());
+    assertNull(menu.getSelectedThumbnail());
+
+    menu.refresh();
+    assertEquals(List.of("old"), menu.getSaves());
+  }
+}
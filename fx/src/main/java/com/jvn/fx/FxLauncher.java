@@ -3,6 +3,7 @@ package com.jvn.fx;
 import com.jvn.core.engine.Engine;
 // Note: Avoid importing com.jvn.core.scene.Scene to prevent name clash with javafx.scene.Scene
 import com.jvn.core.vn.VnScene;
+import com.jvn.core.vn.save.VnSaveManager;
 import com.jvn.core.menu.MainMenuScene;
 import com.jvn.core.menu.LoadMenuScene;
 import com.jvn.core.menu.SettingsScene;
@@ -11,11 +12,14 @@ import com.jvn.fx.vn.VnRenderer;
 import com.jvn.fx.menu.MenuRenderer;
 import com.jvn.core.scene2d.Scene2D;
 import com.jvn.fx.scene2d.FxBlitter2D;
+import com.jvn.core.scene2d.BatchingBlitter2D;
+import com.jvn.core.scene2d.GlyphAtlasBlitter2D;
 import com.jvn.core.scene2d.Scene2DBase;
 import com.jvn.core.graphics.Camera2D;
 import com.jvn.core.demo.Example2DScene;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 // no direct import of javafx.scene.Scene to avoid name clash; use fully qualified name
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseButton;
@@ -28,11 +32,9 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.embed.swing.SwingFXUtils;
-import javax.imageio.ImageIO;
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import javafx.scene.transform.Transform;
 
 public class FxLauncher extends Application {
   private static Engine engine;
@@ -42,6 +44,8 @@ public class FxLauncher extends Application {
   private VnRenderer vnRenderer;
   private MenuRenderer menuRenderer;
   private FxBlitter2D blitter2D;
+  private BatchingBlitter2D batch2D;
+  private GlyphAtlasBlitter2D text2D;
   private double mouseX = 0;
   private double mouseY = 0;
 
@@ -91,6 +95,11 @@ public class FxLauncher extends Application {
     this.vnRenderer = new VnRenderer(gc);
     this.menuRenderer = new MenuRenderer(gc);
     this.blitter2D = new FxBlitter2D(gc);
+    this.batch2D = new BatchingBlitter2D(blitter2D);
+    this.text2D = new GlyphAtlasBlitter2D(batch2D);
+    // atlases are rasterized in device pixels so text stays sharp on HiDPI screens
+    this.text2D.setDeviceScale(primaryStage.getRenderScaleX());
+    primaryStage.renderScaleXProperty().addListener((obs, ov, nv) -> this.text2D.setDeviceScale(nv.doubleValue()));
     scene.widthProperty().addListener((obs, ov, nv) -> this.canvas.setWidth(nv.doubleValue()));
     scene.heightProperty().addListener((obs, ov, nv) -> this.canvas.setHeight(nv.doubleValue()));
 
@@ -148,6 +157,9 @@ public class FxLauncher extends Application {
       } else if (e.getCode() == KeyCode.ESCAPE) {
         // ESC = Close history overlay if open
         if (!handleMenuBack()) handleCloseHistory();
+      } else if (e.getCode() == KeyCode.PAGE_UP) {
+        // PageUp = Roll back one step
+        handleRollback();
       } else if (e.getCode() == KeyCode.UP) {
         handleMenuMove(-1);
       } else if (e.getCode() == KeyCode.DOWN) {
@@ -166,7 +178,7 @@ public class FxLauncher extends Application {
         // F6 = Save menu (in-game)
         com.jvn.core.scene.Scene currentScene = engine.scenes().peek();
         if (currentScene instanceof VnScene vn) {
-          engine.scenes().push(new SaveMenuScene(engine, new com.jvn.core.vn.save.VnSaveManager(), vn));
+          engine.scenes().push(new SaveMenuScene(engine, new VnSaveManager(), vn));
         }
       } else if (e.getCode() == KeyCode.F10) {
         // F10 = Launch 2D demo scene (developer shortcut)
@@ -286,6 +298,8 @@ public class FxLauncher extends Application {
 
           // Check if current scene is a VN scene
           com.jvn.core.scene.Scene currentScene = engine != null ? engine.scenes().peek() : null;
+          // VN frames only redraw what changed, so anything else drawing here invalidates them
+          if (!(currentScene instanceof VnScene)) vnRenderer.invalidate();
           if (currentScene instanceof VnScene vnScene) {
             vnRenderer.render(vnScene.getState(), vnScene.getScenario(), w, h, mouseX, mouseY);
           } else if (currentScene instanceof Scene2D scene2D) {
@@ -294,7 +308,8 @@ public class FxLauncher extends Application {
               if (engine != null) s2db.setInput(engine.input());
               if (s2db.getCamera() == null) s2db.setCamera(new Camera2D());
             }
-            scene2D.render(blitter2D, w, h);
+            scene2D.render(text2D, w, h, engine != null ? engine.getInterpolationAlpha() : 1.0);
+            batch2D.endFrame();
           } else if (currentScene instanceof MainMenuScene main) {
             menuRenderer.renderMainMenu(main, w, h);
           } else if (currentScene instanceof LoadMenuScene load) {
@@ -325,6 +340,14 @@ public class FxLauncher extends Application {
     }
   }
 
+  private void handleRollback() {
+    if (engine == null) return;
+    com.jvn.core.scene.Scene currentScene = engine.scenes().peek();
+    if (currentScene instanceof VnScene) {
+      ((VnScene) currentScene).rollback();
+    }
+  }
+
   private void handleToggleSkip() {
     if (engine == null) return;
     com.jvn.core.scene.Scene currentScene = engine.scenes().peek();
@@ -354,12 +377,11 @@ public class FxLauncher extends Application {
     com.jvn.core.scene.Scene currentScene = engine.scenes().peek();
     if (currentScene instanceof VnScene) {
       VnScene vn = (VnScene) currentScene;
-      boolean success = vn.quickSave();
-      if (success) {
-        try { writeQuickSaveThumbnail(vn); } catch (Exception ignored) {}
-      }
-      // HUD toast
-      vn.getState().showHudMessage(success ? "Quick saved" : "Quick save failed", 1500);
+      // only the pixel capture happens here, encoding and writing run on the save writer thread
+      WritableImage thumb = captureThumbnail();
+      vn.quickSaveAsync(thumb != null ? () -> SwingFXUtils.fromFXImage(thumb, null) : null)
+        .thenAccept(success -> Platform.runLater(() ->
+          vn.getState().showHudMessage(success ? "Quick saved" : "Quick save failed", 1500)));
     }
   }
 
@@ -514,19 +536,18 @@ public class FxLauncher extends Application {
     return v;
   }
 
-  private void writeQuickSaveThumbnail(VnScene vnScene) {
+  /** Canvas contents scaled down to thumbnail size while snapshotting, so no full-size copy is made. */
+  private WritableImage captureThumbnail() {
     try {
-      var qsm = vnScene.getQuickSaveManager();
-      if (qsm == null) return;
-      String dir = qsm.getSaveDirectory();
-      String name = qsm.getQuickSaveSlotName();
-      if (dir == null || name == null || name.isBlank()) return;
-      Path d = Paths.get(dir);
-      Files.createDirectories(d);
-      File out = d.resolve(name + ".png").toFile();
-      var img = canvas.snapshot(null, null);
-      ImageIO.write(SwingFXUtils.fromFXImage(img, null), "png", out);
-    } catch (Exception ignored) {
+      double cw = canvas.getWidth(), ch = canvas.getHeight();
+      if (cw <= 0 || ch <= 0) return null;
+      double scale = Math.min(1.0, VnSaveManager.THUMBNAIL_WIDTH / cw);
+      SnapshotParameters params = new SnapshotParameters();
+      params.setTransform(Transform.scale(scale, scale));
+      WritableImage img = new WritableImage((int) Math.max(1, Math.round(cw * scale)), (int) Math.max(1, Math.round(ch * scale)));
+      return canvas.snapshot(params, img);
+    } catch (Exception e) {
+      return null;
     }
   }
 
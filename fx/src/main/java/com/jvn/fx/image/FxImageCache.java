@@ -0,0 +1,158 @@
+package com.jvn.fx.image;
+
+import com.jvn.core.assets.AssetCache;
+import javafx.scene.image.Image;
+
+import java.io.File;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one place JavaFX images are decoded and kept. Renderers share it so an image used by both
+ * the VN layer and a 2D scene is decoded once, and all of them together stay within one budget.
+ * Sizes are accounted as decoded 32-bit pixels.
+ */
+public final class FxImageCache {
+  /** Default budget: a quarter of the heap, at most 512 MB. */
+  public static final long DEFAULT_MAX_BYTES = Math.min(512L << 20, Runtime.getRuntime().maxMemory() / 4);
+
+  private static final FxImageCache SHARED = new FxImageCache(DEFAULT_MAX_BYTES);
+
+  private final AssetCache<Image> cache;
+  private final ExecutorService decoder;
+
+  public FxImageCache(long maxBytes) {
+    this.cache = new AssetCache<>(maxBytes, FxImageCache::sizeOf);
+    this.decoder = newDecoder();
+  }
+
+  /**
+   * Decoding is CPU and memory bound, so a couple of daemon threads with a short queue is enough;
+   * when the queue is full further prefetches are dropped and those images load on first use.
+   */
+  private static ExecutorService newDecoder() {
+    AtomicInteger n = new AtomicInteger();
+    int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+    ThreadPoolExecutor ex = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(32), r -> {
+      Thread t = new Thread(r, "jvn-image-decode-" + n.incrementAndGet());
+      t.setDaemon(true);
+      t.setPriority(Thread.NORM_PRIORITY - 1);
+      return t;
+    });
+    ex.allowCoreThreadTimeOut(true);
+    return ex;
+  }
+
+  public static FxImageCache shared() { return SHARED; }
+
+  /**
+   * Image for a classpath resource, or null if it does not exist or fails to decode. If a prefetch
+   * of it is still running this waits for that instead of decoding it a second time.
+   */
+  public Image get(String classpath) {
+    if (classpath == null || classpath.isBlank()) return null;
+    return cache.get(classpath, FxImageCache::load);
+  }
+
+  /** Decodes a classpath image in the background so a later {@link #get} finds it ready. */
+  public CompletableFuture<Image> prefetch(String classpath) {
+    if (classpath == null || classpath.isBlank()) return CompletableFuture.completedFuture(null);
+    return cache.prefetch(classpath, FxImageCache::load, decoder);
+  }
+
+  /**
+   * The image decoded straight to the given pixel size, for draws that always use the same size.
+   * Drawing it then needs no resampling, and the full-size original is never held. A width or
+   * height of 0 keeps the aspect ratio. Each size is its own entry, so after a resize the old
+   * variants age out of the cache.
+   */
+  public Image getScaled(String classpath, double width, double height) {
+    String key = scaledKey(classpath, width, height);
+    if (key == null) return null;
+    return cache.get(key, k -> loadScaled(classpath, width, height));
+  }
+
+  public CompletableFuture<Image> prefetchScaled(String classpath, double width, double height) {
+    String key = scaledKey(classpath, width, height);
+    if (key == null) return CompletableFuture.completedFuture(null);
+    return cache.prefetch(key, k -> loadScaled(classpath, width, height), decoder);
+  }
+
+  /** Cache key of a scaled variant, for pinning it; null if the arguments name no image. */
+  public static String scaledKey(String classpath, double width, double height) {
+    if (classpath == null || classpath.isBlank() || (pixels(width) == 0 && pixels(height) == 0)) return null;
+    return classpath + "@" + pixels(width) + "x" + pixels(height);
+  }
+
+  private static int pixels(double v) { return v > 0 ? Math.max(1, (int) Math.round(v)) : 0; }
+
+  /**
+   * Image for a file on disk. The modification time is part of the key, so a rewritten file is
+   * decoded again and the stale copy ages out of the cache.
+   */
+  public Image getFile(File file) {
+    if (file == null || !file.isFile()) return null;
+    return getFile(file, file.lastModified());
+  }
+
+  /** Like {@link #getFile(File)} with a modification time the caller already knows, so a hit does no I/O. */
+  public Image getFile(File file, long lastModified) {
+    if (file == null) return null;
+    String key = file.toURI() + "#" + lastModified;
+    return cache.get(key, k -> decode(file.toURI().toString(), file.getPath()));
+  }
+
+  /**
+   * Keeps an image rendered at runtime, such as an offscreen snapshot, under the same budget as
+   * decoded images. It is evicted like them when least recently used, so the owner has to check
+   * {@link #getRendered} and render it again when it is gone.
+   */
+  public void putRendered(String key, Image img) { cache.put(key, img); }
+
+  /** A rendered image still held, or null; counts as a use for eviction order. */
+  public Image getRendered(String key) { return key != null ? cache.peek(key) : null; }
+
+  public void removeRendered(String key) { cache.remove(key); }
+
+  public void pin(String classpath) { cache.pin(classpath); }
+  public void unpin(String classpath) { cache.unpin(classpath); }
+
+  /** The underlying cache, for budgets and hit/miss/eviction statistics. */
+  public AssetCache<Image> cache() { return cache; }
+
+  public static long sizeOf(Image img) {
+    return (long) Math.ceil(img.getWidth()) * (long) Math.ceil(img.getHeight()) * 4L;
+  }
+
+  private static Image load(String path) {
+    URL u = FxImageCache.class.getClassLoader().getResource(path);
+    return u != null ? decode(u.toExternalForm(), path) : null;
+  }
+
+  private static Image loadScaled(String path, double width, double height) {
+    URL u = FxImageCache.class.getClassLoader().getResource(path);
+    if (u == null) return null;
+    int w = pixels(width);
+    int h = pixels(height);
+    return decode(u.toExternalForm(), path, w, h);
+  }
+
+  private static Image decode(String url, String name) {
+    return decode(url, name, 0, 0);
+  }
+
+  private static Image decode(String url, String name, int width, int height) {
+    try {
+      Image img = width == 0 && height == 0 ? new Image(url) : new Image(url, width, height, width == 0 || height == 0, true);
+      return img.isError() ? null : img;
+    } catch (Exception e) {
+      System.err.println("Failed to load image: " + name);
+      return null;
+    }
+  }
+}
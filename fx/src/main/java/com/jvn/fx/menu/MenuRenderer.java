@@ -6,6 +6,8 @@ import com.jvn.core.menu.MainMenuScene;
 import com.jvn.core.menu.SaveMenuScene;
 import com.jvn.core.menu.SettingsScene;
 import com.jvn.core.vn.VnSettings;
+import com.jvn.fx.image.FxImageCache;
+import com.jvn.fx.text.FxText;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.image.Image;
@@ -52,8 +54,8 @@ public class MenuRenderer {
       String path = scene.getCurrentBackgroundPreviewPath();
       if (path != null) drawPreviewResource(path, w, h); else drawPreviewPlaceholder(w, h);
     } else {
-      File f = new File(scene.getSaveDirectory(), scene.getSelectedName() + ".png");
-      if (f.exists()) drawPreviewFile(f, w, h); else drawPreviewPlaceholder(w, h);
+      File f = scene.getSelectedThumbnail();
+      if (f != null) drawPreviewFile(f, scene.getSelectedMetadata().getThumbnailModified(), w, h); else drawPreviewPlaceholder(w, h);
       drawPreviewMetadata(null, scene.getSelectedTimestamp(), null, w, h);
     }
     drawHints(Localization.t("common.select") + ": Enter    " + Localization.t("common.back") + ": Esc    "
@@ -69,9 +71,9 @@ public class MenuRenderer {
       drawCenteredText(Localization.t("load.no_saves"), w, h/2, itemFont, Color.GRAY);
     } else {
       drawMenuList(saves.toArray(new String[0]), scene.getSelected(), w * 0.6, h);
-      File thumb = getThumbnailFile(scene);
+      File thumb = scene.getSelectedThumbnail();
       if (thumb != null) {
-        drawPreviewFile(thumb, w, h);
+        drawPreviewFile(thumb, scene.getSelectedMetadata().getThumbnailModified(), w, h);
       } else {
         String previewPath = scene.getSelectedPreviewImagePath();
         if (previewPath != null) {
@@ -172,9 +174,7 @@ public class MenuRenderer {
   }
 
   private double measure(String s, Font f) {
-    javafx.scene.text.Text t = new javafx.scene.text.Text(s);
-    t.setFont(f);
-    return t.getLayoutBounds().getWidth();
+    return FxText.width(s, f);
   }
 
   public int getHoverIndexForList(int count, double w, double h, double mouseX, double mouseY) {
@@ -189,28 +189,20 @@ public class MenuRenderer {
     return idx;
   }
 
-  private File getThumbnailFile(LoadMenuScene scene) {
-    String dir = scene.getSaveDirectory();
-    String name = scene.getSelectedName();
-    if (dir == null || name == null) return null;
-    File f = new File(dir, name + ".png");
-    return f.exists() ? f : null;
-  }
-
   private void drawPreviewResource(String path, double w, double h) {
     try {
-      var url = getClass().getClassLoader().getResource(path);
-      if (url == null) { drawPreviewPlaceholder(w, h); return; }
-      Image img = new Image(url.toExternalForm());
+      Image img = FxImageCache.shared().get(path);
+      if (img == null) { drawPreviewPlaceholder(w, h); return; }
       drawPreviewImage(img, w, h);
     } catch (Exception e) {
       drawPreviewPlaceholder(w, h);
     }
   }
 
-  private void drawPreviewFile(File file, double w, double h) {
+  private void drawPreviewFile(File file, long lastModified, double w, double h) {
     try {
-      Image img = new Image(file.toURI().toString());
+      Image img = FxImageCache.shared().getFile(file, lastModified);
+      if (img == null) { drawPreviewPlaceholder(w, h); return; }
       drawPreviewImage(img, w, h);
     } catch (Exception e) {
       drawPreviewPlaceholder(w, h);
@@ -1,24 +1,48 @@
 package com.jvn.fx.scene2d;
 
 import com.jvn.core.scene2d.Blitter2D;
+import com.jvn.fx.image.FxImageCache;
+import com.jvn.fx.text.FxText;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 
-import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
 
 public class FxBlitter2D implements Blitter2D {
-  private final GraphicsContext gc;
+  private GraphicsContext gc;
   private double viewportW = 0;
   private double viewportH = 0;
-  private final Map<String, Image> cache = new HashMap<>();
+  private final FxImageCache images;
+  // keys rendered offscreen; the snapshots themselves live in the image cache and share its budget
+  private final Set<String> offscreen = new HashSet<>();
+  private final Deque<OffscreenTarget> targets = new ArrayDeque<>();
+  private final SnapshotParameters snapshotParams = new SnapshotParameters();
+
+  private static class OffscreenTarget {
+    final String key;
+    final Canvas canvas;
+    final GraphicsContext parent;
+    OffscreenTarget(String key, Canvas canvas, GraphicsContext parent) {
+      this.key = key; this.canvas = canvas; this.parent = parent;
+    }
+  }
 
   public FxBlitter2D(GraphicsContext gc) {
+    this(gc, FxImageCache.shared());
+  }
+
+  public FxBlitter2D(GraphicsContext gc, FxImageCache images) {
     this.gc = gc;
+    this.images = images;
+    snapshotParams.setFill(Color.TRANSPARENT);
   }
 
   public void setViewport(double w, double h) {
@@ -50,8 +74,13 @@ public class FxBlitter2D implements Blitter2D {
 
   @Override
   public void setFont(String family, double size, boolean bold) {
-    String fam = (family == null || family.isBlank()) ? "Arial" : family;
-    gc.setFont(Font.font(fam, bold ? FontWeight.BOLD : FontWeight.NORMAL, size));
+    gc.setFont(FxText.font(family, size, bold));
+  }
+
+  @Override
+  public String getFontFamily() {
+    Font cur = gc.getFont();
+    return cur != null ? cur.getFamily() : null;
   }
 
   @Override
@@ -69,6 +98,11 @@ public class FxBlitter2D implements Blitter2D {
   @Override
   public void scale(double sx, double sy) { gc.scale(sx, sy); }
 
+  @Override
+  public void transform(double mxx, double myx, double mxy, double myy, double tx, double ty) {
+    gc.transform(mxx, myx, mxy, myy, tx, ty);
+  }
+
   @Override
   public void fillRect(double x, double y, double w, double h) { gc.fillRect(x, y, w, h); }
 
@@ -90,29 +124,64 @@ public class FxBlitter2D implements Blitter2D {
   @Override
   public void drawLine(double x1, double y1, double x2, double y2) { gc.strokeLine(x1, y1, x2, y2); }
 
+  @Override
+  public boolean beginOffscreen(String key, int width, int height) {
+    if (key == null || width <= 0 || height <= 0) return false;
+    Canvas canvas = new Canvas(width, height);
+    targets.push(new OffscreenTarget(key, canvas, gc));
+    gc = canvas.getGraphicsContext2D();
+    return true;
+  }
+
+  @Override
+  public void endOffscreen() {
+    OffscreenTarget t = targets.poll();
+    if (t == null) return;
+    gc = t.parent;
+    Image old = images.getRendered(t.key);
+    WritableImage reuse = old instanceof WritableImage ? (WritableImage) old : null;
+    if (reuse != null && (reuse.getWidth() != t.canvas.getWidth() || reuse.getHeight() != t.canvas.getHeight())) reuse = null;
+    images.putRendered(t.key, t.canvas.snapshot(snapshotParams, reuse));
+    offscreen.add(t.key);
+  }
+
+  @Override
+  public void releaseOffscreen(String key) {
+    if (offscreen.remove(key)) images.removeRendered(key);
+  }
+
+  @Override
+  public boolean hasOffscreen(String key) { return images.getRendered(key) != null; }
+
   @Override
   public void drawImage(String classpath, double x, double y, double w, double h) {
-    if (classpath == null || classpath.isBlank()) return;
-    Image img = cache.computeIfAbsent(classpath, this::loadImage);
+    Image img = image(classpath);
     if (img != null) gc.drawImage(img, x, y, w, h);
   }
 
   @Override
   public void drawImageRegion(String classpath, double sx, double sy, double sw, double sh,
                               double dx, double dy, double dw, double dh) {
-    if (classpath == null || classpath.isBlank()) return;
-    Image img = cache.computeIfAbsent(classpath, this::loadImage);
+    Image img = image(classpath);
     if (img != null) {
       gc.drawImage(img, sx, sy, sw, sh, dx, dy, dw, dh);
     }
   }
 
+  /** An offscreen key never falls through to a decode, even after its snapshot was evicted. */
+  private Image image(String classpath) {
+    if (classpath == null || classpath.isBlank()) return null;
+    if (offscreen.contains(classpath)) return images.getRendered(classpath);
+    return images.get(classpath);
+  }
+
   @Override
   public void drawText(String text, double x, double y, double size, boolean bold) {
     if (text == null) return;
     Font cur = gc.getFont();
     String fam = (cur != null && cur.getFamily() != null && !cur.getFamily().isBlank()) ? cur.getFamily() : "Arial";
-    gc.setFont(Font.font(fam, bold ? FontWeight.BOLD : FontWeight.NORMAL, size));
+    Font f = FxText.font(fam, size, bold);
+    if (f != cur) gc.setFont(f);
     gc.fillText(text, x, y);
   }
 
@@ -121,17 +190,7 @@ public class FxBlitter2D implements Blitter2D {
     if (text == null) return 0;
     Font cur = gc.getFont();
     String fam = (cur != null && cur.getFamily() != null && !cur.getFamily().isBlank()) ? cur.getFamily() : "Arial";
-    javafx.scene.text.Text t = new javafx.scene.text.Text(text);
-    t.setFont(Font.font(fam, bold ? FontWeight.BOLD : FontWeight.NORMAL, size));
-    return t.getLayoutBounds().getWidth();
-  }
-
-  private Image loadImage(String path) {
-    try {
-      URL u = getClass().getClassLoader().getResource(path);
-      if (u == null) return null;
-      return new Image(u.toExternalForm());
-    } catch (Exception e) { return null; }
+    return FxText.layoutEngine().width(text, fam, size, bold);
   }
 
   private double clamp01(double v) { return v < 0 ? 0 : (v > 1 ? 1 : v); }
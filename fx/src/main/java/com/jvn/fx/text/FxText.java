@@ -0,0 +1,61 @@
+package com.jvn.fx.text;
+
+import com.jvn.core.scene2d.TextLayoutEngine;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Text measurement shared by the JavaFX renderers. Glyph advances are measured once per font
+ * through a single reused {@link Text} node and layouts are cached, so wrapping dialogue does not
+ * create scene graph nodes every frame. Recently used fonts are shared too, so tweened sizes do not
+ * pile up. FX application thread only.
+ */
+public final class FxText {
+  private static final Text MEASURE = new Text();
+  private static final TextLayoutEngine LAYOUT = new TextLayoutEngine(FxText::measure);
+
+  private static final int MAX_FONTS = 64;
+
+  private static final Map<String, Font> FONTS = new LinkedHashMap<>(64, 0.75f, true) {
+    @Override protected boolean removeEldestEntry(Map.Entry<String, Font> eldest) { return size() > MAX_FONTS; }
+  };
+
+  private FxText() {}
+
+  /** Shared Font instance for the family, size and weight; a blank family means Arial. */
+  public static Font font(String family, double size, boolean bold) {
+    String fam = family == null || family.isBlank() ? "Arial" : family;
+    String key = fam + '|' + size + '|' + bold;
+    Font f = FONTS.get(key);
+    if (f == null) {
+      f = Font.font(fam, bold ? FontWeight.BOLD : FontWeight.NORMAL, size);
+      FONTS.put(key, f);
+    }
+    return f;
+  }
+
+  public static TextLayoutEngine layoutEngine() { return LAYOUT; }
+
+  public static TextLayoutEngine.Layout layout(String text, Font font, double maxWidth) {
+    return LAYOUT.layout(text, font.getFamily(), font.getSize(), isBold(font), maxWidth);
+  }
+
+  public static double width(String text, Font font) {
+    return LAYOUT.width(text, font.getFamily(), font.getSize(), isBold(font));
+  }
+
+  public static boolean isBold(Font font) {
+    String style = font.getStyle();
+    return style != null && style.toLowerCase().contains("bold");
+  }
+
+  private static double measure(String text, String family, double size, boolean bold) {
+    MEASURE.setText(text);
+    MEASURE.setFont(font(family, size, bold));
+    return MEASURE.getLayoutBounds().getWidth();
+  }
+}
@@ -2,30 +2,54 @@ package com.jvn.fx.vn;
 
 import com.jvn.core.vn.*;
 import com.jvn.core.localization.Localization;
+import com.jvn.core.scene2d.TextLayoutEngine;
+import com.jvn.fx.image.FxImageCache;
+import com.jvn.fx.text.FxText;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Renders visual novel elements using JavaFX Canvas
  */
 public class VnRenderer {
   private final GraphicsContext gc;
-  private final Map<String, Image> imageCache = new HashMap<>();
+  private final FxImageCache images;
+  private Set<String> pinned = new HashSet<>(); // images the last frame drew, kept resident
+  private Set<String> framePaths = new HashSet<>();
+  private int prefetchNodes = 12;
+  private VnScenario prefetchedScenario;
+  private int prefetchedIndex = -1;
+  private double prefetchedHeight;
+  private double prefetchedWidth;
+  // Canvas size images are decoded for. It follows the canvas once the size has held for
+  // RESIZE_SETTLE_MS, so a live resize draws the last decode stretched instead of decoding every frame.
+  private double decodeWidth;
+  private double decodeHeight;
+  private double decodeScaleX = 1;
+  private double decodeScaleY = 1;
+  private double lastWidth;
+  private double lastHeight;
+  private long sizeChangedAt;
   private final Font nameFont;
   private final Font dialogueFont;
   private final Font choiceFont;
+  private final VnFrameTracker frames = new VnFrameTracker();
+  private int lastDirty;
 
   // UI Layout constants
   private static final double TEXTBOX_HEIGHT_RATIO = 0.25;
+  private static final double SPRITE_HEIGHT_RATIO = 0.7;
   private static final double TEXTBOX_PADDING = 20;
   private static final double NAME_BOX_HEIGHT = 40;
+  private static final long RESIZE_SETTLE_MS = 200;
   private static final Color TEXTBOX_COLOR = Color.rgb(0, 0, 0, 0.8);
   private static final Color NAME_BOX_COLOR = Color.rgb(30, 30, 50, 0.9);
   private static final Color TEXT_COLOR = Color.WHITE;
@@ -33,7 +57,12 @@ public class VnRenderer {
   private static final Color CHOICE_HOVER_COLOR = Color.rgb(70, 70, 100, 0.9);
 
   public VnRenderer(GraphicsContext gc) {
+    this(gc, FxImageCache.shared());
+  }
+
+  public VnRenderer(GraphicsContext gc, FxImageCache images) {
     this.gc = gc;
+    this.images = images;
     this.nameFont = Font.font("Arial", FontWeight.BOLD, 18);
     this.dialogueFont = Font.font("Arial", FontWeight.NORMAL, 16);
     this.choiceFont = Font.font("Arial", FontWeight.NORMAL, 16);
@@ -44,7 +73,7 @@ public class VnRenderer {
     gc.fillRect(0, 0, width, height);
 
     gc.setFill(Color.WHITE);
-    gc.setFont(Font.font("Arial", FontWeight.NORMAL, 16));
+    gc.setFont(FxText.font("Arial", 16, false));
     double y = 40;
     int linesPerPage = (int) Math.max(1, (height - 120) / 28);
     java.util.List<VnHistory.HistoryEntry> list = state.getHistory().getEntries();
@@ -81,15 +110,129 @@ public class VnRenderer {
 
     // Hints
     gc.setFill(Color.rgb(220,220,220,0.9));
-    gc.setFont(Font.font("Arial", FontWeight.NORMAL, 14));
+    gc.setFont(FxText.font("Arial", 14, false));
     String hint = "Esc: Close    Up/Down: Scroll    PgUp/PgDn: Faster";
     gc.fillText(hint, 40, height - 30);
   }
 
   /**
-   * Render the complete VN scene
+   * Render the VN scene. Only the layers that changed since the previous call are redrawn; the
+   * canvas keeps its pixels elsewhere, so an idle screen draws nothing.
    */
   public void render(VnState state, VnScenario scenario, double width, double height) {
+    render(state, scenario, width, height, -1);
+  }
+
+  /**
+   * Render with mouse hover support for choices
+   */
+  public void render(VnState state, VnScenario scenario, double width, double height, double mouseX, double mouseY) {
+    int hoverIndex = -1;
+    VnNode currentNode = state.getCurrentNode();
+    if (currentNode != null && !state.isUiHidden() && currentNode.getType() == VnNodeType.CHOICE) {
+      hoverIndex = getHoveredChoiceIndex(currentNode.getChoices(), width, height, mouseX, mouseY);
+    }
+    render(state, scenario, width, height, hoverIndex);
+  }
+
+  /**
+   * How many upcoming nodes, counted across all branches of upcoming choices, to decode images for
+   * in the background. 0 disables prefetching.
+   */
+  public void setPrefetchNodes(int nodes) { this.prefetchNodes = Math.max(0, nodes); }
+  public int getPrefetchNodes() { return prefetchNodes; }
+
+  /** Forces a full redraw on the next frame; call after anything else has drawn on the canvas. */
+  public void invalidate() { frames.invalidate(); }
+
+  /** Layers redrawn by the last render, as {@link VnFrameTracker} flags; 0 if nothing changed. */
+  public int getLastDirty() { return lastDirty; }
+
+  private void render(VnState state, VnScenario scenario, double width, double height, int hoverIndex) {
+    long now = System.currentTimeMillis();
+    // decoding ahead for a size that is still changing would be thrown away
+    if (updateDecodeSize(width, height, now)) prefetch(scenario, state.getCurrentNodeIndex(), width, height);
+    int dirty = frames.update(state, width, height, hoverIndex, now);
+    lastDirty = dirty;
+    if (dirty == 0) return;
+    boolean clipped = (dirty & VnFrameTracker.SCREEN) == 0;
+    if (clipped) {
+      // Everything is drawn again bottom-up, but only inside the changed regions
+      gc.save();
+      gc.beginPath();
+      if ((dirty & VnFrameTracker.TEXTBOX) != 0) {
+        double textBoxY = height - height * TEXTBOX_HEIGHT_RATIO - NAME_BOX_HEIGHT;
+        clipRect(0, textBoxY, width, height - textBoxY);
+      }
+      if ((dirty & VnFrameTracker.CHOICES) != 0) {
+        VnNode node = state.getCurrentNode();
+        int count = node != null && node.getChoices() != null ? node.getChoices().size() : 0;
+        double choiceWidth = width * 0.6;
+        double totalHeight = count * 60;
+        clipRect((width - choiceWidth) / 2 - 2, (height - totalHeight) / 2 - 2, choiceWidth + 4, totalHeight + 4);
+      }
+      if ((dirty & VnFrameTracker.INDICATORS) != 0) clipRect(width - 120, 0, 120, 90);
+      if ((dirty & VnFrameTracker.HUD) != 0) clipRect(0, height * 0.1 - 4, width, 48);
+      gc.clip();
+    }
+    renderFrame(state, scenario, width, height, hoverIndex);
+    if (clipped) gc.restore();
+    updatePins();
+  }
+
+  /** Returns true once images are decoded for the current canvas size. */
+  private boolean updateDecodeSize(double width, double height, long now) {
+    if (width != lastWidth || height != lastHeight) {
+      lastWidth = width;
+      lastHeight = height;
+      sizeChangedAt = now;
+    }
+    boolean first = decodeWidth <= 0 || decodeHeight <= 0;
+    if ((decodeWidth != width || decodeHeight != height) && (first || now - sizeChangedAt >= RESIZE_SETTLE_MS)) {
+      decodeWidth = width;
+      decodeHeight = height;
+      // the stretched images on screen are replaced even if nothing else changes
+      if (!first) frames.invalidate();
+    }
+    decodeScaleX = width > 0 ? decodeWidth / width : 1;
+    decodeScaleY = height > 0 ? decodeHeight / height : 1;
+    return decodeWidth == width && decodeHeight == height;
+  }
+
+  private void prefetch(VnScenario scenario, int index, double width, double height) {
+    if (prefetchNodes == 0) return;
+    if (scenario == prefetchedScenario && index == prefetchedIndex && width == prefetchedWidth && height == prefetchedHeight) return;
+    prefetchedScenario = scenario;
+    prefetchedIndex = index;
+    prefetchedWidth = width;
+    prefetchedHeight = height;
+    VnLookahead.visitUpcoming(scenario, index, prefetchNodes, new VnLookahead.ImageVisitor() {
+      @Override public void background(String path) { images.prefetchScaled(path, width, height); }
+      @Override public void sprite(String path) { images.prefetchScaled(path, 0, height * SPRITE_HEIGHT_RATIO); }
+    });
+  }
+
+  /** Pins what this frame drew and releases what it no longer shows. */
+  private void updatePins() {
+    for (String p : framePaths) {
+      if (!pinned.contains(p)) images.pin(p);
+    }
+    for (String p : pinned) {
+      if (!framePaths.contains(p)) images.unpin(p);
+    }
+    Set<String> t = pinned;
+    pinned = framePaths;
+    framePaths = t;
+    framePaths.clear();
+  }
+
+  private void clipRect(double x, double y, double w, double h) {
+    // whole pixels, so the redrawn area does not blend with what was there
+    double x0 = Math.floor(x), y0 = Math.floor(y);
+    gc.rect(x0, y0, Math.ceil(x + w) - x0, Math.ceil(y + h) - y0);
+  }
+
+  private void renderFrame(VnState state, VnScenario scenario, double width, double height, int hoverIndex) {
     // Clear screen
     gc.setFill(Color.BLACK);
     gc.fillRect(0, 0, width, height);
@@ -128,7 +271,7 @@ public class VnRenderer {
           renderDialogue(currentNode.getDialogue(), state, width, height);
           break;
         case CHOICE:
-          renderChoices(currentNode.getChoices(), width, height, -1);
+          renderChoices(currentNode.getChoices(), width, height, hoverIndex);
           break;
         case BACKGROUND:
           break;
@@ -150,7 +293,7 @@ public class VnRenderer {
     // HUD message (toast)
     long now = System.currentTimeMillis();
     if (state.getHudMessage() != null && now < state.getHudMessageExpireAt()) {
-      gc.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+      gc.setFont(FxText.font("Arial", 16, true));
       gc.setFill(Color.rgb(0, 0, 0, 0.6));
       double boxW = Math.min(width * 0.6, 360);
       double boxH = 40;
@@ -163,22 +306,8 @@ public class VnRenderer {
     }
   }
 
-  /**
-   * Render with mouse hover support for choices
-   */
-  public void render(VnState state, VnScenario scenario, double width, double height, double mouseX, double mouseY) {
-    render(state, scenario, width, height);
-    
-    // Re-render choices with hover effect (if UI not hidden)
-    VnNode currentNode = state.getCurrentNode();
-    if (currentNode != null && !state.isUiHidden() && currentNode.getType() == VnNodeType.CHOICE) {
-      int hoverIndex = getHoveredChoiceIndex(currentNode.getChoices(), width, height, mouseX, mouseY);
-      renderChoices(currentNode.getChoices(), width, height, hoverIndex);
-    }
-  }
-
   private void renderBackground(VnBackground background, double width, double height) {
-    Image img = loadImage(background.getImagePath());
+    Image img = loadImage(background.getImagePath(), width, height);
     if (img != null) {
       gc.drawImage(img, 0, 0, width, height);
     } else {
@@ -186,7 +315,7 @@ public class VnRenderer {
       gc.setFill(Color.DARKSLATEGRAY);
       gc.fillRect(0, 0, width, height);
       gc.setFill(Color.WHITE);
-      gc.setFont(Font.font("Arial", FontWeight.BOLD, 24));
+      gc.setFont(FxText.font("Arial", 24, true));
       gc.fillText("No Background Image", 20, 40);
     }
   }
@@ -209,10 +338,10 @@ public class VnRenderer {
   }
 
   private void renderCharacterSprite(String imagePath, CharacterPosition position, double width, double height) {
-    Image img = loadImage(imagePath);
+    Image img = loadImage(imagePath, 0, height * SPRITE_HEIGHT_RATIO);
     if (img == null) {
       // Draw placeholder silhouette box
-      double spriteHeight = height * 0.7;
+      double spriteHeight = height * SPRITE_HEIGHT_RATIO;
       double spriteWidth = spriteHeight * 0.5;
       double x = switch (position) {
         case FAR_LEFT -> width * 0.05;
@@ -230,7 +359,7 @@ public class VnRenderer {
       return;
     }
 
-    double spriteHeight = height * 0.7; // Characters take up 70% of screen height
+    double spriteHeight = height * SPRITE_HEIGHT_RATIO; // decoded at this height already
     double spriteWidth = img.getWidth() * (spriteHeight / img.getHeight());
     
     double x = switch (position) {
@@ -270,9 +399,8 @@ public class VnRenderer {
     gc.setFont(dialogueFont);
     String fullText = dialogue.getText();
     int revealedLength = Math.min(state.getTextRevealProgress(), fullText.length());
-    String visibleText = fullText.substring(0, revealedLength);
-    
-    drawWrappedText(visibleText, TEXTBOX_PADDING, textBoxY + TEXTBOX_PADDING + 20, 
+
+    drawWrappedText(fullText, revealedLength, TEXTBOX_PADDING, textBoxY + TEXTBOX_PADDING + 20,
                     width - TEXTBOX_PADDING * 2, dialogueFont);
 
     // Draw continue indicator if text is fully revealed
@@ -312,7 +440,7 @@ public class VnRenderer {
 
   private void renderEnd(double width, double height) {
     gc.setFill(TEXT_COLOR);
-    gc.setFont(Font.font("Arial", FontWeight.BOLD, 32));
+    gc.setFont(FxText.font("Arial", 32, true));
     String text = "End";
     gc.fillText(text, width / 2 - 30, height / 2);
   }
@@ -338,14 +466,14 @@ public class VnRenderer {
     double alphaCur = Math.max(0, Math.min(1, progress));
     double alphaPrev = 1.0 - alphaCur;
     if (prev != null) {
-      Image imgPrev = loadImage(prev.getImagePath());
+      Image imgPrev = loadImage(prev.getImagePath(), width, height);
       if (imgPrev != null) {
         gc.setGlobalAlpha(alphaPrev);
         gc.drawImage(imgPrev, 0, 0, width, height);
       }
     }
     if (cur != null) {
-      Image imgCur = loadImage(cur.getImagePath());
+      Image imgCur = loadImage(cur.getImagePath(), width, height);
       if (imgCur != null) {
         gc.setGlobalAlpha(alphaCur);
         gc.drawImage(imgCur, 0, 0, width, height);
@@ -354,37 +482,20 @@ public class VnRenderer {
     gc.setGlobalAlpha(1.0);
   }
 
-  private void drawWrappedText(String text, double x, double y, double maxWidth, Font font) {
+  /**
+   * Wraps the whole line once (cached across frames) and draws its first {@code revealed}
+   * characters, so a word being typed out already sits on the line it will end up on.
+   */
+  private void drawWrappedText(String text, int revealed, double x, double y, double maxWidth, Font font) {
     gc.setFont(font);
-    String[] words = text.split(" ");
-    StringBuilder line = new StringBuilder();
-    double currentY = y;
+    TextLayoutEngine.Layout layout = FxText.layout(text, font, maxWidth);
     double lineHeight = 22;
-
-    for (String word : words) {
-      String testLine = line.length() == 0 ? word : line + " " + word;
-      double testWidth = computeTextWidth(testLine, font);
-      
-      if (testWidth > maxWidth && line.length() > 0) {
-        gc.fillText(line.toString(), x, currentY);
-        line = new StringBuilder(word);
-        currentY += lineHeight;
-      } else {
-        line = new StringBuilder(testLine);
-      }
-    }
-    
-    if (line.length() > 0) {
-      gc.fillText(line.toString(), x, currentY);
+    int lines = layout.visibleLineCount(revealed);
+    for (int i = 0; i < lines; i++) {
+      gc.fillText(layout.visiblePart(i, revealed), x, y + i * lineHeight);
     }
   }
 
-  private double computeTextWidth(String text, Font font) {
-    javafx.scene.text.Text helper = new javafx.scene.text.Text(text);
-    helper.setFont(font);
-    return helper.getLayoutBounds().getWidth();
-  }
-
   private void drawContinueIndicator(double x, double y) {
     gc.setFill(TEXT_COLOR);
     gc.fillPolygon(
@@ -413,25 +524,21 @@ public class VnRenderer {
     return -1;
   }
 
-  private Image loadImage(String path) {
-    if (path == null) return null;
-    
-    return imageCache.computeIfAbsent(path, p -> {
-      try {
-        // Try to load from classpath
-        var url = getClass().getClassLoader().getResource(p);
-        if (url != null) {
-          return new Image(url.toExternalForm());
-        }
-      } catch (Exception e) {
-        System.err.println("Failed to load image: " + path);
-      }
-      return null;
-    });
+  /**
+   * Backgrounds and sprites are always drawn at a size derived from the canvas, so they are decoded
+   * at that size; during a resize at the size derived from the last settled canvas instead.
+   */
+  private Image loadImage(String path, double width, double height) {
+    double w = width * decodeScaleX;
+    double h = height * decodeScaleY;
+    String key = FxImageCache.scaledKey(path, w, h);
+    if (key == null) return null;
+    framePaths.add(key);
+    return images.getScaled(path, w, h);
   }
 
   private void renderModeIndicators(VnState state, double width, double height) {
-    gc.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+    gc.setFont(FxText.font("Arial", 14, true));
     gc.setFill(Color.rgb(255, 255, 255, 0.9));
     
     double y = 25;
@@ -454,7 +561,11 @@ public class VnRenderer {
     }
   }
 
+  /** Releases this renderer's pins and drops every unpinned image from the shared cache. */
   public void clearCache() {
-    imageCache.clear();
+    for (String p : pinned) images.unpin(p);
+    pinned.clear();
+    images.cache().clear();
+    frames.invalidate();
   }
 }
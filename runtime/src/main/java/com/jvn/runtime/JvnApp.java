@@ -20,6 +20,7 @@ public class JvnApp {
     ApplicationConfig.Builder builder = ApplicationConfig.builder().title("JVN Runtime").width(960).height(540);
     String scriptName = "demo.vns"; // default script under game/scripts/
     String locale = "en";
+    long fixedStepMs = 0;
 
     for (int i = 0; i < args.length; i++) {
       String a = args[i];
@@ -39,6 +40,9 @@ public class JvnApp {
         case "--locale":
           if (i + 1 < args.length) locale = args[++i];
           break;
+        case "--fixed-step":
+          if (i + 1 < args.length) fixedStepMs = Long.parseLong(args[++i]);
+          break;
         default:
           log.warn("Unknown argument: {}", a);
       }
@@ -63,6 +67,7 @@ public class JvnApp {
     
     // Create engine and show main menu
     Engine engine = new Engine(cfg);
+    if (fixedStepMs > 0) engine.setFixedStep(fixedStepMs, 5);
     engine.start();
 
     VnSettings settingsModel = new VnSettings();